@@ -66,7 +66,9 @@ public class D2ClientBuilder
                   _config.fsBasePath,
                   _config.componentFactory,
                   transportClientFactories,
-                  _config.lbWithFacilitiesFactory);
+                  _config.lbWithFacilitiesFactory,
+                  _config.warmStart,
+                  _config.localZone);
 
     final LoadBalancerWithFacilities loadBalancer = loadBalancerFactory.create(cfg);
 
@@ -149,6 +151,26 @@ public class D2ClientBuilder
     return this;
   }
 
+  /**
+   * Keep a memory-mapped snapshot of the discovery state in the filesystem backup stores and
+   * serve from it as soon as the client starts, instead of waiting for ZooKeeper.
+   */
+  public D2ClientBuilder setWarmStart(boolean warmStart)
+  {
+    _config.warmStart = warmStart;
+    return this;
+  }
+
+  /**
+   * Sets the zone this client runs in. When set, the load balancer prefers servers which announced
+   * the same zone, and only spills over to other zones when the local ones are unhealthy.
+   */
+  public D2ClientBuilder setLocalZone(String localZone)
+  {
+    _config.localZone = localZone;
+    return this;
+  }
+
   private Map<String, TransportClientFactory> createDefaultTransportClientFactories()
   {
     final Map<String, TransportClientFactory> clientFactories = new HashMap<String, TransportClientFactory>();
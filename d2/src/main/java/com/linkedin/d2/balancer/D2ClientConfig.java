@@ -35,6 +35,8 @@ public class D2ClientConfig
   ZKFSTogglingLoadBalancerFactoryImpl.ComponentFactory componentFactory = null;
   Map<String, TransportClientFactory> clientFactories = null;
   LoadBalancerWithFacilitiesFactory lbWithFacilitiesFactory = null;
+  boolean warmStart = false;
+  String localZone = null;
 
   public D2ClientConfig()
   {
@@ -51,6 +53,41 @@ public class D2ClientConfig
                 ComponentFactory componentFactory,
                 Map<String, TransportClientFactory> clientFactories,
                 LoadBalancerWithFacilitiesFactory lbWithFacilitiesFactory)
+  {
+    this(zkHosts, zkSessionTimeoutInMs, zkStartupTimeoutInMs, lbWaitTimeout, lbWaitUnit, flagFile, basePath,
+         fsBasePath, componentFactory, clientFactories, lbWithFacilitiesFactory, false);
+  }
+
+  public D2ClientConfig(String zkHosts,
+                long zkSessionTimeoutInMs,
+                long zkStartupTimeoutInMs,
+                long lbWaitTimeout,
+                TimeUnit lbWaitUnit,
+                String flagFile,
+                String basePath,
+                String fsBasePath,
+                ComponentFactory componentFactory,
+                Map<String, TransportClientFactory> clientFactories,
+                LoadBalancerWithFacilitiesFactory lbWithFacilitiesFactory,
+                boolean warmStart)
+  {
+    this(zkHosts, zkSessionTimeoutInMs, zkStartupTimeoutInMs, lbWaitTimeout, lbWaitUnit, flagFile, basePath,
+         fsBasePath, componentFactory, clientFactories, lbWithFacilitiesFactory, warmStart, null);
+  }
+
+  public D2ClientConfig(String zkHosts,
+                long zkSessionTimeoutInMs,
+                long zkStartupTimeoutInMs,
+                long lbWaitTimeout,
+                TimeUnit lbWaitUnit,
+                String flagFile,
+                String basePath,
+                String fsBasePath,
+                ComponentFactory componentFactory,
+                Map<String, TransportClientFactory> clientFactories,
+                LoadBalancerWithFacilitiesFactory lbWithFacilitiesFactory,
+                boolean warmStart,
+                String localZone)
   {
     this.zkHosts = zkHosts;
     this.zkSessionTimeoutInMs = zkSessionTimeoutInMs;
@@ -63,6 +100,8 @@ public class D2ClientConfig
     this.componentFactory = componentFactory;
     this.clientFactories = clientFactories;
     this.lbWithFacilitiesFactory = lbWithFacilitiesFactory;
+    this.warmStart = warmStart;
+    this.localZone = localZone;
   }
 
 }
\ No newline at end of file
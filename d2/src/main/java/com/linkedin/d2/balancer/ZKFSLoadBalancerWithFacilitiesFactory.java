@@ -24,6 +24,7 @@ import com.linkedin.d2.balancer.strategies.LoadBalancerStrategyFactory;
 import com.linkedin.d2.balancer.strategies.degrader.DegraderLoadBalancerStrategyFactoryV2;
 import com.linkedin.d2.balancer.strategies.degrader.DegraderLoadBalancerStrategyFactoryV3;
 import com.linkedin.d2.balancer.strategies.random.RandomLoadBalancerStrategyFactory;
+import com.linkedin.d2.balancer.strategies.zoneaware.ZoneAwareLoadBalancerStrategyFactory;
 import com.linkedin.d2.balancer.zkfs.ZKFSComponentFactory;
 import com.linkedin.d2.balancer.zkfs.ZKFSLoadBalancer;
 import com.linkedin.d2.balancer.zkfs.ZKFSTogglingLoadBalancerFactoryImpl;
@@ -43,7 +44,8 @@ public class ZKFSLoadBalancerWithFacilitiesFactory implements LoadBalancerWithFa
                                     (int) config.zkStartupTimeoutInMs,
                                     createLoadBalancerFactory(config),
                                     config.flagFile,
-                                    config.basePath);
+                                    config.basePath,
+                                    config.warmStart);
   }
 
 
@@ -60,7 +62,7 @@ public class ZKFSLoadBalancerWithFacilitiesFactory implements LoadBalancerWithFa
     }
 
     final Map<String, LoadBalancerStrategyFactory<? extends LoadBalancerStrategy>> loadBalancerStrategyFactories =
-        createDefaultLoadBalancerStrategyFactories();
+        createDefaultLoadBalancerStrategyFactories(config.localZone);
 
     return new ZKFSTogglingLoadBalancerFactoryImpl(loadBalancerComponentFactory,
                                                    config.lbWaitTimeout,
@@ -68,10 +70,12 @@ public class ZKFSLoadBalancerWithFacilitiesFactory implements LoadBalancerWithFa
                                                    config.basePath,
                                                    config.fsBasePath,
                                                    config.clientFactories,
-                                                   loadBalancerStrategyFactories);
+                                                   loadBalancerStrategyFactories,
+                                                   "",
+                                                   config.warmStart);
   }
 
-  private Map<String, LoadBalancerStrategyFactory<? extends LoadBalancerStrategy>> createDefaultLoadBalancerStrategyFactories()
+  private Map<String, LoadBalancerStrategyFactory<? extends LoadBalancerStrategy>> createDefaultLoadBalancerStrategyFactories(String localZone)
   {
     final Map<String, LoadBalancerStrategyFactory<? extends LoadBalancerStrategy>> loadBalancerStrategyFactories =
         new HashMap<String, LoadBalancerStrategyFactory<? extends LoadBalancerStrategy>>();
@@ -85,6 +89,15 @@ public class ZKFSLoadBalancerWithFacilitiesFactory implements LoadBalancerWithFa
     loadBalancerStrategyFactories.put("degraderV2", degraderStrategyFactoryV2);
     loadBalancerStrategyFactories.put("degraderV3", degraderStrategyFactoryV3);
 
+    if (localZone != null)
+    {
+      for (Map.Entry<String, LoadBalancerStrategyFactory<? extends LoadBalancerStrategy>> entry :
+          loadBalancerStrategyFactories.entrySet())
+      {
+        entry.setValue(new ZoneAwareLoadBalancerStrategyFactory(localZone, entry.getValue()));
+      }
+    }
+
     return loadBalancerStrategyFactories;
   }
 
@@ -20,6 +20,7 @@ import com.linkedin.common.callback.Callback;
 import com.linkedin.common.util.None;
 import com.linkedin.d2.balancer.LoadBalancerClient;
 import com.linkedin.d2.balancer.properties.PartitionData;
+import com.linkedin.d2.balancer.properties.PropertyKeys;
 import com.linkedin.d2.balancer.util.LoadBalancerUtil;
 import com.linkedin.r2.RemoteInvocationException;
 import com.linkedin.r2.message.RequestContext;
@@ -66,6 +67,7 @@ public class TrackerClient implements LoadBalancerClient
   private final Map<Integer, PartitionState> _partitionStates;
   private final CallTracker     _callTracker;
   private final URI             _uri;
+  private final Map<String, Object> _uriSpecificProperties;
 
   public TrackerClient(URI uri, Map<Integer, PartitionData> partitionDataMap, TransportClient wrappedClient)
   {
@@ -74,8 +76,17 @@ public class TrackerClient implements LoadBalancerClient
 
   public TrackerClient(URI uri, Map<Integer, PartitionData> partitionDataMap, TransportClient wrappedClient,
                        Clock clock, Config config)
+  {
+    this(uri, partitionDataMap, Collections.<String, Object>emptyMap(), wrappedClient, clock, config);
+  }
+
+  public TrackerClient(URI uri, Map<Integer, PartitionData> partitionDataMap,
+                       Map<String, Object> uriSpecificProperties, TransportClient wrappedClient,
+                       Clock clock, Config config)
     {
       _uri = uri;
+      _uriSpecificProperties = uriSpecificProperties == null
+          ? Collections.<String, Object>emptyMap() : uriSpecificProperties;
       _wrappedClient = wrappedClient;
       _callTracker = new CallTrackerImpl(Time.milliseconds(5000), clock);
 
@@ -172,6 +183,20 @@ public class TrackerClient implements LoadBalancerClient
     return _uri;
   }
 
+  public Map<String, Object> getUriSpecificProperties()
+  {
+    return _uriSpecificProperties;
+  }
+
+  /**
+   * @return the zone announced for this uri, or null if the server did not announce one.
+   */
+  public String getZone()
+  {
+    Object zone = _uriSpecificProperties.get(PropertyKeys.URI_SPECIFIC_PROPERTIES_ZONE);
+    return zone == null ? null : zone.toString();
+  }
+
   @Override
   public String toString()
   {
@@ -96,6 +96,8 @@ public class PropertyKeys
   public static final String HTTP_LB_RING_RAMP_FACTOR = "http.loadBalancer.ringRampFactor";
   public static final String HTTP_LB_GLOBAL_STEP_UP = "http.loadBalancer.globalStepUp";
   public static final String HTTP_LB_GLOBAL_STEP_DOWN = "http.loadBalancer.globalStepDown";
+  public static final String HTTP_LB_BOUNDED_LOAD_EPSILON = "http.loadBalancer.boundedLoadEpsilon";
+  public static final String HTTP_LB_ZONE_AWARE_MIN_LOCAL_HEALTHY_RATIO = "http.loadBalancer.zoneAware.minLocalHealthyRatio";
 
   //used by cluster properties
   public static final String CLUSTER_NAME = "clusterName";
@@ -114,6 +116,10 @@ public class PropertyKeys
   public static final String FULL_CLUSTER_LIST = "fullClusterList";
   public static final String BANNED_URIS = "bannedUri";
 
+  //used by uri properties
+  public static final String URI_SPECIFIC_PROPERTIES = "uriSpecificProperties";
+  public static final String URI_SPECIFIC_PROPERTIES_ZONE = "zone";
+
   public static final String HTTP_REQUEST_TIMEOUT = HttpClientFactory.HTTP_REQUEST_TIMEOUT;
   public static final String HTTP_MAX_RESPONSE_SIZE = HttpClientFactory.HTTP_MAX_RESPONSE_SIZE;
   public static final String HTTP_POOL_SIZE = HttpClientFactory.HTTP_POOL_SIZE;
@@ -23,6 +23,7 @@ package com.linkedin.d2.balancer.servers;
 import com.linkedin.common.callback.Callback;
 import com.linkedin.common.util.None;
 import com.linkedin.d2.balancer.properties.PartitionData;
+import com.linkedin.d2.balancer.properties.PropertyKeys;
 import com.linkedin.d2.balancer.properties.UriProperties;
 import com.linkedin.d2.balancer.util.partitions.DefaultPartitionAccessor;
 import com.linkedin.d2.discovery.stores.zk.ZooKeeperEphemeralStore;
@@ -48,6 +49,7 @@ public class ZooKeeperAnnouncer
   private String _cluster;
   private URI _uri;
   private Map<Integer, PartitionData> _partitionDataMap;
+  private Map<String, Object> _uriSpecificProperties = Collections.emptyMap();
 
   public ZooKeeperAnnouncer(ZooKeeperServer server)
   {
@@ -89,7 +91,7 @@ public class ZooKeeperAnnouncer
 
   public void markUp(Callback<None> callback)
   {
-    _server.markUp(_cluster, _uri, _partitionDataMap, callback);
+    _server.markUp(_cluster, _uri, _partitionDataMap, _uriSpecificProperties, callback);
   }
 
   public void markDown(Callback<None> callback)
@@ -164,4 +166,26 @@ public class ZooKeeperAnnouncer
   {
     return _partitionDataMap;
   }
+
+  /**
+   * Sets metadata to announce along with the uri, e.g. the zone of this host under
+   * {@link PropertyKeys#URI_SPECIFIC_PROPERTIES_ZONE}.
+   */
+  public void setUriSpecificProperties(Map<String, Object> uriSpecificProperties)
+  {
+    _uriSpecificProperties =
+        Collections.unmodifiableMap(new HashMap<String, Object>(uriSpecificProperties));
+  }
+
+  public Map<String, Object> getUriSpecificProperties()
+  {
+    return _uriSpecificProperties;
+  }
+
+  public void setZone(String zone)
+  {
+    Map<String, Object> uriSpecificProperties = new HashMap<String, Object>(_uriSpecificProperties);
+    uriSpecificProperties.put(PropertyKeys.URI_SPECIFIC_PROPERTIES_ZONE, zone);
+    _uriSpecificProperties = Collections.unmodifiableMap(uriSpecificProperties);
+  }
 }
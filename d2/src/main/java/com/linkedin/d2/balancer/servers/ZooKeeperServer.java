@@ -75,6 +75,18 @@ public class
   @Override
   public void markUp(final String clusterName, final URI uri,
                      final Map<Integer, PartitionData> partitionDataMap, final Callback<None> callback)
+  {
+    markUp(clusterName, uri, partitionDataMap, Collections.<String, Object>emptyMap(), callback);
+  }
+
+  /**
+   * Same as {@link #markUp(String, URI, Map, Callback)}, but also announces metadata specific to this uri,
+   * such as the zone the host lives in, so that clients can make locality aware routing decisions.
+   */
+  public void markUp(final String clusterName, final URI uri,
+                     final Map<Integer, PartitionData> partitionDataMap,
+                     final Map<String, Object> uriSpecificProperties,
+                     final Callback<None> callback)
   {
     final Callback<None> doPutCallback = new Callback<None>()
     {
@@ -85,6 +97,12 @@ public class
             new HashMap<URI, Map<Integer, PartitionData>>();
         partitionDesc.put(uri, partitionDataMap);
 
+        Map<URI, Map<String, Object>> uriToUriSpecificProperties = new HashMap<URI, Map<String, Object>>();
+        if (!uriSpecificProperties.isEmpty())
+        {
+          uriToUriSpecificProperties.put(uri, uriSpecificProperties);
+        }
+
         if (_log.isInfoEnabled())
         {
           StringBuilder sb = new StringBuilder();
@@ -103,10 +121,15 @@ public class
             sb.append("]");
           }
           sb.append("}");
+          if (!uriSpecificProperties.isEmpty())
+          {
+            sb.append(", uriSpecificProperties: ");
+            sb.append(uriSpecificProperties);
+          }
           info(_log, sb);
         }
 
-        _store.put(clusterName, new UriProperties(clusterName, partitionDesc), callback);
+        _store.put(clusterName, new UriProperties(clusterName, partitionDesc, uriToUriSpecificProperties), callback);
 
       }
 
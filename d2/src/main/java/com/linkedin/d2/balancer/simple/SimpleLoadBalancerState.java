@@ -722,6 +722,7 @@ public class SimpleLoadBalancerState implements LoadBalancerState, ClientFactory
             TrackerClient client = getTrackerClient(discoveryProperties.getClusterName(),
                 uri,
                 discoveryProperties.getPartitionDataMap(uri),
+                discoveryProperties.getUriSpecificProperties().get(uri),
                 config);
 
             if (client != null)
@@ -899,6 +900,7 @@ public class SimpleLoadBalancerState implements LoadBalancerState, ClientFactory
           for (URI uri : uris)
           {
             TrackerClient trackerClient = getTrackerClient(clusterName, uri, uriProperties.getPartitionDataMap(uri),
+                                                           uriProperties.getUriSpecificProperties().get(uri),
                                                            config);
             if (trackerClient != null)
             {
@@ -1074,7 +1076,7 @@ public class SimpleLoadBalancerState implements LoadBalancerState, ClientFactory
   }
 
   private TrackerClient getTrackerClient(String clusterName, URI uri, Map<Integer, PartitionData> partitionDataMap,
-                                         DegraderImpl.Config config)
+                                         Map<String, Object> uriSpecificProperties, DegraderImpl.Config config)
   {
     Map<String,TransportClient> clientsByScheme = _clusterClients.get(clusterName);
     if (clientsByScheme == null)
@@ -1090,7 +1092,8 @@ public class SimpleLoadBalancerState implements LoadBalancerState, ClientFactory
           new Object[]{ clusterName, uri, partitionDataMap });
       return null;
     }
-    TrackerClient trackerClient = new TrackerClient(uri, partitionDataMap, client, SystemClock.instance(), config);
+    TrackerClient trackerClient = new TrackerClient(uri, partitionDataMap, uriSpecificProperties, client,
+                                                    SystemClock.instance(), config);
     return trackerClient;
   }
 
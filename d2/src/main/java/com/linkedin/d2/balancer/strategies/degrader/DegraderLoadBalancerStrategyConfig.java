@@ -60,6 +60,11 @@ public class DegraderLoadBalancerStrategyConfig
   private final double _globalStepUp;
   private final double _globalStepDown;
 
+  // When non-negative, enables "consistent hashing with bounded loads": a host is skipped when its
+  // outstanding call count would exceed (1 + boundedLoadEpsilon) times the average outstanding load,
+  // and the request goes to the next host on the ring instead. Negative values disable the bound.
+  private final double _boundedLoadEpsilon;
+
   public static final Clock DEFAULT_CLOCK = SystemClock.instance();
   public static final double DEFAULT_INITIAL_RECOVERY_LEVEL = 0.01;
   public static final double DEFAULT_RAMP_FACTOR = 1.0;
@@ -77,6 +82,9 @@ public class DegraderLoadBalancerStrategyConfig
   public static final double DEFAULT_GLOBAL_STEP_UP = 0.20;
   public static final double DEFAULT_GLOBAL_STEP_DOWN = 0.20;
 
+  // bounded loads are disabled by default, keeping plain consistent hashing
+  public static final double DEFAULT_BOUNDED_LOAD_EPSILON = -1d;
+
   public DegraderLoadBalancerStrategyConfig(long updateIntervalMs,
                                             double maxClusterLatencyWithoutDegrading)
   {
@@ -99,7 +107,8 @@ public class DegraderLoadBalancerStrategyConfig
          config.getHighWaterMark(),
          config.getLowWaterMark(),
          config.getGlobalStepUp(),
-         config.getGlobalStepDown());
+         config.getGlobalStepDown(),
+         config.getBoundedLoadEpsilon());
   }
 
   public DegraderLoadBalancerStrategyConfig(long updateIntervalMs,
@@ -115,6 +124,26 @@ public class DegraderLoadBalancerStrategyConfig
                                             double lowWaterMark,
                                             double globalStepUp,
                                             double globalStepDown)
+  {
+    this(updateIntervalMs, maxClusterLatencyWithoutDegrading, defaultSuccessfulTransmissionWeight, pointsPerWeight,
+         hashMethod, hashConfig, clock, initialRecoveryLevel, ringRampFactor, highWaterMark, lowWaterMark,
+         globalStepUp, globalStepDown, DEFAULT_BOUNDED_LOAD_EPSILON);
+  }
+
+  public DegraderLoadBalancerStrategyConfig(long updateIntervalMs,
+                                            double maxClusterLatencyWithoutDegrading,
+                                            double defaultSuccessfulTransmissionWeight,
+                                            int pointsPerWeight,
+                                            String hashMethod,
+                                            Map<String,Object> hashConfig,
+                                            Clock clock,
+                                            double initialRecoveryLevel,
+                                            double ringRampFactor,
+                                            double highWaterMark,
+                                            double lowWaterMark,
+                                            double globalStepUp,
+                                            double globalStepDown,
+                                            double boundedLoadEpsilon)
   {
     _updateIntervalMs = updateIntervalMs;
     _maxClusterLatencyWithoutDegrading = maxClusterLatencyWithoutDegrading;
@@ -129,6 +158,7 @@ public class DegraderLoadBalancerStrategyConfig
     _lowWaterMark = lowWaterMark;
     _globalStepUp = globalStepUp;
     _globalStepDown = globalStepDown;
+    _boundedLoadEpsilon = boundedLoadEpsilon;
   }
 
   private static <V> V getWithDefault(Map<String,Object> map, String oldKey, String httpKey, V defaultValue,
@@ -213,6 +243,9 @@ public class DegraderLoadBalancerStrategyConfig
     Double globalStepDown = getWithDefault(map, PropertyKeys.LB_GLOBAL_STEP_DOWN, PropertyKeys.HTTP_LB_GLOBAL_STEP_DOWN,
                                            DEFAULT_GLOBAL_STEP_DOWN, Double.class);
 
+    Double boundedLoadEpsilon = MapUtil.getWithDefault(map, PropertyKeys.HTTP_LB_BOUNDED_LOAD_EPSILON,
+                                                       DEFAULT_BOUNDED_LOAD_EPSILON, Double.class);
+
     @SuppressWarnings("unchecked")
     Map<String,Object> hashConfig = getWithDefault(map, PropertyKeys.LB_HASH_CONFIG,
                                                    PropertyKeys.HTTP_LB_HASH_CONFIG,
@@ -223,7 +256,7 @@ public class DegraderLoadBalancerStrategyConfig
         updateIntervalMs, maxClusterLatencyWithoutDegrading,
         defaultSuccessfulTransmissionWeight, pointsPerWeight, hashMethod, hashConfig,
         clock, initialRecoveryLevel, ringRampFactor, highWaterMark, lowWaterMark,
-        globalStepUp, globalStepDown);
+        globalStepUp, globalStepDown, boundedLoadEpsilon);
   }
 
   /**
@@ -270,6 +303,9 @@ public class DegraderLoadBalancerStrategyConfig
     Double globalStepDown = MapUtil.getWithDefault(map,
                                                    PropertyKeys.LB_GLOBAL_STEP_DOWN,
                                                    DEFAULT_GLOBAL_STEP_DOWN);
+    Double boundedLoadEpsilon = MapUtil.getWithDefault(map,
+                                                       PropertyKeys.HTTP_LB_BOUNDED_LOAD_EPSILON,
+                                                       DEFAULT_BOUNDED_LOAD_EPSILON);
 
     @SuppressWarnings("unchecked")
     Map<String,Object> hashConfig = (Map<String,Object>)map.get(PropertyKeys.LB_HASH_CONFIG);
@@ -282,7 +318,7 @@ public class DegraderLoadBalancerStrategyConfig
             updateIntervalMs, maxClusterLatencyWithoutDegrading,
             defaultSuccessfulTransmissionWeight, pointsPerWeight, hashMethod, hashConfig,
             clock, initialRecoveryLevel, ringRampFactor, highWaterMark, lowWaterMark,
-            globalStepUp, globalStepDown);
+            globalStepUp, globalStepDown, boundedLoadEpsilon);
   }
 
   // helper method to choose new value over old value and print log debug if both new value and old
@@ -390,6 +426,20 @@ public class DegraderLoadBalancerStrategyConfig
     return _globalStepDown;
   }
 
+  /**
+   * @return The allowed overload over the average outstanding load per host when hashing requests
+   *         to the ring, or a negative number if loads are not bounded.
+   */
+  public double getBoundedLoadEpsilon()
+  {
+    return _boundedLoadEpsilon;
+  }
+
+  public boolean isBoundedLoadEnabled()
+  {
+    return _boundedLoadEpsilon >= 0;
+  }
+
   @Override
   public String toString()
   {
@@ -397,6 +447,7 @@ public class DegraderLoadBalancerStrategyConfig
             + ", _lowWaterMark=" + _lowWaterMark + ", _initialRecoveryLevel=" + _initialRecoveryLevel
             + ", _ringRampFactor=" + _ringRampFactor + ", _globalStepUp=" + _globalStepUp
             + ", _globalStepDown=" + _globalStepDown + ", _pointsPerWeight=" + _pointsPerWeight
-            + ", _defaultTransmissionRate=" + _defaultSuccessfulTransmissionWeight + "]";
+            + ", _defaultTransmissionRate=" + _defaultSuccessfulTransmissionWeight
+            + ", _boundedLoadEpsilon=" + _boundedLoadEpsilon + "]";
   }
 }
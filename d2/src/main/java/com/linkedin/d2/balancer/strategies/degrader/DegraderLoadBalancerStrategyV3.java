@@ -34,8 +34,12 @@ import org.slf4j.LoggerFactory;
 import java.net.URI;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReferenceArray;
 
@@ -64,6 +68,7 @@ public class DegraderLoadBalancerStrategyV3 implements LoadBalancerStrategy
   private volatile DegraderLoadBalancerStrategyConfig _config;
   private volatile HashFunction<Request>              _hashFunction;
   private final DegraderLoadBalancerState _state;
+  private final ConcurrentMap<Integer, ClientsByUri> _clientsByUri = new ConcurrentHashMap<Integer, ClientsByUri>();
 
   public DegraderLoadBalancerStrategyV3(DegraderLoadBalancerStrategyConfig config,
                                         String serviceName)
@@ -103,6 +108,7 @@ public class DegraderLoadBalancerStrategyV3 implements LoadBalancerStrategy
 
     URI targetHostUri = KeyMapper.TargetHostHints.getRequestContextTargetHost(requestContext);
     URI hostHeaderUri = targetHostUri;
+    TrackerClient client = null;
 
     //no valid target host header was found in the request
     if (targetHostUri == null)
@@ -112,41 +118,54 @@ public class DegraderLoadBalancerStrategyV3 implements LoadBalancerStrategy
 
       // we operate only on URIs to ensure that we never hold on to an old tracker client
       // that the cluster manager has removed
-      Ring<URI> ring = _state.getRing(partitionId);
-      targetHostUri = (ring == null) ? null : ring.get(hashCode);
-
+      PartitionDegraderLoadBalancerState partitionState = _state.getPartitionState(partitionId);
+      Ring<URI> ring = partitionState.getRing();
+      DegraderLoadBalancerStrategyConfig config = getConfig();
+      if (ring instanceof ConsistentHashRing && config.isBoundedLoadEnabled())
+      {
+        @SuppressWarnings("unchecked")
+        Iterator<URI> ringIterator = ((ConsistentHashRing<URI>) ring).getIterator(hashCode);
+        client = getBoundedLoadTrackerClient(ringIterator, getClientsByUri(partitionId, trackerClients),
+                                             config.getBoundedLoadEpsilon());
+        targetHostUri = (client == null) ? null : client.getUri();
+      }
+      else
+      {
+        targetHostUri = (ring == null) ? null : ring.get(hashCode);
+      }
     }
     else
     {
       debug(_log, "Degrader honoring target host header in request, skipping hashing.  URI: " + targetHostUri.toString());
     }
 
-    TrackerClient client = null;
-
-    if (targetHostUri != null)
+    if (client == null)
     {
-      // These are the clients that were passed in, NOT necessarily the clients that make up the
-      // consistent hash ring! Therefore, this linear scan is the best we can do.
-      for (TrackerClient trackerClient : trackerClients)
+      if (targetHostUri != null)
       {
-        if (trackerClient.getUri().equals(targetHostUri))
+        // These are the clients that were passed in, NOT necessarily the clients that make up the
+        // consistent hash ring! Therefore, this linear scan is the best we can do.
+        for (TrackerClient trackerClient : trackerClients)
+        {
+          if (trackerClient.getUri().equals(targetHostUri))
+          {
+            client = trackerClient;
+            break;
+          }
+        }
+
+        if (client == null)
         {
-          client = trackerClient;
-          break;
+          warn(_log, "No client found for " + targetHostUri + (hostHeaderUri == null ?
+                  ", degrader load balancer state is inconsistent with cluster manager" :
+                  ", target host specified is no longer part of cluster"));
         }
       }
-
-      if (client == null)
+      else
       {
-        warn(_log, "No client found for " + targetHostUri + (hostHeaderUri == null ?
-                ", degrader load balancer state is inconsistent with cluster manager" :
-                ", target host specified is no longer part of cluster"));
+        warn(_log, "unable to find a URI to use");
       }
     }
-    else
-    {
-      warn(_log, "unable to find a URI to use");
-    }
 
     boolean dropCall = client == null;
 
@@ -167,6 +186,107 @@ public class DegraderLoadBalancerStrategyV3 implements LoadBalancerStrategy
     return (!dropCall) ? client : null;
   }
 
+  /**
+   * Consistent hashing with bounded loads: walks the ring from the point the request hashed to, and
+   * returns the first client whose outstanding call count is below (1 + epsilon) times the average
+   * outstanding count across the cluster, counting the request being routed. Hot keys therefore
+   * overflow to the next hosts on the ring rather than piling up on their owner, while other keys
+   * keep mapping to the same host as without the bound.
+   *
+   * The bound is at least one, so an idle owner is returned without looking at the other clients.
+   * Each host is checked once even though it has many points on the ring.
+   *
+   * @param clientsByUri the clients passed to this call, by uri
+   * @return the chosen client, or the first client on the ring if all of them are at capacity, or null if
+   *         none of the uris on the ring is in clientsByUri.
+   */
+  private static TrackerClient getBoundedLoadTrackerClient(Iterator<URI> ringIterator,
+                                                           Map<URI, TrackerClient> clientsByUri,
+                                                           double epsilon)
+  {
+    TrackerClient firstClient = null;
+    Map<TrackerClient, Boolean> visited = null;
+    double maxOutstanding = 0;
+    while (ringIterator.hasNext())
+    {
+      TrackerClient trackerClient = clientsByUri.get(ringIterator.next());
+      if (trackerClient == null)
+      {
+        continue;
+      }
+
+      int outstanding = trackerClient.getCallTracker().getCurrentConcurrency();
+      if (firstClient == null)
+      {
+        firstClient = trackerClient;
+        if (outstanding == 0)
+        {
+          return trackerClient;
+        }
+
+        long totalOutstanding = 0;
+        for (TrackerClient client : clientsByUri.values())
+        {
+          totalOutstanding += client.getCallTracker().getCurrentConcurrency();
+        }
+        maxOutstanding = Math.ceil((1 + epsilon) * (totalOutstanding + 1) / clientsByUri.size());
+        visited = new IdentityHashMap<TrackerClient, Boolean>();
+      }
+      else if (visited.containsKey(trackerClient))
+      {
+        continue;
+      }
+
+      if (outstanding < maxOutstanding)
+      {
+        if (trackerClient != firstClient)
+        {
+          debug(_log, "bounded load: ", firstClient, " is at capacity ", maxOutstanding, ", overflowing to ",
+                trackerClient);
+        }
+        return trackerClient;
+      }
+
+      visited.put(trackerClient, Boolean.TRUE);
+      if (visited.size() == clientsByUri.size())
+      {
+        break;
+      }
+    }
+    return firstClient;
+  }
+
+  /**
+   * Return the clients passed to {@link #getTrackerClient} by uri. The map is cached per partition
+   * for as long as the same list of clients is passed, so it is only built when the cluster changes.
+   */
+  private Map<URI, TrackerClient> getClientsByUri(int partitionId, List<TrackerClient> trackerClients)
+  {
+    ClientsByUri clientsByUri = _clientsByUri.get(partitionId);
+    if (clientsByUri == null || clientsByUri._trackerClients != trackerClients)
+    {
+      clientsByUri = new ClientsByUri(trackerClients);
+      _clientsByUri.put(partitionId, clientsByUri);
+    }
+    return clientsByUri._map;
+  }
+
+  private static class ClientsByUri
+  {
+    private final List<TrackerClient> _trackerClients;
+    private final Map<URI, TrackerClient> _map;
+
+    private ClientsByUri(List<TrackerClient> trackerClients)
+    {
+      _trackerClients = trackerClients;
+      _map = new HashMap<URI, TrackerClient>(trackerClients.size() * 2);
+      for (TrackerClient trackerClient : trackerClients)
+      {
+        _map.put(trackerClient.getUri(), trackerClient);
+      }
+    }
+  }
+
   /*
    * checkUpdatePartitionState
    *
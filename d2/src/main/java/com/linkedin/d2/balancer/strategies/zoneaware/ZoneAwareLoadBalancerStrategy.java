@@ -0,0 +1,267 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.d2.balancer.strategies.zoneaware;
+
+import com.linkedin.d2.balancer.clients.TrackerClient;
+import com.linkedin.d2.balancer.strategies.LoadBalancerStrategy;
+import com.linkedin.d2.balancer.util.hashing.Ring;
+import com.linkedin.r2.message.Request;
+import com.linkedin.r2.message.RequestContext;
+import com.linkedin.util.clock.Clock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.linkedin.d2.discovery.util.LogUtil.debug;
+import static com.linkedin.d2.discovery.util.LogUtil.info;
+
+/**
+ * A LoadBalancerStrategy that prefers the TrackerClients announced in the same zone as this client.
+ *
+ * Requests are handed to a single delegate strategy which only sees the local TrackerClients, as long
+ * as the local zone has enough healthy capacity. The health of the local zone is the weighted fraction
+ * of traffic its degraders are not dropping; once it falls below minLocalHealthyRatio, or if there are
+ * no local TrackerClients at all, requests spill over and the delegate sees every TrackerClient.
+ *
+ * The decision is made per partition and re-evaluated when the cluster generation changes or every
+ * updateIntervalMs. Only one delegate is used because strategies such as DegraderLoadBalancerStrategyV3
+ * keep per-partition overrides on the shared TrackerClients, which two delegates would overwrite. The
+ * delegate is given a generation id of its own that changes whenever the client list it sees changes,
+ * so that it rebuilds its state for the new list. Calls which the delegate drops are not retried in other
+ * zones; the drops lower the local healthy ratio, which makes the next update spill over.
+ */
+public class ZoneAwareLoadBalancerStrategy implements LoadBalancerStrategy
+{
+  private static final Logger _log = LoggerFactory.getLogger(ZoneAwareLoadBalancerStrategy.class);
+
+  private final String _serviceName;
+  private final String _localZone;
+  private final LoadBalancerStrategy _strategy;
+  private final double _minLocalHealthyRatio;
+  private final long _updateIntervalMs;
+  private final Clock _clock;
+  private final ConcurrentMap<Integer, ZoneState> _zoneStates;
+  private final AtomicLong _delegateGenerationId;
+
+  public ZoneAwareLoadBalancerStrategy(String serviceName,
+                                       String localZone,
+                                       LoadBalancerStrategy strategy,
+                                       double minLocalHealthyRatio,
+                                       long updateIntervalMs,
+                                       Clock clock)
+  {
+    _serviceName = serviceName;
+    _localZone = localZone;
+    _strategy = strategy;
+    _minLocalHealthyRatio = minLocalHealthyRatio;
+    _updateIntervalMs = updateIntervalMs;
+    _clock = clock;
+    _zoneStates = new ConcurrentHashMap<Integer, ZoneState>();
+    _delegateGenerationId = new AtomicLong();
+  }
+
+  @Override
+  public TrackerClient getTrackerClient(Request request,
+                                        RequestContext requestContext,
+                                        long clusterGenerationId,
+                                        int partitionId,
+                                        List<TrackerClient> trackerClients)
+  {
+    ZoneState state = getZoneState(clusterGenerationId, partitionId, trackerClients);
+    return _strategy.getTrackerClient(request, requestContext, state.getDelegateGenerationId(), partitionId,
+                                      state.isUseLocal() ? state.getLocalClients() : trackerClients);
+  }
+
+  @Override
+  public Ring<URI> getRing(long clusterGenerationId, int partitionId, List<TrackerClient> trackerClients)
+  {
+    ZoneState state = getZoneState(clusterGenerationId, partitionId, trackerClients);
+    return _strategy.getRing(state.getDelegateGenerationId(), partitionId,
+                             state.isUseLocal() ? state.getLocalClients() : trackerClients);
+  }
+
+  public String getLocalZone()
+  {
+    return _localZone;
+  }
+
+  public LoadBalancerStrategy getStrategy()
+  {
+    return _strategy;
+  }
+
+  /**
+   * @return true if requests for the given partition are currently routed to the local zone only.
+   */
+  public boolean isUsingLocalZone(int partitionId)
+  {
+    ZoneState state = _zoneStates.get(partitionId);
+    return state != null && state.isUseLocal();
+  }
+
+  private ZoneState getZoneState(long clusterGenerationId, int partitionId, List<TrackerClient> trackerClients)
+  {
+    long now = _clock.currentTimeMillis();
+    ZoneState oldState = _zoneStates.get(partitionId);
+    if (oldState != null && oldState.getClusterGenerationId() == clusterGenerationId
+        && now - oldState.getLastUpdated() < _updateIntervalMs)
+    {
+      return oldState;
+    }
+
+    // the local client list only changes with the cluster generation, so keep the same list instance
+    // around until then; the delegate strategy relies on that to keep its own per-generation state.
+    List<TrackerClient> localClients;
+    if (oldState != null && oldState.getClusterGenerationId() == clusterGenerationId)
+    {
+      localClients = oldState.getLocalClients();
+    }
+    else
+    {
+      localClients = getLocalClients(trackerClients);
+    }
+
+    double healthyRatio = getHealthyRatio(partitionId, localClients);
+    boolean useLocal = !localClients.isEmpty() && healthyRatio >= _minLocalHealthyRatio;
+
+    if (oldState == null || oldState.isUseLocal() != useLocal)
+    {
+      info(_log, "service ", _serviceName, " partition ", partitionId, useLocal ? " routing to zone " : " spilling over from zone ",
+           _localZone, ": ", localClients.size(), " of ", trackerClients.size(), " clients are local, local healthy ratio: ",
+           healthyRatio);
+    }
+    else
+    {
+      debug(_log, "service ", _serviceName, " partition ", partitionId, " local healthy ratio: ", healthyRatio);
+    }
+
+    // the delegate keeps its state as long as it is given the same clients
+    long delegateGenerationId;
+    if (oldState != null && oldState.getClusterGenerationId() == clusterGenerationId && oldState.isUseLocal() == useLocal)
+    {
+      delegateGenerationId = oldState.getDelegateGenerationId();
+    }
+    else
+    {
+      delegateGenerationId = _delegateGenerationId.incrementAndGet();
+    }
+
+    ZoneState newState = new ZoneState(clusterGenerationId, delegateGenerationId, now, localClients, useLocal);
+    _zoneStates.put(partitionId, newState);
+    return newState;
+  }
+
+  private List<TrackerClient> getLocalClients(List<TrackerClient> trackerClients)
+  {
+    if (_localZone == null)
+    {
+      return Collections.emptyList();
+    }
+
+    List<TrackerClient> localClients = new ArrayList<TrackerClient>();
+    for (TrackerClient client : trackerClients)
+    {
+      if (_localZone.equals(client.getZone()))
+      {
+        localClients.add(client);
+      }
+    }
+    return Collections.unmodifiableList(localClients);
+  }
+
+  /**
+   * @return the fraction of the local weight whose degraders are not dropping calls, between 0 and 1.
+   */
+  private static double getHealthyRatio(int partitionId, List<TrackerClient> localClients)
+  {
+    double totalWeight = 0;
+    double healthyWeight = 0;
+    for (TrackerClient client : localClients)
+    {
+      Double weight = client.getPartitionWeight(partitionId);
+      if (weight == null)
+      {
+        continue;
+      }
+      double dropRate = client.getDegraderControl(partitionId).getCurrentComputedDropRate();
+      totalWeight += weight;
+      healthyWeight += weight * (1.0 - dropRate);
+    }
+    return totalWeight > 0 ? healthyWeight / totalWeight : 0;
+  }
+
+  @Override
+  public String toString()
+  {
+    return "ZoneAwareLoadBalancerStrategy [_serviceName=" + _serviceName + ", _localZone=" + _localZone
+        + ", _minLocalHealthyRatio=" + _minLocalHealthyRatio + ", _strategy=" + _strategy + "]";
+  }
+
+  private static class ZoneState
+  {
+    private final long                _clusterGenerationId;
+    private final long                _delegateGenerationId;
+    private final long                _lastUpdated;
+    private final List<TrackerClient> _localClients;
+    private final boolean             _useLocal;
+
+    ZoneState(long clusterGenerationId,
+              long delegateGenerationId,
+              long lastUpdated,
+              List<TrackerClient> localClients,
+              boolean useLocal)
+    {
+      _clusterGenerationId = clusterGenerationId;
+      _delegateGenerationId = delegateGenerationId;
+      _lastUpdated = lastUpdated;
+      _localClients = localClients;
+      _useLocal = useLocal;
+    }
+
+    long getClusterGenerationId()
+    {
+      return _clusterGenerationId;
+    }
+
+    long getDelegateGenerationId()
+    {
+      return _delegateGenerationId;
+    }
+
+    long getLastUpdated()
+    {
+      return _lastUpdated;
+    }
+
+    List<TrackerClient> getLocalClients()
+    {
+      return _localClients;
+    }
+
+    boolean isUseLocal()
+    {
+      return _useLocal;
+    }
+  }
+}
@@ -0,0 +1,75 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.d2.balancer.strategies.zoneaware;
+
+import com.linkedin.common.util.MapUtil;
+import com.linkedin.d2.balancer.properties.PropertyKeys;
+import com.linkedin.d2.balancer.strategies.LoadBalancerStrategy;
+import com.linkedin.d2.balancer.strategies.LoadBalancerStrategyFactory;
+import com.linkedin.d2.balancer.strategies.degrader.DegraderLoadBalancerStrategyConfig;
+import com.linkedin.util.clock.Clock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+
+import static com.linkedin.d2.discovery.util.LogUtil.debug;
+
+/**
+ * Wraps another LoadBalancerStrategyFactory so that the strategies it creates prefer the
+ * TrackerClients announced in the given local zone.
+ */
+public class ZoneAwareLoadBalancerStrategyFactory implements
+    LoadBalancerStrategyFactory<ZoneAwareLoadBalancerStrategy>
+{
+  private static final Logger _log = LoggerFactory.getLogger(ZoneAwareLoadBalancerStrategyFactory.class);
+
+  public static final double DEFAULT_MIN_LOCAL_HEALTHY_RATIO = 0.5;
+
+  private final String _localZone;
+  private final LoadBalancerStrategyFactory<? extends LoadBalancerStrategy> _delegateFactory;
+
+  public ZoneAwareLoadBalancerStrategyFactory(String localZone,
+                                              LoadBalancerStrategyFactory<? extends LoadBalancerStrategy> delegateFactory)
+  {
+    _localZone = localZone;
+    _delegateFactory = delegateFactory;
+  }
+
+  @Override
+  public ZoneAwareLoadBalancerStrategy newLoadBalancer(String serviceName, Map<String, Object> strategyProperties)
+  {
+    debug(_log, "created a zone aware load balancer strategy for zone ", _localZone);
+
+    double minLocalHealthyRatio = MapUtil.getWithDefault(strategyProperties,
+                                                         PropertyKeys.HTTP_LB_ZONE_AWARE_MIN_LOCAL_HEALTHY_RATIO,
+                                                         DEFAULT_MIN_LOCAL_HEALTHY_RATIO, Double.class);
+    long updateIntervalMs = MapUtil.getWithDefault(strategyProperties,
+                                                   PropertyKeys.HTTP_LB_STRATEGY_PROPERTIES_UPDATE_INTERVAL_MS,
+                                                   DegraderLoadBalancerStrategyConfig.DEFAULT_UPDATE_INTERVAL_MS,
+                                                   Long.class);
+    Clock clock = MapUtil.getWithDefault(strategyProperties, PropertyKeys.CLOCK,
+                                         DegraderLoadBalancerStrategyConfig.DEFAULT_CLOCK, Clock.class);
+
+    return new ZoneAwareLoadBalancerStrategy(serviceName,
+                                             _localZone,
+                                             _delegateFactory.newLoadBalancer(serviceName, strategyProperties),
+                                             minLocalHealthyRatio,
+                                             updateIntervalMs,
+                                             clock);
+  }
+}
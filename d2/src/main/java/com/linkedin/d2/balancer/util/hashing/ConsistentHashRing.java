@@ -24,8 +24,11 @@ import java.nio.charset.Charset;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
@@ -157,6 +160,52 @@ public class ConsistentHashRing<T> implements Ring<T>
 
     debug(_log, "searching for hash in ring of size ", _ring.length, " using hash: ", key);
 
+    return _objects[getIndex(key)];
+  }
+
+  /**
+   * Returns an iterator over the objects in the ring, starting with the object that {@link #get(int)}
+   * would return for the key, and walking the ring clockwise from there. Every point is visited once,
+   * so objects with multiple points are returned multiple times.
+   */
+  public Iterator<T> getIterator(int key)
+  {
+    if (_objects.length <= 0)
+    {
+      return Collections.<T>emptyList().iterator();
+    }
+
+    final int start = getIndex(key);
+    return new Iterator<T>()
+    {
+      private int _visited = 0;
+
+      @Override
+      public boolean hasNext()
+      {
+        return _visited < _objects.length;
+      }
+
+      @Override
+      public T next()
+      {
+        if (!hasNext())
+        {
+          throw new NoSuchElementException();
+        }
+        return _objects[(start + _visited++) % _objects.length];
+      }
+
+      @Override
+      public void remove()
+      {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  private int getIndex(int key)
+  {
     int index = Arrays.binarySearch(_ring, key);
 
     // if the index is negative, then no exact match was found, and the search function is
@@ -166,7 +215,7 @@ public class ConsistentHashRing<T> implements Ring<T>
       index = Math.abs(index + 1);
     }
 
-    return _objects[index % _objects.length];
+    return index % _objects.length;
   }
 
   public Set<Point<T>> getPoints()
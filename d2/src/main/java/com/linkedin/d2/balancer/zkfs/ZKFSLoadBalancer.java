@@ -81,6 +81,7 @@ public class ZKFSLoadBalancer
   private volatile long _delayedExecution;
   private final ScheduledExecutorService _executor;
   private final KeyMapper _keyMapper;
+  private final boolean _warmStart;
 
   /**
    * The current ZooKeeper connection.  May be in the process of starting.
@@ -117,6 +118,32 @@ public class ZKFSLoadBalancer
                           TogglingLoadBalancerFactory factory,
                           String zkFlagFile,
                           String basePath)
+  {
+    this(zkConnectString, sessionTimeout, initialZKTimeout, factory, zkFlagFile, basePath, false);
+  }
+
+  /**
+   *
+   * @param zkConnectString Connect string listing ZK ensemble hosts in ZK format
+   * @param sessionTimeout timeout (in milliseconds) of ZK session
+   * @param initialZKTimeout initial timeout for connecting to ZK; if no connection is established
+   * within this time, falls back to backup stores
+   * @param factory Factory configured to create appropriate ZooKeeper session-specific
+   * LoadBalancer instances
+   * @param zkFlagFile if non-null, the path to a File whose existence is used as a flag
+   * to suppress the use of ZooKeeper stores.
+   * @param warmStart if true and the backup stores hold a non-empty snapshot, the backup stores
+   * are enabled as soon as the load balancer starts, so that requests are served from the last
+   * known discovery state without waiting for ZooKeeper; the ZooKeeper stores take over once the
+   * connection is established.  Without a snapshot, e.g. on first boot, startup waits for ZooKeeper.
+   */
+  public ZKFSLoadBalancer(String zkConnectString,
+                          int sessionTimeout,
+                          int initialZKTimeout,
+                          TogglingLoadBalancerFactory factory,
+                          String zkFlagFile,
+                          String basePath,
+                          boolean warmStart)
   {
     _connectString = zkConnectString;
     _sessionTimeout = sessionTimeout;
@@ -135,6 +162,7 @@ public class ZKFSLoadBalancer
     _executor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("D2 PropertyEventExecutor"));
     _keyMapper = new ConsistentHashKeyMapper(this);
     _delayedExecution = 1000;
+    _warmStart = warmStart;
   }
 
   public long getDelayedExecution()
@@ -205,7 +233,8 @@ public class ZKFSLoadBalancer
     // _currentLoadBalancer will never be null except the first time this method is called.
     // In this case we want the not-yet-started load balancer to service client requests.  In
     // all other cases, we service requests from the old LoadBalancer until the new one is started
-    if (_currentLoadBalancer == null)
+    final boolean firstStart = (_currentLoadBalancer == null);
+    if (firstStart)
     {
       _currentLoadBalancer = balancer;
     }
@@ -235,6 +264,18 @@ public class ZKFSLoadBalancer
       @Override
       public void innerRun()
       {
+        final boolean warmStarted = _warmStart && firstStart && hasBackupState();
+        if (_warmStart && firstStart && !warmStarted)
+        {
+          LOG.info("No discovery state in the backup stores to warm start from, waiting for ZooKeeper");
+        }
+        if (warmStarted)
+        {
+          // Serve from the backup stores right away; the ZK stores are enabled in the
+          // background once the connection is established.
+          LOG.info("Warm start, enabling backup stores until ZooKeeper is connected");
+          balancer.enableBackup(getStartupOrLoggerCallback());
+        }
         _zkConnection.addStateListener(new ZKListener(balancer));
         try
         {
@@ -242,10 +283,14 @@ public class ZKFSLoadBalancer
         }
         catch (Exception e)
         {
+          if (warmStarted)
+          {
+            // the backup stores are already enabled and the startup callback was consumed
+            LOG.error("Failed to start ZooKeeper (bad configuration?), staying on backup stores", e);
+            return;
+          }
           LOG.error("Failed to start ZooKeeper (bad configuration?), enabling backup stores", e);
-          Callback<None> startupCallback = _startupCallback.getAndSet(null);
-          // TODO this should never be null
-          balancer.enableBackup(startupCallback);
+          balancer.enableBackup(getStartupOrLoggerCallback());
           return;
         }
 
@@ -268,6 +313,12 @@ public class ZKFSLoadBalancer
     });
   }
 
+  private boolean hasBackupState()
+  {
+    return _loadBalancerFactory instanceof ZKFSTogglingLoadBalancerFactoryImpl
+        && ((ZKFSTogglingLoadBalancerFactoryImpl) _loadBalancerFactory).hasBackupState();
+  }
+
   /**
    * Get a {@link Directory} associated with this load balancer's ZooKeeper connection.  The
    * directory will not operate until the load balancer is started.  The directory is
@@ -37,11 +37,13 @@ import com.linkedin.d2.discovery.event.PropertyEventBus;
 import com.linkedin.d2.discovery.event.PropertyEventBusImpl;
 import com.linkedin.d2.discovery.event.PropertyEventThread;
 import com.linkedin.d2.discovery.stores.file.FileStore;
+import com.linkedin.d2.discovery.stores.file.SnapshotFileStore;
 import com.linkedin.d2.discovery.stores.toggling.TogglingPublisher;
 import com.linkedin.d2.discovery.stores.zk.ZKConnection;
 import com.linkedin.d2.discovery.stores.zk.ZooKeeperEphemeralStore;
 import com.linkedin.d2.discovery.stores.zk.ZooKeeperPermanentStore;
 import com.linkedin.d2.discovery.stores.zk.ZooKeeperPropertyMerger;
+import com.linkedin.d2.jmx.JmxManager;
 import com.linkedin.common.callback.Callback;
 import com.linkedin.r2.transport.common.TransportClientFactory;
 import com.linkedin.common.util.None;
@@ -70,6 +72,12 @@ public class ZKFSTogglingLoadBalancerFactoryImpl implements ZKFSLoadBalancer.Tog
   private final Map<String, TransportClientFactory> _clientFactories;
   private final Map<String, LoadBalancerStrategyFactory<? extends LoadBalancerStrategy>> _loadBalancerStrategyFactories;
   private final String _d2ServicePath;
+  private final boolean _useSnapshotStores;
+  private final JmxManager _jmxManager;
+  private final String _jmxPrefix;
+  private volatile boolean _hasBackupState;
+
+  private static final long SNAPSHOT_WRITE_DELAY_MS = 1000;
 
   private static final Logger _log = LoggerFactory.getLogger(ZKFSTogglingLoadBalancerFactoryImpl.class);
 
@@ -111,6 +119,69 @@ public class ZKFSTogglingLoadBalancerFactoryImpl implements ZKFSLoadBalancer.Tog
                                              Map<String, TransportClientFactory> clientFactories,
                                              Map<String, LoadBalancerStrategyFactory<? extends LoadBalancerStrategy>> loadBalancerStrategyFactories,
                                              String d2ServicePath)
+  {
+    this(factory, timeout, timeoutUnit,
+         baseZKPath, fsDir,
+         clientFactories, loadBalancerStrategyFactories,
+         d2ServicePath, false);
+  }
+
+  /**
+   *
+   * @param timeout Timeout for individual LoadBalancer operations
+   * @param timeoutUnit Unit for the timeout
+   * @param baseZKPath Path to the root ZNode where discovery information is stored
+   * @param fsDir Path to the root filesystem directory where backup file stores will live
+   * @param clientFactories Factory for transport clients
+   * @param loadBalancerStrategyFactories Factory for LoadBalancer strategies
+   * @param d2ServicePath  alternate service discovery znodes path, relative to baseZKPath.
+   *                       d2ServicePath is "services" if it is an empty string or null.
+   * @param useSnapshotStores if true, the backup stores keep all properties of a kind in a
+   *                          single memory-mapped {@link SnapshotFileStore} instead of one
+   *                          file per property, which makes them cheap to load at startup.
+   */
+  public ZKFSTogglingLoadBalancerFactoryImpl(ComponentFactory factory,
+                                             long timeout, TimeUnit timeoutUnit,
+                                             String baseZKPath, String fsDir,
+                                             Map<String, TransportClientFactory> clientFactories,
+                                             Map<String, LoadBalancerStrategyFactory<? extends LoadBalancerStrategy>> loadBalancerStrategyFactories,
+                                             String d2ServicePath,
+                                             boolean useSnapshotStores)
+  {
+    this(factory, timeout, timeoutUnit,
+         baseZKPath, fsDir,
+         clientFactories, loadBalancerStrategyFactories,
+         d2ServicePath, useSnapshotStores,
+         null, null);
+  }
+
+  /**
+   *
+   * @param timeout Timeout for individual LoadBalancer operations
+   * @param timeoutUnit Unit for the timeout
+   * @param baseZKPath Path to the root ZNode where discovery information is stored
+   * @param fsDir Path to the root filesystem directory where backup file stores will live
+   * @param clientFactories Factory for transport clients
+   * @param loadBalancerStrategyFactories Factory for LoadBalancer strategies
+   * @param d2ServicePath  alternate service discovery znodes path, relative to baseZKPath.
+   *                       d2ServicePath is "services" if it is an empty string or null.
+   * @param useSnapshotStores if true, the backup stores keep all properties of a kind in a
+   *                          single memory-mapped {@link SnapshotFileStore} instead of one
+   *                          file per property, which makes them cheap to load at startup.
+   * @param jmxManager if not null, the property event buses of each load balancer are
+   *                   registered with it, replacing those of the previous load balancer.
+   * @param jmxPrefix prefix of the names the property event buses are registered under, which
+   *                  must be unique among the factories that register with the same MBean server.
+   */
+  public ZKFSTogglingLoadBalancerFactoryImpl(ComponentFactory factory,
+                                             long timeout, TimeUnit timeoutUnit,
+                                             String baseZKPath, String fsDir,
+                                             Map<String, TransportClientFactory> clientFactories,
+                                             Map<String, LoadBalancerStrategyFactory<? extends LoadBalancerStrategy>> loadBalancerStrategyFactories,
+                                             String d2ServicePath,
+                                             boolean useSnapshotStores,
+                                             JmxManager jmxManager,
+                                             String jmxPrefix)
   {
     _factory = factory;
     _lbTimeout = timeout;
@@ -127,6 +198,9 @@ public class ZKFSTogglingLoadBalancerFactoryImpl implements ZKFSLoadBalancer.Tog
     {
       _d2ServicePath = d2ServicePath;
     }
+    _useSnapshotStores = useSnapshotStores;
+    _jmxManager = jmxManager;
+    _jmxPrefix = jmxPrefix;
   }
 
   @Override
@@ -140,13 +214,26 @@ public class ZKFSTogglingLoadBalancerFactoryImpl implements ZKFSLoadBalancer.Tog
     ZooKeeperEphemeralStore<UriProperties> zkUriRegistry =  createEphemeralStore(
             zkConnection, ZKFSUtil.uriPath(_baseZKPath), new UriPropertiesJsonSerializer(), new UriPropertiesMerger());
 
-    FileStore<ClusterProperties> fsClusterStore = createFileStore("clusters", new ClusterPropertiesJsonSerializer());
-    FileStore<ServiceProperties> fsServiceStore = createFileStore(_d2ServicePath, new ServicePropertiesJsonSerializer());
-    FileStore<UriProperties> fsUriStore = createFileStore("uris", new UriPropertiesJsonSerializer());
+    FileStore<ClusterProperties> fsClusterStore =
+        createBackupStore("clusters", new ClusterPropertiesJsonSerializer(), executorService);
+    FileStore<ServiceProperties> fsServiceStore =
+        createBackupStore(_d2ServicePath, new ServicePropertiesJsonSerializer(), executorService);
+    FileStore<UriProperties> fsUriStore =
+        createBackupStore("uris", new UriPropertiesJsonSerializer(), executorService);
 
-    PropertyEventBus<ClusterProperties> clusterBus = new PropertyEventBusImpl<ClusterProperties>(executorService);
-    PropertyEventBus<ServiceProperties> serviceBus = new PropertyEventBusImpl<ServiceProperties>(executorService);
-    PropertyEventBus<UriProperties> uriBus = new PropertyEventBusImpl<UriProperties>(executorService);
+    _hasBackupState = hasBackupState(fsClusterStore) && hasBackupState(fsServiceStore) && hasBackupState(fsUriStore);
+
+    PropertyEventBusImpl<ClusterProperties> clusterBus = new PropertyEventBusImpl<ClusterProperties>(executorService);
+    PropertyEventBusImpl<ServiceProperties> serviceBus = new PropertyEventBusImpl<ServiceProperties>(executorService);
+    PropertyEventBusImpl<UriProperties> uriBus = new PropertyEventBusImpl<UriProperties>(executorService);
+
+    if (_jmxManager != null)
+    {
+      // Expose queue depth and coalescing counts; a reconnect replaces the beans of the previous buses.
+      _jmxManager.registerPropertyEventBus(_jmxPrefix + "-ClusterPropertyEventBus", clusterBus)
+          .registerPropertyEventBus(_jmxPrefix + "-ServicePropertyEventBus", serviceBus)
+          .registerPropertyEventBus(_jmxPrefix + "-UriPropertyEventBus", uriBus);
+    }
 
     // This ensures the filesystem store receives the events from the event bus so that
     // it can keep a local backup.
@@ -185,6 +272,21 @@ public class ZKFSTogglingLoadBalancerFactoryImpl implements ZKFSLoadBalancer.Tog
     return togLB;
   }
 
+  /**
+   * @return true if the backup stores of the last load balancer created by this factory held
+   *         discovery state when they were created, i.e. a non-empty snapshot of each kind of
+   *         property, which the load balancer can be warm started from.
+   */
+  public boolean hasBackupState()
+  {
+    return _hasBackupState;
+  }
+
+  private static boolean hasBackupState(FileStore<?> store)
+  {
+    return store instanceof SnapshotFileStore && ((SnapshotFileStore<?>) store).size() > 0;
+  }
+
   protected <T> ZooKeeperPermanentStore<T> createPermanentStore(ZKConnection zkConnection, String nodePath, PropertySerializer<T> serializer)
   {
     ZooKeeperPermanentStore<T> store = new ZooKeeperPermanentStore<T>(zkConnection, serializer, nodePath);
@@ -197,6 +299,25 @@ public class ZKFSTogglingLoadBalancerFactoryImpl implements ZKFSLoadBalancer.Tog
     return store;
   }
 
+  private <T> FileStore<T> createBackupStore(String baseName,
+                                             PropertySerializer<T> serializer,
+                                             ScheduledExecutorService executorService)
+  {
+    if (_useSnapshotStores)
+    {
+      return createSnapshotFileStore(baseName, serializer, executorService);
+    }
+    return createFileStore(baseName, serializer);
+  }
+
+  protected <T> SnapshotFileStore<T> createSnapshotFileStore(String baseName,
+                                                             PropertySerializer<T> serializer,
+                                                             ScheduledExecutorService executorService)
+  {
+    return new SnapshotFileStore<T>(_fsDir + File.separator + baseName, serializer,
+                                    executorService, SNAPSHOT_WRITE_DELAY_MS);
+  }
+
   protected <T> FileStore<T> createFileStore(String baseName, PropertySerializer<T> serializer)
   {
     FileStore<T> store = new FileStore<T>(_fsDir + File.separator + baseName, ".ini", serializer);
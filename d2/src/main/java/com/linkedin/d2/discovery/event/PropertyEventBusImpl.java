@@ -28,6 +28,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 
 /**
@@ -42,12 +44,16 @@ public class PropertyEventBusImpl<T> implements PropertyEventBus<T>
   private final Map<String,T> _properties = new HashMap<String,T>();
   private final Map<String,List<PropertyEventSubscriber<T>>> _subscribers = new HashMap<String,List<PropertyEventSubscriber<T>>>();
   private final List<PropertyEventSubscriber<T>> _allPropertySubscribers = new ArrayList<PropertyEventSubscriber<T>>();
+  private final Map<String,PendingAdd> _pendingAdds = new HashMap<String,PendingAdd>();
 
   /*
    * Concurrency considerations:
    *
    * All data structures are unsynchronized. They are manipulated only by tasks submitted
    * to the executor, which is assumed to be single-threaded.
+   *
+   * The exception is _pendingAdds, which is guarded by itself: it is updated by the publishing
+   * threads and drained by the tasks.
    */
   @Deprecated
   public PropertyEventBusImpl(PropertyEventThread thread)
@@ -191,6 +197,7 @@ public class PropertyEventBusImpl<T> implements PropertyEventBus<T>
   @Override
   public void publishInitialize(final String prop, final T value)
   {
+    closePendingAdd(prop);
     _thread.send(new PropertyEvent("PropertyEventBus.publishInitialize " + prop)
     {
       public void innerRun()
@@ -216,29 +223,35 @@ public class PropertyEventBusImpl<T> implements PropertyEventBus<T>
     });
   }
 
+  /**
+   * Adds for the same property which are published while a previous add for it is still
+   * waiting to be processed are coalesced into the pending add, so subscribers only see the
+   * latest value once instead of every intermediate value.  Initializations and removals are
+   * never coalesced, and an add is never reordered with respect to them.
+   */
   @Override
   public void publishAdd(final String prop, final T value)
   {
-    _thread.send(new PropertyEvent("PropertyEventBus.publishAdd " + prop)
+    PendingAdd pendingAdd;
+    synchronized (_pendingAdds)
     {
-      public void innerRun()
+      pendingAdd = _pendingAdds.get(prop);
+      if (pendingAdd != null)
       {
-        // Ignore unless the property has been initialized
-        if (_properties.containsKey(prop))
-        {
-          _properties.put(prop, value);
-          for (final PropertyEventSubscriber<T> subscriber : subscribers(prop))
-          {
-            subscriber.onAdd(prop, value);
-          }
-        }
+        pendingAdd._value = value;
+        _thread.coalesced();
+        return;
       }
-    });
+      pendingAdd = new PendingAdd(prop, value);
+      _pendingAdds.put(prop, pendingAdd);
+    }
+    _thread.send(pendingAdd);
   }
 
   @Override
   public void publishRemove(final String prop)
   {
+    closePendingAdd(prop);
     _thread.send(new PropertyEvent("PropertyEventBus.publishRemove " + prop)
     {
       public void innerRun()
@@ -256,6 +269,18 @@ public class PropertyEventBusImpl<T> implements PropertyEventBus<T>
     });
   }
 
+  /**
+   * Stops further adds from being coalesced into the pending add of the property, so that
+   * they are processed after the event which is about to be sent.
+   */
+  private void closePendingAdd(String prop)
+  {
+    synchronized (_pendingAdds)
+    {
+      _pendingAdds.remove(prop);
+    }
+  }
+
   private List<PropertyEventSubscriber<T>> subscribers(String prop)
   {
     List<PropertyEventSubscriber<T>> subscribers = _subscribers.get(prop);
@@ -283,9 +308,57 @@ public class PropertyEventBusImpl<T> implements PropertyEventBus<T>
     return _publisher;
   }
 
+  /**
+   * @return the thread processing the events of this bus, e.g. for monitoring through
+   * {@link com.linkedin.d2.jmx.PropertyEventThreadJmx}
+   */
+  public PropertyEventThread getPropertyEventThread()
+  {
+    return _thread;
+  }
+
+  private class PendingAdd extends PropertyEvent
+  {
+    private final String _prop;
+    private T _value;
+
+    private PendingAdd(String prop, T value)
+    {
+      super("PropertyEventBus.publishAdd " + prop);
+      _prop = prop;
+      _value = value;
+    }
+
+    @Override
+    public void innerRun()
+    {
+      T value;
+      synchronized (_pendingAdds)
+      {
+        if (_pendingAdds.get(_prop) == this)
+        {
+          _pendingAdds.remove(_prop);
+        }
+        value = _value;
+      }
+
+      // Ignore unless the property has been initialized
+      if (_properties.containsKey(_prop))
+      {
+        _properties.put(_prop, value);
+        for (final PropertyEventSubscriber<T> subscriber : subscribers(_prop))
+        {
+          subscriber.onAdd(_prop, value);
+        }
+      }
+    }
+  }
+
   private class PropertyEventExecutor extends PropertyEventThread
   {
     private final ExecutorService _executor;
+    private final AtomicInteger _queued = new AtomicInteger();
+    private final AtomicLong _coalesced = new AtomicLong();
 
     public PropertyEventExecutor(String name, ExecutorService executor)
     {
@@ -294,11 +367,44 @@ public class PropertyEventBusImpl<T> implements PropertyEventBus<T>
     }
 
     @Override
-    public boolean send(PropertyEvent message)
+    public boolean send(final PropertyEvent message)
     {
-      _executor.execute(message);
+      _queued.incrementAndGet();
+      _executor.execute(new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          _queued.decrementAndGet();
+          message.run();
+        }
+      });
       return true;
     }
+
+    @Override
+    public int getQueuedMessageCount()
+    {
+      return _queued.get();
+    }
+
+    @Override
+    public int getRemainingCapacity()
+    {
+      return Integer.MAX_VALUE - _queued.get();
+    }
+
+    @Override
+    public long getCoalescedMessageCount()
+    {
+      return _coalesced.get();
+    }
+
+    @Override
+    protected void coalesced()
+    {
+      _coalesced.incrementAndGet();
+    }
   }
 
 }
@@ -68,6 +68,22 @@ public class PropertyEventThread extends Thread
     return _messages.size();
   }
 
+  /**
+   * @return the number of messages which were merged into a message that was already queued
+   * instead of being queued themselves
+   */
+  public long getCoalescedMessageCount()
+  {
+    return 0;
+  }
+
+  /**
+   * Records that a message was merged into an already queued message.
+   */
+  protected void coalesced()
+  {
+  }
+
   @Override
   public void start()
   {
@@ -46,9 +46,9 @@ public class FileStore<T> implements PropertyStore<T>, PropertyEventSubscriber<T
   private final String                _path;
   private final String                _extension;
   private final PropertySerializer<T> _serializer;
-  private final Stats                 _getStats;
-  private final Stats                 _putStats;
-  private final Stats                 _removeStats;
+  protected final Stats               _getStats;
+  protected final Stats               _putStats;
+  protected final Stats               _removeStats;
 
   public FileStore(String path, String extension, PropertySerializer<T> serializer)
   {
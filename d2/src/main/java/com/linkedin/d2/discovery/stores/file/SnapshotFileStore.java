@@ -0,0 +1,417 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.d2.discovery.stores.file;
+
+import static com.linkedin.d2.discovery.util.LogUtil.debug;
+import static com.linkedin.d2.discovery.util.LogUtil.error;
+import static com.linkedin.d2.discovery.util.LogUtil.warn;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.linkedin.d2.discovery.PropertySerializationException;
+import com.linkedin.d2.discovery.PropertySerializer;
+import com.linkedin.d2.discovery.event.PropertyEventThread.PropertyEventShutdownCallback;
+
+/**
+ * A {@link FileStore} which keeps all properties in a single binary snapshot file instead of
+ * one file per property.  The snapshot is memory-mapped and read once at construction, so
+ * that the properties are available right away when the store is used as a warm-start
+ * backup for ZooKeeper.  A write replaces the snapshot with a temporary file which is then
+ * renamed over the previous one, so readers never observe a partially written snapshot.
+ * <p/>
+ * When the store is given an executor, changes are applied in memory right away and the
+ * snapshot is rewritten at most once per write delay, so that bursts of property events (e.g.
+ * during a deployment) cost one rewrite instead of one per event.  Without an executor every
+ * change is written through.
+ * <p/>
+ * If there is no snapshot yet, the properties are migrated from the one-file-per-property
+ * {@link FileStore} layout (<code>.ini</code> files) in the same directory.
+ * <p/>
+ * The snapshot layout is: magic, version and entry count (ints), followed by the entries,
+ * each being a length-prefixed UTF-8 property name and the length-prefixed serialized value.
+ */
+public class SnapshotFileStore<T> extends FileStore<T>
+{
+  private static final Logger  _log          = LoggerFactory.getLogger(SnapshotFileStore.class);
+
+  public static final String   SNAPSHOT_FILE = "snapshot.bin";
+
+  private static final int     MAGIC         = 0x44325350;
+  private static final int     VERSION       = 1;
+  private static final Charset UTF8          = Charset.forName("UTF-8");
+  private static final String  INI_EXTENSION = ".ini";
+
+  private final Map<String, byte[]>       _entries        = new ConcurrentHashMap<String, byte[]>();
+  private final ScheduledExecutorService  _writeExecutor;
+  private final long                      _writeDelayMs;
+  private final AtomicBoolean             _writeScheduled = new AtomicBoolean();
+  private final Object                    _writeLock      = new Object();
+  private volatile boolean                _dirty;
+
+  public SnapshotFileStore(String path, PropertySerializer<T> serializer)
+  {
+    this(path, serializer, null, 0);
+  }
+
+  /**
+   * @param writeExecutor executor used to write the snapshot in the background, or null to
+   *                      write every change through
+   * @param writeDelayMs how long to accumulate changes before the snapshot is rewritten
+   */
+  public SnapshotFileStore(String path,
+                           PropertySerializer<T> serializer,
+                           ScheduledExecutorService writeExecutor,
+                           long writeDelayMs)
+  {
+    super(path, "", serializer);
+    _writeExecutor = writeExecutor;
+    _writeDelayMs = writeDelayMs;
+    load();
+  }
+
+  @Override
+  public T get(String listenTo)
+  {
+    _getStats.inc();
+
+    byte[] bytes = _entries.get(listenTo);
+    if (bytes == null)
+    {
+      warn(_log, "property didn't exist in snapshot on get: ", listenTo);
+      return null;
+    }
+
+    try
+    {
+      return getSerializer().fromBytes(bytes);
+    }
+    catch (PropertySerializationException e)
+    {
+      _log.error("Error deserializing property " + listenTo + " from snapshot " + getSnapshotFile(), e);
+      return null;
+    }
+  }
+
+  @Override
+  public void put(String listenTo, T discoveryProperties)
+  {
+    if (discoveryProperties == null)
+    {
+      debug(_log, "removing on put since ", listenTo, " received a null property");
+
+      remove(listenTo);
+    }
+    else
+    {
+      _putStats.inc();
+
+      byte[] bytes = getSerializer().toBytes(discoveryProperties);
+      boolean flush = false;
+      synchronized (this)
+      {
+        byte[] previous = _entries.put(listenTo, bytes);
+        if (!Arrays.equals(previous, bytes))
+        {
+          flush = changed();
+        }
+      }
+      // flush() takes the write lock before the monitor, so it must not be called while holding the monitor
+      if (flush)
+      {
+        flush();
+      }
+    }
+  }
+
+  @Override
+  public void remove(String listenTo)
+  {
+    _removeStats.inc();
+
+    boolean flush = false;
+    synchronized (this)
+    {
+      if (_entries.remove(listenTo) != null)
+      {
+        flush = changed();
+      }
+      else
+      {
+        warn(_log, "property didn't exist in snapshot on remove: ", listenTo);
+      }
+    }
+    if (flush)
+    {
+      flush();
+    }
+  }
+
+  public int size()
+  {
+    return _entries.size();
+  }
+
+  /**
+   * Write the snapshot now if there are changes which have not been written yet.
+   */
+  public void flush()
+  {
+    synchronized (_writeLock)
+    {
+      _writeScheduled.set(false);
+      if (!_dirty)
+      {
+        return;
+      }
+
+      Map<String, byte[]> entries;
+      synchronized (this)
+      {
+        _dirty = false;
+        entries = new HashMap<String, byte[]>(_entries);
+      }
+      write(entries);
+    }
+  }
+
+  @Override
+  public void shutdown(PropertyEventShutdownCallback shutdown)
+  {
+    flush();
+    super.shutdown(shutdown);
+  }
+
+  /**
+   * Mark the snapshot dirty and schedule a write; must be called while holding the monitor.
+   *
+   * @return true if the caller must {@link #flush()} once it has released the monitor, because
+   *         there is no executor to write the snapshot in the background
+   */
+  private boolean changed()
+  {
+    _dirty = true;
+    if (_writeExecutor == null)
+    {
+      return true;
+    }
+    else if (_writeScheduled.compareAndSet(false, true))
+    {
+      try
+      {
+        _writeExecutor.schedule(new Runnable()
+        {
+          @Override
+          public void run()
+          {
+            flush();
+          }
+        }, _writeDelayMs, TimeUnit.MILLISECONDS);
+      }
+      catch (RejectedExecutionException e)
+      {
+        // the executor is shutting down, don't lose the change
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private File getSnapshotFile()
+  {
+    return new File(getPath() + File.separatorChar + SNAPSHOT_FILE);
+  }
+
+  private void load()
+  {
+    File file = getSnapshotFile();
+    if (!file.exists())
+    {
+      debug(_log, "no snapshot to load at ", file);
+      migrate();
+      return;
+    }
+
+    try
+    {
+      RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+      try
+      {
+        FileChannel channel = randomAccessFile.getChannel();
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+        {
+          error(_log, "ignoring snapshot with unknown format: ", file);
+          return;
+        }
+
+        int count = buffer.getInt();
+        for (int i = 0; i < count; ++i)
+        {
+          String name = new String(readBytes(buffer), UTF8);
+          _entries.put(name, readBytes(buffer));
+        }
+      }
+      finally
+      {
+        randomAccessFile.close();
+      }
+      _log.info("Loaded {} properties from snapshot {}", _entries.size(), file);
+    }
+    catch (IOException e)
+    {
+      _log.error("Error reading snapshot: " + file.getAbsolutePath(), e);
+      _entries.clear();
+    }
+    catch (BufferUnderflowException e)
+    {
+      _log.error("Ignoring truncated snapshot: " + file.getAbsolutePath(), e);
+      _entries.clear();
+    }
+  }
+
+  /**
+   * Load the properties of a {@link FileStore} which used the same directory, and write
+   * them into a new snapshot.
+   */
+  private void migrate()
+  {
+    File[] files = new File(getPath()).listFiles();
+    if (files == null)
+    {
+      return;
+    }
+
+    for (File file : files)
+    {
+      String name = file.getName();
+      if (!file.isFile() || !name.endsWith(INI_EXTENSION))
+      {
+        continue;
+      }
+
+      try
+      {
+        byte[] bytes = new byte[(int) file.length()];
+        FileInputStream inputStream = new FileInputStream(file);
+        try
+        {
+          int offset = 0;
+          int read;
+          while (offset < bytes.length && (read = inputStream.read(bytes, offset, bytes.length - offset)) > 0)
+          {
+            offset += read;
+          }
+        }
+        finally
+        {
+          inputStream.close();
+        }
+        _entries.put(name.substring(0, name.length() - INI_EXTENSION.length()), bytes);
+      }
+      catch (IOException e)
+      {
+        _log.error("Error reading file: " + file.getAbsolutePath(), e);
+      }
+    }
+
+    if (!_entries.isEmpty())
+    {
+      _log.info("Migrated {} properties from {} files in {}", new Object[] { _entries.size(), INI_EXTENSION, getPath() });
+      write(new HashMap<String, byte[]>(_entries));
+    }
+  }
+
+  private void write(Map<String, byte[]> entries)
+  {
+    File file = getSnapshotFile();
+
+    int size = 12;
+    for (Map.Entry<String, byte[]> entry : entries.entrySet())
+    {
+      size += 8 + entry.getKey().getBytes(UTF8).length + entry.getValue().length;
+    }
+
+    try
+    {
+      File tempFile = File.createTempFile(SNAPSHOT_FILE, "tmp", new File(getPath()));
+      RandomAccessFile randomAccessFile = new RandomAccessFile(tempFile, "rw");
+      try
+      {
+        MappedByteBuffer buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(entries.size());
+        for (Map.Entry<String, byte[]> entry : entries.entrySet())
+        {
+          writeBytes(buffer, entry.getKey().getBytes(UTF8));
+          writeBytes(buffer, entry.getValue());
+        }
+        buffer.force();
+      }
+      finally
+      {
+        randomAccessFile.close();
+      }
+
+      if (!tempFile.renameTo(file))
+      {
+        error(_log, "unable to move temp file ", tempFile, " to ", file);
+      }
+    }
+    catch (IOException e)
+    {
+      _log.error("Error writing snapshot: " + file.getAbsolutePath(), e);
+    }
+  }
+
+  private static byte[] readBytes(MappedByteBuffer buffer)
+  {
+    int length = buffer.getInt();
+    if (length < 0 || length > buffer.remaining())
+    {
+      throw new BufferUnderflowException();
+    }
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return bytes;
+  }
+
+  private static void writeBytes(MappedByteBuffer buffer, byte[] bytes)
+  {
+    buffer.putInt(bytes.length);
+    buffer.put(bytes);
+  }
+}
@@ -20,8 +20,11 @@ import static com.linkedin.d2.discovery.util.LogUtil.trace;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -31,6 +34,7 @@ import org.apache.zookeeper.AsyncCallback;
 import org.apache.zookeeper.CreateMode;
 import org.apache.zookeeper.KeeperException;
 import org.apache.zookeeper.WatchedEvent;
+import org.apache.zookeeper.Watcher;
 import org.apache.zookeeper.ZooDefs;
 import org.apache.zookeeper.data.Stat;
 import org.slf4j.Logger;
@@ -218,7 +222,7 @@ public class ZooKeeperEphemeralStore<T> extends ZooKeeperStore<T>
             break;
 
           case OK:
-            getMergedChildren(path, children, null, callback);
+            getMergedChildren(path, children, callback);
             break;
 
           default:
@@ -230,7 +234,7 @@ public class ZooKeeperEphemeralStore<T> extends ZooKeeperStore<T>
     _zk.getChildren(path, null, zkCallback, null);
   }
 
-  private void getMergedChildren(String path, List<String> children, ZKStoreWatcher watcher, final Callback<T> callback)
+  private void getMergedChildren(String path, List<String> children, final Callback<T> callback)
   {
     final String propertyName = getPropertyForPath(path);
     if (children.size() > 0)
@@ -246,7 +250,7 @@ public class ZooKeeperEphemeralStore<T> extends ZooKeeperStore<T>
       });
       for (String child : children)
       {
-        _zk.getData(path + "/" + child, (_watchChildNodes) ? watcher : null, collector, null);
+        _zk.getData(path + "/" + child, false, collector, null);
       }
     }
     else
@@ -287,6 +291,7 @@ public class ZooKeeperEphemeralStore<T> extends ZooKeeperStore<T>
     trace(_log, "unregister: ", prop);
 
     _zkStoreWatcher.cancelWatch(prop);
+    _zkStoreWatcher.clearChildren(prop);
   }
 
   public int getListenerCount()
@@ -299,7 +304,59 @@ public class ZooKeeperEphemeralStore<T> extends ZooKeeperStore<T>
   private class ZKStoreWatcher extends ZooKeeperStore.ZKStoreWatcher
     implements AsyncCallback.ChildrenCallback, AsyncCallback.StatCallback
   {
+    // Deserialized data of the children of each watched node, keyed by the watched path
+    // and then by child name.  The inner maps are only touched from the ZooKeeper
+    // notification thread, so they need no further synchronization.
+    private final Map<String, Map<String, T>> _childrenCache =
+        new ConcurrentHashMap<String, Map<String, T>>();
 
+    public void clearChildren(String propertyName)
+    {
+      _childrenCache.remove(getPath(propertyName));
+    }
+
+    /**
+     * Diffs the given children against the cached children of the path, fetches the data
+     * of the newly added children only, and merges the result with the cached data of the
+     * children that are still present.
+     */
+    private void updateChildren(String path, List<String> children, final Callback<T> callback)
+    {
+      final String propertyName = getPropertyForPath(path);
+      Map<String, T> cached = _childrenCache.get(path);
+      if (cached == null)
+      {
+        cached = new HashMap<String, T>(children.size());
+        _childrenCache.put(path, cached);
+      }
+      final Map<String, T> cachedChildren = cached;
+
+      Set<String> current = new HashSet<String>(children);
+      cachedChildren.keySet().retainAll(current);
+      current.removeAll(cachedChildren.keySet());
+
+      if (current.isEmpty())
+      {
+        _log.debug("updateChildren: no new children for {}", path);
+        callback.onSuccess(_merger.merge(propertyName, cachedChildren.values()));
+        return;
+      }
+
+      _log.debug("updateChildren: collecting new children {}", current);
+      ChildCollector collector = new ChildCollector(current.size(), new CallbackAdapter<T,Map<String,T>>(callback)
+      {
+        @Override
+        protected T convertResponse(Map<String,T> response) throws Exception
+        {
+          cachedChildren.putAll(response);
+          return _merger.merge(propertyName, cachedChildren.values());
+        }
+      });
+      for (String child : current)
+      {
+        _zk.getData(path + "/" + child, (_watchChildNodes) ? this : null, collector, null);
+      }
+    }
 
 
     // Helper function to get parent path
@@ -350,6 +407,17 @@ public class ZooKeeperEphemeralStore<T> extends ZooKeeperStore<T>
     @Override
     public void processWatch(final String propertyName, WatchedEvent watchedEvent)
     {
+      if (watchedEvent.getType() == Watcher.Event.EventType.NodeDataChanged)
+      {
+        // The data of a child changed; drop it from the cache so that it is fetched again
+        // (which also re-installs the data watch on it).
+        String path = getPath(propertyName);
+        Map<String, T> cachedChildren = _childrenCache.get(path);
+        if (cachedChildren != null && !path.equals(watchedEvent.getPath()))
+        {
+          cachedChildren.remove(watchedEvent.getPath().substring(path.length() + 1));
+        }
+      }
       // Reset the watch
       _zk.getChildren(getPath(propertyName), this, this, false);
     }
@@ -361,10 +429,15 @@ public class ZooKeeperEphemeralStore<T> extends ZooKeeperStore<T>
       _log.debug("{}: getChildren returned {}: {}", new Object[]{path, code, children});
       final boolean init = (Boolean)ctx;
       final String property = getPropertyForPath(path);
+      if (init)
+      {
+        // (Re)start from scratch when publishing starts, the cache may be stale.
+        _childrenCache.remove(path);
+      }
       switch (code)
       {
         case OK:
-          getMergedChildren(path, children, this, new Callback<T>()
+          updateChildren(path, children, new Callback<T>()
           {
             @Override
             public void onSuccess(T value)
@@ -398,6 +471,7 @@ public class ZooKeeperEphemeralStore<T> extends ZooKeeperStore<T>
         case NONODE:
           // The node whose children we are monitoring is gone; set an exists watch on it
           _log.debug("{}: node is not present, calling exists", path);
+          _childrenCache.remove(path);
           _zk.exists(path, this, this, false);
           if (init)
           {
@@ -23,6 +23,8 @@ import com.linkedin.d2.balancer.simple.SimpleLoadBalancerState;
 import com.linkedin.d2.balancer.strategies.LoadBalancerStrategy;
 import com.linkedin.d2.balancer.strategies.degrader.DegraderLoadBalancerStrategyV2;
 import com.linkedin.d2.balancer.strategies.degrader.DegraderLoadBalancerStrategyV3;
+import com.linkedin.d2.balancer.strategies.zoneaware.ZoneAwareLoadBalancerStrategy;
+import com.linkedin.d2.discovery.event.PropertyEventBusImpl;
 import com.linkedin.d2.discovery.event.PropertyEventThread;
 import com.linkedin.d2.discovery.stores.file.FileStore;
 import com.linkedin.d2.discovery.stores.zk.ZooKeeperEphemeralStore;
@@ -103,6 +105,14 @@ public class JmxManager
     return this;
   }
 
+  public synchronized <T> JmxManager registerPropertyEventBus(String name,
+                                                              PropertyEventBusImpl<T> bus)
+  {
+    checkReg(new PropertyEventThreadJmx(bus.getPropertyEventThread()), name);
+
+    return this;
+  }
+
   public synchronized JmxManager registerScheduledThreadPoolExecutor(String name,
                                                                      ScheduledThreadPoolExecutor executor)
   {
@@ -147,6 +157,10 @@ public class JmxManager
     {
       checkReg(new DegraderLoadBalancerStrategyV3Jmx((DegraderLoadBalancerStrategyV3) strategy), name);
     }
+    else if (strategy instanceof ZoneAwareLoadBalancerStrategy)
+    {
+      registerLoadBalancerStrategy(name, ((ZoneAwareLoadBalancerStrategy) strategy).getStrategy());
+    }
     else
     {
       warn(_log, "unable to register a jmx bean for unknown strategy: ", strategy);
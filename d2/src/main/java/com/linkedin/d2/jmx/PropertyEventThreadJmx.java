@@ -39,6 +39,12 @@ public class PropertyEventThreadJmx implements PropertyEventThreadJmxMBean
     return _thread.getRemainingCapacity();
   }
 
+  @Override
+  public long getCoalescedMessageCount()
+  {
+    return _thread.getCoalescedMessageCount();
+  }
+
   @Override
   public boolean isAlive()
   {
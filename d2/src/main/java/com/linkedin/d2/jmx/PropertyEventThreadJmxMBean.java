@@ -22,5 +22,7 @@ public interface PropertyEventThreadJmxMBean
 
   int getQueuedMessageCount();
 
+  long getCoalescedMessageCount();
+
   boolean isAlive();
 }
@@ -23,6 +23,7 @@ import org.testng.annotations.Test;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -85,6 +86,15 @@ public class UriPropertiesSerializerTest
     property = new UriProperties("test 3", partitionDesc);
     assertEquals(foo.fromBytes(foo.toBytes(property)), property);
 
+    // test uri specific properties, e.g. the zone of a host
+    final Map<URI, Map<String, Object>> uriSpecificProperties = new HashMap<URI, Map<String, Object>>();
+    uriSpecificProperties.put(URI.create("http://www.google.com"),
+                              Collections.<String, Object>singletonMap(PropertyKeys.URI_SPECIFIC_PROPERTIES_ZONE, "zone1"));
+    property = new UriProperties("test 3", partitionDesc, uriSpecificProperties);
+    assertEquals(foo.fromBytes(foo.toBytes(property)), property);
+    assertEquals(foo.fromBytes(foo.toBytes(property)).getUriSpecificProperties()
+                     .get(URI.create("http://www.google.com")).get(PropertyKeys.URI_SPECIFIC_PROPERTIES_ZONE), "zone1");
+
     // test compatibility with old UriProperties bytes: client can understand uris published by old servers
     String oldUriJson = "{\"clusterName\": \"test4\", \"weights\":{\"http://www.google.com\": 1.0, \"http://www.imdb.com\": 2.0}}";
     UriProperties fromOldBytes = foo.fromBytes(oldUriJson.getBytes());
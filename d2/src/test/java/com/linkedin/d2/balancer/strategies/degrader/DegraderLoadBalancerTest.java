@@ -965,6 +965,82 @@ public class DegraderLoadBalancerTest
 
   }
 
+  @Test(groups = { "small", "back-end" })
+  public void testBoundedLoadConsistentHashing()
+  {
+    final int NUM_SERVERS = 10;
+
+    DegraderLoadBalancerStrategyV3 strategy = new DegraderLoadBalancerStrategyV3(
+            new DegraderLoadBalancerStrategyConfig(
+                    5000, 500, 1.0, 100, DegraderLoadBalancerStrategyV3.HASH_METHOD_URI_REGEX,
+                    Collections.<String,Object>singletonMap(URIRegexHash.KEY_REGEXES,
+                    Collections.singletonList("(.*)")), SystemClock.instance(),
+                    DegraderLoadBalancerStrategyConfig.DEFAULT_INITIAL_RECOVERY_LEVEL,
+                    DegraderLoadBalancerStrategyConfig.DEFAULT_RAMP_FACTOR,
+                    DegraderLoadBalancerStrategyConfig.DEFAULT_HIGH_WATER_MARK,
+                    DegraderLoadBalancerStrategyConfig.DEFAULT_LOW_WATER_MARK,
+                    DegraderLoadBalancerStrategyConfig.DEFAULT_GLOBAL_STEP_UP,
+                    DegraderLoadBalancerStrategyConfig.DEFAULT_GLOBAL_STEP_DOWN,
+                    0.25),
+            "DegraderLoadBalancerTest");
+    List<TrackerClient> clients = new ArrayList<TrackerClient>(NUM_SERVERS);
+
+    for (int i = 0; i < NUM_SERVERS; i++)
+    {
+      clients.add(getClient(URI.create("http://server" + i + ".testing:9876/foobar")));
+    }
+
+    URIRequest request = new URIRequest("d2://fooService/this/is/a/hot/key");
+
+    // with no load, the key sticks to its owner on the ring
+    TrackerClient owner = getTrackerClient(strategy, request, new RequestContext(), 0, clients);
+    assertNotNull(owner);
+    assertEquals(getTrackerClient(strategy, request, new RequestContext(), 0, clients), owner);
+
+    // once the owner is above (1 + epsilon) times the average outstanding load, the key overflows
+    // to the next host on the ring, and keeps going to that same host
+    List<CallCompletion> outstanding = new ArrayList<CallCompletion>();
+    for (int i = 0; i < 5; i++)
+    {
+      outstanding.add(owner.getCallTracker().startCall());
+    }
+    TrackerClient overflow = getTrackerClient(strategy, request, new RequestContext(), 0, clients);
+    assertNotNull(overflow);
+    assertTrue(overflow != owner);
+    assertEquals(getTrackerClient(strategy, request, new RequestContext(), 0, clients), overflow);
+
+    // when the owner drains, the key goes back to it
+    for (CallCompletion cc : outstanding)
+    {
+      cc.endCall();
+    }
+    assertEquals(getTrackerClient(strategy, request, new RequestContext(), 0, clients), owner);
+
+    // an evenly loaded cluster keeps the key on its owner
+    outstanding.clear();
+    for (TrackerClient client : clients)
+    {
+      outstanding.add(client.getCallTracker().startCall());
+      outstanding.add(client.getCallTracker().startCall());
+    }
+    assertEquals(getTrackerClient(strategy, request, new RequestContext(), 0, clients), owner);
+    for (CallCompletion cc : outstanding)
+    {
+      cc.endCall();
+    }
+
+    // clients replaced by the cluster manager without a state update are resolved against the
+    // clients of the call, not the ones the ring was built from
+    List<TrackerClient> replacedClients = new ArrayList<TrackerClient>(NUM_SERVERS);
+    for (TrackerClient client : clients)
+    {
+      replacedClients.add(getClient(client.getUri()));
+    }
+    TrackerClient replacedOwner = getTrackerClient(strategy, request, new RequestContext(), 0, replacedClients);
+    assertEquals(replacedOwner.getUri(), owner.getUri());
+    assertTrue(replacedOwner == replacedClients.get(clients.indexOf(owner)));
+  }
+
   @Test
   public void testTargetHostHeaderBinding()
   {
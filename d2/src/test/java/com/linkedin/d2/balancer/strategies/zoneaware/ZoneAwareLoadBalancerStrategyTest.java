@@ -0,0 +1,221 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.d2.balancer.strategies.zoneaware;
+
+import com.linkedin.d2.balancer.clients.TrackerClient;
+import com.linkedin.d2.balancer.properties.PartitionData;
+import com.linkedin.d2.balancer.properties.PropertyKeys;
+import com.linkedin.d2.balancer.strategies.LoadBalancerStrategy;
+import com.linkedin.d2.balancer.strategies.LoadBalancerStrategyFactory;
+import com.linkedin.d2.balancer.strategies.random.RandomLoadBalancerStrategyFactory;
+import com.linkedin.d2.balancer.util.hashing.Ring;
+import com.linkedin.d2.balancer.util.partitions.DefaultPartitionAccessor;
+import com.linkedin.r2.message.Request;
+import com.linkedin.r2.message.RequestContext;
+import com.linkedin.util.clock.SettableClock;
+import com.linkedin.util.degrader.CallCompletion;
+import com.linkedin.util.degrader.DegraderControl;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.linkedin.d2.balancer.util.partitions.DefaultPartitionAccessor.DEFAULT_PARTITION_ID;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+
+public class ZoneAwareLoadBalancerStrategyTest
+{
+  @Test(groups = { "small", "back-end" })
+  public void testPrefersLocalZone()
+  {
+    SettableClock clock = new SettableClock();
+    ZoneAwareLoadBalancerStrategy strategy = getStrategy("zone1", clock);
+
+    TrackerClient local1 = getClient(URI.create("http://local1.linkedin.com:1234"), "zone1", clock);
+    TrackerClient local2 = getClient(URI.create("http://local2.linkedin.com:1234"), "zone1", clock);
+    TrackerClient remote = getClient(URI.create("http://remote.linkedin.com:1234"), "zone2", clock);
+    List<TrackerClient> clients = new ArrayList<TrackerClient>();
+    clients.add(local1);
+    clients.add(remote);
+    clients.add(local2);
+
+    for (int i = 0; i < 1000; ++i)
+    {
+      TrackerClient client = strategy.getTrackerClient(null, new RequestContext(), 0, DEFAULT_PARTITION_ID, clients);
+      assertTrue(client == local1 || client == local2);
+    }
+    assertTrue(strategy.isUsingLocalZone(DEFAULT_PARTITION_ID));
+  }
+
+  @Test(groups = { "small", "back-end" })
+  public void testNoLocalClients()
+  {
+    SettableClock clock = new SettableClock();
+    ZoneAwareLoadBalancerStrategy strategy = getStrategy("zone3", clock);
+
+    TrackerClient remote1 = getClient(URI.create("http://remote1.linkedin.com:1234"), "zone1", clock);
+    TrackerClient remote2 = getClient(URI.create("http://remote2.linkedin.com:1234"), null, clock);
+    List<TrackerClient> clients = new ArrayList<TrackerClient>();
+    clients.add(remote1);
+    clients.add(remote2);
+
+    for (int i = 0; i < 100; ++i)
+    {
+      assertNotNull(strategy.getTrackerClient(null, new RequestContext(), 0, DEFAULT_PARTITION_ID, clients));
+    }
+    assertFalse(strategy.isUsingLocalZone(DEFAULT_PARTITION_ID));
+  }
+
+  @Test(groups = { "small", "back-end" })
+  public void testSpillOverWhenLocalZoneUnhealthy()
+  {
+    SettableClock clock = new SettableClock();
+    ZoneAwareLoadBalancerStrategy strategy = getStrategy("zone1", clock);
+
+    TrackerClient local = getClient(URI.create("http://local.linkedin.com:1234"), "zone1", clock);
+    TrackerClient remote = getClient(URI.create("http://remote.linkedin.com:1234"), "zone2", clock);
+    List<TrackerClient> clients = new ArrayList<TrackerClient>();
+    clients.add(local);
+    clients.add(remote);
+
+    assertEquals(strategy.getTrackerClient(null, new RequestContext(), 0, DEFAULT_PARTITION_ID, clients), local);
+
+    degrade(local, clock);
+
+    boolean sawRemote = false;
+    for (int i = 0; i < 100; ++i)
+    {
+      TrackerClient client = strategy.getTrackerClient(null, new RequestContext(), 0, DEFAULT_PARTITION_ID, clients);
+      sawRemote |= client == remote;
+    }
+    assertTrue(sawRemote);
+    assertFalse(strategy.isUsingLocalZone(DEFAULT_PARTITION_ID));
+  }
+
+  @Test(groups = { "small", "back-end" })
+  public void testSingleDelegate()
+  {
+    SettableClock clock = new SettableClock();
+    final List<RecordingStrategy> delegates = new ArrayList<RecordingStrategy>();
+    LoadBalancerStrategyFactory<RecordingStrategy> recordingFactory = new LoadBalancerStrategyFactory<RecordingStrategy>()
+    {
+      @Override
+      public RecordingStrategy newLoadBalancer(String serviceName, Map<String, Object> strategyProperties)
+      {
+        RecordingStrategy strategy = new RecordingStrategy();
+        delegates.add(strategy);
+        return strategy;
+      }
+    };
+    Map<String, Object> strategyProperties = new HashMap<String, Object>();
+    strategyProperties.put(PropertyKeys.CLOCK, clock);
+    strategyProperties.put(PropertyKeys.HTTP_LB_STRATEGY_PROPERTIES_UPDATE_INTERVAL_MS, 1000L);
+    ZoneAwareLoadBalancerStrategy strategy =
+        new ZoneAwareLoadBalancerStrategyFactory("zone1", recordingFactory).newLoadBalancer("test", strategyProperties);
+    assertEquals(delegates.size(), 1);
+    RecordingStrategy delegate = delegates.get(0);
+
+    TrackerClient local = getClient(URI.create("http://local.linkedin.com:1234"), "zone1", clock);
+    TrackerClient remote = getClient(URI.create("http://remote.linkedin.com:1234"), "zone2", clock);
+    List<TrackerClient> clients = new ArrayList<TrackerClient>();
+    clients.add(local);
+    clients.add(remote);
+
+    strategy.getTrackerClient(null, new RequestContext(), 0, DEFAULT_PARTITION_ID, clients);
+    assertEquals(delegate._lastClients, Collections.singletonList(local));
+    long localGenerationId = delegate._lastGenerationId;
+
+    // unchanged state keeps the delegate's generation
+    clock.addDuration(2000);
+    strategy.getTrackerClient(null, new RequestContext(), 0, DEFAULT_PARTITION_ID, clients);
+    assertEquals(delegate._lastGenerationId, localGenerationId);
+
+    // spilling over hands the whole list to the same delegate under a new generation
+    degrade(local, clock);
+    strategy.getTrackerClient(null, new RequestContext(), 0, DEFAULT_PARTITION_ID, clients);
+    assertFalse(strategy.isUsingLocalZone(DEFAULT_PARTITION_ID));
+    assertEquals(delegate._lastClients, clients);
+    assertTrue(delegate._lastGenerationId != localGenerationId);
+  }
+
+  /**
+   * Make the degrader of the given client drop everything.
+   */
+  private static void degrade(TrackerClient client, SettableClock clock)
+  {
+    DegraderControl control = client.getDegraderControl(DEFAULT_PARTITION_ID);
+    control.setMinCallCount(1);
+    control.setOverrideMinCallCount(1);
+    control.setMaxDropRate(1d);
+    control.setUpStep(1d);
+    control.setHighErrorRate(0);
+    CallCompletion cc = client.getCallTracker().startCall();
+    clock.addDuration(10000);
+    cc.endCallWithError();
+    clock.addDuration(5000);
+    assertEquals(control.getCurrentComputedDropRate(), 1d);
+  }
+
+  private static class RecordingStrategy implements LoadBalancerStrategy
+  {
+    private long                _lastGenerationId;
+    private List<TrackerClient> _lastClients;
+
+    @Override
+    public TrackerClient getTrackerClient(Request request,
+                                          RequestContext requestContext,
+                                          long clusterGenerationId,
+                                          int partitionId,
+                                          List<TrackerClient> trackerClients)
+    {
+      _lastGenerationId = clusterGenerationId;
+      _lastClients = trackerClients;
+      return trackerClients.isEmpty() ? null : trackerClients.get(0);
+    }
+
+    @Override
+    public Ring<URI> getRing(long clusterGenerationId, int partitionId, List<TrackerClient> trackerClients)
+    {
+      return null;
+    }
+  }
+
+  private static ZoneAwareLoadBalancerStrategy getStrategy(String localZone, SettableClock clock)
+  {
+    Map<String, Object> strategyProperties = new HashMap<String, Object>();
+    strategyProperties.put(PropertyKeys.CLOCK, clock);
+    strategyProperties.put(PropertyKeys.HTTP_LB_ZONE_AWARE_MIN_LOCAL_HEALTHY_RATIO, "0.5");
+    return new ZoneAwareLoadBalancerStrategyFactory(localZone, new RandomLoadBalancerStrategyFactory())
+        .newLoadBalancer("test", strategyProperties);
+  }
+
+  private static TrackerClient getClient(URI uri, String zone, SettableClock clock)
+  {
+    Map<Integer, PartitionData> partitionDataMap = new HashMap<Integer, PartitionData>(2);
+    partitionDataMap.put(DefaultPartitionAccessor.DEFAULT_PARTITION_ID, new PartitionData(1d));
+    Map<String, Object> uriSpecificProperties = zone == null ? Collections.<String, Object>emptyMap()
+        : Collections.<String, Object>singletonMap(PropertyKeys.URI_SPECIFIC_PROPERTIES_ZONE, zone);
+    return new TrackerClient(uri, partitionDataMap, uriSpecificProperties, null, clock, null);
+  }
+}
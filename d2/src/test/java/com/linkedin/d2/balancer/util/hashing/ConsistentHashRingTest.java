@@ -17,6 +17,7 @@
 package com.linkedin.d2.balancer.util.hashing;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
@@ -24,6 +25,7 @@ import static org.testng.Assert.assertTrue;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -51,6 +53,33 @@ public class ConsistentHashRingTest
     assertNull(test.get(100));
   }
 
+  @Test(groups = { "small", "back-end" })
+  public void testIterator()
+  {
+    Map<String, Integer> points = new HashMap<String, Integer>();
+    points.put("a", 10);
+    points.put("b", 10);
+    points.put("c", 10);
+    ConsistentHashRing<String> test = new ConsistentHashRing<String>(points);
+
+    for (int key : new int[] { Integer.MIN_VALUE, -12345, 0, 67890, Integer.MAX_VALUE })
+    {
+      Iterator<String> iterator = test.getIterator(key);
+      assertTrue(iterator.hasNext());
+      assertEquals(iterator.next(), test.get(key));
+
+      int count = 1;
+      while (iterator.hasNext())
+      {
+        assertNotNull(iterator.next());
+        count++;
+      }
+      assertEquals(count, test.getRing().length);
+    }
+
+    assertFalse(new ConsistentHashRing<String>(new HashMap<String, Integer>()).getIterator(0).hasNext());
+  }
+
   @Test(groups = { "small", "back-end" })
   public void testOneItem()
   {
@@ -23,9 +23,20 @@ package com.linkedin.d2.discovery.event;
 import com.linkedin.d2.discovery.stores.mock.MockStore;
 
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import org.testng.annotations.Test;
 
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
 /**
  * @author Steven Ihde
  * @version $Revision: $
@@ -65,6 +76,72 @@ public class PropertyEventBusImplTest extends PropertyEventBusTest
     return (MockStore<String>) bus.getPublisher();
   }
 
+  @Test
+  public void testCoalescePendingAdds() throws InterruptedException
+  {
+    ExecutorService executorService = Executors.newSingleThreadExecutor();
+    PropertyEventBusImpl<String> bus = new PropertyEventBusImpl<String>(executorService, new MockStore<String>());
+    final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+    bus.register(Collections.singleton("test"), new PropertyEventSubscriber<String>()
+    {
+      @Override
+      public void onInitialize(String propertyName, String propertyValue)
+      {
+        events.add("init-" + propertyValue);
+      }
+
+      @Override
+      public void onAdd(String propertyName, String propertyValue)
+      {
+        events.add("add-" + propertyValue);
+      }
+
+      @Override
+      public void onRemove(String propertyName)
+      {
+        events.add("remove");
+      }
+    });
+    for (int i = 0; i < 50 && events.isEmpty(); ++i)
+    {
+      Thread.sleep(100);
+    }
+    assertEquals(events, Collections.singletonList("init-null"));
+
+    // hold the event thread while the events pile up
+    final CountDownLatch latch = new CountDownLatch(1);
+    executorService.execute(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        try
+        {
+          latch.await();
+        }
+        catch (InterruptedException e)
+        {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+
+    bus.publishAdd("test", "1");
+    bus.publishAdd("test", "2");
+    bus.publishAdd("test", "3");
+    bus.publishRemove("test");
+    bus.publishAdd("test", "4");
+    assertEquals(bus.getPropertyEventThread().getQueuedMessageCount(), 3);
+
+    latch.countDown();
+    executorService.shutdown();
+    assertTrue(executorService.awaitTermination(5, TimeUnit.SECONDS));
+
+    assertEquals(events, Arrays.asList("init-null", "add-3", "remove", "add-4"));
+    assertEquals(bus.getPropertyEventThread().getCoalescedMessageCount(), 2);
+    assertEquals(bus.getPropertyEventThread().getQueuedMessageCount(), 0);
+  }
+
   @Test
   public void testNothing()
   {
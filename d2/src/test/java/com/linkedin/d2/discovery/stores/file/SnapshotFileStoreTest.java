@@ -0,0 +1,187 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.d2.discovery.stores.file;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.testng.annotations.Test;
+
+import com.linkedin.d2.discovery.stores.PropertyStore;
+import com.linkedin.d2.discovery.stores.PropertyStoreTest;
+import com.linkedin.d2.discovery.stores.PropertyStringSerializer;
+
+public class SnapshotFileStoreTest extends PropertyStoreTest
+{
+  @Override
+  public PropertyStore<String> getStore()
+  {
+    try
+    {
+      return new SnapshotFileStore<String>(FileStoreTest.createTempDirectory("snapshot-store-test").toString(),
+                                           new PropertyStringSerializer());
+    }
+    catch (IOException e)
+    {
+      fail("unable to create snapshot store");
+    }
+
+    return null;
+  }
+
+  @Test(groups = { "small", "back-end" })
+  public void testReload() throws IOException
+  {
+    String path = FileStoreTest.createTempDirectory("snapshot-store-test").toString();
+    SnapshotFileStore<String> store = new SnapshotFileStore<String>(path, new PropertyStringSerializer());
+
+    store.put("service-1", "1");
+    store.put("service-2", "2");
+    store.put("service-3", "3");
+    store.remove("service-2");
+
+    SnapshotFileStore<String> reloaded = new SnapshotFileStore<String>(path, new PropertyStringSerializer());
+    assertEquals(reloaded.size(), 2);
+    assertEquals(reloaded.get("service-1"), "1");
+    assertNull(reloaded.get("service-2"));
+    assertEquals(reloaded.get("service-3"), "3");
+  }
+
+  @Test(groups = { "small", "back-end" })
+  public void testCorruptSnapshot() throws IOException
+  {
+    String path = FileStoreTest.createTempDirectory("snapshot-store-test").toString();
+    SnapshotFileStore<String> store = new SnapshotFileStore<String>(path, new PropertyStringSerializer());
+    store.put("service-1", "1");
+
+    store.put("service-2", "2");
+
+    RandomAccessFile snapshot = new RandomAccessFile(new File(path, SnapshotFileStore.SNAPSHOT_FILE), "rw");
+    snapshot.setLength(snapshot.length() - 2);
+    snapshot.close();
+
+    SnapshotFileStore<String> reloaded = new SnapshotFileStore<String>(path, new PropertyStringSerializer());
+    assertEquals(reloaded.size(), 0);
+    assertNull(reloaded.get("service-1"));
+  }
+
+  @Test(groups = { "small", "back-end" })
+  public void testDelayedWrite() throws IOException
+  {
+    String path = FileStoreTest.createTempDirectory("snapshot-store-test").toString();
+    ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    try
+    {
+      SnapshotFileStore<String> store =
+          new SnapshotFileStore<String>(path, new PropertyStringSerializer(), executor, 60000);
+
+      for (int i = 0; i < 100; ++i)
+      {
+        store.put("service-" + i, Integer.toString(i));
+      }
+      store.remove("service-0");
+      assertEquals(store.get("service-1"), "1");
+      assertNull(store.get("service-0"));
+      assertFalse(new File(path, SnapshotFileStore.SNAPSHOT_FILE).exists());
+
+      store.flush();
+      assertTrue(new File(path, SnapshotFileStore.SNAPSHOT_FILE).exists());
+      SnapshotFileStore<String> reloaded = new SnapshotFileStore<String>(path, new PropertyStringSerializer());
+      assertEquals(reloaded.size(), 99);
+      assertEquals(reloaded.get("service-99"), "99");
+      assertNull(reloaded.get("service-0"));
+    }
+    finally
+    {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test(groups = { "small", "back-end" })
+  public void testConcurrentFlush() throws Exception
+  {
+    String path = FileStoreTest.createTempDirectory("snapshot-store-test").toString();
+    final SnapshotFileStore<String> store = new SnapshotFileStore<String>(path, new PropertyStringSerializer());
+    final AtomicBoolean done = new AtomicBoolean();
+
+    // a flush racing with write-through puts must not deadlock
+    Thread flusher = new Thread()
+    {
+      @Override
+      public void run()
+      {
+        while (!done.get())
+        {
+          store.flush();
+        }
+      }
+    };
+    flusher.start();
+    Thread writer = new Thread()
+    {
+      @Override
+      public void run()
+      {
+        for (int i = 0; i < 200; ++i)
+        {
+          store.put("service-" + (i % 10), Integer.toString(i));
+        }
+      }
+    };
+    writer.start();
+    writer.join(30000);
+    done.set(true);
+    flusher.join(30000);
+    assertFalse(writer.isAlive());
+    assertFalse(flusher.isAlive());
+
+    SnapshotFileStore<String> reloaded = new SnapshotFileStore<String>(path, new PropertyStringSerializer());
+    assertEquals(reloaded.size(), 10);
+    assertEquals(reloaded.get("service-9"), "199");
+  }
+
+  @Test(groups = { "small", "back-end" })
+  public void testMigrateFromFileStore() throws IOException
+  {
+    String path = FileStoreTest.createTempDirectory("snapshot-store-test").toString();
+    FileStore<String> fileStore = new FileStore<String>(path, ".ini", new PropertyStringSerializer());
+    fileStore.put("service-1", "1");
+    fileStore.put("service-2", "2");
+
+    SnapshotFileStore<String> store = new SnapshotFileStore<String>(path, new PropertyStringSerializer());
+    assertEquals(store.size(), 2);
+    assertEquals(store.get("service-1"), "1");
+    assertEquals(store.get("service-2"), "2");
+    assertTrue(new File(path, SnapshotFileStore.SNAPSHOT_FILE).exists());
+
+    // once there is a snapshot, the old files are not read again
+    fileStore.put("service-3", "3");
+    SnapshotFileStore<String> reloaded = new SnapshotFileStore<String>(path, new PropertyStringSerializer());
+    assertEquals(reloaded.size(), 2);
+    assertNull(reloaded.get("service-3"));
+  }
+}
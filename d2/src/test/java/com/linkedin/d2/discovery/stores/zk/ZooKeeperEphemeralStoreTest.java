@@ -23,16 +23,25 @@ import static org.testng.Assert.fail;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.testng.annotations.AfterSuite;
 import org.testng.annotations.BeforeSuite;
 import org.testng.annotations.Test;
 
+import com.linkedin.d2.discovery.event.PropertyEventBus;
+import com.linkedin.d2.discovery.event.PropertyEventPublisher;
+import com.linkedin.d2.discovery.event.PropertyEventSubscriber;
 import com.linkedin.d2.discovery.event.PropertyEventThread.PropertyEventShutdownCallback;
 import com.linkedin.d2.discovery.stores.PropertyStore;
 import com.linkedin.d2.discovery.stores.PropertyStoreException;
@@ -80,6 +89,12 @@ public class ZooKeeperEphemeralStoreTest
 
   public ZooKeeperEphemeralStore<String> getStore()
           throws IOException, PropertyStoreException, InterruptedException, ExecutionException
+  {
+    return getStore(new PropertyStringSerializer());
+  }
+
+  public ZooKeeperEphemeralStore<String> getStore(PropertyStringSerializer serializer)
+          throws IOException, PropertyStoreException, InterruptedException, ExecutionException
   {
     ZKConnection client = new ZKConnection("localhost:" + _port, 5000);
     client.start();
@@ -87,7 +102,7 @@ public class ZooKeeperEphemeralStoreTest
 
     ZooKeeperEphemeralStore<String> store = new ZooKeeperEphemeralStore<String>(
             client,
-            new PropertyStringSerializer(),
+            serializer,
             new PropertyStringMerger(),
             "/test-path");
     FutureCallback<None> callback = new FutureCallback<None>();
@@ -159,6 +174,129 @@ public class ZooKeeperEphemeralStoreTest
     }
   }
 
+  @Test(groups = { "small", "back-end" })
+  public void testPublishFetchesOnlyNewChildren()
+          throws InterruptedException, IOException, PropertyStoreException, ExecutionException
+  {
+    ZooKeeperEphemeralStore<String> store = getStore();
+    store.put("service-4", "1");
+    store.put("service-4", "2");
+    store.put("service-4", "3");
+
+    CountingSerializer serializer = new CountingSerializer();
+    ZooKeeperEphemeralStore<String> publisher = getStore(serializer);
+    QueueBus bus = new QueueBus();
+    publisher.setBus(bus);
+
+    publisher.startPublishing("service-4");
+    assertEquals(split(bus.take()), split("1,2,3"));
+    assertEquals(serializer.getReadCount(), 3);
+
+    // only the data of the new child should be read
+    store.put("service-4", "4");
+    assertEquals(split(bus.take()), split("1,2,3,4"));
+    assertEquals(serializer.getReadCount(), 4);
+
+    // removing a child should not read anything
+    store.removePartial("service-4", "2");
+    assertEquals(split(bus.take()), split("1,3,4"));
+    assertEquals(serializer.getReadCount(), 4);
+
+    // the cache is dropped when publishing restarts
+    publisher.stopPublishing("service-4");
+    publisher.startPublishing("service-4");
+    assertEquals(split(bus.take()), split("1,3,4"));
+    assertEquals(serializer.getReadCount(), 7);
+
+    publisher.stopPublishing("service-4");
+    store.remove("service-4");
+  }
+
+  private static Set<String> split(String merged)
+  {
+    return new HashSet<String>(Arrays.asList(merged.split(",")));
+  }
+
+  private static class CountingSerializer extends PropertyStringSerializer
+  {
+    private final AtomicInteger _readCount = new AtomicInteger();
+
+    @Override
+    public String fromBytes(byte[] bytes)
+    {
+      _readCount.incrementAndGet();
+      return super.fromBytes(bytes);
+    }
+
+    public int getReadCount()
+    {
+      return _readCount.get();
+    }
+  }
+
+  private static class QueueBus implements PropertyEventBus<String>
+  {
+    private final BlockingQueue<String> _values = new LinkedBlockingQueue<String>();
+
+    public String take() throws InterruptedException
+    {
+      String value = _values.poll(5, TimeUnit.SECONDS);
+      if (value == null)
+      {
+        fail("timed out waiting for a published value");
+      }
+      return value;
+    }
+
+    @Override
+    public void publishInitialize(String prop, String value)
+    {
+      _values.add(value);
+    }
+
+    @Override
+    public void publishAdd(String prop, String value)
+    {
+      _values.add(value);
+    }
+
+    @Override
+    public void publishRemove(String prop)
+    {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void register(PropertyEventSubscriber<String> subscriber)
+    {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void unregister(PropertyEventSubscriber<String> subscriber)
+    {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void register(Set<String> propertyNames, PropertyEventSubscriber<String> subscriber)
+    {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void unregister(Set<String> propertyNames, PropertyEventSubscriber<String> subscriber)
+    {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setPublisher(PropertyEventPublisher<String> publisher)
+    {
+      throw new UnsupportedOperationException();
+    }
+  }
+
   public static class PropertyStringMerger implements ZooKeeperPropertyMerger<String>
   {
     @Override
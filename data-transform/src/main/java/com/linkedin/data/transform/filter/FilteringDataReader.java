@@ -0,0 +1,362 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.data.transform.filter;
+
+
+import com.linkedin.data.DataMap;
+import com.linkedin.data.codec.AbstractDataReader;
+import com.linkedin.data.codec.DataDecodingException;
+import com.linkedin.data.codec.DataReader;
+import com.linkedin.data.transform.DataMapProcessor;
+import com.linkedin.data.transform.DataProcessingException;
+import com.linkedin.data.transform.Escaper;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import static com.linkedin.data.transform.filter.FilterConstants.COUNT;
+import static com.linkedin.data.transform.filter.FilterConstants.NEGATIVE;
+import static com.linkedin.data.transform.filter.FilterConstants.POSITIVE;
+import static com.linkedin.data.transform.filter.FilterConstants.START;
+import static com.linkedin.data.transform.filter.FilterUtil.getIntegerWithDefaultValue;
+
+
+/**
+ * A {@link DataReader} that applies a filter, i.e. a projection mask, to the events of
+ * another {@link DataReader} while they are being read.
+ * <p>
+ *
+ * The events of the fields and array elements that are filtered out are skipped
+ * using {@link DataReader#skipChildren()}, so they are never returned to the caller.
+ * The result is the same as applying the filter with {@link Filter} to the Data object
+ * read, except that errors in the filter are not reported: the data that an incorrect
+ * part of the filter applies to is not filtered.
+ * <p>
+ *
+ * This class is not thread-safe.
+ */
+public class FilteringDataReader extends AbstractDataReader
+{
+  /**
+   * Construct a reader that filters the value read by another reader.
+   *
+   * @param reader provides the {@link DataReader} to filter.
+   * @param filter provides the filter to apply.
+   */
+  public FilteringDataReader(DataReader reader, DataMap filter)
+  {
+    _reader = reader;
+    _filter = filter;
+  }
+
+  @Override
+  public Event next() throws IOException
+  {
+    if (_pendingEvent != null)
+    {
+      Event event = _pendingEvent;
+      _pendingEvent = null;
+      return startValue(event, _pendingFilter);
+    }
+    while (true)
+    {
+      Event event = _reader.next();
+      if (event == null)
+      {
+        _event = null;
+        return null;
+      }
+      Frame frame = _frames.peekLast();
+      switch (event)
+      {
+        case KEY:
+          String key = _reader.getKey();
+          Event valueEvent = _reader.next();
+          if (valueEvent == null)
+          {
+            throw new DataDecodingException("Unexpected end of input after key " + key);
+          }
+          Object childFilter = filterEntry(frame, key, isComplex(valueEvent));
+          if (childFilter == REMOVE)
+          {
+            _reader.skipChildren();
+            continue;
+          }
+          _key = key;
+          _pendingEvent = valueEvent;
+          _pendingFilter = (DataMap) childFilter;
+          _event = Event.KEY;
+          return _event;
+        case END_MAP:
+        case END_LIST:
+          _frames.removeLast();
+          _event = event;
+          return _event;
+        default:
+          if (frame == null)
+          {
+            return startValue(event, _filter);
+          }
+          Object elementFilter = filterElement(frame, isComplex(event));
+          if (elementFilter == REMOVE)
+          {
+            _reader.skipChildren();
+            continue;
+          }
+          return startValue(event, (DataMap) elementFilter);
+      }
+    }
+  }
+
+  @Override
+  public void skipChildren() throws IOException
+  {
+    if (_event == Event.START_MAP || _event == Event.START_LIST)
+    {
+      _reader.skipChildren();
+      _frames.removeLast();
+      _event = (_event == Event.START_MAP ? Event.END_MAP : Event.END_LIST);
+    }
+  }
+
+  @Override
+  public void close() throws IOException
+  {
+    _reader.close();
+  }
+
+  private Event startValue(Event event, DataMap filter)
+  {
+    if (event == Event.VALUE)
+    {
+      _value = _reader.getValue();
+    }
+    else
+    {
+      _frames.addLast(new Frame(filter));
+    }
+    _event = event;
+    return _event;
+  }
+
+  /**
+   * Returns {@link #REMOVE} if the entry is filtered out, otherwise the filter
+   * to apply to its value, or null if its value is not filtered.
+   */
+  private Object filterEntry(Frame frame, String name, boolean isComplex)
+  {
+    DataMap opNode = frame._filter;
+    if (opNode == null)
+    {
+      return null;
+    }
+    Object opChild = opNode.get(Escaper.replaceAll(name, "$", "$$"));
+    if (opChild instanceof Integer)
+    {
+      NodeMode explicitFieldMode = NodeMode.fromRepresentation((Integer) opChild);
+      if (explicitFieldMode == NodeMode.HIDE_HIGH)
+      {
+        return REMOVE;
+      }
+      if (explicitFieldMode != null && frame._complexWildcard != null && isComplex)
+      {
+        return compose(frame._complexWildcard, wildcard(POSITIVE));
+      }
+      return null;
+    }
+    else if (opChild == null)
+    {
+      if (frame._defaultMode == NodeMode.HIDE_HIGH || areFieldsImplicitlyRemoved(frame._defaultMode, frame._complexWildcard))
+      {
+        return REMOVE;
+      }
+      if (frame._complexWildcard != null)
+      {
+        if (isComplex)
+        {
+          return frame._complexWildcard;
+        }
+        if (needsRemoving(frame._defaultMode, frame._complexWildcard))
+        {
+          return REMOVE;
+        }
+      }
+      return null;
+    }
+    else if (opChild.getClass() == DataMap.class)
+    {
+      Object rawWildcard = opNode.get(FilterConstants.WILDCARD);
+      DataMap effectiveMask;
+      if (rawWildcard == null)
+      {
+        effectiveMask = (DataMap) opChild;
+      }
+      else if (rawWildcard.equals(POSITIVE))
+      {
+        effectiveMask = compose((DataMap) opChild, wildcard(POSITIVE));
+      }
+      else if (rawWildcard.getClass() == DataMap.class)
+      {
+        effectiveMask = compose((DataMap) opChild, (DataMap) rawWildcard);
+      }
+      else
+      {
+        return null;
+      }
+      if (effectiveMask == null)
+      {
+        return null;
+      }
+      if (needsRemoving(frame._defaultMode, effectiveMask))
+      {
+        return REMOVE;
+      }
+      return isComplex ? effectiveMask : null;
+    }
+    else
+    {
+      return null;
+    }
+  }
+
+  /**
+   * Returns {@link #REMOVE} if the next array element is filtered out, otherwise the filter
+   * to apply to the element, or null if the element is not filtered.
+   */
+  private Object filterElement(Frame frame, boolean isComplex)
+  {
+    int index = frame._index++;
+    DataMap opNode = frame._filter;
+    if (opNode == null)
+    {
+      return null;
+    }
+    if (index < frame._start || index - frame._start >= frame._count)
+    {
+      return REMOVE;
+    }
+    Object wildcard = opNode.get(FilterConstants.WILDCARD);
+    if (wildcard == null)
+    {
+      return null;
+    }
+    else if (wildcard.equals(NEGATIVE))
+    {
+      return REMOVE;
+    }
+    else if (wildcard.getClass() == DataMap.class && isComplex)
+    {
+      return wildcard;
+    }
+    return null;
+  }
+
+  private boolean needsRemoving(NodeMode defaultMode, DataMap effectiveMask)
+  {
+    if (defaultMode == NodeMode.HIDE_HIGH)
+    {
+      return true;
+    }
+    if (defaultMode == NodeMode.HIDE_LOW)
+    {
+      NodeMode maskMode = _defaultNodeMode.getDefaultNodeMode(effectiveMask);
+      return maskMode == NodeMode.SHOW_LOW || maskMode == NodeMode.HIDE_HIGH;
+    }
+    return false;
+  }
+
+  private boolean areFieldsImplicitlyRemoved(NodeMode defaultMode, DataMap complexWildcard)
+  {
+    return defaultMode == NodeMode.HIDE_LOW &&
+      (complexWildcard == null || _defaultNodeMode.getDefaultNodeMode(complexWildcard) != NodeMode.HIDE_LOW);
+  }
+
+  private static boolean isComplex(Event event)
+  {
+    return event == Event.START_MAP || event == Event.START_LIST;
+  }
+
+  private static DataMap wildcard(Integer v)
+  {
+    DataMap mask = new DataMap();
+    mask.put(FilterConstants.WILDCARD, v);
+    return mask;
+  }
+
+  /**
+   * Returns the composition of two masks, or null if they cannot be composed.
+   */
+  private static DataMap compose(DataMap mask1, DataMap mask2)
+  {
+    try
+    {
+      final DataMap clone = mask1.copy();
+      new DataMapProcessor(new MaskComposition(), mask2, clone).run(false);
+      return clone;
+    }
+    catch (CloneNotSupportedException e)
+    {
+      return null;
+    }
+    catch (DataProcessingException e)
+    {
+      return null;
+    }
+  }
+
+  private class Frame
+  {
+    private Frame(DataMap filter)
+    {
+      _filter = filter;
+      if (filter != null)
+      {
+        _defaultMode = _defaultNodeMode.getDefaultNodeMode(filter);
+        Object wildcard = filter.get(FilterConstants.WILDCARD);
+        _complexWildcard = (wildcard != null && wildcard.getClass() == DataMap.class) ? (DataMap) wildcard : null;
+        Integer start = getIntegerWithDefaultValue(filter, START, 0);
+        Integer count = getIntegerWithDefaultValue(filter, COUNT, Integer.MAX_VALUE);
+        boolean validRange = (start != null && start >= 0 && count != null && count >= 0);
+        _start = validRange ? start : 0;
+        _count = validRange ? count : Integer.MAX_VALUE;
+      }
+      else
+      {
+        _defaultMode = null;
+        _complexWildcard = null;
+        _start = 0;
+        _count = Integer.MAX_VALUE;
+      }
+    }
+
+    private final DataMap _filter;
+    private final NodeMode _defaultMode;
+    private final DataMap _complexWildcard;
+    private final int _start;
+    private final int _count;
+    private int _index;
+  }
+
+  private static final Object REMOVE = new Object();
+
+  private final DefaultNodeModeCalculator _defaultNodeMode = new DefaultNodeModeCalculator();
+  private final DataReader _reader;
+  private final DataMap _filter;
+  private final Deque<Frame> _frames = new ArrayDeque<Frame>();
+  private Event _pendingEvent;
+  private DataMap _pendingFilter;
+}
@@ -0,0 +1,69 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.data.transform.filter;
+
+
+import com.linkedin.data.DataMap;
+import com.linkedin.data.codec.DataReaderUtil;
+import com.linkedin.data.codec.JacksonDataCodec;
+import com.linkedin.data.codec.PsonDataCodec;
+import com.linkedin.data.codec.StreamingDataCodec;
+import java.io.IOException;
+import org.testng.annotations.Test;
+
+import static com.linkedin.data.TestUtil.dataMapFromString;
+import static org.testng.Assert.assertEquals;
+
+
+public class TestFilteringDataReader
+{
+  private void genericFilterTest(String[][] tests) throws IOException
+  {
+    StreamingDataCodec[] codecs = { new JacksonDataCodec(), new PsonDataCodec() };
+    for (StreamingDataCodec codec : codecs)
+    {
+      for (String[] testCase : tests)
+      {
+        DataMap data = dataMapFromString(testCase[1].replace('\'', '"'));
+        DataMap filter = dataMapFromString(testCase[2].replace('\'', '"'));
+        DataMap expected = dataMapFromString(testCase[3].replace('\'', '"'));
+        DataMap actual = DataReaderUtil.readMap(new FilteringDataReader(codec.createReader(codec.mapToBytes(data)), filter));
+        assertEquals(actual, expected, "The following test failed: \n" + testCase[0] +
+                     "\nData: " + data + "\nFilter: " + filter +
+                     "\nExpected: " + expected + "\nActual result: " + actual);
+      }
+    }
+  }
+
+  @Test
+  public void testFilterOnData() throws IOException
+  {
+    genericFilterTest(TestFilterOnData.TESTS);
+  }
+
+  @Test
+  public void testFilterOnDataContainingArrays() throws IOException
+  {
+    genericFilterTest(TestFilterOnData.ARRAY_TESTS);
+  }
+
+  @Test
+  public void testFilterOnDataWithEscaping() throws IOException
+  {
+    genericFilterTest(TestFilterOnData.ESCAPING_TESTS);
+  }
+}
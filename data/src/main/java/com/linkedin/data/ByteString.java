@@ -63,6 +63,21 @@ public final class ByteString
     return bytes.length == 0 ? empty() : new ByteString(Arrays.copyOf(bytes, bytes.length));
   }
 
+  /**
+   * Returns a new {@link ByteString} that wraps the supplied bytes without copying them. The caller must
+   * not change the supplied bytes afterwards, e.g. it must have allocated them for the returned
+   * {@link ByteString}.
+   *
+   * @param bytes the bytes to wrap
+   * @return a {@link ByteString} that wraps the supplied bytes
+   * @throws NullPointerException if {@code bytes} is {@code null}.
+   */
+  public static ByteString unsafeWrap(byte[] bytes)
+  {
+    ArgumentUtil.notNull(bytes, "bytes");
+    return bytes.length == 0 ? empty() : new ByteString(bytes);
+  }
+
   /**
    * Returns a new {@link ByteString} that wraps a copy of the bytes in the supplied {@link ByteBuffer}.
    * Changes to the supplied bytes will not be reflected in the returned {@link ByteString}.
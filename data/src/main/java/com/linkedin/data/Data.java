@@ -734,7 +734,8 @@ public class Data
    *
    * Recursively invoke clone on complex objects and storing
    * the clone in the cloned containing object. Primitive objects
-   * are not cloned.
+   * are not cloned. Complex objects that have been made read-only
+   * are copied lazily, see {@link #lazyCopy(DataComplex)}.
    *
    * @param object is the object to deep copy.
    * @param alreadyCopied provides the objects that have already been copied.
@@ -758,9 +759,18 @@ public class Data
       else
       {
         DataComplex src = (DataComplex) object;
-        DataComplex clone = src.clone();
-        alreadyCopied.put(src, clone);
-        clone.copyReferencedObjects(alreadyCopied);
+        DataComplex clone;
+        if (src.isMadeReadOnly())
+        {
+          clone = lazyCopy(src);
+          alreadyCopied.put(src, clone);
+        }
+        else
+        {
+          clone = src.clone();
+          alreadyCopied.put(src, clone);
+          clone.copyReferencedObjects(alreadyCopied);
+        }
 
         @SuppressWarnings("unchecked")
         T converted = (T) clone;
@@ -776,6 +786,75 @@ public class Data
       throw new CloneNotSupportedException("Illegal value encountered: " + object);
     }
   }
+  /**
+   * Copy a complex object that has been made read-only.
+   *
+   * The copy shares the underlying storage and the contained complex objects
+   * of the read-only object. The storage is copied when the copy is first
+   * modified, and each contained complex object is copied the same way
+   * when it is first accessed through the copy. Accessing a contained object
+   * does not modify the copy.
+   *
+   * @param object is the read-only object to copy.
+   * @return the copy.
+   */
+  static DataComplex lazyCopy(DataComplex object)
+  {
+    return lazyCopy(object, null, null);
+  }
+  /**
+   * Copy a complex object that has been made read-only and is held by a lazy copy.
+   *
+   * Obtaining the copy does not modify the object holding it. The copy is stored
+   * in the holding object under the input key when the copy is first modified.
+   *
+   * @param object is the read-only object to copy.
+   * @param owner is the lazy copy holding the read-only object, or null.
+   * @param ownerKey is the key or index of the read-only object in the owner.
+   * @return the copy.
+   */
+  static DataComplex lazyCopy(DataComplex object, DataComplex owner, Object ownerKey)
+  {
+    try
+    {
+      return object instanceof DataMap ?
+        ((DataMap) object).lazyCopy(owner, ownerKey) :
+        ((DataList) object).lazyCopy(owner, ownerKey);
+    }
+    catch (CloneNotSupportedException e)
+    {
+      throw new IllegalStateException(e);
+    }
+  }
+  /**
+   * Store a lazy copy in the object holding the read-only object it was copied from.
+   *
+   * @param owner is the object holding the read-only object.
+   * @param ownerKey is the key or index of the read-only object in the owner.
+   * @param original is the read-only object.
+   * @param copy is the lazy copy of the read-only object.
+   */
+  static void adoptCopy(DataComplex owner, Object ownerKey, DataComplex original, DataComplex copy)
+  {
+    if (owner instanceof DataMap)
+    {
+      ((DataMap) owner).adoptCopy(ownerKey, original, copy);
+    }
+    else
+    {
+      ((DataList) owner).adoptCopy(ownerKey, original, copy);
+    }
+  }
+  /**
+   * Return whether a lazy copy was copied from the input read-only object and
+   * has not yet been stored in the object holding it.
+   */
+  static boolean isPendingCopyOf(DataComplex copy, DataComplex original)
+  {
+    return copy instanceof DataMap ?
+      ((DataMap) copy).isPendingCopyOf(original) :
+      ((DataList) copy).isPendingCopyOf(original);
+  }
   /**
    * Make a Data object and its contained mutable Data objects read-only.
    *
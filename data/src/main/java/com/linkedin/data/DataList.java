@@ -19,8 +19,10 @@ package com.linkedin.data;
 import com.linkedin.data.collections.CheckedList;
 import com.linkedin.data.collections.CommonList;
 import com.linkedin.data.collections.ListChecker;
+import com.linkedin.data.collections.PrimitiveList;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
@@ -51,6 +53,21 @@ import java.util.Map;
  * is lazy and may be delayed until the {@link DataList} is about to be modified.
  * <p>
  *
+ * Copying a {@link DataList} that has been made read-only via {@link #makeReadOnly()}
+ * takes constant time. The copy shares the elements of the read-only {@link DataList}
+ * until it is modified, and a contained complex object is copied the same way
+ * when it is first accessed through the copy, see {@link DataMap}.
+ * <p>
+ *
+ * A {@link DataList} of numbers may store its elements unboxed in a {@link PrimitiveList}.
+ * Such a {@link DataList} is constructed from a {@link PrimitiveList}, or is obtained
+ * by appending to an empty {@link DataList} with one of the unboxed add methods, e.g.
+ * {@link #addDouble(double)}. The unboxed get methods, e.g. {@link #getDouble(int)},
+ * do not box elements that are stored unboxed. The elements are boxed when accessed
+ * through the {@link List} interface, and the {@link DataList} reverts to boxed storage
+ * when an element of another type is added.
+ * <p>
+ *
  * @author slim
  */
 public final class DataList extends CheckedList<Object> implements DataComplex
@@ -83,11 +100,49 @@ public final class DataList extends CheckedList<Object> implements DataComplex
     super(initialCapacity, _checker);
   }
 
+  /**
+   * Construct a {@link DataList} that stores the elements of the specified {@link PrimitiveList} unboxed.
+   * The {@link PrimitiveList} is not copied and should not be referenced by the caller afterwards.
+   *
+   * @param list provides the initial elements and the underlying storage.
+   */
+  public DataList(PrimitiveList<?> list)
+  {
+    super(list, _checker);
+  }
+
   @Override
   public Object get(int index)
   {
     instrumentAccess(index);
-    return super.get(index);
+    return sharedChildCopy(index, super.get(index));
+  }
+
+  @Override
+  public Object remove(int index)
+  {
+    Object value = super.remove(index);
+    if (_copyChildren && value instanceof DataComplex && ((DataComplex) value).isMadeReadOnly())
+    {
+      value = Data.lazyCopy((DataComplex) value);
+    }
+    return value;
+  }
+
+  @Override
+  public Object[] toArray()
+  {
+    Object[] array = super.toArray();
+    sharedChildCopies(array);
+    return array;
+  }
+
+  @Override
+  public <T> T[] toArray(T[] a)
+  {
+    T[] array = super.toArray(a);
+    sharedChildCopies(array);
+    return array;
   }
 
   @Override
@@ -97,6 +152,10 @@ public final class DataList extends CheckedList<Object> implements DataComplex
     o._madeReadOnly = false;
     o._instrumented = false;
     o._accessList = null;
+    o._childCopies = null;
+    o._copyOwner = null;
+    o._copyOwnerKey = null;
+    o._copyOriginal = null;
     return o;
   }
 
@@ -109,10 +168,15 @@ public final class DataList extends CheckedList<Object> implements DataComplex
   @Override
   public void copyReferencedObjects(IdentityHashMap<DataComplex, DataComplex> alreadyCopied) throws CloneNotSupportedException
   {
+    if (getPrimitiveList() != null)
+    {
+      // unboxed elements do not reference other objects
+      return;
+    }
     int count = size();
     for (int i = 0; i < count; ++i)
     {
-      Object value = get(i);
+      Object value = super.get(i);
       Object valueCopy = Data.copy(value, alreadyCopied);
       if (value != valueCopy)
       {
@@ -130,12 +194,18 @@ public final class DataList extends CheckedList<Object> implements DataComplex
   @Override
   public void makeReadOnly()
   {
-    for (Object o : this)
+    if (getPrimitiveList() == null)
     {
-      Data.makeReadOnly(o);
+      int count = size();
+      for (int i = 0; i < count; ++i)
+      {
+        Data.makeReadOnly(super.get(i));
+      }
     }
     setReadOnly();
     _madeReadOnly = true;
+    _copyChildren = false;
+    _childCopies = null;
   }
 
   @Override
@@ -166,6 +236,274 @@ public final class DataList extends CheckedList<Object> implements DataComplex
     return (DataMap) get(index);
   }
 
+  /**
+   * Returns the element at the specified position as an int.
+   *
+   * @param index of the element to return.
+   * @return the element at the specified position as an int.
+   * @throws ClassCastException if the element is not a {@link Number}.
+   */
+  public int getInt(int index)
+  {
+    instrumentAccess(index);
+    PrimitiveList<?> list = getPrimitiveList();
+    if (list instanceof PrimitiveList.IntegerList)
+    {
+      return ((PrimitiveList.IntegerList) list).getInt(index);
+    }
+    return ((Number) super.get(index)).intValue();
+  }
+
+  /**
+   * Replaces the element at the specified position with an int.
+   *
+   * @param index of the element to replace.
+   * @param value to be stored at the specified position.
+   * @throws UnsupportedOperationException if the list is read-only.
+   */
+  public void setInt(int index, int value)
+  {
+    checkMutability();
+    PrimitiveList<?> list = getPrimitiveList();
+    if (list instanceof PrimitiveList.IntegerList)
+    {
+      ((PrimitiveList.IntegerList) list).setInt(index, value);
+    }
+    else
+    {
+      setWithoutChecking(index, value);
+    }
+  }
+
+  /**
+   * Appends an int to the list.
+   *
+   * If the list is empty and does not already store its elements unboxed,
+   * it will store ints unboxed from now on.
+   *
+   * @param value to be appended to the list.
+   * @throws UnsupportedOperationException if the list is read-only.
+   */
+  public void addInt(int value)
+  {
+    checkMutability();
+    PrimitiveList<?> list = getPrimitiveList();
+    if (list == null && isEmpty())
+    {
+      list = new PrimitiveList.IntegerList();
+      setPrimitiveList(list);
+    }
+    if (list instanceof PrimitiveList.IntegerList)
+    {
+      ((PrimitiveList.IntegerList) list).addInt(value);
+    }
+    else
+    {
+      addWithoutChecking(value);
+    }
+  }
+
+  /**
+   * Returns the element at the specified position as a long.
+   *
+   * @param index of the element to return.
+   * @return the element at the specified position as a long.
+   * @throws ClassCastException if the element is not a {@link Number}.
+   */
+  public long getLong(int index)
+  {
+    instrumentAccess(index);
+    PrimitiveList<?> list = getPrimitiveList();
+    if (list instanceof PrimitiveList.LongList)
+    {
+      return ((PrimitiveList.LongList) list).getLong(index);
+    }
+    return ((Number) super.get(index)).longValue();
+  }
+
+  /**
+   * Replaces the element at the specified position with a long.
+   *
+   * @param index of the element to replace.
+   * @param value to be stored at the specified position.
+   * @throws UnsupportedOperationException if the list is read-only.
+   */
+  public void setLong(int index, long value)
+  {
+    checkMutability();
+    PrimitiveList<?> list = getPrimitiveList();
+    if (list instanceof PrimitiveList.LongList)
+    {
+      ((PrimitiveList.LongList) list).setLong(index, value);
+    }
+    else
+    {
+      setWithoutChecking(index, value);
+    }
+  }
+
+  /**
+   * Appends a long to the list.
+   *
+   * If the list is empty and does not already store its elements unboxed,
+   * it will store longs unboxed from now on.
+   *
+   * @param value to be appended to the list.
+   * @throws UnsupportedOperationException if the list is read-only.
+   */
+  public void addLong(long value)
+  {
+    checkMutability();
+    PrimitiveList<?> list = getPrimitiveList();
+    if (list == null && isEmpty())
+    {
+      list = new PrimitiveList.LongList();
+      setPrimitiveList(list);
+    }
+    if (list instanceof PrimitiveList.LongList)
+    {
+      ((PrimitiveList.LongList) list).addLong(value);
+    }
+    else
+    {
+      addWithoutChecking(value);
+    }
+  }
+
+  /**
+   * Returns the element at the specified position as a float.
+   *
+   * @param index of the element to return.
+   * @return the element at the specified position as a float.
+   * @throws ClassCastException if the element is not a {@link Number}.
+   */
+  public float getFloat(int index)
+  {
+    instrumentAccess(index);
+    PrimitiveList<?> list = getPrimitiveList();
+    if (list instanceof PrimitiveList.FloatList)
+    {
+      return ((PrimitiveList.FloatList) list).getFloat(index);
+    }
+    return ((Number) super.get(index)).floatValue();
+  }
+
+  /**
+   * Replaces the element at the specified position with a float.
+   *
+   * @param index of the element to replace.
+   * @param value to be stored at the specified position.
+   * @throws UnsupportedOperationException if the list is read-only.
+   */
+  public void setFloat(int index, float value)
+  {
+    checkMutability();
+    PrimitiveList<?> list = getPrimitiveList();
+    if (list instanceof PrimitiveList.FloatList)
+    {
+      ((PrimitiveList.FloatList) list).setFloat(index, value);
+    }
+    else
+    {
+      setWithoutChecking(index, value);
+    }
+  }
+
+  /**
+   * Appends a float to the list.
+   *
+   * If the list is empty and does not already store its elements unboxed,
+   * it will store floats unboxed from now on.
+   *
+   * @param value to be appended to the list.
+   * @throws UnsupportedOperationException if the list is read-only.
+   */
+  public void addFloat(float value)
+  {
+    checkMutability();
+    PrimitiveList<?> list = getPrimitiveList();
+    if (list == null && isEmpty())
+    {
+      list = new PrimitiveList.FloatList();
+      setPrimitiveList(list);
+    }
+    if (list instanceof PrimitiveList.FloatList)
+    {
+      ((PrimitiveList.FloatList) list).addFloat(value);
+    }
+    else
+    {
+      addWithoutChecking(value);
+    }
+  }
+
+  /**
+   * Returns the element at the specified position as a double.
+   *
+   * @param index of the element to return.
+   * @return the element at the specified position as a double.
+   * @throws ClassCastException if the element is not a {@link Number}.
+   */
+  public double getDouble(int index)
+  {
+    instrumentAccess(index);
+    PrimitiveList<?> list = getPrimitiveList();
+    if (list instanceof PrimitiveList.DoubleList)
+    {
+      return ((PrimitiveList.DoubleList) list).getDouble(index);
+    }
+    return ((Number) super.get(index)).doubleValue();
+  }
+
+  /**
+   * Replaces the element at the specified position with a double.
+   *
+   * @param index of the element to replace.
+   * @param value to be stored at the specified position.
+   * @throws UnsupportedOperationException if the list is read-only.
+   */
+  public void setDouble(int index, double value)
+  {
+    checkMutability();
+    PrimitiveList<?> list = getPrimitiveList();
+    if (list instanceof PrimitiveList.DoubleList)
+    {
+      ((PrimitiveList.DoubleList) list).setDouble(index, value);
+    }
+    else
+    {
+      setWithoutChecking(index, value);
+    }
+  }
+
+  /**
+   * Appends a double to the list.
+   *
+   * If the list is empty and does not already store its elements unboxed,
+   * it will store doubles unboxed from now on.
+   *
+   * @param value to be appended to the list.
+   * @throws UnsupportedOperationException if the list is read-only.
+   */
+  public void addDouble(double value)
+  {
+    checkMutability();
+    PrimitiveList<?> list = getPrimitiveList();
+    if (list == null && isEmpty())
+    {
+      list = new PrimitiveList.DoubleList();
+      setPrimitiveList(list);
+    }
+    if (list instanceof PrimitiveList.DoubleList)
+    {
+      ((PrimitiveList.DoubleList) list).addDouble(value);
+    }
+    else
+    {
+      addWithoutChecking(value);
+    }
+  }
+
   @Override
   public void startInstrumentingAccess()
   {
@@ -225,6 +563,121 @@ public final class DataList extends CheckedList<Object> implements DataComplex
     return getObject();
   }
 
+  /**
+   * Return a copy of this read-only {@link DataList} that shares its elements, see {@link Data#lazyCopy(DataComplex, DataComplex, Object)}.
+   */
+  DataList lazyCopy(DataComplex owner, Object ownerKey) throws CloneNotSupportedException
+  {
+    DataList o = (DataList) cloneReadOnly();
+    o._madeReadOnly = false;
+    o._instrumented = false;
+    o._accessList = null;
+    o._copyChildren = getPrimitiveList() == null;
+    o._childCopies = null;
+    o._copyOwner = owner;
+    o._copyOwnerKey = ownerKey;
+    o._copyOriginal = owner == null ? null : this;
+    return o;
+  }
+
+  /**
+   * Return whether this list is a lazy copy of the input read-only object that has
+   * not yet been stored in the object holding it.
+   */
+  boolean isPendingCopyOf(DataComplex original)
+  {
+    return _copyOriginal == original;
+  }
+
+  /**
+   * Store the copy of a read-only element shared with the {@link DataList} this list
+   * was lazily copied from, unless the element has been replaced or moved since.
+   */
+  void adoptCopy(Object index, DataComplex original, DataComplex copy)
+  {
+    int i = (Integer) index;
+    if (i < size() && super.get(i) == original)
+    {
+      setWithoutChecking(i, copy);
+    }
+  }
+
+  /**
+   * Stores this list in the object holding it if it is a pending lazy copy, and stores
+   * the copies of elements handed out so far, since their indices may change with
+   * the modification.
+   */
+  @Override
+  protected void beforeModification()
+  {
+    if (_copyOwner != null)
+    {
+      Data.adoptCopy(_copyOwner, _copyOwnerKey, _copyOriginal, this);
+      _copyOwner = null;
+      _copyOwnerKey = null;
+      _copyOriginal = null;
+    }
+    Map<Integer, DataComplex> copies;
+    synchronized (this)
+    {
+      copies = _childCopies;
+      _childCopies = null;
+    }
+    if (copies != null)
+    {
+      for (Map.Entry<Integer, DataComplex> e : copies.entrySet())
+      {
+        int index = e.getKey();
+        Object value = super.get(index);
+        if (value instanceof DataComplex && Data.isPendingCopyOf(e.getValue(), (DataComplex) value))
+        {
+          setWithoutChecking(index, e.getValue());
+        }
+      }
+    }
+  }
+
+  /**
+   * Return the element to hand out for the input element stored at the input index.
+   *
+   * A read-only complex element shared with the {@link DataList} this list was lazily
+   * copied from is returned as its copy, which is created once per index and only
+   * stored in this list when either of them is first modified.
+   */
+  private Object sharedChildCopy(int index, Object value)
+  {
+    if (_copyChildren && value instanceof DataComplex && ((DataComplex) value).isMadeReadOnly() && isReadOnly() == false)
+    {
+      synchronized (this)
+      {
+        if (_childCopies == null)
+        {
+          _childCopies = new HashMap<Integer, DataComplex>();
+        }
+        DataComplex copy = _childCopies.get(index);
+        if (copy == null || Data.isPendingCopyOf(copy, (DataComplex) value) == false)
+        {
+          copy = Data.lazyCopy((DataComplex) value, this, index);
+          _childCopies.put(index, copy);
+        }
+        return copy;
+      }
+    }
+    return value;
+  }
+
+  private void sharedChildCopies(Object[] array)
+  {
+    if (_copyChildren && isReadOnly() == false)
+    {
+      int count = size();
+      for (int i = 0; i < count; ++i)
+      {
+        array[i] = sharedChildCopy(i, array[i]);
+      }
+    }
+  }
+
   private void instrumentAccess(int index)
   {
     if (_instrumented)
@@ -257,4 +710,9 @@ public final class DataList extends CheckedList<Object> implements DataComplex
   private boolean _madeReadOnly = false;
   private boolean _instrumented = false;
   private ArrayList<Integer> _accessList;
+  private boolean _copyChildren = false;
+  private Map<Integer, DataComplex> _childCopies;
+  private DataComplex _copyOwner;
+  private Object _copyOwnerKey;
+  private DataComplex _copyOriginal;
 }
\ No newline at end of file
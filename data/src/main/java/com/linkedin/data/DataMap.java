@@ -18,10 +18,17 @@ package com.linkedin.data;
 
 import com.linkedin.data.collections.CheckedMap;
 import com.linkedin.data.collections.CommonMap;
+import com.linkedin.data.collections.CompactMap;
 import com.linkedin.data.collections.MapChecker;
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
 
 
 /**
@@ -53,6 +60,22 @@ import java.util.Map;
  *
  * Since {@link DataMap} extends {@link CheckedMap}, copying of the {@link DataMap} is lazy and may be
  * delayed until the {@link DataMap} is about to be modified.
+ * <p>
+ *
+ * Copying a {@link DataMap} that has been made read-only via {@link #makeReadOnly()}
+ * takes constant time. The copy shares the entries of the read-only {@link DataMap}
+ * until it is modified, and a contained complex object is copied the same way
+ * when it is first accessed through the copy. Accessing a contained complex object
+ * does not modify the copy; the copy of the contained object takes its place in
+ * the copy when either of them is first modified. Contained complex objects that
+ * are referenced more than once are copied separately for each reference.
+ * <p>
+ *
+ * A {@link DataMap} constructed with a {@link CompactMap.KeyLayout} is backed by a {@link CompactMap}
+ * instead of a {@link HashMap}. It iterates over the keys of the layout in the order of the
+ * layout, e.g. the order the fields of a record are defined in, and then over any other keys
+ * in the order they were added. It is equal to a {@link HashMap}-backed {@link DataMap} with
+ * the same entries.
  *
  * @author slim
  */
@@ -112,6 +135,23 @@ public final class DataMap extends CheckedMap<String,Object> implements DataComp
     super(initialCapacity, loadFactor, _checker);
   }
 
+  /**
+   * Constructs an empty {@link DataMap} backed by a {@link CompactMap} that
+   * shares the keys of the specified {@link CompactMap.KeyLayout}.
+   * <p>
+   *
+   * This is intended for maps whose keys are mostly known up front, such as
+   * the data of a record, where it avoids allocating an entry per field.
+   *
+   * @param layout provides the expected keys of the {@link DataMap}.
+   *
+   * @see com.linkedin.data.schema.RecordDataSchema#getFieldLayout()
+   */
+  public DataMap(CompactMap.KeyLayout<String> layout)
+  {
+    super(new CompactMap<String,Object>(layout), _checker);
+  }
+
   @Override
   public DataMap clone() throws CloneNotSupportedException
   {
@@ -119,6 +159,10 @@ public final class DataMap extends CheckedMap<String,Object> implements DataComp
     o._madeReadOnly = false;
     o._instrumented = false;
     o._accessMap = null;
+    o._childCopies = null;
+    o._copyOwner = null;
+    o._copyOwnerKey = null;
+    o._copyOriginal = null;
     return o;
   }
 
@@ -126,7 +170,109 @@ public final class DataMap extends CheckedMap<String,Object> implements DataComp
   public Object get(Object key)
   {
     instrumentAccess(key);
-    return super.get(key);
+    return sharedChildCopy(key, super.get(key));
+  }
+
+  @Override
+  public Object remove(Object key)
+  {
+    Object value = super.remove(key);
+    if (_copyChildren && value instanceof DataComplex && ((DataComplex) value).isMadeReadOnly())
+    {
+      DataComplex copy = childCopies().get(key);
+      value = copy != null && Data.isPendingCopyOf(copy, (DataComplex) value) ? copy : Data.lazyCopy((DataComplex) value);
+    }
+    return value;
+  }
+
+  @Override
+  public Set<Map.Entry<String, Object>> entrySet()
+  {
+    final Set<Map.Entry<String, Object>> entries = super.entrySet();
+    if (_copyChildren == false || isReadOnly())
+    {
+      return entries;
+    }
+    return new AbstractSet<Map.Entry<String, Object>>()
+    {
+      @Override
+      public Iterator<Map.Entry<String, Object>> iterator()
+      {
+        final Iterator<Map.Entry<String, Object>> it = entries.iterator();
+        return new Iterator<Map.Entry<String, Object>>()
+        {
+          @Override
+          public boolean hasNext()
+          {
+            return it.hasNext();
+          }
+
+          @Override
+          public Map.Entry<String, Object> next()
+          {
+            Map.Entry<String, Object> e = it.next();
+            Object value = sharedChildCopy(e.getKey(), e.getValue());
+            return value == e.getValue() ? e : new AbstractMap.SimpleImmutableEntry<String, Object>(e.getKey(), value);
+          }
+
+          @Override
+          public void remove()
+          {
+            throw new UnsupportedOperationException();
+          }
+        };
+      }
+
+      @Override
+      public int size()
+      {
+        return entries.size();
+      }
+    };
+  }
+
+  @Override
+  public Collection<Object> values()
+  {
+    if (_copyChildren == false || isReadOnly())
+    {
+      return super.values();
+    }
+    final Set<Map.Entry<String, Object>> entries = entrySet();
+    return new AbstractCollection<Object>()
+    {
+      @Override
+      public Iterator<Object> iterator()
+      {
+        final Iterator<Map.Entry<String, Object>> it = entries.iterator();
+        return new Iterator<Object>()
+        {
+          @Override
+          public boolean hasNext()
+          {
+            return it.hasNext();
+          }
+
+          @Override
+          public Object next()
+          {
+            return it.next().getValue();
+          }
+
+          @Override
+          public void remove()
+          {
+            throw new UnsupportedOperationException();
+          }
+        };
+      }
+
+      @Override
+      public int size()
+      {
+        return entries.size();
+      }
+    };
   }
 
   @Override
@@ -145,7 +291,7 @@ public final class DataMap extends CheckedMap<String,Object> implements DataComp
   @Override
   public void copyReferencedObjects(IdentityHashMap<DataComplex, DataComplex> alreadyCopied) throws CloneNotSupportedException
   {
-    for (Map.Entry<String,?> e : entrySet())
+    for (Map.Entry<String,?> e : super.entrySet())
     {
       Object value = e.getValue();
       Object valueCopy = Data.copy(value, alreadyCopied);
@@ -159,12 +305,14 @@ public final class DataMap extends CheckedMap<String,Object> implements DataComp
   @Override
   public void makeReadOnly()
   {
-    for (Map.Entry<String,?> e : entrySet())
+    for (Map.Entry<String,?> e : super.entrySet())
     {
       Data.makeReadOnly(e.getValue());
     }
     setReadOnly();
     _madeReadOnly = true;
+    _copyChildren = false;
+    _childCopies = null;
   }
 
   @Override
@@ -391,6 +539,91 @@ public final class DataMap extends CheckedMap<String,Object> implements DataComp
     return getObject();
   }
 
+  /**
+   * Return a copy of this read-only {@link DataMap} that shares its entries, see {@link Data#lazyCopy(DataComplex, DataComplex, Object)}.
+   */
+  DataMap lazyCopy(DataComplex owner, Object ownerKey) throws CloneNotSupportedException
+  {
+    DataMap o = (DataMap) cloneReadOnly();
+    o._madeReadOnly = false;
+    o._instrumented = false;
+    o._accessMap = null;
+    o._copyChildren = true;
+    o._childCopies = null;
+    o._copyOwner = owner;
+    o._copyOwnerKey = ownerKey;
+    o._copyOriginal = owner == null ? null : this;
+    return o;
+  }
+
+  /**
+   * Return whether this map is a lazy copy of the input read-only object that has
+   * not yet been stored in the object holding it.
+   */
+  boolean isPendingCopyOf(DataComplex original)
+  {
+    return _copyOriginal == original;
+  }
+
+  /**
+   * Store the copy of a read-only value shared with the {@link DataMap} this map
+   * was lazily copied from, unless the key has been given another value since.
+   */
+  void adoptCopy(Object key, DataComplex original, DataComplex copy)
+  {
+    if (super.get(key) == original)
+    {
+      putWithoutChecking((String) key, copy);
+    }
+  }
+
+  @Override
+  protected void beforeModification()
+  {
+    if (_copyOwner != null)
+    {
+      Data.adoptCopy(_copyOwner, _copyOwnerKey, _copyOriginal, this);
+      _copyOwner = null;
+      _copyOwnerKey = null;
+      _copyOriginal = null;
+    }
+  }
+
+  /**
+   * Return the value to hand out for the input value stored under the input key.
+   *
+   * A read-only complex value shared with the {@link DataMap} this map was lazily
+   * copied from is returned as its copy, which is created once per key and only
+   * stored in this map when either of them is first modified.
+   */
+  private Object sharedChildCopy(Object key, Object value)
+  {
+    if (_copyChildren && value instanceof DataComplex && ((DataComplex) value).isMadeReadOnly() && isReadOnly() == false)
+    {
+      synchronized (this)
+      {
+        Map<Object, DataComplex> copies = childCopies();
+        DataComplex copy = copies.get(key);
+        if (copy == null || Data.isPendingCopyOf(copy, (DataComplex) value) == false)
+        {
+          copy = Data.lazyCopy((DataComplex) value, this, key);
+          copies.put(key, copy);
+        }
+        return copy;
+      }
+    }
+    return value;
+  }
+
+  private synchronized Map<Object, DataComplex> childCopies()
+  {
+    if (_childCopies == null)
+    {
+      _childCopies = new HashMap<Object, DataComplex>();
+    }
+    return _childCopies;
+  }
+
   private void instrumentAccess(Object key)
   {
     if (_instrumented)
@@ -416,4 +649,9 @@ public final class DataMap extends CheckedMap<String,Object> implements DataComp
   private boolean _madeReadOnly = false;
   private boolean _instrumented = false;
   private Map<String, Integer> _accessMap;
+  private boolean _copyChildren = false;
+  private Map<Object, DataComplex> _childCopies;
+  private DataComplex _copyOwner;
+  private Object _copyOwnerKey;
+  private DataComplex _copyOriginal;
 }
@@ -0,0 +1,88 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.data.codec;
+
+
+import java.io.IOException;
+
+/**
+ * Base class for {@link DataReader}s that keeps the current event, key and value.
+ * <p>
+ *
+ * The default {@link #skipChildren()} advances through the events of the skipped map or list.
+ * Sub-classes should override it if the underlying input can be skipped more efficiently.
+ */
+public abstract class AbstractDataReader implements DataReader
+{
+  @Override
+  public Event getEvent()
+  {
+    return _event;
+  }
+
+  @Override
+  public String getKey()
+  {
+    return _key;
+  }
+
+  @Override
+  public Object getValue()
+  {
+    return _value;
+  }
+
+  @Override
+  public void skipChildren() throws IOException
+  {
+    if (_event != Event.START_MAP && _event != Event.START_LIST)
+    {
+      return;
+    }
+    int depth = 1;
+    while (depth > 0)
+    {
+      Event event = next();
+      if (event == null)
+      {
+        throw new DataDecodingException("Unexpected end of input");
+      }
+      switch (event)
+      {
+        case START_MAP:
+        case START_LIST:
+          depth++;
+          break;
+        case END_MAP:
+        case END_LIST:
+          depth--;
+          break;
+        default:
+          break;
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException
+  {
+  }
+
+  protected Event _event;
+  protected String _key;
+  protected Object _value;
+}
@@ -36,7 +36,7 @@ import java.util.Map;
  *
  * @author slim
  */
-public class BsonDataCodec implements DataCodec
+public class BsonDataCodec implements StreamingDataCodec
 {
   private static final String UTF_8 = "UTF-8";
   private Integer _bufferSize;
@@ -190,6 +190,51 @@ public class BsonDataCodec implements DataCodec
     return readComplex(in, DataList.class);
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * The returned {@link DataReader} does not build Data objects,
+   * but the input is still read into memory before it is decoded.
+   * Because a BSON document does not indicate whether it encodes a map or a list,
+   * the top-level document is always returned as a map, whose keys are the indices
+   * of the elements if a list was encoded. Nested lists are returned as lists.
+   */
+  @Override
+  public DataReader createReader(byte[] input) throws IOException
+  {
+    BufferChain buffer =
+      (_testMode && _bufferSize != null) ?
+      new BufferChain(ByteOrder.LITTLE_ENDIAN, input, _bufferSize) :
+      new BufferChain(ByteOrder.LITTLE_ENDIAN, input);
+    return new BsonReader(new BsonParser(buffer), buffer);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see #createReader(byte[])
+   */
+  @Override
+  public DataReader createReader(InputStream in) throws IOException
+  {
+    try
+    {
+      BufferChain buffer =
+          (_testMode && _bufferSize != null) ?
+              new BufferChain(ByteOrder.LITTLE_ENDIAN, _bufferSize) :
+              new BufferChain(ByteOrder.LITTLE_ENDIAN);
+      buffer.readFromInputStream(in);
+      buffer.rewind();
+      return new BsonReader(new BsonParser(buffer), buffer);
+    }
+    catch (RuntimeException exc)
+    {
+      // do not want RuntimeException from BufferChain propagating
+      // as RuntimeException to client code.
+      throw new IOException("Unexpected RuntimeException", exc);
+    }
+  }
+
   static final byte ZERO_BYTE = 0;
   static final byte ONE_BYTE = 1;
 
@@ -419,6 +464,90 @@ public class BsonDataCodec implements DataCodec
     }
   }
 
+  /**
+   * {@link DataReader} that decodes one element at a time using a {@link BsonParser}.
+   */
+  private static class BsonReader extends AbstractDataReader
+  {
+    private BsonReader(BsonParser parser, BufferChain buffer)
+    {
+      _parser = parser;
+      _buffer = buffer;
+    }
+
+    @Override
+    public Event next() throws IOException
+    {
+      try
+      {
+        _event = nextEvent();
+        return _event;
+      }
+      catch (RuntimeException exc)
+      {
+        // do not want RuntimeException from BufferChain propagating
+        // as RuntimeException to client code.
+        throw new IOException("Unexpected RuntimeException", exc);
+      }
+    }
+
+    private Event nextEvent() throws IOException
+    {
+      if (_pendingType != ZERO_BYTE)
+      {
+        byte bsonType = _pendingType;
+        _pendingType = ZERO_BYTE;
+        return startValue(bsonType);
+      }
+      if (_isMap.isEmpty())
+      {
+        if (_started)
+        {
+          return null;
+        }
+        _started = true;
+        return startValue(BSON_EMBEDDED_DOCUMENT);
+      }
+      byte bsonType = _buffer.get();
+      if (bsonType == ZERO_BYTE)
+      {
+        return _isMap.removeLast() ? Event.END_MAP : Event.END_LIST;
+      }
+      String name = _buffer.getUtf8CString();
+      if (_isMap.peekLast())
+      {
+        _key = name;
+        _pendingType = bsonType;
+        return Event.KEY;
+      }
+      return startValue(bsonType);
+    }
+
+    private Event startValue(byte bsonType) throws IOException
+    {
+      switch (bsonType)
+      {
+        case BSON_EMBEDDED_DOCUMENT:
+          _buffer.getInt();
+          _isMap.addLast(Boolean.TRUE);
+          return Event.START_MAP;
+        case BSON_ARRAY:
+          _buffer.getInt();
+          _isMap.addLast(Boolean.FALSE);
+          return Event.START_LIST;
+        default:
+          _value = _parser.parseValue(bsonType);
+          return Event.VALUE;
+      }
+    }
+
+    private final BsonParser _parser;
+    private final BufferChain _buffer;
+    private final Deque<Boolean> _isMap = new ArrayDeque<Boolean>();
+    private byte _pendingType = ZERO_BYTE;
+    private boolean _started;
+  }
+
   protected static class BsonParser
   {
     BsonParser(BufferChain buffer)
@@ -434,8 +563,6 @@ public class BsonDataCodec implements DataCodec
       while (bsonType != ZERO_BYTE)
       {
         name = _buffer.getUtf8CString();
-        Object o = null;
-        boolean valid = true;
         switch (bsonType)
         {
           case BSON_EMBEDDED_DOCUMENT:
@@ -450,73 +577,85 @@ public class BsonDataCodec implements DataCodec
             parseDocument(childList, null);
             break;
 
-          case BSON_32BIT_INTEGER:
-            o = _buffer.getInt();
-            break;
-          case BSON_DOUBLE:
-            o = _buffer.getDouble();
-            break;
-          case BSON_STRING:
-            o = getString();
-            break;
-          case BSON_BOOLEAN:
-            byte b = _buffer.get();
-            o = new Boolean(b != ZERO_BYTE);
-            break;
-          case BSON_64BIT_INTEGER:
-            o = _buffer.getLong();
-            break;
-
-          case BSON_BINARY:
-            int length = _buffer.getInt();
-            _buffer.get();
-            o = ByteString.read(_buffer.asInputStream(), length);
-            break;
-          case BSON_DEPRECATED:
-          case BSON_OBJECTID:
-            valid = false;
-            break;
-          case BSON_UTC_DATETIME:
-          case BSON_TIMESTAMP:
-            o = _buffer.getLong();
-            break;
-          case BSON_NULL:
-            o = Data.NULL;
-            break;
-          case BSON_REGEX:
-            valid = false;
-            _buffer.getUtf8CString();
-            _buffer.getUtf8CString();
-            break;
-          case BSON_DBPOINTER_DEPRECATED:
-            o = getString();
-            byte[] dbPointer = new byte[12];
-            _buffer.get(dbPointer, 0, dbPointer.length);
-            valid = false;
-            break;
-          case BSON_JAVASCRIPT_CODE:
-          case BSON_SYMBOL:
-            o = getString();
-            break;
-          case BSON_JAVASCRIPT_CODE_WITH_SCOPE:
-            valid = false;
-            break;
           default:
-            valid = false;
+            updateParent(list, map, name, parseValue(bsonType));
             break;
         }
-        if (valid == false)
-        {
-          throw new IOException("Illegal BSON element code " + bsonType);
-        }
-        if (o != null)
-        {
-          updateParent(list, map, name, o);
-        }
         bsonType = _buffer.get();
       }
     }
 
+    /**
+     * Parse the value of an element that is not an embedded document or array.
+     */
+    Object parseValue(byte bsonType) throws IOException
+    {
+      Object o = null;
+      boolean valid = true;
+      switch (bsonType)
+      {
+        case BSON_32BIT_INTEGER:
+          o = _buffer.getInt();
+          break;
+        case BSON_DOUBLE:
+          o = _buffer.getDouble();
+          break;
+        case BSON_STRING:
+          o = getString();
+          break;
+        case BSON_BOOLEAN:
+          byte b = _buffer.get();
+          o = new Boolean(b != ZERO_BYTE);
+          break;
+        case BSON_64BIT_INTEGER:
+          o = _buffer.getLong();
+          break;
+
+        case BSON_BINARY:
+          int length = _buffer.getInt();
+          _buffer.get();
+          o = ByteString.read(_buffer.asInputStream(), length);
+          break;
+        case BSON_DEPRECATED:
+        case BSON_OBJECTID:
+          valid = false;
+          break;
+        case BSON_UTC_DATETIME:
+        case BSON_TIMESTAMP:
+          o = _buffer.getLong();
+          break;
+        case BSON_NULL:
+          o = Data.NULL;
+          break;
+        case BSON_REGEX:
+          valid = false;
+          _buffer.getUtf8CString();
+          _buffer.getUtf8CString();
+          break;
+        case BSON_DBPOINTER_DEPRECATED:
+          o = getString();
+          byte[] dbPointer = new byte[12];
+          _buffer.get(dbPointer, 0, dbPointer.length);
+          valid = false;
+          break;
+        case BSON_JAVASCRIPT_CODE:
+        case BSON_SYMBOL:
+          o = getString();
+          break;
+        case BSON_JAVASCRIPT_CODE_WITH_SCOPE:
+          valid = false;
+          break;
+        default:
+          valid = false;
+          break;
+      }
+      if (valid == false)
+      {
+        throw new IOException("Illegal BSON element code " + bsonType);
+      }
+      return o;
+    }
+
     <T extends DataComplex> T parseComplex(Class<T> clazz) throws IOException
     {
       if (clazz == DataMap.class)
@@ -0,0 +1,96 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.data.codec;
+
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Pull-based reader of serialized Data objects.
+ * <p>
+ *
+ * Instead of building a {@link com.linkedin.data.DataMap} or {@link com.linkedin.data.DataList},
+ * a {@link DataReader} returns the structure of its input as a sequence of events.
+ * A map is returned as a {@link Event#START_MAP} event, followed by a {@link Event#KEY}
+ * event and the events of the value for each entry, followed by an {@link Event#END_MAP} event.
+ * A list is returned as a {@link Event#START_LIST} event, followed by the events of each
+ * element, followed by an {@link Event#END_LIST} event. A primitive value is returned
+ * as a {@link Event#VALUE} event.
+ * <p>
+ *
+ * This allows callers to validate, filter or transform the input while it is being read,
+ * and to skip parts of the input that are not needed, see {@link #skipChildren()}.
+ * {@link DataReaderUtil} provides methods to build Data objects from a {@link DataReader}.
+ * <p>
+ *
+ * Implementations are not thread-safe.
+ */
+public interface DataReader extends Closeable
+{
+  /**
+   * Events returned by {@link DataReader#next()}.
+   */
+  enum Event
+  {
+    START_MAP,
+    END_MAP,
+    START_LIST,
+    END_LIST,
+    KEY,
+    VALUE
+  }
+
+  /**
+   * Advance to the next event.
+   *
+   * @return the next event, or null if the end of the input has been reached.
+   * @throws IOException if the input cannot be read or decoded.
+   */
+  Event next() throws IOException;
+
+  /**
+   * @return the current event, i.e. the event last returned by {@link #next()}.
+   */
+  Event getEvent();
+
+  /**
+   * @return the key of the last {@link Event#KEY} event.
+   */
+  String getKey();
+
+  /**
+   * Return the value of the last {@link Event#VALUE} event.
+   *
+   * The value is a {@link String}, {@link Integer}, {@link Long}, {@link Float}, {@link Double},
+   * {@link Boolean}, {@link com.linkedin.data.ByteString}, or {@link com.linkedin.data.Data#NULL}.
+   *
+   * @return the value of the last {@link Event#VALUE} event.
+   */
+  Object getValue();
+
+  /**
+   * Skip the contents of the map or list started by the current event.
+   *
+   * If the current event is {@link Event#START_MAP} or {@link Event#START_LIST},
+   * advance to the matching {@link Event#END_MAP} or {@link Event#END_LIST} event,
+   * which becomes the current event. Otherwise, do nothing.
+   *
+   * @throws IOException if the input cannot be read or decoded.
+   */
+  void skipChildren() throws IOException;
+}
@@ -0,0 +1,152 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.data.codec;
+
+
+import com.linkedin.data.DataList;
+import com.linkedin.data.DataMap;
+import java.io.IOException;
+
+/**
+ * Utility methods to build Data objects from the events of a {@link DataReader}.
+ */
+public class DataReaderUtil
+{
+  private DataReaderUtil()
+  {
+  }
+
+  /**
+   * Advance the reader and read the next value, which must be a map.
+   *
+   * @param reader provides the {@link DataReader}.
+   * @return the {@link DataMap} read.
+   * @throws IOException if the input cannot be read or decoded, or the next value is not a map.
+   */
+  public static DataMap readMap(DataReader reader) throws IOException
+  {
+    if (reader.next() != DataReader.Event.START_MAP)
+    {
+      throw new DataDecodingException("Expecting start of map but got " + reader.getEvent());
+    }
+    return readMapContents(reader);
+  }
+
+  /**
+   * Advance the reader and read the next value, which must be a list.
+   *
+   * @param reader provides the {@link DataReader}.
+   * @return the {@link DataList} read.
+   * @throws IOException if the input cannot be read or decoded, or the next value is not a list.
+   */
+  public static DataList readList(DataReader reader) throws IOException
+  {
+    if (reader.next() != DataReader.Event.START_LIST)
+    {
+      throw new DataDecodingException("Expecting start of list but got " + reader.getEvent());
+    }
+    return readListContents(reader);
+  }
+
+  /**
+   * Read the value that starts at the current event of the reader.
+   *
+   * If the current event is {@link DataReader.Event#START_MAP} or {@link DataReader.Event#START_LIST},
+   * the reader is advanced to the matching end event.
+   *
+   * @param reader provides the {@link DataReader}.
+   * @return the value read.
+   * @throws IOException if the input cannot be read or decoded, or the current event does not start a value.
+   */
+  public static Object readValue(DataReader reader) throws IOException
+  {
+    DataReader.Event event = reader.getEvent();
+    if (event == DataReader.Event.START_MAP)
+    {
+      return readMapContents(reader);
+    }
+    else if (event == DataReader.Event.START_LIST)
+    {
+      return readListContents(reader);
+    }
+    else if (event == DataReader.Event.VALUE)
+    {
+      return reader.getValue();
+    }
+    else
+    {
+      throw new DataDecodingException("Expecting start of value but got " + event);
+    }
+  }
+
+  private static DataMap readMapContents(DataReader reader) throws IOException
+  {
+    DataMap map = new DataMap();
+    DataReader.Event event;
+    while ((event = reader.next()) == DataReader.Event.KEY)
+    {
+      String key = reader.getKey();
+      reader.next();
+      map.put(key, readValue(reader));
+    }
+    if (event != DataReader.Event.END_MAP)
+    {
+      throw new DataDecodingException("Expecting key or end of map but got " + event);
+    }
+    return map;
+  }
+
+  private static DataList readListContents(DataReader reader) throws IOException
+  {
+    DataList list = new DataList();
+    DataReader.Event event;
+    while ((event = reader.next()) != DataReader.Event.END_LIST)
+    {
+      if (event == DataReader.Event.VALUE)
+      {
+        // numbers are appended without boxing, so that lists of numbers are stored unboxed
+        Object value = reader.getValue();
+        Class<?> clazz = value.getClass();
+        if (clazz == Integer.class)
+        {
+          list.addInt((Integer) value);
+        }
+        else if (clazz == Long.class)
+        {
+          list.addLong((Long) value);
+        }
+        else if (clazz == Float.class)
+        {
+          list.addFloat((Float) value);
+        }
+        else if (clazz == Double.class)
+        {
+          list.addDouble((Double) value);
+        }
+        else
+        {
+          list.add(value);
+        }
+      }
+      else
+      {
+        list.add(readValue(reader));
+      }
+    }
+    return list;
+  }
+}
@@ -51,7 +51,7 @@ import org.codehaus.jackson.PrettyPrinter;
  *
  * @author slim
  */
-public class JacksonDataCodec implements TextDataCodec
+public class JacksonDataCodec implements TextDataCodec, StreamingDataCodec
 {
   public JacksonDataCodec()
   {
@@ -80,6 +80,21 @@ public class JacksonDataCodec implements TextDataCodec
     _prettyPrinter = prettyPrinter;
   }
 
+  public SymbolTable getSymbolTable()
+  {
+    return _symbolTable;
+  }
+
+  /**
+   * Set the {@link SymbolTable} used to return canonical instances of decoded keys.
+   *
+   * @param symbolTable provides the {@link SymbolTable}, or null to not intern keys.
+   */
+  public void setSymbolTable(SymbolTable symbolTable)
+  {
+    _symbolTable = symbolTable;
+  }
+
   @Override
   public String getStringEncoding()
   {
@@ -233,6 +248,30 @@ public class JacksonDataCodec implements TextDataCodec
     return parser.parse(_jsonFactory.createJsonParser(in), DataList.class);
   }
 
+  @Override
+  public DataReader createReader(byte[] input) throws IOException
+  {
+    return new JsonReader(_jsonFactory.createJsonParser(input));
+  }
+
+  @Override
+  public DataReader createReader(InputStream in) throws IOException
+  {
+    return new JsonReader(_jsonFactory.createJsonParser(in));
+  }
+
+  /**
+   * Create a {@link DataReader} that reads from the given {@link Reader}.
+   *
+   * @param in the {@link Reader} from which to read.
+   * @return a new {@link DataReader}.
+   * @throws IOException if the reader cannot be created.
+   */
+  public DataReader createReader(Reader in) throws IOException
+  {
+    return new JsonReader(_jsonFactory.createJsonParser(in));
+  }
+
   @Deprecated
   public List<Object> parse(InputStream in, StringBuilder mesg) throws IOException
   {
@@ -450,6 +489,51 @@ public class JacksonDataCodec implements TextDataCodec
   }
   // end of workaround code
 
+  /**
+   * Return the value of the current number token of a {@link JsonParser}.
+   *
+   * @return an {@link Integer}, {@link Long}, {@link Float} or {@link Double},
+   *         or null if the number cannot be represented by one of these types.
+   */
+  private static Object numberValue(JsonParser parser) throws IOException
+  {
+    switch (parser.getNumberType())
+    {
+      case INT:
+        return parser.getIntValue();
+      case LONG:
+        if (JACKSON_230_WORKAROUND)
+        {
+          // Jackson too eagerly use longs for ints
+          // http://jira.codehaus.org/browse/JACKSON-230
+          // cast to Object required to avoid numeric conversion
+          long longValue = parser.getLongValue();
+          return (MIN_INT <= longValue && longValue <= MAX_INT) ? (Object) Integer.valueOf((int) longValue) : (Object) Long.valueOf(longValue);
+        }
+        return parser.getLongValue();
+      case FLOAT:
+        return parser.getFloatValue();
+      case DOUBLE:
+        return parser.getDoubleValue();
+      case BIG_INTEGER:
+        if (JACKSON_230_WORKAROUND || JACKSON_491_WORKAROUND)
+        {
+          // Jackson too eagerly use big integers for long
+          // http://jira.codehaus.org/browse/JACKSON-230
+          // http://jira.codehaus.org/browse/JACKSON-491
+          BigInteger bigInteger = parser.getBigIntegerValue();
+          if (bigInteger.compareTo(MIN_LONG) >= 0 && bigInteger.compareTo(MAX_LONG) <= 0)
+          {
+            return bigInteger.longValue();
+          }
+        }
+        return null;
+      case BIG_DECIMAL:
+      default:
+        return null;
+    }
+  }
+
   private static class Location implements DataLocation
   {
     private Location(JsonLocation location)
@@ -659,60 +743,16 @@ public class JacksonDataCodec implements TextDataCodec
     private Object parsePrimitive(JsonToken token) throws JsonParseException, IOException
     {
       Object object;
-      JsonParser.NumberType numberType = null;
       switch (token) {
         case VALUE_STRING:
           object = _parser.getText();
           break;
         case VALUE_NUMBER_INT:
         case VALUE_NUMBER_FLOAT:
-          numberType = _parser.getNumberType();
-          switch (numberType) {
-            case INT:
-              object = _parser.getIntValue();
-              break;
-            case LONG:
-              if (JACKSON_230_WORKAROUND)
-              {
-                // Jackson too eagerly use longs for ints
-                // http://jira.codehaus.org/browse/JACKSON-230
-                // cast to Object required to avoid numeric conversion
-                long longValue = _parser.getLongValue();
-                object = (MIN_INT <= longValue && longValue <= MAX_INT) ? (Object) Integer.valueOf((int) longValue) : (Object) Long.valueOf(longValue);
-              }
-              else
-              {
-                object = _parser.getLongValue();
-              }
-              break;
-            case FLOAT:
-              object = _parser.getFloatValue();
-              break;
-            case DOUBLE:
-              object = _parser.getDoubleValue();
-              break;
-            case BIG_INTEGER:
-              if (JACKSON_230_WORKAROUND || JACKSON_491_WORKAROUND)
-              {
-                // Jackson too eagerly use big integers for long
-                // http://jira.codehaus.org/browse/JACKSON-230
-                // http://jira.codehaus.org/browse/JACKSON-491
-                BigInteger bigInteger = _parser.getBigIntegerValue();
-                if (bigInteger.compareTo(MIN_LONG) >= 0 && bigInteger.compareTo(MAX_LONG) <= 0)
-                {
-                  object = bigInteger.longValue();
-                  break;
-                }
-              }
-              // repeat to avoid fall through warning
-              error(token, numberType);
-              object = null;
-              break;
-            case BIG_DECIMAL:
-            default:
-              error(token, numberType);
-              object = null;
-              break;
+          object = numberValue(_parser);
+          if (object == null)
+          {
+            error(token, _parser.getNumberType());
           }
           break;
         case VALUE_TRUE:
@@ -737,6 +777,10 @@ public class JacksonDataCodec implements TextDataCodec
       while (_parser.nextToken() != JsonToken.END_OBJECT)
       {
         String key = _parser.getCurrentName();
+        if (_symbolTable != null)
+        {
+          key = _symbolTable.intern(key);
+        }
         if (_debug)
         {
           _nameStack.addLast(key);
@@ -761,7 +805,10 @@ public class JacksonDataCodec implements TextDataCodec
           _nameStack.addLast(index);
           index++;
         }
-        parse(list, null, null, token);
+        if (_locationMap != null || parseNumber(list, token) == false)
+        {
+          parse(list, null, null, token);
+        }
         if (_debug)
         {
           _nameStack.removeLast();
@@ -769,6 +816,45 @@ public class JacksonDataCodec implements TextDataCodec
       }
     }
 
+    /**
+     * Append a number to the list without boxing it, so that arrays of numbers
+     * are stored unboxed by the {@link DataList}.
+     *
+     * @return false if the token is not a number that can be appended unboxed.
+     */
+    private boolean parseNumber(DataList list, JsonToken token) throws JsonParseException, IOException
+    {
+      if (token != JsonToken.VALUE_NUMBER_INT && token != JsonToken.VALUE_NUMBER_FLOAT)
+      {
+        return false;
+      }
+      switch (_parser.getNumberType())
+      {
+        case INT:
+          list.addInt(_parser.getIntValue());
+          return true;
+        case LONG:
+          long longValue = _parser.getLongValue();
+          if (JACKSON_230_WORKAROUND && MIN_INT <= longValue && longValue <= MAX_INT)
+          {
+            list.addInt((int) longValue);
+          }
+          else
+          {
+            list.addLong(longValue);
+          }
+          return true;
+        case FLOAT:
+          list.addFloat(_parser.getFloatValue());
+          return true;
+        case DOUBLE:
+          list.addDouble(_parser.getDoubleValue());
+          return true;
+        default:
+          return false;
+      }
+    }
+
     private void error(JsonToken token, JsonParser.NumberType type) throws JsonParseException, IOException
     {
       if (_errorBuilder == null)
@@ -791,8 +877,107 @@ public class JacksonDataCodec implements TextDataCodec
     }
   }
 
+  /**
+   * {@link DataReader} that returns the tokens of a {@link JsonParser} as events.
+   */
+  private class JsonReader extends AbstractDataReader
+  {
+    private JsonReader(JsonParser parser)
+    {
+      _parser = parser;
+    }
+
+    @Override
+    public Event next() throws IOException
+    {
+      JsonToken token = _parser.nextToken();
+      if (token == null)
+      {
+        _event = null;
+        return null;
+      }
+      switch (token)
+      {
+        case START_OBJECT:
+          _event = Event.START_MAP;
+          break;
+        case END_OBJECT:
+          _event = Event.END_MAP;
+          break;
+        case START_ARRAY:
+          _event = Event.START_LIST;
+          break;
+        case END_ARRAY:
+          _event = Event.END_LIST;
+          break;
+        case FIELD_NAME:
+          String key = _parser.getCurrentName();
+          _key = (_symbolTable == null ? key : _symbolTable.intern(key));
+          _event = Event.KEY;
+          break;
+        default:
+          _value = parseValue(token);
+          _event = Event.VALUE;
+          break;
+      }
+      return _event;
+    }
+
+    @Override
+    public void skipChildren() throws IOException
+    {
+      if (_event == Event.START_MAP || _event == Event.START_LIST)
+      {
+        _parser.skipChildren();
+        _event = (_event == Event.START_MAP ? Event.END_MAP : Event.END_LIST);
+      }
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+      _parser.close();
+    }
+
+    private Object parseValue(JsonToken token) throws IOException
+    {
+      Object value;
+      switch (token)
+      {
+        case VALUE_STRING:
+          value = _parser.getText();
+          break;
+        case VALUE_NUMBER_INT:
+        case VALUE_NUMBER_FLOAT:
+          value = numberValue(_parser);
+          break;
+        case VALUE_TRUE:
+          value = Boolean.TRUE;
+          break;
+        case VALUE_FALSE:
+          value = Boolean.FALSE;
+          break;
+        case VALUE_NULL:
+          value = Data.NULL;
+          break;
+        default:
+          value = null;
+          break;
+      }
+      if (value == null)
+      {
+        throw new DataDecodingException(new Location(_parser.getTokenLocation()) + ": value: " + _parser.getText() +
+                                        ", token: " + token + " not parsed.");
+      }
+      return value;
+    }
+
+    private final JsonParser _parser;
+  }
+
   protected boolean _allowComments;
   protected PrettyPrinter _prettyPrinter;
+  protected SymbolTable _symbolTable;
   protected JsonFactory _jsonFactory;
   protected int _defaultBufferSize = 4096;
   protected JsonEncoding _jsonEncoding = JsonEncoding.UTF8;
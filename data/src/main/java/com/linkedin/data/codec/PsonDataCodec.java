@@ -31,7 +31,9 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteOrder;
 import java.nio.charset.CharacterCodingException;
+import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -56,11 +58,19 @@ import java.util.Map;
  * <p>
  * The encoded index is 0, then there are no more keys in the JSON object.
  *
+ * <p>
+ * If both sides share a {@link SymbolTable} and symbol ids are enabled by
+ * {@link Options#setEncodeSymbolIds(boolean)}, the key indices from 1 to the
+ * size of the table are pre-assigned to the symbols of the table, so these keys
+ * are never encoded. Such an encoding starts with a different header followed by the
+ * size and fingerprint of the table, and can only be decoded with the same table.
+ *
  * @author slim
  */
-public class PsonDataCodec implements DataCodec
+public class PsonDataCodec implements StreamingDataCodec
 {
   private static final byte[] HEADER = { 0x23, 0x21, 0x50, 0x53, 0x4f, 0x4e, 0x31, 0x0a };  // #!PSON1\n
+  private static final byte[] HEADER_WITH_SYMBOLS = { 0x23, 0x21, 0x50, 0x53, 0x4f, 0x4e, 0x53, 0x0a };  // #!PSONS\n
 
   private boolean _testMode;
   private Options _options = new Options();
@@ -100,13 +110,44 @@ public class PsonDataCodec implements DataCodec
       return _bufferSize;
     }
 
+    /**
+     * Set the {@link SymbolTable} used to return canonical instances of decoded keys,
+     * and to encode symbol ids if enabled.
+     */
+    public Options setSymbolTable(SymbolTable value)
+    {
+      _symbolTable = value;
+      return this;
+    }
+
+    public SymbolTable getSymbolTable()
+    {
+      return _symbolTable;
+    }
+
+    /**
+     * Set whether to encode the ids of the symbols of the {@link SymbolTable}
+     * instead of the symbols. The decoding side must use the same {@link SymbolTable}.
+     */
+    public Options setEncodeSymbolIds(boolean value)
+    {
+      _encodeSymbolIds = value;
+      return this;
+    }
+
+    public boolean getEncodeSymbolIds()
+    {
+      return _encodeSymbolIds;
+    }
+
     @Override
     public String toString()
     {
       return
         "encodeCollectionCount=" + _encodeCollectionCount +
         ", encodeStringLength=" + _encodeStringLength +
-        (_bufferSize != null ? ", bufferSize=" + _bufferSize : "");
+        (_bufferSize != null ? ", bufferSize=" + _bufferSize : "") +
+        (_symbolTable != null ? ", symbolTable=" + _symbolTable + ", encodeSymbolIds=" + _encodeSymbolIds : "");
     }
 
     @Override
@@ -122,7 +163,9 @@ public class PsonDataCodec implements DataCodec
       return
         (_encodeCollectionCount == other._encodeCollectionCount) &&
         (_encodeStringLength == other._encodeStringLength) &&
-        (_bufferSize == null ? _bufferSize == other._bufferSize : _bufferSize.equals(other._bufferSize));
+        (_bufferSize == null ? _bufferSize == other._bufferSize : _bufferSize.equals(other._bufferSize)) &&
+        (_symbolTable == other._symbolTable) &&
+        (_encodeSymbolIds == other._encodeSymbolIds);
     }
 
     @Override
@@ -130,13 +173,17 @@ public class PsonDataCodec implements DataCodec
     {
       return
         ((_encodeCollectionCount ? 3131 : 0) +
-         (_encodeStringLength ? 31310000 : 0)) ^
-        (_bufferSize != null ? _bufferSize.hashCode() : 0);
+         (_encodeStringLength ? 31310000 : 0) +
+         (_encodeSymbolIds ? 313100 : 0)) ^
+        (_bufferSize != null ? _bufferSize.hashCode() : 0) ^
+        (_symbolTable != null ? _symbolTable.hashCode() : 0);
     }
 
     private boolean _encodeStringLength = true;
     private boolean _encodeCollectionCount = false;
     private Integer _bufferSize = null;
+    private SymbolTable _symbolTable = null;
+    private boolean _encodeSymbolIds = false;
   }
 
   public PsonDataCodec()
@@ -189,7 +236,7 @@ public class PsonDataCodec implements DataCodec
         (_testMode && _options.getBufferSize() != null) ?
           new BufferChain(ByteOrder.LITTLE_ENDIAN, input, _options.getBufferSize()) :
           new BufferChain(ByteOrder.LITTLE_ENDIAN, input);
-      PsonParser psonParser = new PsonParser(buffer);
+      PsonParser psonParser = new PsonParser(buffer, _options.getSymbolTable());
       return clazz.cast(psonParser.read());
     }
     catch (RuntimeException exc)
@@ -260,7 +307,7 @@ public class PsonDataCodec implements DataCodec
           new BufferChain(ByteOrder.LITTLE_ENDIAN);
       buffer.readFromInputStream(in);
       buffer.rewind();
-      PsonParser psonParser = new PsonParser(buffer);
+      PsonParser psonParser = new PsonParser(buffer, _options.getSymbolTable());
       return clazz.cast(psonParser.read());
     }
     catch (RuntimeException exc)
@@ -277,6 +324,49 @@ public class PsonDataCodec implements DataCodec
     return readComplex(in, DataMap.class);
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * The returned {@link DataReader} does not build Data objects,
+   * but the input is still read into memory before it is decoded.
+   */
+  @Override
+  public DataReader createReader(byte[] input) throws IOException
+  {
+    BufferChain buffer =
+      (_testMode && _options.getBufferSize() != null) ?
+        new BufferChain(ByteOrder.LITTLE_ENDIAN, input, _options.getBufferSize()) :
+        new BufferChain(ByteOrder.LITTLE_ENDIAN, input);
+    return new PsonReader(new PsonParser(buffer, _options.getSymbolTable()), buffer);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * The returned {@link DataReader} does not build Data objects,
+   * but the input is still read into memory before it is decoded.
+   */
+  @Override
+  public DataReader createReader(InputStream in) throws IOException
+  {
+    try
+    {
+      BufferChain buffer =
+        (_testMode && _options.getBufferSize() != null) ?
+          new BufferChain(ByteOrder.LITTLE_ENDIAN, _options.getBufferSize()) :
+          new BufferChain(ByteOrder.LITTLE_ENDIAN);
+      buffer.readFromInputStream(in);
+      buffer.rewind();
+      return new PsonReader(new PsonParser(buffer, _options.getSymbolTable()), buffer);
+    }
+    catch (RuntimeException exc)
+    {
+      // do not want RuntimeException from BufferChain propagating
+      // as RuntimeException to client code.
+      throw new IOException("Unexpected RuntimeException", exc);
+    }
+  }
+
   @Override
   public DataList readList(InputStream in) throws IOException
   {
@@ -322,6 +412,7 @@ public class PsonDataCodec implements DataCodec
     private int _keyIndex = 1;
     private final boolean _encodeStringLength = _options.getEncodeStringLength();
     private final boolean _encodeCollectionCount = _options.getEncodeCollectionCount();
+    private final SymbolTable _symbolTable = _options.getEncodeSymbolIds() ? _options.getSymbolTable() : null;
 
     protected PsonSerializer()
     {
@@ -433,6 +524,15 @@ public class PsonDataCodec implements DataCodec
     @Override
     public void key(String key) throws CharacterCodingException
     {
+      if (_symbolTable != null)
+      {
+        int symbolId = _symbolTable.getSymbolId(key);
+        if (symbolId > 0)
+        {
+          _buffer.putVarInt(symbolId);
+          return;
+        }
+      }
       Integer found = _keyMap.get(key);
       int index;
       if (found == null)
@@ -516,7 +616,17 @@ public class PsonDataCodec implements DataCodec
 
     private void serialize(DataComplex map) throws IOException
     {
-      _buffer.put(HEADER, 0, HEADER.length);
+      if (_symbolTable != null)
+      {
+        _buffer.put(HEADER_WITH_SYMBOLS, 0, HEADER_WITH_SYMBOLS.length);
+        _buffer.putVarUnsignedInt(_symbolTable.size());
+        _buffer.putInt(_symbolTable.getFingerprint());
+        _keyIndex = _symbolTable.size() + 1;
+      }
+      else
+      {
+        _buffer.put(HEADER, 0, HEADER.length);
+      }
       Data.traverse(map, this);
     }
 
@@ -536,12 +646,156 @@ public class PsonDataCodec implements DataCodec
     }
   }
 
+  /**
+   * {@link DataReader} that decodes one element at a time using a {@link PsonParser}.
+   */
+  private static class PsonReader extends AbstractDataReader
+  {
+    private PsonReader(PsonParser parser, BufferChain buffer)
+    {
+      _parser = parser;
+      _buffer = buffer;
+    }
+
+    @Override
+    public Event next() throws IOException
+    {
+      try
+      {
+        _event = nextEvent();
+        return _event;
+      }
+      catch (RuntimeException exc)
+      {
+        // do not want RuntimeException from BufferChain propagating
+        // as RuntimeException to client code.
+        throw new IOException("Unexpected RuntimeException", exc);
+      }
+    }
+
+    private Event nextEvent() throws IOException
+    {
+      if (_pendingEnd != null)
+      {
+        Event event = _pendingEnd;
+        _pendingEnd = null;
+        return event;
+      }
+      Frame frame = _frames.peekLast();
+      if (frame == null)
+      {
+        if (_started)
+        {
+          return null;
+        }
+        _started = true;
+        _parser.readHeader();
+        return startValue(_buffer.get());
+      }
+      if (frame._isMap)
+      {
+        if (frame._expectValue)
+        {
+          frame._expectValue = false;
+          byte psonType = _buffer.get();
+          if (psonType == PSON_LAST)
+          {
+            throw new IOException("Unexpected end of array");
+          }
+          return startValue(psonType);
+        }
+        int keyIndex = _buffer.getVarInt();
+        if (keyIndex == PSON_INVALID_KEY_INDEX)
+        {
+          endFrame(frame, "Actual number object fields (");
+          return Event.END_MAP;
+        }
+        _key = _parser.readKey(keyIndex);
+        frame._count++;
+        frame._expectValue = true;
+        return Event.KEY;
+      }
+      else
+      {
+        byte psonType = _buffer.get();
+        if (psonType == PSON_LAST)
+        {
+          endFrame(frame, "Actual number array items (");
+          return Event.END_LIST;
+        }
+        frame._count++;
+        return startValue(psonType);
+      }
+    }
+
+    private Event startValue(byte psonType) throws IOException
+    {
+      switch (psonType)
+      {
+        case PSON_OBJECT_EMPTY:
+          _pendingEnd = Event.END_MAP;
+          return Event.START_MAP;
+        case PSON_OBJECT:
+        case PSON_OBJECT_WITH_COUNT:
+          _frames.addLast(new Frame(true, psonType == PSON_OBJECT_WITH_COUNT ? _buffer.getVarUnsignedInt() : -1));
+          return Event.START_MAP;
+        case PSON_ARRAY_EMPTY:
+          _pendingEnd = Event.END_LIST;
+          return Event.START_LIST;
+        case PSON_ARRAY:
+        case PSON_ARRAY_WITH_COUNT:
+          _frames.addLast(new Frame(false, psonType == PSON_ARRAY_WITH_COUNT ? _buffer.getVarUnsignedInt() : -1));
+          return Event.START_LIST;
+        case PSON_LAST:
+          throw new IOException("Unexpected end of array");
+        default:
+          _value = _parser.parseValue(psonType);
+          return Event.VALUE;
+      }
+    }
+
+    private void endFrame(Frame frame, String message) throws IOException
+    {
+      if (frame._size >= 0 && frame._count != frame._size)
+      {
+        throw new IOException(message + frame._count + ") is not the same as expected (" + frame._size + ")");
+      }
+      _frames.removeLast();
+    }
+
+    private static class Frame
+    {
+      private Frame(boolean isMap, int size)
+      {
+        _isMap = isMap;
+        _size = size;
+      }
+
+      private final boolean _isMap;
+      private final int _size;
+      private int _count;
+      private boolean _expectValue;
+    }
+
+    private final PsonParser _parser;
+    private final BufferChain _buffer;
+    private final Deque<Frame> _frames = new ArrayDeque<Frame>();
+    private Event _pendingEnd;
+    private boolean _started;
+  }
+
   protected static class PsonParser
   {
 
     PsonParser(BufferChain buffer)
+    {
+      this(buffer, null);
+    }
+
+    PsonParser(BufferChain buffer, SymbolTable symbolTable)
     {
       _buffer = buffer;
+      _symbolTable = symbolTable;
     }
 
     static final String HEX = "0123456789ABCDEF";
@@ -560,15 +814,54 @@ public class PsonDataCodec implements DataCodec
     }
 
     Object read() throws IOException
+    {
+      readHeader();
+      return parseValue();
+    }
+
+    /**
+     * Read the header, and the symbol table information if the header indicates symbol ids.
+     */
+    void readHeader() throws IOException
     {
       byte header[] = new byte[HEADER.length];
       _buffer.get(header, 0, header.length);
-      if (Arrays.equals(header, HEADER) == false)
+      if (Arrays.equals(header, HEADER_WITH_SYMBOLS))
+      {
+        readSymbolTable();
+      }
+      else if (Arrays.equals(header, HEADER) == false)
       {
         throw new IOException("Expecting header " + bytesToString(HEADER) + " but got " + bytesToString(header));
       }
+    }
 
-      return parseValue();
+    /**
+     * Pre-assign the key indices of the symbols of the {@link SymbolTable}
+     * after checking that the encoding side used the same table.
+     */
+    private void readSymbolTable() throws IOException
+    {
+      int size = _buffer.getVarUnsignedInt();
+      int fingerprint = _buffer.getInt();
+      if (_symbolTable == null)
+      {
+        throw new IOException("Encoded with symbol ids but no symbol table is available");
+      }
+      if (size != _symbolTable.size() || fingerprint != _symbolTable.getFingerprint())
+      {
+        throw new IOException("Encoded with symbol table of size " + size + " and fingerprint " + fingerprint +
+                              " but the available " + _symbolTable + " does not match");
+      }
+      while (size >= _keyArray.length)
+      {
+        resizeKeyArray();
+      }
+      for (int id = 1; id <= size; id++)
+      {
+        _keyArray[id] = _symbolTable.getSymbol(id);
+      }
+      _expectedKeyIndex = size + 1;
     }
 
     DataList parseArray(boolean withCount) throws IOException
@@ -578,7 +871,29 @@ public class PsonDataCodec implements DataCodec
       int count = 0;
       for (count = 0; ; count++)
       {
-        Object item = parseValue();
+        // numbers are appended without boxing, so that arrays of numbers are stored unboxed by the DataList
+        byte psonType = _buffer.get();
+        if (psonType == PSON_INT)
+        {
+          list.addInt(_buffer.getInt());
+          continue;
+        }
+        if (psonType == PSON_LONG)
+        {
+          list.addLong(_buffer.getLong());
+          continue;
+        }
+        if (psonType == PSON_FLOAT)
+        {
+          list.addFloat(_buffer.getFloat());
+          continue;
+        }
+        if (psonType == PSON_DOUBLE)
+        {
+          list.addDouble(_buffer.getDouble());
+          continue;
+        }
+        Object item = parseValue(psonType);
         if (item == null)
         {
           break;
@@ -602,32 +917,11 @@ public class PsonDataCodec implements DataCodec
       for (count = 0; ; count++)
       {
         int keyIndex = _buffer.getVarInt();
-        String key;
         if (keyIndex == PSON_INVALID_KEY_INDEX)
         {
           break;
         }
-        if (keyIndex < 0)
-        {
-          keyIndex = -keyIndex;
-          if (keyIndex != _expectedKeyIndex)
-          {
-            throw new IOException("Received new key index " + keyIndex + " but expecting " + _expectedKeyIndex);
-          }
-          _expectedKeyIndex++;
-          if (keyIndex >= _keyArray.length)
-          {
-            resizeKeyArray();
-          }
-          assert(_keyArray[keyIndex] == null);
-          key = _buffer.getUtf8CString();
-          _keyArray[keyIndex] = key;
-        }
-        else
-        {
-          key = _keyArray[keyIndex];
-          assert(key != null);
-        }
+        String key = readKey(keyIndex);
         Object item = parseValue();
         if (item == null)
         {
@@ -644,6 +938,41 @@ public class PsonDataCodec implements DataCodec
       return map;
     }
 
+    /**
+     * Return the key for an encoded key index, reading and remembering the key
+     * if the index is negative, i.e. the key has not been seen before.
+     */
+    String readKey(int keyIndex) throws IOException
+    {
+      String key;
+      if (keyIndex < 0)
+      {
+        keyIndex = -keyIndex;
+        if (keyIndex != _expectedKeyIndex)
+        {
+          throw new IOException("Received new key index " + keyIndex + " but expecting " + _expectedKeyIndex);
+        }
+        _expectedKeyIndex++;
+        if (keyIndex >= _keyArray.length)
+        {
+          resizeKeyArray();
+        }
+        assert(_keyArray[keyIndex] == null);
+        key = _buffer.getUtf8CString();
+        if (_symbolTable != null)
+        {
+          key = _symbolTable.intern(key);
+        }
+        _keyArray[keyIndex] = key;
+      }
+      else
+      {
+        key = _keyArray[keyIndex];
+        assert(key != null);
+      }
+      return key;
+    }
+
     private void resizeKeyArray()
     {
       String[] newKeyArray = new String[_keyArray.length * 2];
@@ -653,8 +982,11 @@ public class PsonDataCodec implements DataCodec
 
     Object parseValue() throws IOException
     {
-      byte psonType = _buffer.get();
+      return parseValue(_buffer.get());
+    }
 
+    Object parseValue(byte psonType) throws IOException
+    {
       Object o = null;
       boolean valid = true;
       switch (psonType)
@@ -736,6 +1068,7 @@ public class PsonDataCodec implements DataCodec
     }
 
     private final BufferChain _buffer;
+    private final SymbolTable _symbolTable;
     private String _keyArray[] = new String[100];
     private int _expectedKeyIndex = 1;
   }
@@ -0,0 +1,46 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.data.codec;
+
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A {@link DataCodec} that can also de-serialize its input as a sequence of
+ * events through a {@link DataReader}, without building Data objects.
+ */
+public interface StreamingDataCodec extends DataCodec
+{
+  /**
+   * Create a {@link DataReader} that reads from a byte array.
+   *
+   * @param input to read.
+   * @return a new {@link DataReader}.
+   * @throws IOException if the reader cannot be created.
+   */
+  DataReader createReader(byte[] input) throws IOException;
+
+  /**
+   * Create a {@link DataReader} that reads from the given {@link InputStream}.
+   *
+   * @param in the {@link InputStream} from which to read.
+   * @return a new {@link DataReader}.
+   * @throws IOException if the reader cannot be created.
+   */
+  DataReader createReader(InputStream in) throws IOException;
+}
@@ -0,0 +1,260 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.data.codec;
+
+
+import com.linkedin.data.schema.ArrayDataSchema;
+import com.linkedin.data.schema.DataSchema;
+import com.linkedin.data.schema.MapDataSchema;
+import com.linkedin.data.schema.RecordDataSchema;
+import com.linkedin.data.schema.TyperefDataSchema;
+import com.linkedin.data.schema.UnionDataSchema;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * A table of symbols, i.e. {@link com.linkedin.data.DataMap} keys, that codecs use
+ * to return canonical key instances when decoding.
+ * <p>
+ *
+ * Each symbol of the table is assigned a stable id starting at 1, in the order
+ * the symbols were provided. Codecs that are given the same table on both
+ * sides may encode the symbol ids instead of the symbols,
+ * see {@link PsonDataCodec.Options#setEncodeSymbolIds(boolean)}.
+ * <p>
+ *
+ * A table may also learn additional symbols as they are decoded, up to
+ * a maximum number of learned symbols. Learned symbols are only used to
+ * return canonical instances, they are never assigned ids because they
+ * are not known to the other side.
+ * <p>
+ *
+ * This class is thread-safe.
+ */
+public class SymbolTable
+{
+  /**
+   * Construct a table of the specified symbols that does not learn symbols.
+   *
+   * @param symbols provides the symbols of the table, duplicates are ignored.
+   */
+  public SymbolTable(Collection<String> symbols)
+  {
+    this(symbols, 0);
+  }
+
+  /**
+   * Construct a table of the specified symbols that learns up to the specified
+   * number of additional symbols.
+   *
+   * @param symbols provides the symbols of the table, duplicates are ignored.
+   * @param maxLearnedSymbols provides the maximum number of symbols to learn.
+   */
+  public SymbolTable(Collection<String> symbols, int maxLearnedSymbols)
+  {
+    Set<String> unique = new LinkedHashSet<String>(symbols);
+    _symbols = new String[unique.size() + 1];
+    _symbolToId = new HashMap<String, Integer>(unique.size() * 2);
+    int id = 1;
+    int fingerprint = 1;
+    for (String symbol : unique)
+    {
+      _symbols[id] = symbol;
+      _symbolToId.put(symbol, id);
+      fingerprint = 31 * fingerprint + symbol.hashCode();
+      id++;
+    }
+    _fingerprint = fingerprint;
+    _maxLearnedSymbols = maxLearnedSymbols;
+    _learnedSymbols = maxLearnedSymbols > 0 ? new ConcurrentHashMap<String, String>() : null;
+  }
+
+  /**
+   * Construct a table of the record field names and union member keys
+   * of the specified schemas and of the schemas they reference.
+   *
+   * @param schemas provides the schemas.
+   * @param maxLearnedSymbols provides the maximum number of symbols to learn.
+   * @return a new {@link SymbolTable}.
+   */
+  public static SymbolTable fromSchemas(Collection<? extends DataSchema> schemas, int maxLearnedSymbols)
+  {
+    Set<String> symbols = new LinkedHashSet<String>();
+    IdentityHashMap<DataSchema, Boolean> visited = new IdentityHashMap<DataSchema, Boolean>();
+    for (DataSchema schema : schemas)
+    {
+      collectSymbols(schema, symbols, visited);
+    }
+    return new SymbolTable(symbols, maxLearnedSymbols);
+  }
+
+  /**
+   * @return the number of symbols with ids in this table.
+   */
+  public int size()
+  {
+    return _symbols.length - 1;
+  }
+
+  /**
+   * Returns a fingerprint of the symbols with ids in this table,
+   * used to verify that both sides of a codec use the same table.
+   *
+   * @return the fingerprint of this table.
+   */
+  public int getFingerprint()
+  {
+    return _fingerprint;
+  }
+
+  /**
+   * @return the symbols with ids of this table, in id order.
+   */
+  public List<String> getSymbols()
+  {
+    List<String> symbols = new ArrayList<String>(size());
+    for (int id = 1; id < _symbols.length; id++)
+    {
+      symbols.add(_symbols[id]);
+    }
+    return Collections.unmodifiableList(symbols);
+  }
+
+  /**
+   * Return the id of a symbol.
+   *
+   * @param symbol to obtain the id for.
+   * @return the id of the symbol if found, else return -1.
+   */
+  public int getSymbolId(String symbol)
+  {
+    Integer id = _symbolToId.get(symbol);
+    return (id == null ? -1 : id);
+  }
+
+  /**
+   * Return the symbol with the specified id.
+   *
+   * @param id of the symbol.
+   * @return the symbol with the specified id, or null if the id is not in this table.
+   */
+  public String getSymbol(int id)
+  {
+    return (id > 0 && id < _symbols.length) ? _symbols[id] : null;
+  }
+
+  /**
+   * Return the canonical instance of a symbol.
+   *
+   * If the symbol is not in this table and this table has not learned
+   * the maximum number of symbols yet, the symbol is learned.
+   *
+   * @param symbol to obtain the canonical instance for.
+   * @return the canonical instance of the symbol if known, else return the symbol.
+   */
+  public String intern(String symbol)
+  {
+    Integer id = _symbolToId.get(symbol);
+    if (id != null)
+    {
+      return _symbols[id];
+    }
+    if (_learnedSymbols == null)
+    {
+      return symbol;
+    }
+    String learned = _learnedSymbols.get(symbol);
+    if (learned != null)
+    {
+      return learned;
+    }
+    if (_learnedCount.get() < _maxLearnedSymbols)
+    {
+      learned = _learnedSymbols.putIfAbsent(symbol, symbol);
+      if (learned == null)
+      {
+        _learnedCount.incrementAndGet();
+        return symbol;
+      }
+      return learned;
+    }
+    return symbol;
+  }
+
+  @Override
+  public String toString()
+  {
+    return getClass().getSimpleName() + "(size=" + size() + ", fingerprint=" + _fingerprint +
+      ", maxLearnedSymbols=" + _maxLearnedSymbols + ")";
+  }
+
+  private static void collectSymbols(DataSchema schema, Set<String> symbols, IdentityHashMap<DataSchema, Boolean> visited)
+  {
+    if (schema == null || visited.put(schema, Boolean.TRUE) != null)
+    {
+      return;
+    }
+    switch (schema.getType())
+    {
+      case RECORD:
+        for (RecordDataSchema.Field field : ((RecordDataSchema) schema).getFields())
+        {
+          symbols.add(field.getName());
+          collectSymbols(field.getType(), symbols, visited);
+        }
+        break;
+      case ARRAY:
+        collectSymbols(((ArrayDataSchema) schema).getItems(), symbols, visited);
+        break;
+      case MAP:
+        collectSymbols(((MapDataSchema) schema).getValues(), symbols, visited);
+        break;
+      case UNION:
+        for (DataSchema member : ((UnionDataSchema) schema).getTypes())
+        {
+          if (member.getType() != DataSchema.Type.NULL)
+          {
+            symbols.add(member.getUnionMemberKey());
+          }
+          collectSymbols(member, symbols, visited);
+        }
+        break;
+      case TYPEREF:
+        collectSymbols(((TyperefDataSchema) schema).getRef(), symbols, visited);
+        break;
+      default:
+        break;
+    }
+  }
+
+  private final String[] _symbols;
+  private final Map<String, Integer> _symbolToId;
+  private final int _fingerprint;
+  private final int _maxLearnedSymbols;
+  private final ConcurrentHashMap<String, String> _learnedSymbols;
+  private final AtomicInteger _learnedCount = new AtomicInteger();
+}
@@ -35,6 +35,12 @@ import java.util.List;
  * with this {@link CheckedList}.
  * <p>
  *
+ * Sub-classes may instead provide a {@link PrimitiveList} as the underlying
+ * list to store numeric elements unboxed. Such a list is replaced by an
+ * {@link ArrayList} holding the same elements the first time an element
+ * that the {@link PrimitiveList} does not accept is added.
+ * <p>
+ *
  * A {@link CheckedList} may be marked read-only to disable mutations,
  * and to avoid unintentional changes. It may also be invalidated to
  * release its reference and decrease the reference count on the underlying
@@ -115,11 +121,28 @@ public class CheckedList<E> extends AbstractList<E> implements CommonList<E>, Cl
     _list = new InternalList<E>(initialCapacity);
   }
 
+  /**
+   * Construct a new list that uses the specified {@link PrimitiveList} as its
+   * underlying list and the specified {@link ListChecker}.
+   * The {@link PrimitiveList} is not copied and should not be referenced by the caller afterwards.
+   *
+   * @param list provides the underlying list.
+   * @param checker provides the {@link ListChecker}.
+   */
+  @SuppressWarnings("unchecked")
+  protected CheckedList(PrimitiveList<? extends E> list, ListChecker<E> checker)
+  {
+    _checker = checker;
+    checkAll(list);
+    _list = (List<E>) list;
+  }
+
   @Override
   public boolean add(E e)
   {
     check(e);
     checkMutability();
+    checkPrimitive(e);
     return _list.add(e);
   }
 
@@ -128,6 +151,7 @@ public class CheckedList<E> extends AbstractList<E> implements CommonList<E>, Cl
   {
     check(element);
     checkMutability();
+    checkPrimitive(element);
     _list.add(index, element);
   }
 
@@ -136,6 +160,7 @@ public class CheckedList<E> extends AbstractList<E> implements CommonList<E>, Cl
   {
     checkAll(c);
     checkMutability();
+    checkPrimitiveAll(c);
     return _list.addAll(c);
   }
 
@@ -144,6 +169,7 @@ public class CheckedList<E> extends AbstractList<E> implements CommonList<E>, Cl
   {
     checkAll(c);
     checkMutability();
+    checkPrimitiveAll(c);
     return _list.addAll(index, c);
   }
 
@@ -159,8 +185,42 @@ public class CheckedList<E> extends AbstractList<E> implements CommonList<E>, Cl
   public CheckedList<E> clone() throws CloneNotSupportedException
   {
     CheckedList<E> o = (CheckedList<E>) super.clone();
-    o._list = (InternalList<E>) _list.clone();
+    if (_list instanceof PrimitiveList)
+    {
+      o._list = (List<E>) ((PrimitiveList<E>) _list).clone();
+    }
+    else
+    {
+      o._list = (List<E>) ((InternalList<E>) _list).clone();
+    }
     o._readOnly = false;
+    o._listShared = false;
+    return o;
+  }
+
+  /**
+   * Clone this read-only list without copying its underlying list.
+   * <p>
+   *
+   * The clone is not read-only and shares the underlying list with this list
+   * until the clone is first modified, at which time the clone copies the
+   * underlying list. Since this list is read-only, its elements cannot change
+   * while they are shared.
+   *
+   * @return a clone of this list that shares the underlying list of this list.
+   * @throws CloneNotSupportedException if the list cannot be cloned.
+   * @throws IllegalStateException if this list is not read-only.
+   */
+  @SuppressWarnings("unchecked")
+  protected CheckedList<E> cloneReadOnly() throws CloneNotSupportedException
+  {
+    if (_readOnly == false)
+    {
+      throw new IllegalStateException("Only a read-only list can share its underlying list");
+    }
+    CheckedList<E> o = (CheckedList<E>) super.clone();
+    o._readOnly = false;
+    o._listShared = true;
     return o;
   }
 
@@ -244,7 +304,14 @@ public class CheckedList<E> extends AbstractList<E> implements CommonList<E>, Cl
   public void removeRange(int fromIndex, int toIndex)
   {
     checkMutability();
-    _list.removeRange(fromIndex, toIndex);
+    if (_list instanceof PrimitiveList)
+    {
+      ((PrimitiveList<E>) _list).removeRange(fromIndex, toIndex);
+    }
+    else
+    {
+      ((InternalList<E>) _list).removeRange(fromIndex, toIndex);
+    }
   }
 
   @Override
@@ -252,6 +319,7 @@ public class CheckedList<E> extends AbstractList<E> implements CommonList<E>, Cl
   {
     check(element);
     checkMutability();
+    checkPrimitive(element);
     return _list.set(index, element);
   }
 
@@ -309,6 +377,7 @@ public class CheckedList<E> extends AbstractList<E> implements CommonList<E>, Cl
   protected boolean addWithoutChecking(E element)
   {
     checkMutability();
+    checkPrimitive(element);
     return _list.add(element);
   }
 
@@ -324,15 +393,61 @@ public class CheckedList<E> extends AbstractList<E> implements CommonList<E>, Cl
   protected E setWithoutChecking(int index, E element)
   {
     checkMutability();
+    checkPrimitive(element);
     return _list.set(index, element);
   }
 
-  private final void checkMutability()
+  /**
+   * Return the underlying {@link PrimitiveList}, use with caution.
+   *
+   * Mutations through the returned list skip all checks.
+   *
+   * @return the underlying {@link PrimitiveList}, or null if the underlying list is not a {@link PrimitiveList}.
+   */
+  protected final PrimitiveList<?> getPrimitiveList()
+  {
+    return _list instanceof PrimitiveList ? (PrimitiveList<?>) _list : null;
+  }
+
+  /**
+   * Replace the underlying list of an empty list with the specified {@link PrimitiveList}.
+   *
+   * @param list provides the new underlying list, it must be empty.
+   * @throws UnsupportedOperationException if the list is read-only.
+   * @throws IllegalStateException if this list or the specified list is not empty.
+   */
+  @SuppressWarnings("unchecked")
+  protected final void setPrimitiveList(PrimitiveList<? extends E> list)
+  {
+    checkMutability();
+    if (_list.isEmpty() == false || list.isEmpty() == false)
+    {
+      throw new IllegalStateException("Cannot replace the underlying list of a non-empty list");
+    }
+    _list = (List<E>) list;
+  }
+
+  /**
+   * Invoked before every modification of this list, once the list is known not to be read-only.
+   */
+  protected void beforeModification()
+  {
+  }
+
+  @SuppressWarnings("unchecked")
+  protected final void checkMutability()
   {
     if (_readOnly)
     {
       throw new UnsupportedOperationException("Cannot mutate a read-only list");
     }
+    beforeModification();
+    if (_listShared)
+    {
+      // copy the underlying list shared by cloneReadOnly() before the first modification
+      _list = (_list instanceof PrimitiveList) ? (List<E>) ((PrimitiveList<E>) _list).clone() : new InternalList<E>(_list);
+      _listShared = false;
+    }
   }
 
   private final void check(E e)
@@ -343,6 +458,34 @@ public class CheckedList<E> extends AbstractList<E> implements CommonList<E>, Cl
     }
   }
 
+  /**
+   * Replace an underlying {@link PrimitiveList} that does not accept the specified element
+   * by an {@link ArrayList} with the same elements.
+   */
+  private final void checkPrimitive(E e)
+  {
+    if (_list instanceof PrimitiveList && ((PrimitiveList<?>) _list).accepts(e) == false)
+    {
+      _list = new InternalList<E>(_list);
+    }
+  }
+
+  private final void checkPrimitiveAll(Collection<? extends E> c)
+  {
+    if (_list instanceof PrimitiveList)
+    {
+      PrimitiveList<?> list = (PrimitiveList<?>) _list;
+      for (E e : c)
+      {
+        if (list.accepts(e) == false)
+        {
+          _list = new InternalList<E>(_list);
+          return;
+        }
+      }
+    }
+  }
+
   private final void checkAll(Collection<? extends E> c)
   {
     if (_checker != null)
@@ -387,5 +530,6 @@ public class CheckedList<E> extends AbstractList<E> implements CommonList<E>, Cl
 
   protected ListChecker<E> _checker;
   private boolean _readOnly = false;
-  private InternalList<E> _list;
+  private boolean _listShared = false;
+  private List<E> _list;
 }
\ No newline at end of file
@@ -32,7 +32,8 @@ import java.util.Set;
  *
  * The underlying map implementation is {@link HashMap}. It delegates
  * map operations to the underlying {@link HashMap} associated
- * with this {@link CheckedMap}.
+ * with this {@link CheckedMap}. Sub-classes may instead provide a
+ * {@link CompactMap} as the underlying map to reduce memory usage.
  * <P>
  *
  * A {@link CheckedMap} may be marked read-only to disable mutations,
@@ -152,6 +153,20 @@ public class CheckedMap<K,V> implements CommonMap<K,V>, Cloneable
     _map = new HashMap<K,V>(initialCapacity, loadFactor);
   }
 
+  /**
+   * Construct a map that uses the specified {@link CompactMap} as its underlying map.
+   * The {@link CompactMap} is not copied and should not be referenced by the caller afterwards.
+   *
+   * @param map provides the underlying map.
+   * @param checker provides the {@link MapChecker}.
+   */
+  protected CheckedMap(CompactMap<K,V> map, MapChecker<K,V> checker)
+  {
+    _checker = checker;
+    checkAll(map);
+    _map = map;
+  }
+
   @Override
   public void clear()
   {
@@ -164,8 +179,42 @@ public class CheckedMap<K,V> implements CommonMap<K,V>, Cloneable
   public CheckedMap<K,V> clone() throws CloneNotSupportedException
   {
     CheckedMap<K,V> o = (CheckedMap<K,V>) super.clone();
-    o._map = (HashMap<K,V>) _map.clone();
+    if (_map instanceof CompactMap)
+    {
+      o._map = ((CompactMap<K,V>) _map).clone();
+    }
+    else
+    {
+      o._map = (Map<K,V>) ((HashMap<K,V>) _map).clone();
+    }
+    o._readOnly = false;
+    o._mapShared = false;
+    return o;
+  }
+
+  /**
+   * Clone this read-only map without copying its underlying map.
+   * <p>
+   *
+   * The clone is not read-only and shares the underlying map with this map
+   * until the clone is first modified, at which time the clone copies the
+   * underlying map. Since this map is read-only, its entries cannot change
+   * while they are shared.
+   *
+   * @return a clone of this map that shares the underlying map of this map.
+   * @throws CloneNotSupportedException if the map cannot be cloned.
+   * @throws IllegalStateException if this map is not read-only.
+   */
+  @SuppressWarnings("unchecked")
+  protected CheckedMap<K,V> cloneReadOnly() throws CloneNotSupportedException
+  {
+    if (_readOnly == false)
+    {
+      throw new IllegalStateException("Only a read-only map can share its underlying map");
+    }
+    CheckedMap<K,V> o = (CheckedMap<K,V>) super.clone();
     o._readOnly = false;
+    o._mapShared = true;
     return o;
   }
 
@@ -291,12 +340,20 @@ public class CheckedMap<K,V> implements CommonMap<K,V>, Cloneable
     _map = null;
   }
 
+  @SuppressWarnings("unchecked")
   private final void checkMutability()
   {
     if (_readOnly)
     {
       throw new UnsupportedOperationException("Cannot mutate a read-only map");
     }
+    beforeModification();
+    if (_mapShared)
+    {
+      // copy the underlying map shared by cloneReadOnly() before the first modification
+      _map = (_map instanceof CompactMap) ? ((CompactMap<K,V>) _map).clone() : new HashMap<K,V>(_map);
+      _mapShared = false;
+    }
   }
 
   final private void checkKeyValue(K key, V value)
@@ -318,6 +375,13 @@ public class CheckedMap<K,V> implements CommonMap<K,V>, Cloneable
     }
   }
 
+  /**
+   * Invoked before every modification of this map, once the map is known not to be read-only.
+   */
+  protected void beforeModification()
+  {
+  }
+
   /**
    * Put that does not invoke checker but does check for read-only, use with caution.
    *
@@ -346,6 +410,7 @@ public class CheckedMap<K,V> implements CommonMap<K,V>, Cloneable
   }
 
   private boolean _readOnly = false;
+  private boolean _mapShared = false;
   protected MapChecker<K,V> _checker;
-  private HashMap<K,V> _map;
+  private Map<K,V> _map;
 }
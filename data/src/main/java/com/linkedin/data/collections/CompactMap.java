@@ -0,0 +1,547 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.data.collections;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Compact open-addressed map.
+ * <p>
+ *
+ * Keys and values are stored in two parallel arrays using linear probing,
+ * so there is no per-entry object as with {@link java.util.HashMap}.
+ * A third array records the order in which keys were first added, and the
+ * map iterates in that order.
+ * <p>
+ *
+ * The keys array may be shared between many maps. A {@link KeyLayout}
+ * pre-computes the keys array for a known set of keys, e.g. the fields of a
+ * record, and every map created from that layout shares it and only
+ * allocates its own values array. Such a map iterates over the keys of
+ * the layout in the order they were given to the layout, e.g. the order
+ * the fields are declared in, followed by any other keys in the order
+ * they were added. A key slot whose value is null is
+ * reserved but vacant, it does not count as an entry of the map. Other
+ * vacant keys are dropped when the table grows, the keys of the layout are not.
+ * The keys and order arrays are copied the first time a key that is not in
+ * the shared array is added (copy-on-write), and {@link #clone()} shares
+ * the arrays of the cloned map the same way.
+ * <p>
+ *
+ * Null keys and null values are not supported.
+ * <p>
+ *
+ * This class is not thread-safe.
+ *
+ * @param <K> is the key type.
+ * @param <V> is the value type.
+ */
+public class CompactMap<K,V> extends AbstractMap<K,V> implements Cloneable
+{
+  /**
+   * A pre-computed, immutable keys array that can be shared by many {@link CompactMap}s.
+   *
+   * @param <K> is the key type.
+   */
+  public static final class KeyLayout<K>
+  {
+    /**
+     * Construct a layout for the specified keys.
+     *
+     * @param keys provides the keys of the layout, in the iteration order of maps that use it.
+     */
+    public KeyLayout(Collection<? extends K> keys)
+    {
+      Object[] table = new Object[capacityFor(keys.size())];
+      int[] order = new int[table.length];
+      int used = 0;
+      for (K key : keys)
+      {
+        int slot = findSlot(table, key);
+        if (slot < 0)
+        {
+          table[-(slot + 1)] = key;
+          order[used] = -(slot + 1);
+          used++;
+        }
+      }
+      _keys = table;
+      _order = order;
+      _used = used;
+    }
+
+    /**
+     * @return the number of distinct keys in this layout.
+     */
+    public int size()
+    {
+      return _used;
+    }
+
+    private final Object[] _keys;
+    private final int[] _order;
+    private final int _used;
+  }
+
+  /**
+   * Construct an empty map.
+   */
+  public CompactMap()
+  {
+    this(DEFAULT_EXPECTED_SIZE);
+  }
+
+  /**
+   * Construct an empty map that can hold the specified number of entries without resizing.
+   *
+   * @param expectedSize provides the expected number of entries.
+   */
+  public CompactMap(int expectedSize)
+  {
+    if (expectedSize < 0)
+    {
+      throw new IllegalArgumentException("Illegal expected size: " + expectedSize);
+    }
+    int capacity = capacityFor(expectedSize);
+    _keys = new Object[capacity];
+    _order = new int[capacity];
+    _values = new Object[capacity];
+  }
+
+  /**
+   * Construct an empty map that shares the keys and order arrays of the specified {@link KeyLayout}.
+   *
+   * @param layout provides the keys and order arrays.
+   */
+  public CompactMap(KeyLayout<K> layout)
+  {
+    _keys = layout._keys;
+    _order = layout._order;
+    _keysShared = true;
+    _used = layout._used;
+    _reserved = layout._used;
+    _values = new Object[_keys.length];
+  }
+
+  /**
+   * Construct a map with initial entries provided by the specified map.
+   *
+   * @param map provides the initial entries for the new map.
+   */
+  public CompactMap(Map<? extends K, ? extends V> map)
+  {
+    this(map.size());
+    putAll(map);
+  }
+
+  @Override
+  public int size()
+  {
+    return _size;
+  }
+
+  @Override
+  public boolean isEmpty()
+  {
+    return _size == 0;
+  }
+
+  @Override
+  public boolean containsKey(Object key)
+  {
+    return get(key) != null;
+  }
+
+  @Override
+  public boolean containsValue(Object value)
+  {
+    if (value != null)
+    {
+      for (Object v : _values)
+      {
+        if (v != null && v.equals(value))
+        {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public V get(Object key)
+  {
+    if (key == null)
+    {
+      return null;
+    }
+    int slot = findSlot(_keys, key);
+    return slot < 0 ? null : (V) _values[slot];
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public V put(K key, V value)
+  {
+    if (key == null || value == null)
+    {
+      throw new NullPointerException("CompactMap does not support null keys or values");
+    }
+
+    int slot = findSlot(_keys, key);
+    if (slot >= 0)
+    {
+      V oldValue = (V) _values[slot];
+      _values[slot] = value;
+      if (oldValue == null)
+      {
+        _size++;
+        _modCount++;
+      }
+      return oldValue;
+    }
+
+    if (_used + 1 > _keys.length * LOAD_FACTOR)
+    {
+      rehash();
+      slot = findSlot(_keys, key);
+    }
+    else if (_keysShared)
+    {
+      _keys = _keys.clone();
+      _order = _order.clone();
+      _keysShared = false;
+    }
+
+    int index = -(slot + 1);
+    _keys[index] = key;
+    _values[index] = value;
+    _order[_used] = index;
+    _used++;
+    _size++;
+    _modCount++;
+    return null;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public V remove(Object key)
+  {
+    if (key == null)
+    {
+      return null;
+    }
+    int slot = findSlot(_keys, key);
+    if (slot < 0 || _values[slot] == null)
+    {
+      return null;
+    }
+    // the key stays in its slot as a vacant reservation, so probe sequences are not broken
+    V oldValue = (V) _values[slot];
+    _values[slot] = null;
+    _size--;
+    _modCount++;
+    return oldValue;
+  }
+
+  @Override
+  public void clear()
+  {
+    Arrays.fill(_values, null);
+    _size = 0;
+    _modCount++;
+  }
+
+  @Override
+  public Set<Map.Entry<K,V>> entrySet()
+  {
+    return new EntrySet();
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public CompactMap<K,V> clone()
+  {
+    try
+    {
+      CompactMap<K,V> o = (CompactMap<K,V>) super.clone();
+      o._values = _values.clone();
+      o._modCount = 0;
+      o._keysShared = true;
+      _keysShared = true;
+      return o;
+    }
+    catch (CloneNotSupportedException e)
+    {
+      throw new AssertionError(e);
+    }
+  }
+
+  /**
+   * Rebuild the table with room for one more key, dropping vacant key slots
+   * that are not from the {@link KeyLayout} and keeping the iteration order.
+   * The new keys and order arrays are owned by this map.
+   */
+  private void rehash()
+  {
+    Object[] oldKeys = _keys;
+    Object[] oldValues = _values;
+    int kept = _reserved;
+    for (int i = _reserved; i < _used; i++)
+    {
+      if (oldValues[_order[i]] != null)
+      {
+        kept++;
+      }
+    }
+    int capacity = capacityFor(kept + 1);
+    Object[] keys = new Object[capacity];
+    int[] order = new int[capacity];
+    Object[] values = new Object[capacity];
+    int used = 0;
+    for (int i = 0; i < _used; i++)
+    {
+      int oldIndex = _order[i];
+      if (i < _reserved || oldValues[oldIndex] != null)
+      {
+        int index = -(findSlot(keys, oldKeys[oldIndex]) + 1);
+        keys[index] = oldKeys[oldIndex];
+        values[index] = oldValues[oldIndex];
+        order[used++] = index;
+      }
+    }
+    _keys = keys;
+    _order = order;
+    _values = values;
+    _keysShared = false;
+    _used = used;
+    _modCount++;
+  }
+
+  /**
+   * @return the slot of the key if present, otherwise -(insertion slot) - 1.
+   */
+  private static int findSlot(Object[] keys, Object key)
+  {
+    int mask = keys.length - 1;
+    int h = key.hashCode();
+    int i = (h ^ (h >>> 16)) & mask;
+    while (true)
+    {
+      Object k = keys[i];
+      if (k == null)
+      {
+        return -(i + 1);
+      }
+      if (k == key || k.equals(key))
+      {
+        return i;
+      }
+      i = (i + 1) & mask;
+    }
+  }
+
+  /**
+   * @return the smallest power of two table size that holds the specified number of keys
+   *         within the load factor.
+   */
+  private static int capacityFor(int expectedSize)
+  {
+    int capacity = MIN_CAPACITY;
+    while (capacity * LOAD_FACTOR < expectedSize)
+    {
+      capacity <<= 1;
+    }
+    return capacity;
+  }
+
+  private class EntrySet extends AbstractSet<Map.Entry<K,V>>
+  {
+    @Override
+    public Iterator<Map.Entry<K,V>> iterator()
+    {
+      return new EntryIterator();
+    }
+
+    @Override
+    public int size()
+    {
+      return _size;
+    }
+
+    @Override
+    public void clear()
+    {
+      CompactMap.this.clear();
+    }
+  }
+
+  private class EntryIterator implements Iterator<Map.Entry<K,V>>
+  {
+    EntryIterator()
+    {
+      _expectedModCount = _modCount;
+      _next = advance(0);
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+      return _next < _used;
+    }
+
+    @Override
+    public Map.Entry<K,V> next()
+    {
+      if (_expectedModCount != _modCount)
+      {
+        throw new ConcurrentModificationException();
+      }
+      if (!hasNext())
+      {
+        throw new NoSuchElementException();
+      }
+      _last = _order[_next];
+      _next = advance(_next + 1);
+      return new Entry(_last);
+    }
+
+    @Override
+    public void remove()
+    {
+      if (_last < 0)
+      {
+        throw new IllegalStateException();
+      }
+      if (_expectedModCount != _modCount)
+      {
+        throw new ConcurrentModificationException();
+      }
+      _values[_last] = null;
+      _size--;
+      _modCount++;
+      _expectedModCount = _modCount;
+      _last = -1;
+    }
+
+    /**
+     * @return the first position in the order array at or after the specified one whose key has a value.
+     */
+    private int advance(int from)
+    {
+      int i = from;
+      while (i < _used && _values[_order[i]] == null)
+      {
+        i++;
+      }
+      return i;
+    }
+
+    private int _expectedModCount;
+    // position in the order array
+    private int _next;
+    // slot of the last returned entry
+    private int _last = -1;
+  }
+
+  private class Entry implements Map.Entry<K,V>
+  {
+    @SuppressWarnings("unchecked")
+    Entry(int index)
+    {
+      _index = index;
+      _key = (K) _keys[index];
+    }
+
+    @Override
+    public K getKey()
+    {
+      return _key;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V getValue()
+    {
+      return (V) _values[_index];
+    }
+
+    @Override
+    public V setValue(V value)
+    {
+      if (value == null)
+      {
+        throw new NullPointerException("CompactMap does not support null values");
+      }
+      V oldValue = getValue();
+      _values[_index] = value;
+      return oldValue;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+      if (!(o instanceof Map.Entry))
+      {
+        return false;
+      }
+      Map.Entry<?,?> e = (Map.Entry<?,?>) o;
+      Object value = getValue();
+      return _key.equals(e.getKey()) && (value == null ? e.getValue() == null : value.equals(e.getValue()));
+    }
+
+    @Override
+    public int hashCode()
+    {
+      Object value = getValue();
+      return _key.hashCode() ^ (value == null ? 0 : value.hashCode());
+    }
+
+    @Override
+    public String toString()
+    {
+      return _key + "=" + getValue();
+    }
+
+    private final int _index;
+    private final K _key;
+  }
+
+  private static final float LOAD_FACTOR = 0.75f;
+  private static final int MIN_CAPACITY = 2;
+  private static final int DEFAULT_EXPECTED_SIZE = 4;
+
+  private Object[] _keys;
+  // slots of the used keys, in iteration order
+  private int[] _order;
+  private Object[] _values;
+  private boolean _keysShared = false;
+  private int _size = 0;
+  private int _used = 0;
+  // number of keys at the start of the order array that are from a KeyLayout and stay reserved
+  private int _reserved = 0;
+  private int _modCount = 0;
+}
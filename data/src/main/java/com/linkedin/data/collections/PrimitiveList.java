@@ -0,0 +1,592 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.data.collections;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+
+/**
+ * List backed by an array of primitives.
+ * <p>
+ *
+ * Elements are stored unboxed and only boxed when accessed through
+ * the {@link java.util.List} interface. Each sub-class provides
+ * unboxed accessors for its primitive type, e.g.
+ * {@link DoubleList#getDouble(int)} and {@link DoubleList#addDouble(double)}.
+ * <p>
+ *
+ * A {@link PrimitiveList} only holds elements of its boxed element class,
+ * see {@link #accepts(Object)}. Null elements are not supported.
+ * <p>
+ *
+ * This class is not thread-safe.
+ *
+ * @param <E> is the boxed element type.
+ */
+public abstract class PrimitiveList<E> extends AbstractList<E> implements RandomAccess, Cloneable
+{
+  /**
+   * {@link PrimitiveList} of ints.
+   */
+  public static final class IntegerList extends PrimitiveList<Integer>
+  {
+    /**
+     * Construct an empty list.
+     */
+    public IntegerList()
+    {
+      this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Construct an empty list with the specified initial capacity.
+     *
+     * @param initialCapacity provides the initial capacity.
+     */
+    public IntegerList(int initialCapacity)
+    {
+      super(new int[initialCapacity], 0);
+    }
+
+    /**
+     * Construct a list with a copy of the specified values.
+     *
+     * @param values provides the initial elements.
+     */
+    public IntegerList(int[] values)
+    {
+      super(values.clone(), values.length);
+    }
+
+    /**
+     * @param index of the element to return.
+     * @return the element at the specified position, unboxed.
+     */
+    public int getInt(int index)
+    {
+      checkIndex(index);
+      return ((int[]) _elements)[index];
+    }
+
+    /**
+     * @param index of the element to replace.
+     * @param value to be stored at the specified position.
+     * @return the element previously at the specified position.
+     */
+    public int setInt(int index, int value)
+    {
+      checkIndex(index);
+      int[] elements = (int[]) _elements;
+      int oldValue = elements[index];
+      elements[index] = value;
+      return oldValue;
+    }
+
+    /**
+     * @param value to be appended to this list.
+     */
+    public void addInt(int value)
+    {
+      ensureCapacity(_size + 1);
+      ((int[]) _elements)[_size++] = value;
+      modCount++;
+    }
+
+    /**
+     * @return a copy of the elements of this list.
+     */
+    public int[] toIntArray()
+    {
+      return Arrays.copyOf((int[]) _elements, _size);
+    }
+
+    @Override
+    public Integer get(int index)
+    {
+      return getInt(index);
+    }
+
+    @Override
+    public Integer set(int index, Integer element)
+    {
+      return setInt(index, element);
+    }
+
+    @Override
+    public Class<Integer> getElementClass()
+    {
+      return Integer.class;
+    }
+
+    @Override
+    protected int capacity()
+    {
+      return ((int[]) _elements).length;
+    }
+
+    @Override
+    protected Object copyElements(int length)
+    {
+      return Arrays.copyOf((int[]) _elements, length);
+    }
+  }
+
+  /**
+   * {@link PrimitiveList} of longs.
+   */
+  public static final class LongList extends PrimitiveList<Long>
+  {
+    /**
+     * Construct an empty list.
+     */
+    public LongList()
+    {
+      this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Construct an empty list with the specified initial capacity.
+     *
+     * @param initialCapacity provides the initial capacity.
+     */
+    public LongList(int initialCapacity)
+    {
+      super(new long[initialCapacity], 0);
+    }
+
+    /**
+     * Construct a list with a copy of the specified values.
+     *
+     * @param values provides the initial elements.
+     */
+    public LongList(long[] values)
+    {
+      super(values.clone(), values.length);
+    }
+
+    /**
+     * @param index of the element to return.
+     * @return the element at the specified position, unboxed.
+     */
+    public long getLong(int index)
+    {
+      checkIndex(index);
+      return ((long[]) _elements)[index];
+    }
+
+    /**
+     * @param index of the element to replace.
+     * @param value to be stored at the specified position.
+     * @return the element previously at the specified position.
+     */
+    public long setLong(int index, long value)
+    {
+      checkIndex(index);
+      long[] elements = (long[]) _elements;
+      long oldValue = elements[index];
+      elements[index] = value;
+      return oldValue;
+    }
+
+    /**
+     * @param value to be appended to this list.
+     */
+    public void addLong(long value)
+    {
+      ensureCapacity(_size + 1);
+      ((long[]) _elements)[_size++] = value;
+      modCount++;
+    }
+
+    /**
+     * @return a copy of the elements of this list.
+     */
+    public long[] toLongArray()
+    {
+      return Arrays.copyOf((long[]) _elements, _size);
+    }
+
+    @Override
+    public Long get(int index)
+    {
+      return getLong(index);
+    }
+
+    @Override
+    public Long set(int index, Long element)
+    {
+      return setLong(index, element);
+    }
+
+    @Override
+    public Class<Long> getElementClass()
+    {
+      return Long.class;
+    }
+
+    @Override
+    protected int capacity()
+    {
+      return ((long[]) _elements).length;
+    }
+
+    @Override
+    protected Object copyElements(int length)
+    {
+      return Arrays.copyOf((long[]) _elements, length);
+    }
+  }
+
+  /**
+   * {@link PrimitiveList} of floats.
+   */
+  public static final class FloatList extends PrimitiveList<Float>
+  {
+    /**
+     * Construct an empty list.
+     */
+    public FloatList()
+    {
+      this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Construct an empty list with the specified initial capacity.
+     *
+     * @param initialCapacity provides the initial capacity.
+     */
+    public FloatList(int initialCapacity)
+    {
+      super(new float[initialCapacity], 0);
+    }
+
+    /**
+     * Construct a list with a copy of the specified values.
+     *
+     * @param values provides the initial elements.
+     */
+    public FloatList(float[] values)
+    {
+      super(values.clone(), values.length);
+    }
+
+    /**
+     * @param index of the element to return.
+     * @return the element at the specified position, unboxed.
+     */
+    public float getFloat(int index)
+    {
+      checkIndex(index);
+      return ((float[]) _elements)[index];
+    }
+
+    /**
+     * @param index of the element to replace.
+     * @param value to be stored at the specified position.
+     * @return the element previously at the specified position.
+     */
+    public float setFloat(int index, float value)
+    {
+      checkIndex(index);
+      float[] elements = (float[]) _elements;
+      float oldValue = elements[index];
+      elements[index] = value;
+      return oldValue;
+    }
+
+    /**
+     * @param value to be appended to this list.
+     */
+    public void addFloat(float value)
+    {
+      ensureCapacity(_size + 1);
+      ((float[]) _elements)[_size++] = value;
+      modCount++;
+    }
+
+    /**
+     * @return a copy of the elements of this list.
+     */
+    public float[] toFloatArray()
+    {
+      return Arrays.copyOf((float[]) _elements, _size);
+    }
+
+    @Override
+    public Float get(int index)
+    {
+      return getFloat(index);
+    }
+
+    @Override
+    public Float set(int index, Float element)
+    {
+      return setFloat(index, element);
+    }
+
+    @Override
+    public Class<Float> getElementClass()
+    {
+      return Float.class;
+    }
+
+    @Override
+    protected int capacity()
+    {
+      return ((float[]) _elements).length;
+    }
+
+    @Override
+    protected Object copyElements(int length)
+    {
+      return Arrays.copyOf((float[]) _elements, length);
+    }
+  }
+
+  /**
+   * {@link PrimitiveList} of doubles.
+   */
+  public static final class DoubleList extends PrimitiveList<Double>
+  {
+    /**
+     * Construct an empty list.
+     */
+    public DoubleList()
+    {
+      this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Construct an empty list with the specified initial capacity.
+     *
+     * @param initialCapacity provides the initial capacity.
+     */
+    public DoubleList(int initialCapacity)
+    {
+      super(new double[initialCapacity], 0);
+    }
+
+    /**
+     * Construct a list with a copy of the specified values.
+     *
+     * @param values provides the initial elements.
+     */
+    public DoubleList(double[] values)
+    {
+      super(values.clone(), values.length);
+    }
+
+    /**
+     * @param index of the element to return.
+     * @return the element at the specified position, unboxed.
+     */
+    public double getDouble(int index)
+    {
+      checkIndex(index);
+      return ((double[]) _elements)[index];
+    }
+
+    /**
+     * @param index of the element to replace.
+     * @param value to be stored at the specified position.
+     * @return the element previously at the specified position.
+     */
+    public double setDouble(int index, double value)
+    {
+      checkIndex(index);
+      double[] elements = (double[]) _elements;
+      double oldValue = elements[index];
+      elements[index] = value;
+      return oldValue;
+    }
+
+    /**
+     * @param value to be appended to this list.
+     */
+    public void addDouble(double value)
+    {
+      ensureCapacity(_size + 1);
+      ((double[]) _elements)[_size++] = value;
+      modCount++;
+    }
+
+    /**
+     * @return a copy of the elements of this list.
+     */
+    public double[] toDoubleArray()
+    {
+      return Arrays.copyOf((double[]) _elements, _size);
+    }
+
+    @Override
+    public Double get(int index)
+    {
+      return getDouble(index);
+    }
+
+    @Override
+    public Double set(int index, Double element)
+    {
+      return setDouble(index, element);
+    }
+
+    @Override
+    public Class<Double> getElementClass()
+    {
+      return Double.class;
+    }
+
+    @Override
+    protected int capacity()
+    {
+      return ((double[]) _elements).length;
+    }
+
+    @Override
+    protected Object copyElements(int length)
+    {
+      return Arrays.copyOf((double[]) _elements, length);
+    }
+  }
+
+  private PrimitiveList(Object elements, int size)
+  {
+    _elements = elements;
+    _size = size;
+  }
+
+  /**
+   * @return the boxed class of the elements of this list.
+   */
+  public abstract Class<E> getElementClass();
+
+  /**
+   * Return whether the specified object can be stored in this list.
+   *
+   * @param o provides the object to check.
+   * @return true if the object is an instance of the element class of this list.
+   */
+  public boolean accepts(Object o)
+  {
+    return o != null && o.getClass() == getElementClass();
+  }
+
+  @Override
+  public int size()
+  {
+    return _size;
+  }
+
+  @Override
+  public void add(int index, E element)
+  {
+    if (index < 0 || index > _size)
+    {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + _size);
+    }
+    if (element == null)
+    {
+      throw new NullPointerException("PrimitiveList does not support null elements");
+    }
+    ensureCapacity(_size + 1);
+    System.arraycopy(_elements, index, _elements, index + 1, _size - index);
+    _size++;
+    modCount++;
+    set(index, element);
+  }
+
+  @Override
+  public E remove(int index)
+  {
+    E oldValue = get(index);
+    System.arraycopy(_elements, index + 1, _elements, index, _size - index - 1);
+    _size--;
+    modCount++;
+    return oldValue;
+  }
+
+  @Override
+  public void removeRange(int fromIndex, int toIndex)
+  {
+    if (fromIndex < 0 || toIndex > _size || fromIndex > toIndex)
+    {
+      throw new IndexOutOfBoundsException("From index: " + fromIndex + ", To index: " + toIndex + ", Size: " + _size);
+    }
+    System.arraycopy(_elements, toIndex, _elements, fromIndex, _size - toIndex);
+    _size -= toIndex - fromIndex;
+    modCount++;
+  }
+
+  @Override
+  public void clear()
+  {
+    _size = 0;
+    modCount++;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public PrimitiveList<E> clone()
+  {
+    try
+    {
+      PrimitiveList<E> o = (PrimitiveList<E>) super.clone();
+      o._elements = copyElements(_size);
+      o.modCount = 0;
+      return o;
+    }
+    catch (CloneNotSupportedException e)
+    {
+      throw new AssertionError(e);
+    }
+  }
+
+  /**
+   * @return the length of the elements array.
+   */
+  protected abstract int capacity();
+
+  /**
+   * @param length provides the length of the copy.
+   * @return a copy of the elements array with the specified length.
+   */
+  protected abstract Object copyElements(int length);
+
+  protected final void checkIndex(int index)
+  {
+    if (index < 0 || index >= _size)
+    {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + _size);
+    }
+  }
+
+  protected final void ensureCapacity(int minCapacity)
+  {
+    int capacity = capacity();
+    if (minCapacity > capacity)
+    {
+      _elements = copyElements(Math.max(minCapacity, capacity + (capacity >> 1) + 1));
+    }
+  }
+
+  private static final int DEFAULT_CAPACITY = 10;
+
+  protected Object _elements;
+  protected int _size;
+}
@@ -16,6 +16,8 @@
 
 package com.linkedin.data.schema;
 
+import com.linkedin.data.collections.CompactMap;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
@@ -458,6 +460,32 @@ public final class RecordDataSchema extends NamedDataSchema
     return (index == null ? null : _fields.get(index));
   }
 
+  /**
+   * Return a {@link CompactMap.KeyLayout} of the field names of this record.
+   *
+   * The layout is computed on first use and shared by all
+   * {@link com.linkedin.data.DataMap}'s constructed from it. The fields are
+   * in the order they are defined, which is the iteration order of those
+   * {@link com.linkedin.data.DataMap}'s.
+   *
+   * @return a {@link CompactMap.KeyLayout} of the field names of this record.
+   */
+  public CompactMap.KeyLayout<String> getFieldLayout()
+  {
+    CompactMap.KeyLayout<String> layout = _fieldLayout;
+    if (layout == null)
+    {
+      List<String> names = new ArrayList<String>(_fields.size());
+      for (Field field : _fields)
+      {
+        names.add(field.getName());
+      }
+      layout = new CompactMap.KeyLayout<String>(names);
+      _fieldLayout = layout;
+    }
+    return layout;
+  }
+
   /**
    * Sets the fields of the record.
    *
@@ -507,6 +535,7 @@ public final class RecordDataSchema extends NamedDataSchema
       index++;
     }
     _fieldNameToIndexMap = Collections.unmodifiableMap(map);
+    _fieldLayout = null;
     if (ok == false)
     {
       setHasError();
@@ -624,6 +653,7 @@ public final class RecordDataSchema extends NamedDataSchema
   private List<NamedDataSchema> _include = _emptyNamedSchemas;
   private List<Field> _fields = _emptyFields;
   private Map<String, Integer> _fieldNameToIndexMap = _emptyFieldNameToIndexMap;
+  private volatile CompactMap.KeyLayout<String> _fieldLayout = null;
   private final RecordType _recordType;
 
   private static ThreadLocal<IdentityHashMap<RecordDataSchema, RecordDataSchema>> _equalsTracking =
@@ -19,13 +19,13 @@ package com.linkedin.data.schema.validation;
 
 import com.linkedin.data.ByteString;
 import com.linkedin.data.Data;
+import com.linkedin.data.DataComplex;
 import com.linkedin.data.DataList;
 import com.linkedin.data.DataMap;
 import com.linkedin.data.Null;
 import com.linkedin.data.element.DataElement;
 import com.linkedin.data.element.MutableDataElement;
 import com.linkedin.data.element.SimpleDataElement;
-import com.linkedin.data.it.IterationOrder;
 import com.linkedin.data.it.ObjectIterator;
 import com.linkedin.data.message.Message;
 import com.linkedin.data.message.MessageList;
@@ -41,12 +41,17 @@ import com.linkedin.data.schema.TyperefDataSchema;
 import com.linkedin.data.schema.UnionDataSchema;
 import com.linkedin.data.schema.validator.Validator;
 import com.linkedin.data.schema.validator.ValidatorContext;
+import com.linkedin.util.ParallelUtil;
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 
 
@@ -61,7 +66,7 @@ public final class ValidateDataAgainstSchema
   }
 
   @SuppressWarnings("serial")
-  private static final HashMap<DataSchema.Type, Class<?>> _primitiveTypeToClassMap = new HashMap<DataSchema.Type, Class<?>>()
+  static final HashMap<DataSchema.Type, Class<?>> _primitiveTypeToClassMap = new HashMap<DataSchema.Type, Class<?>>()
   {
     {
       put(DataSchema.Type.INT, Integer.class);
@@ -84,6 +89,64 @@ public final class ValidateDataAgainstSchema
     return validate(new SimpleDataElement(object, schema), options, validator);
   }
 
+  /**
+   * Validate a Data object, validating the top-level elements of a large
+   * {@link DataList} or {@link DataMap} concurrently.
+   * <p>
+   *
+   * If the Data object has at least {@code parallelThreshold} top-level elements,
+   * the elements are split into chunks of {@code chunkSize} elements and
+   * the chunks are validated concurrently, see {@link ParallelUtil#processChunks}.
+   * Fixes of top-level elements are applied and the Data object itself is
+   * validated after all the chunks have been validated.
+   * <p>
+   *
+   * Otherwise, i.e. if the executor is null, the Data object has less top-level
+   * elements than the threshold, or Avro union mode is enabled, the Data object is
+   * validated on the calling thread. In both cases, the result is the same as
+   * the result of {@link #validate(Object, DataSchema, ValidationOptions, Validator)}.
+   * <p>
+   *
+   * The {@link Validator}, if provided, must be thread-safe.
+   *
+   * @param object provides the Data object to validate.
+   * @param schema provides the {@link DataSchema} of the Data object.
+   * @param options provides the {@link ValidationOptions}.
+   * @param validator provides an optional {@link Validator}, may be null.
+   * @param executor provides the {@link Executor} to validate chunks of top-level elements with, may be null.
+   * @param parallelThreshold provides the minimum number of top-level elements to validate concurrently.
+   * @param chunkSize provides the number of top-level elements of each chunk, must be positive if an executor is provided.
+   * @return the {@link ValidationResult}.
+   */
+  public static ValidationResult validate(Object object,
+                                          DataSchema schema,
+                                          ValidationOptions options,
+                                          Validator validator,
+                                          Executor executor,
+                                          int parallelThreshold,
+                                          int chunkSize)
+  {
+    DataElement element = new SimpleDataElement(object, schema);
+    List<DataElement> children = null;
+    if (executor != null && options.isAvroUnionMode() == false)
+    {
+      children = childElements(element, parallelThreshold);
+    }
+    if (children == null)
+    {
+      return validate(element, options, validator);
+    }
+
+    List<State> states = ParallelUtil.processChunks(children, chunkSize, executor, new ChunkValidation(element, options, validator));
+    State state = states.get(0);
+    for (int i = 1; i < states.size(); i++)
+    {
+      state.merge(states.get(i));
+    }
+    state.validateParent(element);
+    return state;
+  }
+
   public static ValidationResult validate(DataElement element, ValidationOptions options)
   {
     return validate(element, options, null);
@@ -96,6 +159,504 @@ public final class ValidateDataAgainstSchema
     return state;
   }
 
+  /**
+   * Return the elements of the top-level elements of a {@link DataList} or {@link DataMap}
+   * in iteration order, with the same {@link DataSchema}s as {@link ObjectIterator} would
+   * provide.
+   *
+   * @return the child elements, or null if the element should not be validated concurrently.
+   */
+  private static List<DataElement> childElements(DataElement element, int parallelThreshold)
+  {
+    Object value = element.getValue();
+    DataSchema schema = element.getSchema();
+    if (schema == null)
+    {
+      return null;
+    }
+    List<DataElement> children = null;
+    if (value instanceof DataList && schema.getType() == DataSchema.Type.ARRAY)
+    {
+      DataList list = (DataList) value;
+      if (list.size() >= parallelThreshold)
+      {
+        DataSchema itemSchema = ((ArrayDataSchema) schema).getItems();
+        children = new ArrayList<DataElement>(list.size());
+        for (int i = 0; i < list.size(); i++)
+        {
+          children.add(new SimpleDataElement(list.get(i), i, itemSchema, element));
+        }
+      }
+    }
+    else if (value instanceof DataMap)
+    {
+      DataMap map = (DataMap) value;
+      DataSchema dereferencedSchema = schema.getDereferencedDataSchema();
+      DataSchema.Type dereferencedType = dereferencedSchema.getType();
+      if (map.size() >= parallelThreshold &&
+          (dereferencedType == DataSchema.Type.MAP || dereferencedType == DataSchema.Type.RECORD))
+      {
+        children = new ArrayList<DataElement>(map.size());
+        for (Map.Entry<String, Object> entry : map.entrySet())
+        {
+          DataSchema childSchema;
+          if (dereferencedType == DataSchema.Type.MAP)
+          {
+            childSchema = ((MapDataSchema) dereferencedSchema).getValues();
+          }
+          else
+          {
+            RecordDataSchema.Field field = ((RecordDataSchema) dereferencedSchema).getField(entry.getKey());
+            childSchema = (field == null ? null : field.getType());
+          }
+          children.add(new SimpleDataElement(entry.getValue(), entry.getKey(), childSchema, element));
+        }
+      }
+    }
+    return children;
+  }
+
+  private static class ChunkValidation implements ParallelUtil.ChunkProcessor<DataElement, State>
+  {
+    private ChunkValidation(DataElement parent, ValidationOptions options, Validator validator)
+    {
+      _parent = parent;
+      _options = options;
+      _validator = validator;
+    }
+
+    @Override
+    public State process(List<DataElement> chunk)
+    {
+      State state = new State(_options, _validator);
+      state.validateChildren(_parent, chunk);
+      return state;
+    }
+
+    private final DataElement _parent;
+    private final ValidationOptions _options;
+    private final Validator _validator;
+  }
+
+  /**
+   * Return the {@link CompiledSchema} of a {@link DataSchema}.
+   * <p>
+   *
+   * Compiled schemas are cached by schema identity in {@link #COMPILED_SCHEMA_SEGMENTS}
+   * segments that are locked independently. Each segment evicts its least recently
+   * used schema when it is full, so that schemas that are created per request do
+   * not accumulate and do not evict the schemas that are validated against repeatedly.
+   */
+  private static CompiledSchema compiledSchema(DataSchema schema)
+  {
+    SchemaKey key = new SchemaKey(schema);
+    CompiledSchemaSegment segment = _compiledSchemas[key._hash & (COMPILED_SCHEMA_SEGMENTS - 1)];
+    CompiledSchema compiled;
+    synchronized (segment)
+    {
+      compiled = segment.get(key);
+    }
+    if (compiled == null)
+    {
+      compiled = new SchemaCompiler().compile(schema);
+      synchronized (segment)
+      {
+        segment.put(key, compiled);
+      }
+    }
+    return compiled;
+  }
+
+  private static final int COMPILED_SCHEMA_SEGMENTS = 16;
+  private static final int MAX_COMPILED_SCHEMAS_PER_SEGMENT = 64;
+  private static final CompiledSchemaSegment[] _compiledSchemas = new CompiledSchemaSegment[COMPILED_SCHEMA_SEGMENTS];
+  static
+  {
+    for (int i = 0; i < COMPILED_SCHEMA_SEGMENTS; i++)
+    {
+      _compiledSchemas[i] = new CompiledSchemaSegment();
+    }
+  }
+
+  /**
+   * Identifies a {@link DataSchema} by identity, {@link DataSchema#equals(Object)} compares
+   * schemas structurally.
+   */
+  private static class SchemaKey
+  {
+    private SchemaKey(DataSchema schema)
+    {
+      int hash = System.identityHashCode(schema);
+      _schema = schema;
+      _hash = hash ^ (hash >>> 16);
+    }
+
+    @Override
+    public boolean equals(Object other)
+    {
+      return other instanceof SchemaKey && ((SchemaKey) other)._schema == _schema;
+    }
+
+    @Override
+    public int hashCode()
+    {
+      return _hash;
+    }
+
+    private final DataSchema _schema;
+    private final int _hash;
+  }
+
+  /**
+   * A segment of the cache of compiled schemas, in least recently used order.
+   */
+  private static class CompiledSchemaSegment extends LinkedHashMap<SchemaKey, CompiledSchema>
+  {
+    private static final long serialVersionUID = 1L;
+
+    private CompiledSchemaSegment()
+    {
+      super(16, 0.75f, true);
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<SchemaKey, CompiledSchema> eldest)
+    {
+      return size() > MAX_COMPILED_SCHEMAS_PER_SEGMENT;
+    }
+  }
+
+  /**
+   * Compiles a {@link DataSchema} and the schemas it references into a tree
+   * (or a graph for recursive schemas) of {@link CompiledSchema}s.
+   */
+  private static class SchemaCompiler
+  {
+    private CompiledSchema compile(DataSchema schema)
+    {
+      CompiledSchema compiled = _compiled.get(schema);
+      if (compiled == null)
+      {
+        switch (schema.getType())
+        {
+          case ARRAY:
+            compiled = new CompiledArray((ArrayDataSchema) schema);
+            break;
+          case MAP:
+            compiled = new CompiledMap((MapDataSchema) schema);
+            break;
+          case RECORD:
+            compiled = new CompiledRecord((RecordDataSchema) schema);
+            break;
+          case TYPEREF:
+            compiled = new CompiledTyperef((TyperefDataSchema) schema);
+            break;
+          case UNION:
+            compiled = new CompiledUnion((UnionDataSchema) schema);
+            break;
+          case BYTES:
+          case ENUM:
+          case FIXED:
+            compiled = new CompiledSchema(schema);
+            break;
+          default:
+            compiled = new CompiledPrimitive(schema);
+            break;
+        }
+        // register before compiling the referenced schemas to support recursive schemas
+        _compiled.put(schema, compiled);
+        compiled.compileReferences(this);
+      }
+      return compiled;
+    }
+
+    private final IdentityHashMap<DataSchema, CompiledSchema> _compiled = new IdentityHashMap<DataSchema, CompiledSchema>();
+  }
+
+  /**
+   * A {@link DataSchema} compiled for validation.
+   * <p>
+   *
+   * Validation of an element by a {@link CompiledSchema} has the same outcome as
+   * validating the element and its descendants in post-order with a post-order
+   * {@link ObjectIterator} and {@link State#validate(DataElement, DataSchema, Object)}.
+   * The compiled schemas of child elements are resolved when compiling instead of
+   * for every child element.
+   */
+  private static class CompiledSchema
+  {
+    private CompiledSchema(DataSchema schema)
+    {
+      _schema = schema;
+    }
+
+    protected void compileReferences(SchemaCompiler compiler)
+    {
+    }
+
+    /**
+     * Validate an element and its descendants in post-order.
+     */
+    protected void validateTree(State state, DataElement element, Object object)
+    {
+      if (object instanceof DataComplex)
+      {
+        validateChildren(state, element, object);
+      }
+      state.validate(element, this, object);
+    }
+
+    /**
+     * Validate the child elements of an element and their descendants.
+     * <p>
+     *
+     * {@link ObjectIterator} does not provide schemas for the elements of a {@link DataList}
+     * unless the schema of the list is an array, and fails for a {@link DataMap} whose
+     * dereferenced schema is not a record, a union or a map.
+     */
+    protected void validateChildren(State state, DataElement element, Object object)
+    {
+      if (object instanceof DataMap && ((DataMap) object).isEmpty() == false)
+      {
+        throw new IllegalStateException("Unknown dereferenced type " + _schema.getType() +
+                                        " for DataMap's schema " + element.getSchema());
+      }
+    }
+
+    /**
+     * Validate the value of an element, without validating its descendants.
+     *
+     * @return the fixed value, or the value if it has not been fixed.
+     */
+    protected Object validateValue(State state, DataElement element, Object object)
+    {
+      return state.validateType(element, _schema, object);
+    }
+
+    protected final DataSchema _schema;
+  }
+
+  private static class CompiledPrimitive extends CompiledSchema
+  {
+    private CompiledPrimitive(DataSchema schema)
+    {
+      super(schema);
+      _primitiveClass = _primitiveTypeToClassMap.get(schema.getType());
+    }
+
+    @Override
+    protected Object validateValue(State state, DataElement element, Object object)
+    {
+      if (object.getClass() == _primitiveClass)
+      {
+        return object;
+      }
+      return state.validatePrimitive(element, _schema, object);
+    }
+
+    private final Class<?> _primitiveClass;
+  }
+
+  private static class CompiledTyperef extends CompiledSchema
+  {
+    private CompiledTyperef(TyperefDataSchema schema)
+    {
+      super(schema);
+    }
+
+    @Override
+    protected void compileReferences(SchemaCompiler compiler)
+    {
+      _ref = compiler.compile(((TyperefDataSchema) _schema).getRef());
+    }
+
+    @Override
+    protected void validateChildren(State state, DataElement element, Object object)
+    {
+      if (object instanceof DataMap)
+      {
+        _ref.validateChildren(state, element, object);
+      }
+    }
+
+    @Override
+    protected Object validateValue(State state, DataElement element, Object object)
+    {
+      return state.validate(element, _ref, object);
+    }
+
+    private CompiledSchema _ref;
+  }
+
+  private static class CompiledArray extends CompiledSchema
+  {
+    private CompiledArray(ArrayDataSchema schema)
+    {
+      super(schema);
+    }
+
+    @Override
+    protected void compileReferences(SchemaCompiler compiler)
+    {
+      _items = compiler.compile(((ArrayDataSchema) _schema).getItems());
+    }
+
+    @Override
+    protected void validateChildren(State state, DataElement element, Object object)
+    {
+      if (object instanceof DataList)
+      {
+        DataList list = (DataList) object;
+        DataSchema itemSchema = _items._schema;
+        MutableDataElement childElement = new MutableDataElement(element);
+        for (int i = 0; i < list.size(); i++)
+        {
+          Object value = list.get(i);
+          childElement.setValueNameSchema(value, i, itemSchema);
+          _items.validateTree(state, childElement, value);
+        }
+      }
+      else
+      {
+        super.validateChildren(state, element, object);
+      }
+    }
+
+    private CompiledSchema _items;
+  }
+
+  private static class CompiledMap extends CompiledSchema
+  {
+    private CompiledMap(MapDataSchema schema)
+    {
+      super(schema);
+    }
+
+    @Override
+    protected void compileReferences(SchemaCompiler compiler)
+    {
+      _values = compiler.compile(((MapDataSchema) _schema).getValues());
+    }
+
+    @Override
+    protected void validateChildren(State state, DataElement element, Object object)
+    {
+      if (object instanceof DataMap)
+      {
+        DataSchema valueSchema = _values._schema;
+        MutableDataElement childElement = new MutableDataElement(element);
+        for (Map.Entry<String, Object> entry : ((DataMap) object).entrySet())
+        {
+          Object value = entry.getValue();
+          childElement.setValueNameSchema(value, entry.getKey(), valueSchema);
+          _values.validateTree(state, childElement, value);
+        }
+      }
+    }
+
+    private CompiledSchema _values;
+  }
+
+  private static class CompiledRecord extends CompiledSchema
+  {
+    private CompiledRecord(RecordDataSchema schema)
+    {
+      super(schema);
+    }
+
+    @Override
+    protected void compileReferences(SchemaCompiler compiler)
+    {
+      List<RecordDataSchema.Field> fields = ((RecordDataSchema) _schema).getFields();
+      _fields = new HashMap<String, CompiledSchema>(fields.size() * 2);
+      _requiredFields = new ArrayList<RecordDataSchema.Field>();
+      for (RecordDataSchema.Field field : fields)
+      {
+        _fields.put(field.getName(), compiler.compile(field.getType()));
+        if (field.getOptional() == false)
+        {
+          _requiredFields.add(field);
+        }
+      }
+    }
+
+    @Override
+    protected void validateChildren(State state, DataElement element, Object object)
+    {
+      if (object instanceof DataMap)
+      {
+        MutableDataElement childElement = new MutableDataElement(element);
+        for (Map.Entry<String, Object> entry : ((DataMap) object).entrySet())
+        {
+          CompiledSchema field = _fields.get(entry.getKey());
+          if (field != null)
+          {
+            Object value = entry.getValue();
+            childElement.setValueNameSchema(value, entry.getKey(), field._schema);
+            field.validateTree(state, childElement, value);
+          }
+        }
+      }
+    }
+
+    @Override
+    protected Object validateValue(State state, DataElement element, Object object)
+    {
+      if (object instanceof DataMap)
+      {
+        state.checkRequiredFields(element, _requiredFields, (DataMap) object);
+      }
+      else
+      {
+        state.addMessage(element, "record type is not backed by a DataMap");
+      }
+      return object;
+    }
+
+    private Map<String, CompiledSchema> _fields;
+    private List<RecordDataSchema.Field> _requiredFields;
+  }
+
+  private static class CompiledUnion extends CompiledSchema
+  {
+    private CompiledUnion(UnionDataSchema schema)
+    {
+      super(schema);
+    }
+
+    @Override
+    protected void compileReferences(SchemaCompiler compiler)
+    {
+      UnionDataSchema schema = (UnionDataSchema) _schema;
+      _members = new HashMap<String, CompiledSchema>(schema.getTypes().size() * 2);
+      for (DataSchema member : schema.getTypes())
+      {
+        _members.put(member.getUnionMemberKey(), compiler.compile(member));
+      }
+    }
+
+    @Override
+    protected void validateChildren(State state, DataElement element, Object object)
+    {
+      if (object instanceof DataMap)
+      {
+        MutableDataElement childElement = new MutableDataElement(element);
+        for (Map.Entry<String, Object> entry : ((DataMap) object).entrySet())
+        {
+          CompiledSchema member = _members.get(entry.getKey());
+          if (member != null)
+          {
+            Object value = entry.getValue();
+            childElement.setValueNameSchema(value, entry.getKey(), member._schema);
+            member.validateTree(state, childElement, value);
+          }
+        }
+      }
+    }
+
+    private Map<String, CompiledSchema> _members;
+  }
+
   private static class State implements ValidationResult
   {
     private boolean _recursive;
@@ -136,19 +697,120 @@ public final class ValidateDataAgainstSchema
     {
       _recursive = false;
       _fixed = element.getValue();
-      ObjectIterator it = new ObjectIterator(element, IterationOrder.POST_ORDER);
-      DataElement nextElement;
-      while ((nextElement = it.next()) != null)
+      iterate(element);
+    }
+
+    /**
+     * Validate the child elements of a parent element, deferring fixes of the
+     * child elements until {@link #validateParent(DataElement)} so that the
+     * parent is not modified while other chunks of child elements are validated.
+     */
+    protected void validateChildren(DataElement parentElement, List<DataElement> children)
+    {
+      _recursive = false;
+      _deferredParent = parentElement;
+      _deferredFixes = new ArrayList<DataElement>();
+      for (DataElement child : children)
+      {
+        iterate(child);
+      }
+    }
+
+    /**
+     * Apply the deferred fixes of the child elements, then validate the parent element.
+     */
+    protected void validateParent(DataElement parentElement)
+    {
+      _fixed = parentElement.getValue();
+      for (DataElement fix : _deferredFixes)
       {
-        DataSchema nextElementSchema = nextElement.getSchema();
-        if (nextElementSchema != null)
+        if (_fixed instanceof DataMap)
         {
-          validate(nextElement, nextElementSchema, nextElement.getValue());
+          ((DataMap) _fixed).put((String) fix.getName(), fix.getValue());
         }
+        else
+        {
+          ((DataList) _fixed).set((Integer) fix.getName(), fix.getValue());
+        }
+      }
+      _deferredParent = null;
+      _deferredFixes = null;
+      validate(parentElement, parentElement.getSchema(), parentElement.getValue());
+    }
+
+    protected void merge(State other)
+    {
+      _messages.addAll(other._messages);
+      _valid &= other._valid;
+      _hasFix |= other._hasFix;
+      _hasFixupReadOnlyError |= other._hasFixupReadOnlyError;
+      _deferredFixes.addAll(other._deferredFixes);
+    }
+
+    /**
+     * Validate an element and its descendants in post-order, i.e. in the same order
+     * as a post-order {@link ObjectIterator}, using the compiled validator of the
+     * element's schema.
+     */
+    private void iterate(DataElement element)
+    {
+      DataSchema schema = element.getSchema();
+      if (schema != null)
+      {
+        compiledSchema(schema).validateTree(this, element, element.getValue());
       }
     }
 
     protected Object validate(DataElement element, DataSchema schema, Object object)
+    {
+      return validated(element, schema, object, validateType(element, schema, object));
+    }
+
+    /**
+     * Validate the value of an element against a compiled schema, without validating its descendants.
+     */
+    protected Object validate(DataElement element, CompiledSchema compiled, Object object)
+    {
+      return validated(element, compiled._schema, object, compiled.validateValue(this, element, object));
+    }
+
+    /**
+     * Apply the fix of an element and invoke the {@link Validator} after its value has been validated.
+     */
+    private Object validated(DataElement element, DataSchema schema, Object object, Object fixed)
+    {
+      if (fixed != object)
+      {
+        fixValue(element, fixed);
+      }
+      if (_validator != null && element.getSchema() == schema)
+      {
+        DataElement validatorElement;
+        if (fixed == object)
+        {
+          validatorElement = element;
+        }
+        else if (element instanceof MutableDataElement)
+        {
+          ((MutableDataElement) element).setValue(fixed);
+          validatorElement = element;
+        }
+        else
+        {
+           validatorElement = new SimpleDataElement(fixed, element.getName(), schema, element.getParent());
+        }
+        _context._dataElement = validatorElement;
+        _validator.validate(_context);
+      }
+      return fixed;
+    }
+
+    /**
+     * Validate the value of an element against a schema, without applying fixes.
+     *
+     * @return the fixed value, or the value if it has not been fixed.
+     */
+    protected Object validateType(DataElement element, DataSchema schema, Object object)
     {
       Object fixed;
       switch (schema.getType())
@@ -181,29 +843,6 @@ public final class ValidateDataAgainstSchema
           fixed = validatePrimitive(element, schema, object);
           break;
       }
-      if (fixed != object)
-      {
-        fixValue(element, fixed);
-      }
-      if (_validator != null && element.getSchema() == schema)
-      {
-        DataElement validatorElement;
-        if (fixed == object)
-        {
-          validatorElement = element;
-        }
-        else if (element instanceof MutableDataElement)
-        {
-          ((MutableDataElement) element).setValue(fixed);
-          validatorElement = element;
-        }
-        else
-        {
-           validatorElement = new SimpleDataElement(fixed, element.getName(), schema, element.getParent());
-        }
-        _context._dataElement = validatorElement;
-        _validator.validate(_context);
-      }
       return fixed;
     }
 
@@ -227,6 +866,10 @@ public final class ValidateDataAgainstSchema
             _hasFixupReadOnlyError = true;
             addMessage(element, "cannot be fixed because DataMap backing %1$s type is read-only", parentElement.getSchema().getUnionMemberKey());
           }
+          else if (parentElement == _deferredParent)
+          {
+            _deferredFixes.add(new SimpleDataElement(fixed, element.getName(), element.getSchema(), parentElement));
+          }
           else
           {
             map.put((String) element.getName(), fixed);
@@ -240,6 +883,10 @@ public final class ValidateDataAgainstSchema
             _hasFixupReadOnlyError = true;
             addMessage(element, "cannot be fixed because DataList backing an array type is read-only");
           }
+          else if (parentElement == _deferredParent)
+          {
+            _deferredFixes.add(new SimpleDataElement(fixed, element.getName(), element.getSchema(), parentElement));
+          }
           else
           {
             list.set((Integer) element.getName(), fixed);
@@ -279,64 +926,73 @@ public final class ValidateDataAgainstSchema
         {
           recurseRecord(element, schema, map);
         }
-        RequiredMode requiredMode = _options.getRequiredMode();
-        if (requiredMode != RequiredMode.IGNORE)
+        checkRequiredFields(element, schema.getFields(), map);
+      }
+      else
+      {
+        addMessage(element, "record type is not backed by a DataMap");
+      }
+      return object;
+    }
+
+    /**
+     * Check that the required fields among the specified fields of a record are present,
+     * applying the {@link RequiredMode} of the {@link ValidationOptions}.
+     */
+    protected void checkRequiredFields(DataElement element, List<RecordDataSchema.Field> fields, DataMap map)
+    {
+      RequiredMode requiredMode = _options.getRequiredMode();
+      if (requiredMode != RequiredMode.IGNORE)
+      {
+        for (RecordDataSchema.Field field : fields)
         {
-          for (RecordDataSchema.Field field : schema.getFields())
+          if (field.getOptional() == false && map.containsKey(field.getName()) == false)
           {
-            if (field.getOptional() == false && map.containsKey(field.getName()) == false)
+            switch (requiredMode)
             {
-              switch (requiredMode)
-              {
-                case MUST_BE_PRESENT:
+              case MUST_BE_PRESENT:
+                addIsRequiredMessage(
+                  element, field,
+                  "field is required but not found"
+                );
+                break;
+              case CAN_BE_ABSENT_IF_HAS_DEFAULT:
+                if (field.getDefault() == null)
+                {
                   addIsRequiredMessage(
                     element, field,
-                    "field is required but not found"
+                    "field is required but not found and has no default value"
                   );
-                  break;
-                case CAN_BE_ABSENT_IF_HAS_DEFAULT:
-                  if (field.getDefault() == null)
-                  {
-                    addIsRequiredMessage(
-                      element, field,
-                      "field is required but not found and has no default value"
-                    );
-                  }
-                  break;
-                case FIXUP_ABSENT_WITH_DEFAULT:
-                  Object defaultValue = field.getDefault();
-                  if (defaultValue == null)
-                  {
-                    addIsRequiredMessage(
-                      element, field,
-                      "field is required but not found and has no default value"
-                    );
-                  }
-                  else if (map.isReadOnly())
-                  {
-                    _hasFix = true;
-                    _hasFixupReadOnlyError = true;
-                    addIsRequiredMessage(
-                      element, field,
-                      "field is required and has default value but not found and cannot be fixed because DataMap of record is read-only"
-                    );
-                  }
-                  else
-                  {
-                    _hasFix = true;
-                    map.put(field.getName(), defaultValue);
-                  }
-                  break;
-              }
+                }
+                break;
+              case FIXUP_ABSENT_WITH_DEFAULT:
+                Object defaultValue = field.getDefault();
+                if (defaultValue == null)
+                {
+                  addIsRequiredMessage(
+                    element, field,
+                    "field is required but not found and has no default value"
+                  );
+                }
+                else if (map.isReadOnly())
+                {
+                  _hasFix = true;
+                  _hasFixupReadOnlyError = true;
+                  addIsRequiredMessage(
+                    element, field,
+                    "field is required and has default value but not found and cannot be fixed because DataMap of record is read-only"
+                  );
+                }
+                else
+                {
+                  _hasFix = true;
+                  map.put(field.getName(), defaultValue);
+                }
+                break;
             }
           }
         }
       }
-      else
-      {
-        addMessage(element, "record type is not backed by a DataMap");
-      }
-      return object;
     }
 
     protected Object validateUnion(DataElement element, UnionDataSchema schema, Object object)
@@ -662,6 +1318,8 @@ public final class ValidateDataAgainstSchema
     }
 
     private MessageList<Message> _messages = new MessageList<Message>();
+    private DataElement _deferredParent;
+    private List<DataElement> _deferredFixes;
 
     @Override
     public boolean hasFix()
@@ -0,0 +1,349 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.data.schema.validation;
+
+
+import com.linkedin.data.DataList;
+import com.linkedin.data.DataMap;
+import com.linkedin.data.codec.AbstractDataReader;
+import com.linkedin.data.codec.DataReader;
+import com.linkedin.data.message.Message;
+import com.linkedin.data.message.MessageList;
+import com.linkedin.data.schema.ArrayDataSchema;
+import com.linkedin.data.schema.DataSchema;
+import com.linkedin.data.schema.MapDataSchema;
+import com.linkedin.data.schema.RecordDataSchema;
+import com.linkedin.data.schema.UnionDataSchema;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+
+
+/**
+ * A {@link DataReader} that validates the events of another {@link DataReader}
+ * against a {@link DataSchema} while they are being read.
+ * <p>
+ *
+ * Events are passed through unchanged, except that values returned by {@link #getValue()}
+ * are coerced according to the {@link CoercionMode} of the {@link ValidationOptions}.
+ * The validation result is available through the {@link ValidationResult} methods
+ * of this reader, and is complete when the end of the input has been reached.
+ * <p>
+ *
+ * The validation is the same as {@link ValidateDataAgainstSchema}'s, with these differences.
+ * Absent required fields with default values are not fixed up, even if the {@link RequiredMode}
+ * is {@link RequiredMode#FIXUP_ABSENT_WITH_DEFAULT}, because the record has already been read.
+ * Avro union mode and custom {@link com.linkedin.data.schema.validator.Validator}s
+ * are not supported.
+ */
+public class ValidatingDataReader extends AbstractDataReader implements ValidationResult
+{
+  /**
+   * Construct a reader that validates the value read by another reader.
+   *
+   * @param reader provides the {@link DataReader} to validate.
+   * @param schema provides the {@link DataSchema} of the value read.
+   * @param options provides the {@link ValidationOptions}.
+   * @throws IllegalArgumentException if the options enable Avro union mode.
+   */
+  public ValidatingDataReader(DataReader reader, DataSchema schema, ValidationOptions options)
+  {
+    if (options.isAvroUnionMode())
+    {
+      throw new IllegalArgumentException("Avro union mode is not supported when validating a " + DataReader.class.getSimpleName());
+    }
+    _reader = reader;
+    _schema = schema;
+    _options = options;
+  }
+
+  @Override
+  public Event next() throws IOException
+  {
+    _event = _reader.next();
+    if (_event == null)
+    {
+      return null;
+    }
+    Frame frame;
+    switch (_event)
+    {
+      case KEY:
+        _key = _reader.getKey();
+        startEntry(_frames.peekLast(), _key);
+        break;
+      case START_MAP:
+      case START_LIST:
+        frame = _frames.peekLast();
+        Object[] path = childPath(frame);
+        DataSchema schema = childSchema(frame);
+        boolean isMap = (_event == Event.START_MAP);
+        _frames.addLast(new Frame(path, startComplex(path, schema, isMap), isMap == false));
+        break;
+      case END_MAP:
+        endMap(_frames.removeLast());
+        break;
+      case END_LIST:
+        _frames.removeLast();
+        break;
+      case VALUE:
+        frame = _frames.peekLast();
+        _value = validateValue(childPath(frame), childSchema(frame), _reader.getValue());
+        break;
+    }
+    return _event;
+  }
+
+  @Override
+  public void close() throws IOException
+  {
+    _reader.close();
+  }
+
+  @Override
+  public boolean hasFix()
+  {
+    return _hasFix;
+  }
+
+  @Override
+  public boolean hasFixupReadOnlyError()
+  {
+    return false;
+  }
+
+  /**
+   * @return null, fixes are applied to the values returned by {@link #getValue()}.
+   */
+  @Override
+  public Object getFixed()
+  {
+    return null;
+  }
+
+  @Override
+  public boolean isValid()
+  {
+    return _valid;
+  }
+
+  @Override
+  public Collection<Message> getMessages()
+  {
+    return Collections.unmodifiableList(_messages);
+  }
+
+  private DataSchema startComplex(Object[] path, DataSchema schema, boolean isMap)
+  {
+    if (schema == null)
+    {
+      return null;
+    }
+    DataSchema dereferencedSchema = schema.getDereferencedDataSchema();
+    DataSchema.Type type = dereferencedSchema.getType();
+    if (isMap ? (type == DataSchema.Type.RECORD || type == DataSchema.Type.MAP || type == DataSchema.Type.UNION) :
+                type == DataSchema.Type.ARRAY)
+    {
+      return dereferencedSchema;
+    }
+    // the complex value does not match the schema, use an empty placeholder to obtain the same messages
+    validateValue(path, schema, isMap ? new DataMap() : new DataList());
+    return null;
+  }
+
+  private void startEntry(Frame frame, String key)
+  {
+    DataSchema schema = frame._schema;
+    frame._childName = key;
+    frame._childSchema = null;
+    if (schema == null)
+    {
+      return;
+    }
+    switch (schema.getType())
+    {
+      case RECORD:
+        RecordDataSchema.Field field = ((RecordDataSchema) schema).getField(key);
+        if (field != null)
+        {
+          frame._childSchema = field.getType();
+        }
+        if (frame._keys != null)
+        {
+          frame._keys.add(key);
+        }
+        break;
+      case MAP:
+        frame._childSchema = ((MapDataSchema) schema).getValues();
+        break;
+      case UNION:
+        frame._count++;
+        if (frame._count == 2)
+        {
+          addMessage(frame._path, "DataMap should have only one entry for a union type");
+        }
+        frame._childSchema = ((UnionDataSchema) schema).getType(key);
+        if (frame._childSchema == null)
+        {
+          addMessage(frame._path, "\"%1$s\" is not a member type of union %2$s", key, schema);
+        }
+        break;
+      default:
+        break;
+    }
+  }
+
+  private void endMap(Frame frame)
+  {
+    DataSchema schema = frame._schema;
+    if (schema == null)
+    {
+      return;
+    }
+    if (schema.getType() == DataSchema.Type.UNION && frame._count == 0)
+    {
+      addMessage(frame._path, "DataMap should have only one entry for a union type");
+    }
+    else if (schema.getType() == DataSchema.Type.RECORD && frame._keys != null)
+    {
+      for (RecordDataSchema.Field field : ((RecordDataSchema) schema).getFields())
+      {
+        if (field.getOptional() == false && frame._keys.contains(field.getName()) == false)
+        {
+          if (_options.getRequiredMode() == RequiredMode.MUST_BE_PRESENT)
+          {
+            addMessage(append(frame._path, field.getName()), "field is required but not found");
+          }
+          else if (field.getDefault() == null)
+          {
+            addMessage(append(frame._path, field.getName()), "field is required but not found and has no default value");
+          }
+        }
+      }
+    }
+  }
+
+  private Object validateValue(Object[] path, DataSchema schema, Object value)
+  {
+    if (schema == null)
+    {
+      return value;
+    }
+    DataSchema dereferencedSchema = schema.getDereferencedDataSchema();
+    if (dereferencedSchema.isPrimitive() && value.getClass() == ValidateDataAgainstSchema._primitiveTypeToClassMap.get(dereferencedSchema.getType()))
+    {
+      return value;
+    }
+    ValidationResult result = ValidateDataAgainstSchema.validate(value, schema, _options);
+    for (Message message : result.getMessages())
+    {
+      _messages.add(new Message(append(path, message.getPath()), message.isError(), message.getFormat(), message.getArgs()));
+    }
+    if (result.isValid() == false)
+    {
+      _valid = false;
+    }
+    if (result.hasFix())
+    {
+      _hasFix = true;
+      return result.getFixed();
+    }
+    return value;
+  }
+
+  private Object[] childPath(Frame frame)
+  {
+    if (frame == null)
+    {
+      return EMPTY_PATH;
+    }
+    else if (frame._isList)
+    {
+      return append(frame._path, frame._count);
+    }
+    else
+    {
+      return append(frame._path, frame._childName);
+    }
+  }
+
+  private DataSchema childSchema(Frame frame)
+  {
+    if (frame == null)
+    {
+      return _schema;
+    }
+    else if (frame._isList)
+    {
+      frame._count++;
+      return (frame._schema == null ? null : ((ArrayDataSchema) frame._schema).getItems());
+    }
+    else
+    {
+      return frame._childSchema;
+    }
+  }
+
+  private void addMessage(Object[] path, String format, Object... args)
+  {
+    _messages.add(new Message(path, format, args));
+    _valid = false;
+  }
+
+  private static Object[] append(Object[] path, Object... names)
+  {
+    Object[] result = new Object[path.length + names.length];
+    System.arraycopy(path, 0, result, 0, path.length);
+    System.arraycopy(names, 0, result, path.length, names.length);
+    return result;
+  }
+
+  private class Frame
+  {
+    private Frame(Object[] path, DataSchema schema, boolean isList)
+    {
+      _path = path;
+      _schema = schema;
+      _isList = isList;
+      _keys = (schema != null && schema.getType() == DataSchema.Type.RECORD && _options.getRequiredMode() != RequiredMode.IGNORE) ?
+        new HashSet<String>() :
+        null;
+    }
+
+    private final Object[] _path;
+    private final DataSchema _schema;
+    private final boolean _isList;
+    private final Set<String> _keys;
+    private int _count;
+    private String _childName;
+    private DataSchema _childSchema;
+  }
+
+  private static final Object[] EMPTY_PATH = new Object[0];
+
+  private final DataReader _reader;
+  private final DataSchema _schema;
+  private final ValidationOptions _options;
+  private final Deque<Frame> _frames = new ArrayDeque<Frame>();
+  private final MessageList<Message> _messages = new MessageList<Message>();
+  private boolean _hasFix = false;
+  private boolean _valid = true;
+}
@@ -198,6 +198,7 @@ public class DataSchemaAnnotationValidator implements Validator
   private DataSchema _schema = DataSchemaConstants.NULL_DATA_SCHEMA;
   private Map<String, Class<? extends Validator>> _classMap = Collections.emptyMap();
   private Map<Object, List<Validator>> _cache = Collections.emptyMap();
+  private Map<DataSchema, List<Validator>> _schemaValidators = Collections.emptyMap();
   private MessageList<Message> _initMessages = new MessageList<Message>();
 
   private static final List<Validator> NO_VALIDATORS = Collections.emptyList();
@@ -274,6 +275,7 @@ public class DataSchemaAnnotationValidator implements Validator
     _schema = schema;
     _classMap = classMap;
     _cache = cacheValidators(_schema);
+    _schemaValidators = flattenSchemaValidators(_cache);
     return isInitOk();
   }
 
@@ -374,6 +376,60 @@ public class DataSchemaAnnotationValidator implements Validator
     return map;
   }
 
+  /**
+   * Build a map of the {@link Validator}s to invoke for each cached schema, in invocation order,
+   * so that typeref chains do not have to be followed for each validated value.
+   *
+   * @param cache provides the {@link Validator}s declared for each schema and field.
+   * @return the map of the {@link Validator}s to invoke for each schema.
+   */
+  private static IdentityHashMap<DataSchema, List<Validator>> flattenSchemaValidators(Map<Object, List<Validator>> cache)
+  {
+    IdentityHashMap<DataSchema, List<Validator>> map = new IdentityHashMap<DataSchema, List<Validator>>();
+    for (Object key : cache.keySet())
+    {
+      if (key instanceof DataSchema)
+      {
+        List<Validator> validatorList = flattenSchemaValidators(cache, (DataSchema) key);
+        if (validatorList != null)
+        {
+          map.put((DataSchema) key, validatorList);
+        }
+      }
+    }
+    return map;
+  }
+
+  /**
+   * @return the {@link Validator}s to invoke for the schema, or null if a schema of its
+   *         typeref chain is not cached.
+   */
+  private static List<Validator> flattenSchemaValidators(Map<Object, List<Validator>> cache, DataSchema schema)
+  {
+    List<Validator> validatorList = cache.get(schema);
+    if (validatorList == null || schema.getType() != DataSchema.Type.TYPEREF)
+    {
+      return validatorList;
+    }
+    List<Validator> refValidatorList = flattenSchemaValidators(cache, ((TyperefDataSchema) schema).getRef());
+    if (refValidatorList == null)
+    {
+      return null;
+    }
+    if (refValidatorList == NO_VALIDATORS)
+    {
+      return validatorList;
+    }
+    if (validatorList == NO_VALIDATORS)
+    {
+      return refValidatorList;
+    }
+    List<Validator> flattened = new ArrayList<Validator>(refValidatorList.size() + validatorList.size());
+    flattened.addAll(refValidatorList);
+    flattened.addAll(validatorList);
+    return flattened;
+  }
+
   /**
    * Build list of {@link Validator} instances for a given "validate" property.
    *
@@ -573,7 +629,15 @@ public class DataSchemaAnnotationValidator implements Validator
                                 "validation skipped, %1$s have not been initialized for use by %2$s",
                                 key, getClass().getSimpleName()));
     }
-    else if (validatorList != NO_VALIDATORS)
+    else
+    {
+      invokeValidatorList(ctx, validatorList);
+    }
+  }
+
+  private void invokeValidatorList(ValidatorContext ctx, List<Validator> validatorList)
+  {
+    if (validatorList != NO_VALIDATORS)
     {
       for (Validator validator : validatorList)
       {
@@ -607,7 +671,15 @@ public class DataSchemaAnnotationValidator implements Validator
     DataSchema schema = element.getSchema();
     if (schema != null)
     {
-      validateSchema(context, schema);
+      List<Validator> validatorList = _schemaValidators.get(schema);
+      if (validatorList != null)
+      {
+        invokeValidatorList(context, validatorList);
+      }
+      else
+      {
+        validateSchema(context, schema);
+      }
     }
     DataElement parentElement = element.getParent();
     if (parentElement != null)
@@ -30,12 +30,16 @@ import java.io.ByteArrayInputStream;
 import java.io.FileDescriptor;
 import java.io.FileOutputStream;
 import java.io.PrintStream;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.util.Collections;
 import java.util.IdentityHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class DataTemplateUtil
 {
@@ -64,35 +68,26 @@ public class DataTemplateUtil
   public static <T extends DataTemplate<?>> Constructor<T> templateConstructor(Class<T> templateClass)
       throws TemplateOutputCastException
   {
-    try
+    Class<?> dataClass;
+    if (RecordTemplate.class.isAssignableFrom(templateClass) ||
+        AbstractMapTemplate.class.isAssignableFrom(templateClass))
     {
-      if (RecordTemplate.class.isAssignableFrom(templateClass) ||
-          AbstractMapTemplate.class.isAssignableFrom(templateClass))
-      {
-        return templateClass.getConstructor(DataMap.class);
-      }
-      else if (AbstractArrayTemplate.class.isAssignableFrom(templateClass))
-      {
-        return templateClass.getConstructor(DataList.class);
-      }
-      else if (FixedTemplate.class.isAssignableFrom(templateClass) ||
-               UnionTemplate.class.isAssignableFrom(templateClass))
-      {
-        return templateClass.getConstructor(Object.class);
-      }
-      else
-      {
-        throw new TemplateOutputCastException("No DataTemplate for " + templateClass.getName());
-      }
+      dataClass = DataMap.class;
     }
-    catch (SecurityException e)
+    else if (AbstractArrayTemplate.class.isAssignableFrom(templateClass))
     {
-      throw new TemplateOutputCastException(templateClass.getName() + " get constructor failed", e);
+      dataClass = DataList.class;
     }
-    catch (NoSuchMethodException e)
+    else if (FixedTemplate.class.isAssignableFrom(templateClass) ||
+             UnionTemplate.class.isAssignableFrom(templateClass))
     {
-      throw new TemplateOutputCastException(templateClass.getName() + " does not have required constructor", e);
+      dataClass = Object.class;
+    }
+    else
+    {
+      throw new TemplateOutputCastException("No DataTemplate for " + templateClass.getName());
     }
+    return templateConstructor(templateClass, dataClass);
   }
 
   /**
@@ -156,21 +151,62 @@ public class DataTemplateUtil
   public static <T extends DataTemplate<?>> Constructor<T> templateConstructor(Class<T> templateClass, DataSchema schema)
       throws TemplateOutputCastException
   {
+    Class<?> dataClass;
+    switch (schema.getDereferencedType())
+    {
+      case MAP:
+      case RECORD:
+        dataClass = DataMap.class;
+        break;
+      case ARRAY:
+        dataClass = DataList.class;
+        break;
+      case FIXED:
+      case UNION:
+        dataClass = Object.class;
+        break;
+      default:
+        throw new TemplateOutputCastException("No DataTemplate for " + templateClass.getName());
+    }
+    return templateConstructor(templateClass, dataClass);
+  }
+
+  /**
+   * Get the constructor of the provided {@link DataTemplate} class that takes the provided Data class.
+   *
+   * Constructors are looked up once per {@link DataTemplate} class and then served
+   * from a concurrent cache, so that wrapping does not look up constructors reflectively
+   * nor acquire locks. The cache only holds weak references to {@link DataTemplate} classes
+   * and their constructors, so that it does not keep their class loaders from being unloaded.
+   * A constructor that has been garbage collected is looked up again.
+   *
+   * @param templateClass provides the concrete {@link DataTemplate} class to look for the constructor.
+   * @param dataClass provides the class of the constructor's only parameter.
+   * @param <T> provides the concrete {@link DataTemplate} type.
+   * @return a {@link Constructor} that can be used to construct instances of the provided {@link DataTemplate} class.
+   * @throws TemplateOutputCastException if a constructor with the appropriate method signature cannot be obtained.
+   */
+  @SuppressWarnings("unchecked")
+  private static <T extends DataTemplate<?>> Constructor<T> templateConstructor(Class<T> templateClass, Class<?> dataClass)
+      throws TemplateOutputCastException
+  {
+    TemplateConstructor cached = _classToTemplateConstructorMap.get(new TemplateClassKey(templateClass, null));
+    Constructor<?> cachedConstructor;
+    if (cached != null && cached._dataClass == dataClass && (cachedConstructor = cached.get()) != null)
+    {
+      return (Constructor<T>) cachedConstructor;
+    }
     try
     {
-      switch (schema.getDereferencedType())
+      Constructor<T> constructor = templateClass.getConstructor(dataClass);
+      Reference<?> unloaded;
+      while ((unloaded = _unloadedTemplateClasses.poll()) != null)
       {
-        case MAP:
-        case RECORD:
-          return templateClass.getConstructor(DataMap.class);
-        case ARRAY:
-          return templateClass.getConstructor(DataList.class);
-        case FIXED:
-        case UNION:
-          return templateClass.getConstructor(Object.class);
-        default:
-          throw new TemplateOutputCastException("No DataTemplate for " + templateClass.getName());
+        _classToTemplateConstructorMap.remove(unloaded);
       }
+      _classToTemplateConstructorMap.put(new TemplateClassKey(templateClass, _unloadedTemplateClasses),
+                                         new TemplateConstructor(dataClass, constructor));
+      return constructor;
     }
     catch (SecurityException e)
     {
@@ -262,6 +298,29 @@ public class DataTemplateUtil
     }
   }
 
+  /**
+   * Cast a Data object to the Data class expected by the constructor of a {@link DataTemplate}.
+   *
+   * This method is used by generated {@link DataTemplate} classes that invoke the constructors
+   * of the {@link DataTemplate} classes of their fields directly instead of obtaining them
+   * from {@link #templateConstructor(Class, DataSchema)}.
+   *
+   * @param object provides the Data object to cast.
+   * @param dataClass provides the Data class expected by the constructor, e.g. {@link DataMap} or {@link DataList}.
+   * @param <T> provides the Data type.
+   * @return the provided object cast to the Data class.
+   * @throws TemplateOutputCastException if the provided object is not an instance of the Data class.
+   */
+  public static <T> T castOrThrow(Object object, Class<T> dataClass)
+    throws TemplateOutputCastException
+  {
+    if (dataClass.isInstance(object) == false)
+    {
+      throw new TemplateOutputCastException("Cannot create wrapper for " + object + ", it is not a " + dataClass.getName());
+    }
+    return dataClass.cast(object);
+  }
+
   /**
    * Parse data schema in JSON format to obtain a {@link DataSchema}.
    *
@@ -553,8 +612,66 @@ public class DataTemplateUtil
     }
   }
 
+  /*
+   * Weak key of a DataTemplate class, compared by the identity of the class.
+   */
+  private static class TemplateClassKey extends WeakReference<Class<?>>
+  {
+    private TemplateClassKey(Class<?> templateClass, ReferenceQueue<Class<?>> queue)
+    {
+      super(templateClass, queue);
+      _hash = System.identityHashCode(templateClass);
+    }
+
+    @Override
+    public int hashCode()
+    {
+      return _hash;
+    }
+
+    @Override
+    public boolean equals(Object other)
+    {
+      if (this == other)
+      {
+        return true;
+      }
+      if (other instanceof TemplateClassKey)
+      {
+        Class<?> templateClass = get();
+        return templateClass != null && templateClass == ((TemplateClassKey) other).get();
+      }
+      return false;
+    }
+
+    private final int _hash;
+  }
+
+  /*
+   * Weak reference to the constructor of a DataTemplate class, the constructor
+   * references its class and would otherwise keep the weak key reachable.
+   */
+  private static class TemplateConstructor extends WeakReference<Constructor<?>>
+  {
+    private TemplateConstructor(Class<?> dataClass, Constructor<?> constructor)
+    {
+      super(constructor);
+      _dataClass = dataClass;
+    }
+
+    private final Class<?> _dataClass;
+  }
+
+  private static final ConcurrentHashMap<TemplateClassKey, TemplateConstructor> _classToTemplateConstructorMap =
+    new ConcurrentHashMap<TemplateClassKey, TemplateConstructor>();
+  private static final ReferenceQueue<Class<?>> _unloadedTemplateClasses = new ReferenceQueue<Class<?>>();
+
+  /*
+   * Coercers are looked up without locking from an immutable snapshot,
+   * registration replaces the snapshot while holding the mutex.
+   */
   private static final Object _classToCoercerMutex = new Object();
-  private static Map<Class<?>, DirectCoercer<?>> _classToCoercerMap;
+  private static volatile Map<Class<?>, DirectCoercer<?>> _classToCoercerMap;
   private static final DirectCoercer<Integer> INTEGER_COERCER = new IntegerCoercer();
   private static final DirectCoercer<Long> LONG_COERCER = new LongCoercer();
   private static final DirectCoercer<Float> FLOAT_COERCER = new FloatCoercer();
@@ -17,6 +17,7 @@
 package com.linkedin.data.template;
 
 import com.linkedin.data.DataList;
+import com.linkedin.data.collections.PrimitiveList;
 import com.linkedin.data.schema.ArrayDataSchema;
 import java.util.Collection;
 
@@ -44,11 +45,57 @@ public final class DoubleArray extends DirectArrayTemplate<Double>
     addAll(c);
   }
 
+  public DoubleArray(double[] values)
+  {
+    this(new DataList(new PrimitiveList.DoubleList(values)));
+  }
+
   public DoubleArray(DataList list)
   {
     super(list, SCHEMA, Double.class, Double.class);
   }
 
+  /**
+   * Returns the element at the specified position without boxing it
+   * if the underlying {@link DataList} stores its elements unboxed.
+   *
+   * @param index of the element to return.
+   * @return the element at the specified position.
+   * @throws TemplateOutputCastException if the element is not a number.
+   */
+  public double getDouble(int index) throws TemplateOutputCastException
+  {
+    try
+    {
+      return _list.getDouble(index);
+    }
+    catch (ClassCastException exc)
+    {
+      throw new TemplateOutputCastException("Output " + _list.get(index) + " is not a Number or a " + Double.class.getName(), exc);
+    }
+  }
+
+  /**
+   * Replaces the element at the specified position.
+   *
+   * @param index of the element to replace.
+   * @param value to be stored at the specified position.
+   */
+  public void setDouble(int index, double value)
+  {
+    _list.setDouble(index, value);
+  }
+
+  /**
+   * Appends a double to the array.
+   *
+   * @param value to be appended.
+   */
+  public void addDouble(double value)
+  {
+    _list.addDouble(value);
+  }
+
   @Override
   public DoubleArray clone() throws CloneNotSupportedException
   {
@@ -79,11 +79,15 @@ public class DynamicRecordTemplate extends RecordTemplate
   /**
    * Construct a new {@link DynamicRecordTemplate}
    *
+   * The data is backed by the compact field layout of the schema, so the fields
+   * are iterated and serialized in the order they are defined in the schema,
+   * regardless of the order they are set in.
+   *
    * @param schema the schema for the {@link DynamicRecordTemplate}.
    */
   public DynamicRecordTemplate(RecordDataSchema schema)
   {
-    super(new DataMap(), schema);
+    super(new DataMap(schema.getFieldLayout()), schema);
   }
 
   /**
@@ -17,6 +17,7 @@
 package com.linkedin.data.template;
 
 import com.linkedin.data.DataList;
+import com.linkedin.data.collections.PrimitiveList;
 import com.linkedin.data.schema.ArrayDataSchema;
 import java.util.Collection;
 
@@ -44,11 +45,57 @@ public final class FloatArray extends DirectArrayTemplate<Float>
     addAll(c);
   }
 
+  public FloatArray(float[] values)
+  {
+    this(new DataList(new PrimitiveList.FloatList(values)));
+  }
+
   public FloatArray(DataList list)
   {
     super(list, SCHEMA, Float.class, Float.class);
   }
 
+  /**
+   * Returns the element at the specified position without boxing it
+   * if the underlying {@link DataList} stores its elements unboxed.
+   *
+   * @param index of the element to return.
+   * @return the element at the specified position.
+   * @throws TemplateOutputCastException if the element is not a number.
+   */
+  public float getFloat(int index) throws TemplateOutputCastException
+  {
+    try
+    {
+      return _list.getFloat(index);
+    }
+    catch (ClassCastException exc)
+    {
+      throw new TemplateOutputCastException("Output " + _list.get(index) + " is not a Number or a " + Float.class.getName(), exc);
+    }
+  }
+
+  /**
+   * Replaces the element at the specified position.
+   *
+   * @param index of the element to replace.
+   * @param value to be stored at the specified position.
+   */
+  public void setFloat(int index, float value)
+  {
+    _list.setFloat(index, value);
+  }
+
+  /**
+   * Appends a float to the array.
+   *
+   * @param value to be appended.
+   */
+  public void addFloat(float value)
+  {
+    _list.addFloat(value);
+  }
+
   @Override
   public FloatArray clone() throws CloneNotSupportedException
   {
@@ -17,6 +17,7 @@
 package com.linkedin.data.template;
 
 import com.linkedin.data.DataList;
+import com.linkedin.data.collections.PrimitiveList;
 import com.linkedin.data.schema.ArrayDataSchema;
 import java.util.Collection;
 
@@ -44,11 +45,57 @@ public final class IntegerArray extends DirectArrayTemplate<Integer>
     addAll(c);
   }
 
+  public IntegerArray(int[] values)
+  {
+    this(new DataList(new PrimitiveList.IntegerList(values)));
+  }
+
   public IntegerArray(DataList list)
   {
     super(list, SCHEMA, Integer.class, Integer.class);
   }
 
+  /**
+   * Returns the element at the specified position without boxing it
+   * if the underlying {@link DataList} stores its elements unboxed.
+   *
+   * @param index of the element to return.
+   * @return the element at the specified position.
+   * @throws TemplateOutputCastException if the element is not a number.
+   */
+  public int getInt(int index) throws TemplateOutputCastException
+  {
+    try
+    {
+      return _list.getInt(index);
+    }
+    catch (ClassCastException exc)
+    {
+      throw new TemplateOutputCastException("Output " + _list.get(index) + " is not a Number or a " + Integer.class.getName(), exc);
+    }
+  }
+
+  /**
+   * Replaces the element at the specified position.
+   *
+   * @param index of the element to replace.
+   * @param value to be stored at the specified position.
+   */
+  public void setInt(int index, int value)
+  {
+    _list.setInt(index, value);
+  }
+
+  /**
+   * Appends an int to the array.
+   *
+   * @param value to be appended.
+   */
+  public void addInt(int value)
+  {
+    _list.addInt(value);
+  }
+
   @Override
   public IntegerArray clone() throws CloneNotSupportedException
   {
@@ -35,6 +35,7 @@ import java.io.StringWriter;
 import java.io.Writer;
 import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
@@ -50,8 +51,7 @@ public class JacksonDataTemplateCodec extends JacksonDataCodec
   {
     if (order)
     {
-      JsonTraverseCallback callback = new SchemaOrderTraverseCallback(schema, generator);
-      Data.traverse(data, callback);
+      writeOrdered(data, schema, generator);
       generator.flush();
       generator.close();
     }
@@ -138,6 +138,157 @@ public class JacksonDataTemplateCodec extends JacksonDataCodec
     return objectToString(template.data());
   }
 
+  /**
+   * Write a Data object with record fields in the order the fields are defined by the
+   * {@link RecordDataSchema} and each map sorted by the map's keys.
+   *
+   * The output is the same as traversing the Data object with a {@link SchemaOrderTraverseCallback}.
+   * The Data object is written directly while walking the schema, without the callback dispatch,
+   * the schema stack and the ordered entry lists of the traversal.
+   *
+   * @param data provides the Data object to write.
+   * @param schema provides the {@link DataSchema} of the Data object, may be null.
+   * @param generator provides the {@link JsonGenerator} that generates the JSON output.
+   * @throws IOException if the Data object cannot be written.
+   */
+  private static void writeOrdered(Object data, DataSchema schema, JsonGenerator generator) throws IOException
+  {
+    if (data == null || data == Data.NULL)
+    {
+      generator.writeNull();
+      return;
+    }
+
+    Class<?> clas = data.getClass();
+    if (clas == String.class)
+    {
+      generator.writeString((String) data);
+    }
+    else if (clas == Integer.class)
+    {
+      generator.writeNumber((Integer) data);
+    }
+    else if (clas == DataMap.class)
+    {
+      writeOrderedMap((DataMap) data, schema, generator);
+    }
+    else if (clas == DataList.class)
+    {
+      writeOrderedList((DataList) data, schema, generator);
+    }
+    else if (clas == Boolean.class)
+    {
+      generator.writeBoolean((Boolean) data);
+    }
+    else if (clas == Long.class)
+    {
+      generator.writeNumber((Long) data);
+    }
+    else if (clas == Float.class)
+    {
+      generator.writeNumber((Float) data);
+    }
+    else if (clas == Double.class)
+    {
+      generator.writeNumber((Double) data);
+    }
+    else if (clas == ByteString.class)
+    {
+      generator.writeString(((ByteString) data).asAvroString());
+    }
+    else
+    {
+      throw new DataEncodingException("Illegal value encountered: " + data);
+    }
+  }
+
+  private static void writeOrderedMap(DataMap map, DataSchema schema, JsonGenerator generator) throws IOException
+  {
+    generator.writeStartObject();
+    if (map.isEmpty() == false)
+    {
+      if (schema != null && schema.getType() == DataSchema.Type.RECORD)
+      {
+        RecordDataSchema recordSchema = (RecordDataSchema) schema;
+        // write fields in the record schema in the order the fields are declared
+        int written = 0;
+        for (RecordDataSchema.Field field : recordSchema.getFields())
+        {
+          String fieldName = field.getName();
+          Object found = map.get(fieldName);
+          if (found != null)
+          {
+            generator.writeFieldName(fieldName);
+            writeOrdered(found, field.getType(), generator);
+            written++;
+          }
+        }
+        // write fields that are in the DataMap that is not in the record schema.
+        if (written < map.size())
+        {
+          writeSortedEntries(map, recordSchema, generator);
+        }
+      }
+      else
+      {
+        writeSortedEntries(map, schema, generator);
+      }
+    }
+    generator.writeEndObject();
+  }
+
+  private static void writeSortedEntries(DataMap map, DataSchema schema, JsonGenerator generator) throws IOException
+  {
+    RecordDataSchema recordSchema =
+      (schema != null && schema.getType() == DataSchema.Type.RECORD) ? (RecordDataSchema) schema : null;
+    String[] keys = new String[map.size()];
+    int count = 0;
+    for (String key : map.keySet())
+    {
+      if (recordSchema == null || recordSchema.contains(key) == false)
+      {
+        keys[count++] = key;
+      }
+    }
+    Arrays.sort(keys, 0, count);
+    for (int i = 0; i < count; i++)
+    {
+      String key = keys[i];
+      DataSchema valueSchema = null;
+      if (schema != null)
+      {
+        switch (schema.getType())
+        {
+          case UNION:
+            valueSchema = ((UnionDataSchema) schema).getType(key);
+            break;
+          case MAP:
+            valueSchema = ((MapDataSchema) schema).getValues();
+            break;
+          default:
+            break;
+        }
+      }
+      generator.writeFieldName(key);
+      writeOrdered(map.get(key), valueSchema, generator);
+    }
+  }
+
+  private static void writeOrderedList(DataList list, DataSchema schema, JsonGenerator generator) throws IOException
+  {
+    DataSchema itemSchema = null;
+    if (schema != null && schema.getType() == DataSchema.Type.ARRAY)
+    {
+      itemSchema = ((ArrayDataSchema) schema).getItems();
+    }
+    generator.writeStartArray();
+    for (Object item : list)
+    {
+      writeOrdered(item, itemSchema, generator);
+    }
+    generator.writeEndArray();
+  }
+
   /**
    * A {@link com.linkedin.data.Data.TraverseCallback} that output record fields in the
    * order the fields are defined by the {@link RecordDataSchema} and
@@ -17,6 +17,7 @@
 package com.linkedin.data.template;
 
 import com.linkedin.data.DataList;
+import com.linkedin.data.collections.PrimitiveList;
 import com.linkedin.data.schema.ArrayDataSchema;
 import java.util.Collection;
 
@@ -44,11 +45,57 @@ public final class LongArray extends DirectArrayTemplate<Long>
     addAll(c);
   }
 
+  public LongArray(long[] values)
+  {
+    this(new DataList(new PrimitiveList.LongList(values)));
+  }
+
   public LongArray(DataList list)
   {
     super(list, SCHEMA, Long.class, Long.class);
   }
 
+  /**
+   * Returns the element at the specified position without boxing it
+   * if the underlying {@link DataList} stores its elements unboxed.
+   *
+   * @param index of the element to return.
+   * @return the element at the specified position.
+   * @throws TemplateOutputCastException if the element is not a number.
+   */
+  public long getLong(int index) throws TemplateOutputCastException
+  {
+    try
+    {
+      return _list.getLong(index);
+    }
+    catch (ClassCastException exc)
+    {
+      throw new TemplateOutputCastException("Output " + _list.get(index) + " is not a Number or a " + Long.class.getName(), exc);
+    }
+  }
+
+  /**
+   * Replaces the element at the specified position.
+   *
+   * @param index of the element to replace.
+   * @param value to be stored at the specified position.
+   */
+  public void setLong(int index, long value)
+  {
+    _list.setLong(index, value);
+  }
+
+  /**
+   * Appends a long to the array.
+   *
+   * @param value to be appended.
+   */
+  public void addLong(long value)
+  {
+    _list.addLong(value);
+  }
+
   @Override
   public LongArray clone() throws CloneNotSupportedException
   {
@@ -68,7 +68,10 @@ public abstract class RecordTemplate implements DataTemplate<DataMap>
   {
     RecordTemplate clone = (RecordTemplate) super.clone();
     clone._map = clone._map.clone();
-    clone._cache = (IdentityHashMap<Object, DataTemplate<?>>) clone._cache.clone();
+    if (_cache != null)
+    {
+      clone._cache = (IdentityHashMap<Object, DataTemplate<?>>) _cache.clone();
+    }
     return clone;
   }
 
@@ -89,7 +92,7 @@ public abstract class RecordTemplate implements DataTemplate<DataMap>
   {
     RecordTemplate copy = (RecordTemplate) super.clone();
     copy._map = _map.copy();
-    copy._cache = new IdentityHashMap<Object, DataTemplate<?>>();
+    copy._cache = null;
     return copy;
   }
 
@@ -236,18 +239,47 @@ public abstract class RecordTemplate implements DataTemplate<DataMap>
   protected <T extends DataTemplate<?>> void putWrapped(RecordDataSchema.Field field, Class<T> valueClass, T object, SetMode mode)
       throws ClassCastException
   {
-    if (checkPutNullValue(field, object, mode))
+    if (putWrappedData(field, valueClass, object, mode))
+    {
+      cache().put(object.data(), object);
+    }
+  }
+
+  /**
+   * Set the Data object of the value of field without retaining the value.
+   *
+   * This is wrapping method. The value is a {@link DataTemplate}.
+   * It is used by generated templates that hold the values of their wrapped fields
+   * in typed fields instead of the cache used by
+   * {@link #obtainWrapped(com.linkedin.data.schema.RecordDataSchema.Field, Class, GetMode)}.
+   *
+   * @param field provides the field to set.
+   * @param valueClass provides the expected class of the input value.
+   * @param object provides the value to set.
+   * @param mode determines how should happen if the value provided is null.
+   * @param <T> is the type of the input object.
+   * @return true if the Data object of the value has been set.
+   * @throws ClassCastException if class of the provided value is not the same as the expected class.
+   * @throws NullPointerException if null is not allowed, see {@link SetMode#DISALLOW_NULL}.
+   * @throws IllegalArgumentException if attempting to remove a mandatory field by setting it to null,
+   *                                  see {@link SetMode#REMOVE_OPTIONAL_IF_NULL}.
+   */
+  protected <T extends DataTemplate<?>> boolean putWrappedData(RecordDataSchema.Field field, Class<T> valueClass, T object, SetMode mode)
+      throws ClassCastException
+  {
+    boolean doPut = checkPutNullValue(field, object, mode);
+    if (doPut)
     {
       if (object.getClass() == valueClass)
       {
         _map.put(field.getName(), object.data());
-        _cache.put(object.data(), object);
       }
       else
       {
         throw new ClassCastException("Input " + object + " should be a " + valueClass.getName());
       }
     }
+    return doPut;
   }
 
   /**
@@ -318,14 +350,14 @@ public abstract class RecordTemplate implements DataTemplate<DataMap>
     {
       wrapped = null;
     }
-    else if ((template = _cache.get(found)) != null && template.data() == found)
+    else if (_cache != null && (template = _cache.get(found)) != null && template.data() == found)
     {
       wrapped = valueClass.cast(template);
     }
     else
     {
       wrapped = DataTemplateUtil.wrap(found, field.getType(), valueClass);
-      _cache.put(found, wrapped);
+      cache().put(found, wrapped);
     }
     return wrapped;
   }
@@ -346,7 +378,7 @@ public abstract class RecordTemplate implements DataTemplate<DataMap>
    *                                          and is not optional,
    *                                          and mode is STRICT.
    */
-  private Object obtainValueOrDefault(RecordDataSchema.Field field, GetMode mode)
+  protected Object obtainValueOrDefault(RecordDataSchema.Field field, GetMode mode)
       throws RequiredFieldNotPresentException
   {
     Object defaultValue = field.getDefault();
@@ -367,6 +399,23 @@ public abstract class RecordTemplate implements DataTemplate<DataMap>
     return found;
   }
 
+  /**
+   * Return the cache of wrapped field values, allocating it on first use.
+   *
+   * Generated templates hold the values of their wrapped fields in typed fields,
+   * the cache is only allocated when the wrapping methods are used.
+   *
+   * @return the cache of wrapped field values keyed by their Data objects.
+   */
+  private IdentityHashMap<Object, DataTemplate<?>> cache()
+  {
+    if (_cache == null)
+    {
+      _cache = new IdentityHashMap<Object, DataTemplate<?>>();
+    }
+    return _cache;
+  }
+
   /**
    * Check if the provided value is null, and handle the null value according to {@link SetMode}.
    *
@@ -418,5 +467,5 @@ public abstract class RecordTemplate implements DataTemplate<DataMap>
 
   private DataMap _map;
   private final RecordDataSchema _schema;
-  private IdentityHashMap<Object, DataTemplate<?>> _cache = new IdentityHashMap<Object, DataTemplate<?>>();
+  private IdentityHashMap<Object, DataTemplate<?>> _cache;
 }
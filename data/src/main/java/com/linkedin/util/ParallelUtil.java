@@ -0,0 +1,146 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.util;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+
+/**
+ * Utility to process the elements of a large list in chunks, concurrently.
+ */
+public final class ParallelUtil
+{
+  private ParallelUtil()
+  {
+  }
+
+  /**
+   * Processes a chunk of elements.
+   *
+   * @param <E> is the type of the elements.
+   * @param <R> is the type of the result of processing a chunk.
+   */
+  public interface ChunkProcessor<E, R>
+  {
+    /**
+     * @param chunk provides the elements to process.
+     * @return the result of processing the elements.
+     */
+    R process(List<E> chunk);
+  }
+
+  /**
+   * Split a list of elements into chunks of {@code chunkSize} elements and process the chunks
+   * concurrently.
+   * <p>
+   *
+   * Each chunk except the first is processed by a task executed by the {@link Executor},
+   * the first chunk is processed by the calling thread. The calling thread then runs
+   * the tasks that have not been started yet and waits for the others, so the calling thread
+   * may itself be a thread of the {@link Executor}. Tasks rejected by the {@link Executor}
+   * are run by the calling thread.
+   * <p>
+   *
+   * If the first exception thrown by a chunk is a {@link RuntimeException} or an {@link Error},
+   * it is rethrown by this method, other exceptions are wrapped in an {@link IllegalStateException}.
+   *
+   * @param elements provides the elements to process.
+   * @param chunkSize provides the number of elements of each chunk, must be positive.
+   * @param executor provides the {@link Executor} to process the chunks with.
+   * @param processor provides the {@link ChunkProcessor}, it must be thread-safe.
+   * @param <E> is the type of the elements.
+   * @param <R> is the type of the result of processing a chunk.
+   * @return the results of processing the chunks, in the order of the chunks.
+   */
+  public static <E, R> List<R> processChunks(List<E> elements,
+                                             int chunkSize,
+                                             Executor executor,
+                                             final ChunkProcessor<E, R> processor)
+  {
+    if (chunkSize <= 0)
+    {
+      throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+    }
+
+    List<FutureTask<R>> tasks = new ArrayList<FutureTask<R>>();
+    for (int start = chunkSize; start < elements.size(); start += chunkSize)
+    {
+      final List<E> chunk = elements.subList(start, Math.min(start + chunkSize, elements.size()));
+      FutureTask<R> task = new FutureTask<R>(new Callable<R>()
+      {
+        @Override
+        public R call()
+        {
+          return processor.process(chunk);
+        }
+      });
+      try
+      {
+        executor.execute(task);
+      }
+      catch (RejectedExecutionException e)
+      {
+        task.run();
+      }
+      tasks.add(task);
+    }
+
+    List<R> results = new ArrayList<R>(tasks.size() + 1);
+    results.add(processor.process(elements.subList(0, Math.min(chunkSize, elements.size()))));
+    for (FutureTask<R> task : tasks)
+    {
+      // no-op if the task has already been started by the executor
+      task.run();
+      results.add(getResult(task));
+    }
+    return results;
+  }
+
+  private static <R> R getResult(FutureTask<R> task)
+  {
+    try
+    {
+      return task.get();
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for chunk to be processed", e);
+    }
+    catch (ExecutionException e)
+    {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException)
+      {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error)
+      {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+}
@@ -63,6 +63,18 @@ public class TestByteString
     Assert.assertEquals(bytes, bs.copyBytes());
   }
 
+  @Test
+  public void testUnsafeWrap()
+  {
+    Assert.assertSame(ByteString.empty(), ByteString.unsafeWrap(new byte[0]));
+    final byte[] bytes = new byte[] {1,2,3,4,5};
+    final ByteString bs = ByteString.unsafeWrap(bytes);
+    Assert.assertEquals(bs, ByteString.copy(bytes));
+    // the bytes are shared rather than copied
+    bytes[0] = 6;
+    Assert.assertEquals(bs.copyBytes()[0], 6);
+  }
+
   @Test
   public void testCopyString()
   {
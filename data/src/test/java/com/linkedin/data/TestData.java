@@ -20,10 +20,14 @@ package com.linkedin.data;
 import com.linkedin.data.codec.BsonDataCodec;
 import com.linkedin.data.codec.DataCodec;
 import com.linkedin.data.codec.DataDecodingException;
+import com.linkedin.data.codec.DataReaderUtil;
 import com.linkedin.data.codec.JacksonDataCodec;
 import com.linkedin.data.codec.PsonDataCodec;
+import com.linkedin.data.codec.StreamingDataCodec;
 import com.linkedin.data.codec.TextDataCodec;
 import com.linkedin.data.collections.CheckedMap;
+import com.linkedin.data.collections.CompactMap;
+import com.linkedin.data.collections.PrimitiveList;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.FileDescriptor;
@@ -53,6 +57,7 @@ import org.testng.annotations.Optional;
 import org.testng.annotations.Parameters;
 import org.testng.annotations.Test;
 
+import static com.linkedin.data.TestUtil.asList;
 import static com.linkedin.data.TestUtil.asMap;
 import static com.linkedin.data.TestUtil.assertEquivalent;
 import static com.linkedin.data.TestUtil.dataMapFromString;
@@ -575,6 +580,114 @@ public class TestData
     assertTrue(map4.entrySet().containsAll(referenceMap1.entrySet()));
     assertTrue(map4.equals(referenceMap1));
     testDataMapChecker(map4);
+
+    DataMap map5 = new DataMap(new CompactMap.KeyLayout<String>(referenceMap1.keySet()));
+    assertTrue(map5.isEmpty());
+    testDataMapChecker(map5);
+    map5.putAll(referenceMap1);
+    assertTrue(map5.equals(referenceMap1));
+    assertTrue(map5.equals(map4));
+    assertEquals(map5.hashCode(), map4.hashCode());
+  }
+
+  @Test
+  public void testCompactDataMap() throws CloneNotSupportedException
+  {
+    CompactMap.KeyLayout<String> layout = new CompactMap.KeyLayout<String>(Arrays.asList("a", "b", "c"));
+
+    DataMap map1 = new DataMap(layout);
+    map1.put("a", 1);
+    map1.put("b", new DataMap(layout));
+    map1.getDataMap("b").put("c", "c");
+    map1.put("z", "z");
+    assertEquals(map1.size(), 3);
+
+    DataMap map2 = map1.clone();
+    assertEquals(map2, map1);
+    map2.put("c", 3);
+    map2.remove("a");
+    assertFalse(map1.containsKey("c"));
+    assertEquals(map1.get("a"), 1);
+    assertTrue(map2.getDataMap("b") == map1.getDataMap("b"));
+
+    DataMap map3 = map1.copy();
+    assertEquals(map3, map1);
+    assertTrue(map3.getDataMap("b") != map1.getDataMap("b"));
+    map3.getDataMap("b").put("a", "a");
+    assertFalse(map1.getDataMap("b").containsKey("a"));
+
+    map1.makeReadOnly();
+    assertTrue(map1.isReadOnly());
+    assertTrue(map1.getDataMap("b").isReadOnly());
+    try
+    {
+      map1.put("c", 3);
+      fail("read-only map should not be modified");
+    }
+    catch (UnsupportedOperationException e)
+    {
+    }
+    assertFalse(map3.isReadOnly());
+  }
+
+  @Test
+  public void testPrimitiveDataList() throws CloneNotSupportedException
+  {
+    DataList list1 = new DataList(new PrimitiveList.DoubleList(new double[] { 1.5, 2.5 }));
+    testDataListChecker(list1);
+    assertEquals(list1.getDouble(0), 1.5);
+    assertEquals(list1.get(1), 2.5);
+    assertEquals(list1.getInt(1), 2);
+    assertEquals(list1, asList(1.5, 2.5));
+
+    DataList list2 = new DataList();
+    list2.addInt(1);
+    list2.addInt(2);
+    assertEquals(list2.getInt(1), 2);
+    assertEquals(list2.getLong(1), 2L);
+    list2.setInt(0, 10);
+    assertEquals(list2, asList(10, 2));
+
+    // adding an element of another type reverts to boxed storage
+    list2.add("3");
+    assertEquals(list2, asList(10, 2, "3"));
+    list2.addInt(4);
+    assertEquals(list2, asList(10, 2, "3", 4));
+
+    DataList list3 = list1.copy();
+    list3.setDouble(0, 0.5);
+    assertEquals(list1.getDouble(0), 1.5);
+    assertEquals(list3.getDouble(0), 0.5);
+
+    list1.makeReadOnly();
+    assertTrue(list1.isReadOnly());
+    try
+    {
+      list1.addDouble(3.5);
+      fail("read-only list should not be modified");
+    }
+    catch (UnsupportedOperationException e)
+    {
+    }
+  }
+
+  @Test
+  public void testPrimitiveDataListCodec() throws IOException
+  {
+    DataMap map = new DataMap();
+    map.put("ints", new DataList(new PrimitiveList.IntegerList(new int[] { 1, 2, 3 })));
+    map.put("longs", new DataList(new PrimitiveList.LongList(new long[] { Long.MAX_VALUE, Long.MIN_VALUE })));
+    map.put("doubles", new DataList(new PrimitiveList.DoubleList(new double[] { 0.5, 1.5 })));
+    map.put("mixed", new DataList(asList(1, 2.5, "3")));
+
+    for (DataCodec codec : new DataCodec[] { new JacksonDataCodec(), new PsonDataCodec() })
+    {
+      DataMap decoded = codec.bytesToMap(codec.mapToBytes(map));
+      assertEquals(decoded, map);
+      assertEquals(decoded.getDataList("ints").getInt(2), 3);
+      assertEquals(decoded.getDataList("longs").getLong(0), Long.MAX_VALUE);
+      assertEquals(decoded.getDataList("doubles").getDouble(1), 1.5);
+    }
   }
 
   public void testDataMapAccessor(String key, Object value)
@@ -1112,6 +1225,232 @@ public class TestData
     assertTrue(list2.getDataMap(1).isMadeReadOnly());
   }
 
+  @Test
+  public void testLazyCopy() throws CloneNotSupportedException
+  {
+    DataMap child = new DataMap();
+    child.put("a", 1);
+    DataList list = new DataList(asList("x", new DataMap(child)));
+    DataMap map1 = new DataMap();
+    map1.put("child", child);
+    map1.put("list", list);
+    map1.put("doubles", new DataList(new PrimitiveList.DoubleList(new double[] { 0.5 })));
+    map1.put("string", "s");
+    map1.makeReadOnly();
+
+    // the copy shares the underlying map until it is modified
+    DataMap map2 = map1.copy();
+    assertSame(map2.getUnderlying(), map1.getUnderlying());
+    assertEquals(map2, map1);
+    assertFalse(map2.isReadOnly());
+
+    map2.put("string", "t");
+    assertTrue(map2.getUnderlying() != map1.getUnderlying());
+    assertEquals(map1.get("string"), "s");
+    assertEquals(map2.get("string"), "t");
+
+    // a child is copied when it is accessed through the copy
+    DataMap child2 = map2.getDataMap("child");
+    assertTrue(child2 != child);
+    assertFalse(child2.isReadOnly());
+    assertSame(map2.getDataMap("child"), child2);
+    child2.put("b", 2);
+    assertFalse(child.containsKey("b"));
+    assertEquals(child2.size(), 2);
+
+    DataList list2 = map2.getDataList("list");
+    assertFalse(list2.isReadOnly());
+    list2.getDataMap(1).put("a", 10);
+    assertEquals(list.getDataMap(1).get("a"), 1);
+    assertEquals(list2.getDataMap(1).get("a"), 10);
+
+    DataList doubles2 = map2.getDataList("doubles");
+    doubles2.setDouble(0, 1.5);
+    assertEquals(map1.getDataList("doubles").getDouble(0), 0.5);
+    assertEquals(doubles2.getDouble(0), 1.5);
+
+    // children are copied when iterating over the copy
+    DataMap map3 = map1.copy();
+    for (Object value : map3.values())
+    {
+      if (value instanceof DataComplex)
+      {
+        assertFalse(((DataComplex) value).isReadOnly());
+      }
+    }
+    assertEquals(map3, map1);
+
+    // removed children are copies
+    DataMap map4 = map1.copy();
+    DataMap removed = (DataMap) map4.remove("child");
+    assertFalse(removed.isReadOnly());
+    assertTrue(removed != child);
+
+    // making the copy read-only does not copy the children
+    DataMap map5 = map1.copy();
+    map5.makeReadOnly();
+    assertSame(map5.get("child"), child);
+    assertSame(map5.copy().getUnderlying(), map1.getUnderlying());
+
+    // clone of a read-only map is not lazy
+    DataMap map6 = map1.clone();
+    assertTrue(map6.getUnderlying() != map1.getUnderlying());
+    assertSame(map6.get("child"), child);
+
+    // copy of a read-only list
+    DataList list3 = list.copy();
+    assertSame(list3.getUnderlying(), list.getUnderlying());
+    assertEquals(list3.toArray()[1], list.get(1));
+    assertTrue(list3.toArray()[1] != list.get(1));
+    assertFalse(((DataMap) list3.get(1)).isReadOnly());
+  }
+
+  @Test
+  public void testLazyCopyReadsDoNotModify() throws CloneNotSupportedException
+  {
+    DataMap child = new DataMap();
+    child.put("a", 1);
+    DataMap grandChild = new DataMap();
+    grandChild.put("b", 2);
+    child.put("grandChild", grandChild);
+    DataMap map1 = new DataMap();
+    map1.put("child", child);
+    map1.put("list", new DataList(asList(new DataMap(child))));
+    map1.makeReadOnly();
+
+    DataMap map2 = map1.copy();
+    DataMap child2 = map2.getDataMap("child");
+    DataMap grandChild2 = child2.getDataMap("grandChild");
+    DataList list2 = map2.getDataList("list");
+    list2.get(0);
+    list2.toArray();
+    for (Map.Entry<String, Object> e : map2.entrySet())
+    {
+      assertFalse(((DataComplex) e.getValue()).isReadOnly());
+    }
+    assertSame(map2.getUnderlying(), map1.getUnderlying());
+    assertSame(child2.getUnderlying(), child.getUnderlying());
+    assertSame(list2.getUnderlying(), ((DataList) map1.get("list")).getUnderlying());
+
+    // modifying a descendant stores the copies along its path
+    grandChild2.put("c", 3);
+    assertTrue(map2.getUnderlying() != map1.getUnderlying());
+    assertSame(map2.get("child"), child2);
+    assertSame(child2.get("grandChild"), grandChild2);
+    assertEquals(map2.getDataMap("child").getDataMap("grandChild").get("c"), 3);
+    assertFalse(grandChild.containsKey("c"));
+    assertSame(list2.getUnderlying(), ((DataList) map1.get("list")).getUnderlying());
+
+    // a replaced child is not stored back when it is modified
+    DataMap map3 = map1.copy();
+    DataMap child3 = map3.getDataMap("child");
+    map3.put("child", "replaced");
+    child3.put("a", 10);
+    assertEquals(map3.get("child"), "replaced");
+
+    // the copy of an element is stored when the list is modified
+    DataList list4 = map1.copy().getDataList("list");
+    DataMap element4 = list4.getDataMap(0);
+    list4.add(0, "first");
+    element4.put("a", 10);
+    assertSame(list4.get(1), element4);
+    assertEquals(list4.getDataMap(1).get("a"), 10);
+
+    // a child obtained from a copy that has since been made read-only cannot be modified
+    DataMap map5 = map1.copy();
+    DataMap child5 = map5.getDataMap("child");
+    map5.makeReadOnly();
+    try
+    {
+      child5.put("a", 10);
+      fail("expected UnsupportedOperationException");
+    }
+    catch (UnsupportedOperationException e)
+    {
+    }
+    assertEquals(child5.get("a"), 1);
+  }
+
+  @Test
+  public void testLazyCopyIteration() throws CloneNotSupportedException
+  {
+    List<String> keys = Arrays.asList("x", "y", "z");
+    for (DataMap map1 : Arrays.asList(new DataMap(), new DataMap(new CompactMap.KeyLayout<String>(keys))))
+    {
+      for (String key : keys)
+      {
+        DataMap child = new DataMap();
+        child.put("a", 1);
+        map1.put(key, child);
+      }
+      map1.makeReadOnly();
+
+      DataMap map2 = map1.copy();
+      for (Map.Entry<String, Object> e : map2.entrySet())
+      {
+        ((DataMap) e.getValue()).put("a", 2);
+      }
+      for (Object value : map2.values())
+      {
+        assertEquals(((DataMap) value).get("a"), 2);
+      }
+      for (String key : keys)
+      {
+        assertEquals(map2.getDataMap(key).get("a"), 2);
+        assertEquals(map1.getDataMap(key).get("a"), 1);
+      }
+    }
+  }
+
+  @Test
+  public void testLazyCopyConcurrentReads() throws Exception
+  {
+    DataMap map1 = new DataMap();
+    for (int i = 0; i < 100; ++i)
+    {
+      DataMap child = new DataMap();
+      child.put("a", i);
+      map1.put(String.valueOf(i), child);
+    }
+    map1.makeReadOnly();
+    final DataMap map2 = map1.copy();
+
+    final List<Thread> threads = new ArrayList<Thread>();
+    final List<Map<String, Object>> seen = new ArrayList<Map<String, Object>>();
+    for (int t = 0; t < 4; ++t)
+    {
+      final Map<String, Object> children = new HashMap<String, Object>();
+      seen.add(children);
+      threads.add(new Thread()
+      {
+        @Override
+        public void run()
+        {
+          for (int i = 0; i < 100; ++i)
+          {
+            children.put(String.valueOf(i), map2.get(String.valueOf(i)));
+          }
+        }
+      });
+    }
+    for (Thread thread : threads)
+    {
+      thread.start();
+    }
+    for (Thread thread : threads)
+    {
+      thread.join();
+    }
+    for (Map<String, Object> children : seen)
+    {
+      for (int i = 0; i < 100; ++i)
+      {
+        assertSame(children.get(String.valueOf(i)), seen.get(0).get(String.valueOf(i)));
+      }
+    }
+    assertSame(map2.getUnderlying(), map1.getUnderlying());
+  }
+
   @Test
   public void testDump()
   {
@@ -1167,6 +1506,16 @@ public class TestData
     assertEquivalent(map3, map);
     assertEquivalent(map3, map2);
 
+    if (codec instanceof StreamingDataCodec)
+    {
+      StreamingDataCodec streamingCodec = (StreamingDataCodec) codec;
+
+      // test createReader
+
+      assertEquivalent(DataReaderUtil.readMap(streamingCodec.createReader(bytes)), map);
+      assertEquivalent(DataReaderUtil.readMap(streamingCodec.createReader(new ByteArrayInputStream(bytes))), map);
+    }
+
     if (codec instanceof TextDataCodec)
     {
       TextDataCodec textCodec = (TextDataCodec) codec;
@@ -1234,6 +1583,18 @@ public class TestData
 
     assertEquals(sb3.toString(), sb1.toString());
 
+    // BSON does not distinguish a top-level list from a map
+    if (codec instanceof StreamingDataCodec && codec instanceof BsonDataCodec == false)
+    {
+      StreamingDataCodec streamingCodec = (StreamingDataCodec) codec;
+
+      // test createReader
+
+      DataList list4 = DataReaderUtil.readList(streamingCodec.createReader(bytes));
+      StringBuilder sb4 = new StringBuilder();
+      Data.dump("list", list4, "", sb4);
+      assertEquals(sb4.toString(), sb1.toString());
+    }
 
     if (codec instanceof TextDataCodec)
     {
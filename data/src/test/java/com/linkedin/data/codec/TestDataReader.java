@@ -0,0 +1,178 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.data.codec;
+
+
+import com.linkedin.data.Data;
+import com.linkedin.data.DataList;
+import com.linkedin.data.DataMap;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.testng.annotations.Test;
+
+import static com.linkedin.data.TestUtil.dataMapFromString;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.fail;
+
+
+public class TestDataReader
+{
+  private static List<Object> events(DataReader reader) throws IOException
+  {
+    List<Object> events = new ArrayList<Object>();
+    DataReader.Event event;
+    while ((event = reader.next()) != null)
+    {
+      events.add(event);
+      if (event == DataReader.Event.KEY)
+      {
+        events.add(reader.getKey());
+      }
+      else if (event == DataReader.Event.VALUE)
+      {
+        events.add(reader.getValue());
+      }
+    }
+    return events;
+  }
+
+  @Test
+  public void testJsonEvents() throws IOException
+  {
+    String json = "{ \"a\" : 1, \"b\" : [ 2, \"x\", { \"c\" : true } ], \"d\" : {}, \"e\" : [], \"f\" : null, \"g\" : 3000000000 }";
+    DataReader reader = new JacksonDataCodec().createReader(json.getBytes(Data.UTF_8_CHARSET));
+    List<Object> expected = Arrays.<Object>asList(
+      DataReader.Event.START_MAP,
+      DataReader.Event.KEY, "a", DataReader.Event.VALUE, 1,
+      DataReader.Event.KEY, "b", DataReader.Event.START_LIST,
+      DataReader.Event.VALUE, 2,
+      DataReader.Event.VALUE, "x",
+      DataReader.Event.START_MAP, DataReader.Event.KEY, "c", DataReader.Event.VALUE, true, DataReader.Event.END_MAP,
+      DataReader.Event.END_LIST,
+      DataReader.Event.KEY, "d", DataReader.Event.START_MAP, DataReader.Event.END_MAP,
+      DataReader.Event.KEY, "e", DataReader.Event.START_LIST, DataReader.Event.END_LIST,
+      DataReader.Event.KEY, "f", DataReader.Event.VALUE, Data.NULL,
+      DataReader.Event.KEY, "g", DataReader.Event.VALUE, 3000000000L,
+      DataReader.Event.END_MAP);
+    assertEquals(events(reader), expected);
+    assertNull(reader.getEvent());
+  }
+
+  @Test
+  public void testSameEventsForAllCodecs() throws IOException
+  {
+    DataMap map = dataMapFromString(
+      "{ \"a\" : 1, \"b\" : [ 2, \"x\", { \"c\" : true }, [], {} ], \"d\" : {}, \"e\" : [ 1.5 ], \"f\" : null }");
+    JacksonDataCodec jacksonCodec = new JacksonDataCodec();
+    List<Object> expected = events(jacksonCodec.createReader(jacksonCodec.mapToBytes(map)));
+
+    StreamingDataCodec[] codecs = {
+      new PsonDataCodec(),
+      new PsonDataCodec().setOptions(new PsonDataCodec.Options().setEncodeCollectionCount(true)),
+      new BsonDataCodec()
+    };
+    for (StreamingDataCodec codec : codecs)
+    {
+      List<Object> actual = events(codec.createReader(codec.mapToBytes(map)));
+      assertEquals(actual, expected, codec.getClass().getName());
+    }
+  }
+
+  @Test
+  public void testSkipChildren() throws IOException
+  {
+    DataMap map = dataMapFromString("{ \"a\" : { \"b\" : [ 1, 2, { \"c\" : [] } ] } }");
+    map.put("d", new DataList(Arrays.asList(1, 2)));
+    StreamingDataCodec[] codecs = { new JacksonDataCodec(), new PsonDataCodec(), new BsonDataCodec() };
+    for (StreamingDataCodec codec : codecs)
+    {
+      DataReader reader = codec.createReader(codec.mapToBytes(map));
+      assertSame(reader.next(), DataReader.Event.START_MAP);
+      DataMap skipped = new DataMap();
+      DataReader.Event event;
+      while ((event = reader.next()) == DataReader.Event.KEY)
+      {
+        String key = reader.getKey();
+        event = reader.next();
+        if (key.equals("a"))
+        {
+          assertSame(event, DataReader.Event.START_MAP);
+          reader.skipChildren();
+          assertSame(reader.getEvent(), DataReader.Event.END_MAP);
+        }
+        else
+        {
+          skipped.put(key, DataReaderUtil.readValue(reader));
+        }
+      }
+      assertSame(event, DataReader.Event.END_MAP);
+      assertNull(reader.next());
+      assertEquals(skipped, dataMapFromString("{ \"d\" : [ 1, 2 ] }"), codec.getClass().getName());
+      reader.close();
+    }
+  }
+
+  @Test
+  public void testSymbolTable() throws IOException
+  {
+    SymbolTable table = new SymbolTable(Arrays.asList("alpha"));
+    JacksonDataCodec codec = new JacksonDataCodec();
+    codec.setSymbolTable(table);
+    DataReader reader = codec.createReader("{ \"alpha\" : 1 }".getBytes(Data.UTF_8_CHARSET));
+    reader.next();
+    assertSame(reader.next(), DataReader.Event.KEY);
+    assertSame(reader.getKey(), table.getSymbol(1));
+  }
+
+  @Test
+  public void testInvalidInput() throws IOException
+  {
+    byte[] bytes = new PsonDataCodec().setOptions(new PsonDataCodec.Options().setEncodeCollectionCount(true))
+      .mapToBytes(dataMapFromString("{ \"a\" : [ 1, 2 ] }"));
+    DataReader reader = new PsonDataCodec().createReader(Arrays.copyOf(bytes, bytes.length - 3));
+    try
+    {
+      events(reader);
+      fail("truncated input should fail");
+    }
+    catch (IOException e)
+    {
+    }
+
+    try
+    {
+      DataReaderUtil.readMap(new JacksonDataCodec().createReader("[ 1 ]".getBytes(Data.UTF_8_CHARSET)));
+      fail("list should not be read as a map");
+    }
+    catch (DataDecodingException e)
+    {
+    }
+
+    try
+    {
+      events(new JacksonDataCodec().createReader("{ \"a\" : 123456789012345678901234567890 }".getBytes(Data.UTF_8_CHARSET)));
+      fail("number out of range should fail");
+    }
+    catch (DataDecodingException e)
+    {
+    }
+  }
+}
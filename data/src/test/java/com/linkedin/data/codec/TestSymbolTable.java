@@ -0,0 +1,149 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.data.codec;
+
+
+import com.linkedin.data.DataList;
+import com.linkedin.data.DataMap;
+import com.linkedin.data.schema.DataSchema;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import org.testng.annotations.Test;
+
+import static com.linkedin.data.TestUtil.dataSchemaFromString;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+
+public class TestSymbolTable
+{
+  @Test
+  public void testSymbols()
+  {
+    SymbolTable table = new SymbolTable(Arrays.asList("a", "b", "a", "c"));
+    assertEquals(table.size(), 3);
+    assertEquals(table.getSymbols(), Arrays.asList("a", "b", "c"));
+    assertEquals(table.getSymbolId("a"), 1);
+    assertEquals(table.getSymbolId("c"), 3);
+    assertEquals(table.getSymbolId("d"), -1);
+    assertEquals(table.getSymbol(2), "b");
+    assertNull(table.getSymbol(0));
+    assertNull(table.getSymbol(4));
+
+    String b = new String("b");
+    assertSame(table.intern(b), table.getSymbol(2));
+    String d = new String("d");
+    assertSame(table.intern(d), d);
+    assertFalse(table.intern(new String("d")) == d);
+
+    assertEquals(new SymbolTable(Arrays.asList("a", "b", "c")).getFingerprint(), table.getFingerprint());
+    assertFalse(new SymbolTable(Arrays.asList("c", "b", "a")).getFingerprint() == table.getFingerprint());
+  }
+
+  @Test
+  public void testLearnedSymbols()
+  {
+    SymbolTable table = new SymbolTable(Collections.<String>emptyList(), 2);
+    String a = new String("a");
+    String b = new String("b");
+    String c = new String("c");
+    assertSame(table.intern(a), a);
+    assertSame(table.intern(b), b);
+    assertSame(table.intern(c), c);
+    assertSame(table.intern(new String("a")), a);
+    assertSame(table.intern(new String("b")), b);
+    assertFalse(table.intern(new String("c")) == c);
+    assertEquals(table.size(), 0);
+    assertEquals(table.getSymbolId("a"), -1);
+  }
+
+  @Test
+  public void testFromSchemas() throws IOException
+  {
+    DataSchema schema = dataSchemaFromString(
+      "{ \"type\" : \"record\", \"name\" : \"Foo\", \"fields\" : [ " +
+        "{ \"name\" : \"int\", \"type\" : \"int\" }, " +
+        "{ \"name\" : \"self\", \"type\" : [ \"null\", \"Foo\" ] }, " +
+        "{ \"name\" : \"bars\", \"type\" : { \"type\" : \"array\", \"items\" : " +
+          "{ \"type\" : \"record\", \"name\" : \"Bar\", \"fields\" : [ { \"name\" : \"bar\", \"type\" : \"string\" } ] } } } " +
+      "] }");
+    SymbolTable table = SymbolTable.fromSchemas(Collections.singletonList(schema), 0);
+    assertEquals(table.getSymbols(), Arrays.asList("int", "self", "Foo", "bars", "bar"));
+  }
+
+  @Test
+  public void testPsonSymbolIds() throws IOException, CloneNotSupportedException
+  {
+    SymbolTable table = new SymbolTable(Arrays.asList("alpha", "beta"));
+
+    DataMap map = new DataMap();
+    map.put("alpha", 1);
+    map.put("gamma", "x");
+    DataMap child = new DataMap();
+    child.put("beta", 2);
+    child.put("gamma", "y");
+    map.put("beta", new DataList(Arrays.<Object>asList(child, child.clone())));
+
+    PsonDataCodec plain = new PsonDataCodec();
+    PsonDataCodec withIds = new PsonDataCodec().setOptions(
+      new PsonDataCodec.Options().setSymbolTable(table).setEncodeSymbolIds(true));
+    PsonDataCodec interning = new PsonDataCodec().setOptions(new PsonDataCodec.Options().setSymbolTable(table));
+
+    byte[] plainBytes = plain.mapToBytes(map);
+    byte[] idBytes = withIds.mapToBytes(map);
+    assertTrue(idBytes.length < plainBytes.length);
+
+    DataMap decoded = withIds.bytesToMap(idBytes);
+    assertEquals(decoded, map);
+    assertEquals(interning.bytesToMap(plainBytes), map);
+    assertEquals(withIds.bytesToMap(plainBytes), map);
+    for (DataMap m : Arrays.asList(decoded, interning.bytesToMap(plainBytes)))
+    {
+      for (Map.Entry<String, Object> e : m.entrySet())
+      {
+        if (table.getSymbolId(e.getKey()) > 0)
+        {
+          assertSame(e.getKey(), table.getSymbol(table.getSymbolId(e.getKey())));
+        }
+      }
+    }
+
+    try
+    {
+      plain.bytesToMap(idBytes);
+      fail("decoding symbol ids without the symbol table should fail");
+    }
+    catch (IOException e)
+    {
+    }
+    try
+    {
+      new PsonDataCodec().setOptions(
+        new PsonDataCodec.Options().setSymbolTable(new SymbolTable(Arrays.asList("beta", "alpha")))).bytesToMap(idBytes);
+      fail("decoding symbol ids with a different symbol table should fail");
+    }
+    catch (IOException e)
+    {
+    }
+  }
+}
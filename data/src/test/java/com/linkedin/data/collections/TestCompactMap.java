@@ -0,0 +1,249 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.data.collections;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import org.testng.annotations.Test;
+
+import static com.linkedin.data.collections.TestCommonMap.containsReferenceMap2;
+import static com.linkedin.data.collections.TestCommonMap.referenceMap1;
+import static com.linkedin.data.collections.TestCommonMap.referenceMap2;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+
+public class TestCompactMap
+{
+  @Test
+  public void testAgainstHashMap()
+  {
+    CompactMap<String,String> map = new CompactMap<String,String>(referenceMap1);
+    assertEquals(map, referenceMap1);
+    assertEquals(referenceMap1, map);
+    assertEquals(map.hashCode(), referenceMap1.hashCode());
+
+    map.putAll(referenceMap2);
+    containsReferenceMap2(map);
+    assertEquals(map.size(), referenceMap1.size() + referenceMap2.size());
+
+    Map<String,String> reference = new HashMap<String,String>(referenceMap1);
+    reference.putAll(referenceMap2);
+    assertEquals(map, reference);
+
+    for (String key : referenceMap2.keySet())
+    {
+      assertEquals(map.remove(key), referenceMap2.get(key));
+      assertNull(map.remove(key));
+    }
+    assertEquals(map, referenceMap1);
+
+    map.clear();
+    assertTrue(map.isEmpty());
+    assertEquals(map.size(), 0);
+    assertFalse(map.containsKey("k1"));
+  }
+
+  @Test
+  public void testRehash()
+  {
+    CompactMap<String,Integer> map = new CompactMap<String,Integer>(0);
+    Map<String,Integer> reference = new HashMap<String,Integer>();
+    for (int i = 0; i < 1000; i++)
+    {
+      map.put("k" + i, i);
+      reference.put("k" + i, i);
+      if (i % 3 == 0)
+      {
+        map.remove("k" + (i / 2));
+        reference.remove("k" + (i / 2));
+      }
+    }
+    assertEquals(map, reference);
+    assertEquals(map.size(), reference.size());
+  }
+
+  @Test
+  public void testNullNotSupported()
+  {
+    CompactMap<String,String> map = new CompactMap<String,String>();
+    try
+    {
+      map.put(null, "1");
+      fail("null key should not be allowed");
+    }
+    catch (NullPointerException e)
+    {
+    }
+    try
+    {
+      map.put("k1", null);
+      fail("null value should not be allowed");
+    }
+    catch (NullPointerException e)
+    {
+    }
+    assertNull(map.get(null));
+    assertFalse(map.containsKey(null));
+    assertTrue(map.isEmpty());
+  }
+
+  @Test
+  public void testKeyLayout()
+  {
+    CompactMap.KeyLayout<String> layout = new CompactMap.KeyLayout<String>(Arrays.asList("a", "b", "c", "b"));
+    assertEquals(layout.size(), 3);
+
+    CompactMap<String,String> map1 = new CompactMap<String,String>(layout);
+    CompactMap<String,String> map2 = new CompactMap<String,String>(layout);
+    assertTrue(map1.isEmpty());
+    assertFalse(map1.containsKey("a"));
+    assertFalse(map1.entrySet().iterator().hasNext());
+
+    map1.put("a", "1");
+    map1.put("c", "3");
+    map2.put("b", "2");
+    assertEquals(map1.size(), 2);
+    assertEquals(map1.get("a"), "1");
+    assertNull(map1.get("b"));
+    assertEquals(map2.size(), 1);
+    assertEquals(map2.get("b"), "2");
+    assertNull(map2.get("a"));
+
+    // adding a key that is not in the layout must not affect other maps sharing the layout
+    map1.put("d", "4");
+    assertEquals(map1.get("d"), "4");
+    assertNull(map2.get("d"));
+    assertFalse(new CompactMap<String,String>(layout).containsKey("d"));
+
+    // adding many keys that are not in the layout rehashes
+    for (int i = 0; i < 100; i++)
+    {
+      map2.put("k" + i, "v" + i);
+    }
+    assertEquals(map2.size(), 101);
+    assertEquals(map2.get("b"), "2");
+    assertEquals(map1.size(), 3);
+    assertEquals(new CompactMap<String,String>(layout).size(), 0);
+  }
+
+  @Test
+  public void testIterationOrder()
+  {
+    CompactMap.KeyLayout<String> layout = new CompactMap.KeyLayout<String>(Arrays.asList("c", "a", "b"));
+    CompactMap<String,String> map = new CompactMap<String,String>(layout);
+    map.put("z", "z");
+    map.put("b", "b");
+    map.put("a", "a");
+    map.put("y", "y");
+    map.put("c", "c");
+    assertEquals(new ArrayList<String>(map.keySet()), Arrays.asList("c", "a", "b", "z", "y"));
+
+    map.remove("a");
+    CompactMap<String,String> copy = map.clone();
+    assertEquals(new ArrayList<String>(copy.keySet()), Arrays.asList("c", "b", "z", "y"));
+
+    // rehashing keeps the order
+    for (int i = 0; i < 100; i++)
+    {
+      map.put("k" + i, "v" + i);
+    }
+    List<String> keys = new ArrayList<String>(map.keySet());
+    assertEquals(keys.subList(0, 4), Arrays.asList("c", "b", "z", "y"));
+    for (int i = 0; i < 100; i++)
+    {
+      assertEquals(keys.get(i + 4), "k" + i);
+    }
+    assertEquals(new ArrayList<String>(copy.keySet()), Arrays.asList("c", "b", "z", "y"));
+
+    CompactMap<String,String> plain = new CompactMap<String,String>();
+    plain.put("b", "b");
+    plain.put("a", "a");
+    plain.put("c", "c");
+    assertEquals(new ArrayList<String>(plain.keySet()), Arrays.asList("b", "a", "c"));
+  }
+
+  @Test
+  public void testClone()
+  {
+    CompactMap<String,String> map1 = new CompactMap<String,String>(referenceMap1);
+    CompactMap<String,String> map2 = map1.clone();
+    assertEquals(map2, map1);
+
+    map2.put("k4", "4");
+    map2.remove("k1");
+    assertTrue(map2.containsKey("k4"));
+    assertFalse(map2.containsKey("k1"));
+    assertFalse(map1.containsKey("k4"));
+    assertTrue(map1.containsKey("k1"));
+    assertEquals(map1, referenceMap1);
+
+    map1.put("k5", "5");
+    assertFalse(map2.containsKey("k5"));
+    assertEquals(map1.size(), referenceMap1.size() + 1);
+  }
+
+  @Test
+  public void testEntryIterator()
+  {
+    CompactMap<String,String> map = new CompactMap<String,String>(referenceMap1);
+    map.putAll(referenceMap2);
+
+    Iterator<Map.Entry<String,String>> it = map.entrySet().iterator();
+    int count = 0;
+    while (it.hasNext())
+    {
+      Map.Entry<String,String> entry = it.next();
+      count++;
+      if (referenceMap2.containsKey(entry.getKey()))
+      {
+        it.remove();
+      }
+      else
+      {
+        entry.setValue(entry.getValue() + "x");
+      }
+    }
+    assertEquals(count, referenceMap1.size() + referenceMap2.size());
+    assertEquals(map.size(), referenceMap1.size());
+    for (Map.Entry<String,String> entry : referenceMap1.entrySet())
+    {
+      assertEquals(map.get(entry.getKey()), entry.getValue() + "x");
+    }
+
+    it = map.entrySet().iterator();
+    it.next();
+    map.put("k9", "9");
+    try
+    {
+      it.next();
+      fail("concurrent modification should be detected");
+    }
+    catch (ConcurrentModificationException e)
+    {
+    }
+  }
+}
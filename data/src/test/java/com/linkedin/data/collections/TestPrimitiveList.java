@@ -0,0 +1,186 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.data.collections;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+
+public class TestPrimitiveList
+{
+  @Test
+  public void testAgainstArrayList()
+  {
+    PrimitiveList.IntegerList list = new PrimitiveList.IntegerList(0);
+    List<Integer> reference = new ArrayList<Integer>();
+    for (int i = 0; i < 100; i++)
+    {
+      list.addInt(i);
+      reference.add(i);
+    }
+    assertEquals(list, reference);
+    assertEquals(reference, list);
+    assertEquals(list.hashCode(), reference.hashCode());
+
+    list.add(0, -1);
+    reference.add(0, -1);
+    list.add(50, 1000);
+    reference.add(50, 1000);
+    assertEquals(list.remove(10), reference.remove(10));
+    list.removeRange(20, 30);
+    reference.subList(20, 30).clear();
+    assertTrue(list.remove(Integer.valueOf(1000)));
+    reference.remove(Integer.valueOf(1000));
+    assertEquals(list.set(5, 55), reference.set(5, 55));
+    assertEquals(list.setInt(6, 66), reference.set(6, 66).intValue());
+    assertEquals(list, reference);
+    assertEquals(list.size(), reference.size());
+    assertEquals(list.indexOf(55), 5);
+    assertTrue(list.contains(66));
+    assertFalse(list.contains(1000));
+
+    int[] array = list.toIntArray();
+    assertEquals(array.length, reference.size());
+    for (int i = 0; i < array.length; i++)
+    {
+      assertEquals(array[i], reference.get(i).intValue());
+      assertEquals(list.getInt(i), reference.get(i).intValue());
+    }
+
+    list.clear();
+    assertTrue(list.isEmpty());
+  }
+
+  @Test
+  public void testPrimitiveTypes()
+  {
+    PrimitiveList.IntegerList ints = new PrimitiveList.IntegerList(new int[] { 1, 2, 3 });
+    PrimitiveList.LongList longs = new PrimitiveList.LongList(new long[] { 1L, 2L, 3L });
+    PrimitiveList.FloatList floats = new PrimitiveList.FloatList(new float[] { 1f, 2f, 3f });
+    PrimitiveList.DoubleList doubles = new PrimitiveList.DoubleList(new double[] { 1d, 2d, 3d });
+
+    assertEquals(ints, Arrays.asList(1, 2, 3));
+    assertEquals(longs, Arrays.asList(1L, 2L, 3L));
+    assertEquals(floats, Arrays.asList(1f, 2f, 3f));
+    assertEquals(doubles, Arrays.asList(1d, 2d, 3d));
+
+    longs.addLong(Long.MAX_VALUE);
+    floats.addFloat(0.5f);
+    doubles.addDouble(Double.MIN_VALUE);
+    assertEquals(longs.getLong(3), Long.MAX_VALUE);
+    assertEquals(floats.getFloat(3), 0.5f);
+    assertEquals(doubles.getDouble(3), Double.MIN_VALUE);
+    assertEquals(longs.get(3), Long.valueOf(Long.MAX_VALUE));
+    assertEquals(floats.get(3), Float.valueOf(0.5f));
+    assertEquals(doubles.get(3), Double.valueOf(Double.MIN_VALUE));
+
+    assertTrue(ints.accepts(1));
+    assertFalse(ints.accepts(1L));
+    assertTrue(longs.accepts(1L));
+    assertFalse(longs.accepts(1));
+    assertTrue(floats.accepts(1f));
+    assertFalse(floats.accepts(1d));
+    assertTrue(doubles.accepts(1d));
+    assertFalse(doubles.accepts("1"));
+    assertFalse(doubles.accepts(null));
+  }
+
+  @Test
+  public void testIndexOutOfBounds()
+  {
+    PrimitiveList.DoubleList list = new PrimitiveList.DoubleList(new double[] { 1d });
+    try
+    {
+      list.getDouble(1);
+      fail("index out of bounds should be detected");
+    }
+    catch (IndexOutOfBoundsException e)
+    {
+    }
+    try
+    {
+      list.add(2, 2d);
+      fail("index out of bounds should be detected");
+    }
+    catch (IndexOutOfBoundsException e)
+    {
+    }
+    try
+    {
+      list.add(0, null);
+      fail("null element should not be allowed");
+    }
+    catch (NullPointerException e)
+    {
+    }
+    assertEquals(list.size(), 1);
+  }
+
+  @Test
+  public void testClone()
+  {
+    PrimitiveList.DoubleList list1 = new PrimitiveList.DoubleList(new double[] { 1d, 2d });
+    PrimitiveList.DoubleList list2 = (PrimitiveList.DoubleList) list1.clone();
+    assertEquals(list2, list1);
+    list2.setDouble(0, 10d);
+    list2.addDouble(3d);
+    assertEquals(list1, Arrays.asList(1d, 2d));
+    assertEquals(list2, Arrays.asList(10d, 2d, 3d));
+  }
+
+  @Test
+  public void testCheckedListInflates() throws CloneNotSupportedException
+  {
+    CheckedList<Object> list = new CheckedList<Object>(new PrimitiveList.DoubleList(new double[] { 1d, 2d }), null)
+    {
+    };
+    assertTrue(list.getPrimitiveList() != null);
+
+    list.add(3d);
+    assertTrue(list.getPrimitiveList() != null);
+    CheckedList<Object> clone = list.clone();
+    assertTrue(clone.getPrimitiveList() != null);
+    assertTrue(clone.getPrimitiveList() != list.getPrimitiveList());
+
+    list.add("4");
+    assertTrue(list.getPrimitiveList() == null);
+    assertEquals(list, Arrays.<Object>asList(1d, 2d, 3d, "4"));
+    assertEquals(clone, Arrays.<Object>asList(1d, 2d, 3d));
+
+    clone.addAll(Arrays.<Object>asList(4d, 5));
+    assertTrue(clone.getPrimitiveList() == null);
+    assertEquals(clone, Arrays.<Object>asList(1d, 2d, 3d, 4d, 5));
+
+    list.setReadOnly();
+    try
+    {
+      list.add(5d);
+      fail("read-only list should not be modified");
+    }
+    catch (UnsupportedOperationException e)
+    {
+    }
+  }
+}
@@ -0,0 +1,433 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.data.schema.validation;
+
+
+import com.linkedin.data.ByteString;
+import com.linkedin.data.Data;
+import com.linkedin.data.DataComplex;
+import com.linkedin.data.DataList;
+import com.linkedin.data.DataMap;
+import com.linkedin.data.message.Message;
+import com.linkedin.data.schema.ArrayDataSchema;
+import com.linkedin.data.schema.DataSchema;
+import com.linkedin.data.schema.EnumDataSchema;
+import com.linkedin.data.schema.FixedDataSchema;
+import com.linkedin.data.schema.MapDataSchema;
+import com.linkedin.data.schema.RecordDataSchema;
+import com.linkedin.data.schema.UnionDataSchema;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.testng.annotations.Test;
+
+import static com.linkedin.data.TestUtil.dataSchemaFromString;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+
+
+/**
+ * Compares the results of {@link ValidateDataAgainstSchema}, which validates against compiled
+ * schemas, with the results of {@link ReferenceValidateDataAgainstSchema} for random schemas
+ * and random, mostly valid, data.
+ */
+public class TestCompiledValidation
+{
+  private static final String[] PRIMITIVES = { "int", "long", "float", "double", "boolean", "string", "bytes" };
+
+  @Test
+  public void testCompiledValidationMatchesReference() throws IOException, CloneNotSupportedException
+  {
+    Random random = new Random(4217);
+    List<ValidationOptions> optionsList = new ArrayList<ValidationOptions>();
+    for (RequiredMode requiredMode : RequiredMode.values())
+    {
+      for (CoercionMode coercionMode : CoercionMode.values())
+      {
+        for (boolean avroUnionMode : new boolean[] { false, true })
+        {
+          ValidationOptions options = new ValidationOptions(requiredMode, coercionMode);
+          options.setAvroUnionMode(avroUnionMode);
+          optionsList.add(options);
+        }
+      }
+    }
+
+    for (int i = 0; i < 300; i++)
+    {
+      _nameCount = 0;
+      String schemaText = new SchemaGenerator(random).schema(0, new ArrayList<String>());
+      DataSchema schema = dataSchemaFromString(schemaText);
+      assertNotNull(schema, schemaText);
+      for (int j = 0; j < 10; j++)
+      {
+        Object data = new DataGenerator(random).value(schema, 0);
+        boolean readOnly = random.nextInt(5) == 0;
+        for (ValidationOptions options : optionsList)
+        {
+          assertSameResult(schemaText, schema, data, readOnly, options);
+        }
+      }
+    }
+  }
+
+  private static void assertSameResult(String schemaText,
+                                       DataSchema schema,
+                                       Object data,
+                                       boolean readOnly,
+                                       ValidationOptions options) throws CloneNotSupportedException
+  {
+    Object expectedInput = copy(data, readOnly);
+    Object actualInput = copy(data, readOnly);
+    String context = schemaText + " " + data + " " + options + " readOnly=" + readOnly;
+
+    ValidationResult expected = null;
+    ValidationResult actual = null;
+    Class<?> expectedException = null;
+    Class<?> actualException = null;
+    try
+    {
+      expected = ReferenceValidateDataAgainstSchema.validate(expectedInput, schema, options);
+    }
+    catch (RuntimeException e)
+    {
+      expectedException = e.getClass();
+    }
+    try
+    {
+      actual = ValidateDataAgainstSchema.validate(actualInput, schema, options);
+    }
+    catch (RuntimeException e)
+    {
+      actualException = e.getClass();
+    }
+
+    assertEquals(actualException, expectedException, context);
+    if (expected != null)
+    {
+      assertEquals(actual.isValid(), expected.isValid(), context);
+      assertEquals(actual.hasFix(), expected.hasFix(), context);
+      assertEquals(actual.hasFixupReadOnlyError(), expected.hasFixupReadOnlyError(), context);
+      assertEquals(messageStrings(actual), messageStrings(expected), context);
+      assertEquals(actual.getFixed(), expected.getFixed(), context);
+      assertEquals(actualInput, expectedInput, context);
+    }
+  }
+
+  private static Object copy(Object data, boolean readOnly) throws CloneNotSupportedException
+  {
+    if (data instanceof DataComplex)
+    {
+      DataComplex copy = ((DataComplex) data).copy();
+      if (readOnly)
+      {
+        copy.makeReadOnly();
+      }
+      return copy;
+    }
+    return data;
+  }
+
+  private static List<String> messageStrings(ValidationResult result)
+  {
+    List<String> strings = new ArrayList<String>();
+    for (Message message : result.getMessages())
+    {
+      strings.add(message.toString());
+    }
+    return strings;
+  }
+
+  private static String nextName(String prefix)
+  {
+    return prefix + (_nameCount++);
+  }
+
+  private static int _nameCount;
+
+  /**
+   * Generates the JSON text of a random schema.
+   */
+  private static class SchemaGenerator
+  {
+    private SchemaGenerator(Random random)
+    {
+      _random = random;
+    }
+
+    private String schema(int depth, List<String> enclosingRecords)
+    {
+      int choice = _random.nextInt(depth >= 3 ? 3 : 10);
+      switch (choice)
+      {
+        case 0:
+        case 1:
+          return "\"" + PRIMITIVES[_random.nextInt(PRIMITIVES.length)] + "\"";
+        case 2:
+          return _random.nextBoolean() ? enumSchema() : fixedSchema();
+        case 3:
+          return "{ \"type\" : \"array\", \"items\" : " + schema(depth + 1, enclosingRecords) + " }";
+        case 4:
+          return "{ \"type\" : \"map\", \"values\" : " + schema(depth + 1, enclosingRecords) + " }";
+        case 5:
+        case 6:
+          return recordSchema(depth, enclosingRecords);
+        case 7:
+          return unionSchema(depth, enclosingRecords);
+        case 8:
+          return "{ \"type\" : \"typeref\", \"name\" : \"" + nextName("Typeref") + "\", \"ref\" : " +
+            schema(depth + 1, enclosingRecords) + " }";
+        default:
+          if (enclosingRecords.isEmpty() == false)
+          {
+            String record = "\"" + enclosingRecords.get(_random.nextInt(enclosingRecords.size())) + "\"";
+            return _random.nextBoolean() ? record : "{ \"type\" : \"array\", \"items\" : " + record + " }";
+          }
+          return "\"" + PRIMITIVES[_random.nextInt(PRIMITIVES.length)] + "\"";
+      }
+    }
+
+    private String enumSchema()
+    {
+      return "{ \"type\" : \"enum\", \"name\" : \"" + nextName("Enum") + "\", \"symbols\" : [ \"A\", \"B\", \"C\" ] }";
+    }
+
+    private String fixedSchema()
+    {
+      return "{ \"type\" : \"fixed\", \"name\" : \"" + nextName("Fixed") + "\", \"size\" : " + (1 + _random.nextInt(3)) + " }";
+    }
+
+    private String recordSchema(int depth, List<String> enclosingRecords)
+    {
+      String name = nextName("Record");
+      List<String> records = new ArrayList<String>(enclosingRecords);
+      records.add(name);
+      StringBuilder sb = new StringBuilder();
+      sb.append("{ \"type\" : \"record\", \"name\" : \"").append(name).append("\", \"fields\" : [ ");
+      int fieldCount = 1 + _random.nextInt(4);
+      for (int i = 0; i < fieldCount; i++)
+      {
+        if (i > 0)
+        {
+          sb.append(", ");
+        }
+        sb.append("{ \"name\" : \"f").append(i).append("\", ");
+        int kind = _random.nextInt(4);
+        if (kind == 0)
+        {
+          String primitive = PRIMITIVES[_random.nextInt(PRIMITIVES.length)];
+          sb.append("\"type\" : \"").append(primitive).append("\", \"default\" : ").append(defaultValue(primitive));
+        }
+        else
+        {
+          sb.append("\"type\" : ").append(schema(depth + 1, records));
+        }
+        if (kind == 1)
+        {
+          sb.append(", \"optional\" : true");
+        }
+        sb.append(" }");
+      }
+      sb.append(" ] }");
+      return sb.toString();
+    }
+
+    private String unionSchema(int depth, List<String> enclosingRecords)
+    {
+      List<String> members = new ArrayList<String>(Arrays.asList(PRIMITIVES));
+      members.add("null");
+      StringBuilder sb = new StringBuilder("[ ");
+      int memberCount = 1 + _random.nextInt(3);
+      for (int i = 0; i < memberCount; i++)
+      {
+        sb.append("\"").append(members.remove(_random.nextInt(members.size()))).append("\", ");
+      }
+      sb.append(_random.nextBoolean() ?
+                  recordSchema(depth + 1, enclosingRecords) :
+                  "{ \"type\" : \"array\", \"items\" : " + schema(depth + 1, enclosingRecords) + " }");
+      sb.append(" ]");
+      return sb.toString();
+    }
+
+    private static String defaultValue(String primitive)
+    {
+      if (primitive.equals("int") || primitive.equals("long"))
+      {
+        return "1";
+      }
+      else if (primitive.equals("float") || primitive.equals("double"))
+      {
+        return "1.5";
+      }
+      else if (primitive.equals("boolean"))
+      {
+        return "true";
+      }
+      else
+      {
+        return "\"d\"";
+      }
+    }
+
+    private final Random _random;
+  }
+
+  /**
+   * Generates random data for a schema, mostly valid, sometimes with values of the wrong
+   * type, values that can be coerced, unknown fields and missing fields.
+   */
+  private static class DataGenerator
+  {
+    private DataGenerator(Random random)
+    {
+      _random = random;
+    }
+
+    private Object value(DataSchema schema, int depth)
+    {
+      if (_random.nextInt(12) == 0)
+      {
+        return randomValue(depth);
+      }
+      DataSchema dereferenced = schema.getDereferencedDataSchema();
+      switch (dereferenced.getType())
+      {
+        case INT:
+          return coercible(_random.nextInt(100));
+        case LONG:
+          return coercible((long) _random.nextInt(100));
+        case FLOAT:
+          return coercible(_random.nextInt(100) + 0.5f);
+        case DOUBLE:
+          return coercible(_random.nextInt(100) + 0.25);
+        case BOOLEAN:
+          return _random.nextInt(8) == 0 ? (Object) "true" : (Object) _random.nextBoolean();
+        case STRING:
+          return "s" + _random.nextInt(10);
+        case BYTES:
+          return _random.nextInt(6) == 0 ? (Object) "ÿ\u0001" : ByteString.copy(new byte[] { 1, 2 });
+        case NULL:
+          return Data.NULL;
+        case ENUM:
+          List<String> symbols = ((EnumDataSchema) dereferenced).getSymbols();
+          return _random.nextInt(8) == 0 ? "D" : symbols.get(_random.nextInt(symbols.size()));
+        case FIXED:
+          int size = ((FixedDataSchema) dereferenced).getSize() + (_random.nextInt(8) == 0 ? 1 : 0);
+          return _random.nextInt(4) == 0 ? (Object) repeat('\u0001', size) : ByteString.copy(new byte[size]);
+        case ARRAY:
+          DataList list = new DataList();
+          int count = depth > 4 ? 0 : _random.nextInt(4);
+          for (int i = 0; i < count; i++)
+          {
+            list.add(value(((ArrayDataSchema) dereferenced).getItems(), depth + 1));
+          }
+          return list;
+        case MAP:
+          DataMap map = new DataMap();
+          int entries = depth > 4 ? 0 : _random.nextInt(4);
+          for (int i = 0; i < entries; i++)
+          {
+            map.put("k" + i, value(((MapDataSchema) dereferenced).getValues(), depth + 1));
+          }
+          return map;
+        case RECORD:
+          DataMap record = new DataMap();
+          for (RecordDataSchema.Field field : ((RecordDataSchema) dereferenced).getFields())
+          {
+            if (_random.nextInt(depth > 4 ? 2 : 6) != 0)
+            {
+              record.put(field.getName(), value(field.getType(), depth + 1));
+            }
+          }
+          if (_random.nextInt(10) == 0)
+          {
+            record.put("unknown", "u");
+          }
+          return record;
+        case UNION:
+          List<DataSchema> members = ((UnionDataSchema) dereferenced).getTypes();
+          DataSchema member = members.get(_random.nextInt(members.size()));
+          if (member.getType() == DataSchema.Type.NULL && _random.nextBoolean())
+          {
+            return Data.NULL;
+          }
+          DataMap union = new DataMap();
+          String key = _random.nextInt(4) == 0 ? UnionDataSchema.avroUnionMemberKey(member) : member.getUnionMemberKey();
+          union.put(_random.nextInt(12) == 0 ? "unknown" : key, value(member, depth + 1));
+          if (_random.nextInt(12) == 0)
+          {
+            union.put("other", 1);
+          }
+          return union;
+        default:
+          throw new IllegalStateException("Unexpected schema type " + dereferenced.getType());
+      }
+    }
+
+    private Object coercible(Number number)
+    {
+      switch (_random.nextInt(8))
+      {
+        case 0:
+          return number.toString();
+        case 1:
+          return number.doubleValue();
+        case 2:
+          return number.intValue();
+        default:
+          return number;
+      }
+    }
+
+    private Object randomValue(int depth)
+    {
+      switch (_random.nextInt(depth > 4 ? 6 : 8))
+      {
+        case 0:
+          return 1;
+        case 1:
+          return 2L;
+        case 2:
+          return 3.5f;
+        case 3:
+          return "x";
+        case 4:
+          return true;
+        case 5:
+          return Data.NULL;
+        case 6:
+          return new DataMap();
+        default:
+          return new DataList();
+      }
+    }
+
+    private static String repeat(char c, int count)
+    {
+      StringBuilder sb = new StringBuilder();
+      for (int i = 0; i < count; i++)
+      {
+        sb.append(c);
+      }
+      return sb.toString();
+    }
+
+    private final Random _random;
+  }
+}
@@ -22,16 +22,27 @@ import com.linkedin.data.Data;
 import com.linkedin.data.DataComplex;
 import com.linkedin.data.DataList;
 import com.linkedin.data.DataMap;
+import com.linkedin.data.codec.DataReaderUtil;
+import com.linkedin.data.codec.JacksonDataCodec;
+import com.linkedin.data.codec.PsonDataCodec;
 import com.linkedin.data.element.DataElement;
 import com.linkedin.data.element.DataElementUtil;
 import com.linkedin.data.message.Message;
+import com.linkedin.data.schema.ArrayDataSchema;
 import com.linkedin.data.schema.DataSchema;
+import com.linkedin.data.schema.DataSchemaConstants;
+import com.linkedin.data.schema.MapDataSchema;
 import com.linkedin.data.schema.RecordDataSchema;
 import com.linkedin.data.schema.validator.VisitedTrackingValidator;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.testng.annotations.Test;
 
 import static com.linkedin.data.TestUtil.*;
@@ -45,12 +56,52 @@ public class TestValidation
 {
   public static ValidationResult validate(DataMap map, DataSchema schema, ValidationOptions options)
   {
+    byte[] bytes = (options.isAvroUnionMode() ? null : toPsonBytes(map));
     VisitedTrackingValidator visitedTrackingValidator = new VisitedTrackingValidator(null);
     ValidationResult result = ValidateDataAgainstSchema.validate(map, schema, options, visitedTrackingValidator);
     assertEquals(visitedTrackingValidator.getVisitedMoreThanOnce(), Collections.EMPTY_SET);
+    if (bytes != null)
+    {
+      validateReader(bytes, schema, options, result);
+    }
     return result;
   }
 
+  private static byte[] toPsonBytes(DataMap map)
+  {
+    try
+    {
+      return new PsonDataCodec().mapToBytes(map);
+    }
+    catch (IOException e)
+    {
+      // not valid Data, cannot be read by a DataReader
+      return null;
+    }
+  }
+
+  /**
+   * Check that validating while reading produces the same result as validating the map read.
+   */
+  private static void validateReader(byte[] bytes, DataSchema schema, ValidationOptions options, ValidationResult expected)
+  {
+    try
+    {
+      ValidatingDataReader reader = new ValidatingDataReader(new PsonDataCodec().createReader(bytes), schema, options);
+      DataMap map = DataReaderUtil.readMap(reader);
+      assertEquals(reader.isValid(), expected.isValid(), expected.toString() + reader.getMessages());
+      assertEquals(reader.getMessages().size() == 0, expected.getMessages().size() == 0);
+      if (expected.isValid() && options.getRequiredMode() != RequiredMode.FIXUP_ABSENT_WITH_DEFAULT)
+      {
+        assertEquals(map, expected.getFixed());
+      }
+    }
+    catch (IOException e)
+    {
+      throw new IllegalStateException(e);
+    }
+  }
+
   public static ValidationResult validate(DataElement element, ValidationOptions options)
   {
     VisitedTrackingValidator visitedTrackingValidator = new VisitedTrackingValidator(null);
@@ -2078,4 +2129,174 @@ public class TestValidation
       }
     }
   }
+
+  @Test
+  public void testValidatingDataReader() throws IOException
+  {
+    String schemaText =
+      "{\n" +
+      "  \"name\" : \"Foo\",\n" +
+      "  \"type\" : \"record\",\n" +
+      "  \"fields\" : [\n" +
+      "    { \"name\" : \"intField\", \"type\" : \"int\" },\n" +
+      "    { \"name\" : \"longField\", \"type\" : \"long\", \"optional\" : true },\n" +
+      "    { \"name\" : \"arrayField\", \"type\" : { \"type\" : \"array\", \"items\" : \"Foo\" }, \"optional\" : true },\n" +
+      "    { \"name\" : \"unionField\", \"type\" : [ \"int\", \"string\" ], \"optional\" : true }\n" +
+      "  ]\n" +
+      "}\n";
+    String dataText =
+      "{\n" +
+      "  \"intField\" : 1,\n" +
+      "  \"longField\" : 2,\n" +
+      "  \"arrayField\" : [ { \"intField\" : 3 }, { \"longField\" : \"bad\" }, { \"intField\" : 4, \"unionField\" : { \"bad\" : 5 } } ]\n" +
+      "}\n";
+
+    DataSchema schema = dataSchemaFromString(schemaText);
+    ValidatingDataReader reader = new ValidatingDataReader(
+      new JacksonDataCodec().createReader(dataText.getBytes(Data.UTF_8_CHARSET)),
+      schema,
+      new ValidationOptions(RequiredMode.CAN_BE_ABSENT_IF_HAS_DEFAULT, CoercionMode.NORMAL));
+    DataMap map = DataReaderUtil.readMap(reader);
+
+    assertFalse(reader.isValid());
+    assertTrue(reader.hasFix());
+    assertSame(map.get("longField").getClass(), Long.class);
+    String messages = reader.getMessages().toString();
+    assertEquals(reader.getMessages().size(), 3, messages);
+    assertTrue(messages.contains("/arrayField/1/longField :: bad cannot be coerced to Long"), messages);
+    assertTrue(messages.contains("/arrayField/1/intField :: field is required but not found and has no default value"), messages);
+    assertTrue(messages.contains("/arrayField/2/unionField :: \"bad\" is not a member type of union"), messages);
+    assertEquals(map.get("arrayField"), dataMapFromString(dataText).get("arrayField"));
+  }
+
+  @Test
+  public void testParallelValidation() throws IOException, CloneNotSupportedException
+  {
+    DataSchema itemSchema = dataSchemaFromString(
+      "{ \"name\" : \"Foo\", \"type\" : \"record\", \"fields\" : [ " +
+        "{ \"name\" : \"intField\", \"type\" : \"int\" }, " +
+        "{ \"name\" : \"longField\", \"type\" : \"long\", \"optional\" : true }, " +
+        "{ \"name\" : \"self\", \"type\" : \"Foo\", \"optional\" : true } ] }");
+    DataSchema arraySchema = new ArrayDataSchema(itemSchema);
+    DataSchema mapSchema = new MapDataSchema(itemSchema);
+    DataSchema longArraySchema = new ArrayDataSchema(DataSchemaConstants.LONG_DATA_SCHEMA);
+
+    DataList list = new DataList();
+    DataMap map = new DataMap();
+    DataList longs = new DataList();
+    for (int i = 0; i < 100; i++)
+    {
+      DataMap item = new DataMap();
+      if (i % 7 != 0)
+      {
+        item.put("intField", i);
+      }
+      item.put("longField", i % 5 == 0 ? (Object) "bad" : (Object) i);
+      if (i % 3 == 0)
+      {
+        DataMap self = new DataMap();
+        self.put("intField", i);
+        self.put("longField", i);
+        item.put("self", self);
+      }
+      list.add(item);
+      map.put("key" + i, item.copy());
+      longs.add(i % 11 == 0 ? (Object) "bad" : (Object) i);
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    try
+    {
+      for (ValidationOptions options : new ValidationOptions[] {
+        new ValidationOptions(),
+        new ValidationOptions(RequiredMode.FIXUP_ABSENT_WITH_DEFAULT, CoercionMode.NORMAL),
+        new ValidationOptions(RequiredMode.IGNORE, CoercionMode.OFF)
+      })
+      {
+        for (int[] thresholdAndChunkSize : new int[][] { { 1, 1 }, { 1, 7 }, { 50, 7 }, { 100, 100 }, { 101, 7 } })
+        {
+          int threshold = thresholdAndChunkSize[0];
+          int chunkSize = thresholdAndChunkSize[1];
+          assertParallelValidation(list, arraySchema, options, executor, threshold, chunkSize);
+          assertParallelValidation(map, mapSchema, options, executor, threshold, chunkSize);
+          assertParallelValidation(longs, longArraySchema, options, executor, threshold, chunkSize);
+          assertParallelValidation(list, arraySchema, options, null, threshold, chunkSize);
+
+          DataList readOnly = list.copy();
+          readOnly.makeReadOnly();
+          ValidationResult expected = ValidateDataAgainstSchema.validate(readOnly, arraySchema, options);
+          ValidationResult actual = ValidateDataAgainstSchema.validate(readOnly, arraySchema, options, null, executor, threshold, chunkSize);
+          assertEquals(actual.hasFixupReadOnlyError(), options.getCoercionMode() != CoercionMode.OFF);
+          assertEquals(actual.hasFixupReadOnlyError(), expected.hasFixupReadOnlyError());
+          assertEquals(messageStrings(actual.getMessages()), messageStrings(expected.getMessages()));
+        }
+      }
+    }
+    finally
+    {
+      executor.shutdown();
+    }
+  }
+
+  private static void assertParallelValidation(DataComplex object,
+                                               DataSchema schema,
+                                               ValidationOptions options,
+                                               ExecutorService executor,
+                                               int threshold,
+                                               int chunkSize)
+    throws CloneNotSupportedException
+  {
+    Object sequentialInput = object.copy();
+    Object parallelInput = object.copy();
+    ValidationResult expected = ValidateDataAgainstSchema.validate(sequentialInput, schema, options);
+    ValidationResult actual = ValidateDataAgainstSchema.validate(parallelInput, schema, options, null, executor, threshold, chunkSize);
+
+    assertEquals(actual.isValid(), expected.isValid());
+    assertEquals(actual.hasFix(), expected.hasFix());
+    assertEquals(actual.hasFixupReadOnlyError(), expected.hasFixupReadOnlyError());
+    assertEquals(messageStrings(actual.getMessages()), messageStrings(expected.getMessages()));
+    assertSame(actual.getFixed(), parallelInput);
+    assertEquals(actual.getFixed(), expected.getFixed());
+  }
+
+  private static List<String> messageStrings(Collection<Message> messages)
+  {
+    List<String> strings = new ArrayList<String>(messages.size());
+    for (Message message : messages)
+    {
+      strings.add(message.toString());
+    }
+    return strings;
+  }
+
+  @Test
+  public void testRecursiveSchemaValidatedRepeatedly() throws IOException
+  {
+    RecordDataSchema schema = (RecordDataSchema) dataSchemaFromString(
+      "{ \"name\" : \"Node\", \"type\" : \"record\", \"fields\" : [ " +
+        "{ \"name\" : \"value\", \"type\" : \"long\" }, " +
+        "{ \"name\" : \"children\", \"type\" : { \"type\" : \"array\", \"items\" : \"Node\" }, \"optional\" : true } ] }");
+    ValidationOptions options = new ValidationOptions(RequiredMode.CAN_BE_ABSENT_IF_HAS_DEFAULT, CoercionMode.NORMAL);
+
+    // more schemas than are cached, validated in turns with the same schema
+    for (int i = 0; i < 2000; i++)
+    {
+      DataSchema otherSchema = new ArrayDataSchema(schema);
+      assertTrue(ValidateDataAgainstSchema.validate(new DataList(), otherSchema, options).isValid());
+
+      DataMap leaf = new DataMap();
+      leaf.put("value", i);
+      DataMap missing = new DataMap();
+      DataMap root = new DataMap();
+      root.put("value", 1L);
+      root.put("children", new DataList(Arrays.<Object>asList(leaf, missing)));
+
+      ValidationResult result = ValidateDataAgainstSchema.validate(root, schema, options);
+      assertFalse(result.isValid());
+      assertTrue(result.hasFix());
+      assertEquals(result.getMessages().size(), 1);
+      assertEquals(result.getMessages().iterator().next().getPath(), new Object[] { "children", 1, "value" });
+      assertEquals(leaf.get("value"), Long.valueOf(i));
+    }
+  }
 }
@@ -29,6 +29,8 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonGenerator;
 import org.testng.annotations.Test;
 
 import static com.linkedin.data.TestUtil.asList;
@@ -294,5 +296,25 @@ public class TestJacksonDataTemplateCodec
     }
   }
 
+  @Test
+  public void testOrderSameAsSchemaOrderTraversal() throws IOException, CloneNotSupportedException
+  {
+    DataMap bar = new DataMap(asMap("int", 2, "b", 1, "a", new DataList(asList(3, 2, 1))));
+    DataMap union = new DataMap(asMap("Bar", bar.copy()));
+    DataMap foo = new DataMap(asMap("unionWithNull", Data.NULL, "union", union, "map", new DataMap(asMap("y", bar, "x", 1)),
+                                    "recordArray", new DataList(asList(new DataMap(asMap("string", "s", "int", 1)), new DataMap())),
+                                    "zz", new DataMap(asMap("z", 1, "y", 2)), "int", 1, "fixed", "1234"));
+    for (DataTemplate<?> template : Arrays.<DataTemplate<?>>asList(new Foo(foo),
+                                                                   new Foo.Union(union),
+                                                                   new StringMap(new DataMap(asMap("c", "cc", "a", "aa")))))
+    {
+      StringWriter writer = new StringWriter();
+      JsonGenerator generator = new JsonFactory().createJsonGenerator(writer);
+      Data.traverse(template.data(), new JacksonDataTemplateCodec.SchemaOrderTraverseCallback(template.schema(), generator));
+      generator.flush();
+      assertEquals(templateToString(template, true), writer.toString());
+    }
+  }
+
   private final JacksonDataTemplateCodec _jacksonDataTemplateCodec = new JacksonDataTemplateCodec();
 }
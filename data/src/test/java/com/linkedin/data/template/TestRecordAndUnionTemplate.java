@@ -17,6 +17,11 @@
 package com.linkedin.data.template;
 
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Constructor;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -28,6 +33,7 @@ import com.linkedin.data.Data;
 import com.linkedin.data.DataList;
 import com.linkedin.data.DataMap;
 import com.linkedin.data.TestUtil;
+import com.linkedin.data.codec.JacksonDataCodec;
 import com.linkedin.data.schema.EnumDataSchema;
 import com.linkedin.data.schema.FixedDataSchema;
 import com.linkedin.data.schema.IntegerDataSchema;
@@ -90,6 +96,49 @@ public class TestRecordAndUnionTemplate
     }
   }
 
+  /**
+   * Record template with the accessors generated for wrapped fields,
+   * which hold the wrapped value in a typed field.
+   */
+  public static class Baz extends RecordTemplate
+  {
+    public static final RecordDataSchema SCHEMA = (RecordDataSchema) DataTemplateUtil.parseSchema
+    (
+      "{ \"type\" : \"record\", \"name\" : \"Baz\", \"fields\" : [ " +
+      "{ \"name\" : \"bar\", \"type\" : { \"type\" : \"record\", \"name\" : \"Bar\", \"fields\" : [ { \"name\" : \"int\", \"type\" : \"int\" } ] }, \"optional\" : true } ] }"
+    );
+    private static final RecordDataSchema.Field FIELD_bar = SCHEMA.getField("bar");
+    private Bar _barField = null;
+
+    public Baz()
+    {
+      super(new DataMap(), SCHEMA);
+    }
+
+    public Bar getBar(GetMode mode)
+    {
+      Object __rawValue = obtainValueOrDefault(FIELD_bar, mode);
+      if (__rawValue == null)
+      {
+        return null;
+      }
+      if ((_barField == null) || (_barField.data() != __rawValue))
+      {
+        _barField = new Bar(DataTemplateUtil.castOrThrow(__rawValue, DataMap.class));
+      }
+      return _barField;
+    }
+
+    public Baz setBar(Bar value, SetMode mode)
+    {
+      if (putWrappedData(FIELD_bar, Bar.class, value, mode))
+      {
+        _barField = value;
+      }
+      return this;
+    }
+  }
+
   public enum EnumType
   {
     APPLE,
@@ -2649,4 +2698,145 @@ public class TestRecordAndUnionTemplate
     Foo.Union u8 = DataTemplateUtil.wrap(Data.NULL, Foo.Union.SCHEMA, Foo.Union.class);
     assertSame(Data.NULL, u8.data());
   }
+
+  @Test
+  public void testTemplateConstructor()
+  {
+    Constructor<Foo> constructor = DataTemplateUtil.templateConstructor(Foo.class);
+    assertSame(DataTemplateUtil.templateConstructor(Foo.class), constructor);
+    assertSame(DataTemplateUtil.templateConstructor(Foo.class, Foo.SCHEMA), constructor);
+    assertSame(DataTemplateUtil.templateConstructor(Foo.Union.class), DataTemplateUtil.templateConstructor(Foo.Union.class, Foo.Union.SCHEMA));
+
+    try
+    {
+      DataTemplateUtil.templateConstructor(Foo.class, Foo.Union.SCHEMA);
+      fail("Expected TemplateOutputCastException");
+    }
+    catch (TemplateOutputCastException e)
+    {
+    }
+    assertSame(DataTemplateUtil.templateConstructor(Foo.class), constructor);
+  }
+
+  @Test
+  public void testTemplateConstructorDoesNotRetainClassLoader() throws Exception
+  {
+    WeakReference<ClassLoader> loader = loadTemplateConstructor();
+    for (int i = 0; i < 100 && loader.get() != null; i++)
+    {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertNull(loader.get());
+  }
+
+  private static WeakReference<ClassLoader> loadTemplateConstructor() throws IOException
+  {
+    DefiningClassLoader loader = new DefiningClassLoader();
+    Class<? extends RecordTemplate> templateClass = loader.define(Bar.class).asSubclass(RecordTemplate.class);
+    assertNotSame(templateClass, Bar.class);
+    Constructor<? extends RecordTemplate> constructor = DataTemplateUtil.templateConstructor(templateClass);
+    assertSame(constructor.getDeclaringClass(), templateClass);
+    assertSame(DataTemplateUtil.templateConstructor(templateClass), constructor);
+    return new WeakReference<ClassLoader>(loader);
+  }
+
+  /**
+   * Defines another copy of a class, so that the copy can be unloaded with this class loader.
+   */
+  private static class DefiningClassLoader extends ClassLoader
+  {
+    private DefiningClassLoader()
+    {
+      super(DefiningClassLoader.class.getClassLoader());
+    }
+
+    private Class<?> define(Class<?> clazz) throws IOException
+    {
+      InputStream in = clazz.getClassLoader().getResourceAsStream(clazz.getName().replace('.', '/') + ".class");
+      try
+      {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int count;
+        while ((count = in.read(buffer)) >= 0)
+        {
+          out.write(buffer, 0, count);
+        }
+        return defineClass(clazz.getName(), out.toByteArray(), 0, out.size());
+      }
+      finally
+      {
+        in.close();
+      }
+    }
+  }
+
+  @Test
+  public void testWrappedFieldHeldInTypedField() throws CloneNotSupportedException
+  {
+    Baz baz = new Baz();
+    assertNull(baz.getBar(GetMode.STRICT));
+
+    Bar bar = new Bar();
+    bar.setInt(1);
+    baz.setBar(bar, SetMode.DISALLOW_NULL);
+    assertSame(baz.data().get("bar"), bar.data());
+    assertSame(baz.getBar(GetMode.STRICT), bar);
+
+    // replacing the underlying Data object wraps it again
+    DataMap barMap = new DataMap();
+    barMap.put("int", 2);
+    baz.data().put("bar", barMap);
+    Bar wrapped = baz.getBar(GetMode.STRICT);
+    assertSame(wrapped.data(), barMap);
+    assertSame(baz.getBar(GetMode.STRICT), wrapped);
+    assertEquals(wrapped.getInt(), Integer.valueOf(2));
+
+    // clone shares the Data object of the field and therefore its wrapper, copy does not
+    Baz clone = (Baz) baz.clone();
+    assertSame(clone.getBar(GetMode.STRICT), wrapped);
+    Baz copy = (Baz) baz.copy();
+    assertNotSame(copy.getBar(GetMode.STRICT), wrapped);
+    assertEquals(copy.getBar(GetMode.STRICT), wrapped);
+
+    baz.setBar(null, SetMode.REMOVE_IF_NULL);
+    assertNull(baz.getBar(GetMode.STRICT));
+
+    baz.data().put("bar", "not a record");
+    try
+    {
+      baz.getBar(GetMode.STRICT);
+      fail("Expected TemplateOutputCastException");
+    }
+    catch (TemplateOutputCastException e)
+    {
+    }
+  }
+
+  @Test
+  public void testDynamicRecordTemplateFieldOrder() throws IOException
+  {
+    FieldDef<String> c = new FieldDef<String>("c", String.class);
+    FieldDef<Integer> a = new FieldDef<Integer>("a", Integer.class);
+    FieldDef<Boolean> b = new FieldDef<Boolean>("b", Boolean.class);
+    RecordDataSchema schema = DynamicRecordMetadata.buildSchema("Dynamic", Arrays.<FieldDef<?>>asList(c, a, b));
+
+    DynamicRecordTemplate record = new DynamicRecordTemplate(schema);
+    record.setValue(b, true);
+    record.setValue(a, 1);
+    record.setValue(c, "c");
+    record.data().put("d", "d");
+
+    // fields are serialized in the order they are defined, then any other entries in the order they were added
+    assertEquals(new JacksonDataCodec().mapToString(record.data()), "{\"c\":\"c\",\"a\":1,\"b\":true,\"d\":\"d\"}");
+
+    DataMap expected = new DataMap();
+    expected.put("a", 1);
+    expected.put("b", true);
+    expected.put("c", "c");
+    expected.put("d", "d");
+    assertEquals(record.data(), expected);
+    assertEquals(record.data().hashCode(), expected.hashCode());
+  }
 }
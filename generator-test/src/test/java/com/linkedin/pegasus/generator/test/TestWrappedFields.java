@@ -0,0 +1,237 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.pegasus.generator.test;
+
+
+import com.linkedin.data.ByteString;
+import com.linkedin.data.Data;
+import com.linkedin.data.DataList;
+import com.linkedin.data.DataMap;
+import com.linkedin.data.template.GetMode;
+import com.linkedin.data.template.IntegerArray;
+import com.linkedin.data.template.RequiredFieldNotPresentException;
+import com.linkedin.data.template.SetMode;
+import com.linkedin.data.template.StringMap;
+import com.linkedin.data.template.TemplateOutputCastException;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+
+/**
+ * Tests the accessors generated for record fields whose values are wrapped,
+ * which hold the last wrapped value of each field in a typed field.
+ */
+public class TestWrappedFields
+{
+  @Test
+  public void testRecordField() throws CloneNotSupportedException
+  {
+    RecordTest record = new RecordTest();
+    assertNull(record.getRecordField(GetMode.NULL));
+    try
+    {
+      record.getRecordField(GetMode.STRICT);
+      fail("Expected RequiredFieldNotPresentException");
+    }
+    catch (RequiredFieldNotPresentException e)
+    {
+    }
+
+    RecordBar bar = new RecordBar().setLocation("here");
+    record.setRecordField(bar);
+    assertSame(record.data().get("recordField"), bar.data());
+    assertSame(record.getRecordField(), bar);
+
+    // replacing the underlying Data object wraps it again
+    DataMap barMap = new DataMap();
+    barMap.put("location", "there");
+    record.data().put("recordField", barMap);
+    RecordBar wrapped = record.getRecordField();
+    assertSame(wrapped.data(), barMap);
+    assertSame(record.getRecordField(), wrapped);
+    assertEquals(wrapped.getLocation(), "there");
+
+    // clone shares the Data object of the field and therefore its wrapper, copy does not
+    RecordTest clone = record.clone();
+    assertSame(clone.getRecordField(), wrapped);
+    RecordTest copy = record.copy();
+    assertNotSame(copy.getRecordField(), wrapped);
+    assertEquals(copy.getRecordField(), wrapped);
+
+    record.setRecordField(null, SetMode.REMOVE_IF_NULL);
+    assertNull(record.getRecordField(GetMode.NULL));
+
+    assertCastFails(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        new RecordTest(recordData("recordField", new DataList())).getRecordField();
+      }
+    });
+  }
+
+  @Test
+  public void testFixedField()
+  {
+    RecordTest record = new RecordTest();
+    FixedMD5 fixed = new FixedMD5(ByteString.copy(new byte[16]));
+    record.setFixedField(fixed);
+    assertSame(record.data().get("fixedField"), fixed.data());
+    assertSame(record.getFixedField(), fixed);
+
+    // a string with one character per byte is a valid representation of a fixed
+    String bytes = "0123456789abcdef";
+    record.data().put("fixedField", bytes);
+    FixedMD5 wrapped = record.getFixedField();
+    assertEquals(wrapped.data(), ByteString.copyAvroString(bytes, false));
+
+    assertCastFails(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        new RecordTest(recordData("fixedField", ByteString.copy(new byte[15]))).getFixedField();
+      }
+    });
+    assertCastFails(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        new RecordTest(recordData("fixedField", 1)).getFixedField();
+      }
+    });
+  }
+
+  @Test
+  public void testMapField()
+  {
+    RecordTest record = new RecordTest();
+    StringMap map = new StringMap();
+    map.put("key", "value");
+    record.setMapField(map);
+    assertSame(record.data().get("mapField"), map.data());
+    assertSame(record.getMapField(), map);
+
+    DataMap dataMap = new DataMap();
+    dataMap.put("other", "value");
+    record.data().put("mapField", dataMap);
+    StringMap wrapped = record.getMapField();
+    assertSame(wrapped.data(), dataMap);
+    assertSame(record.getMapField(), wrapped);
+    assertEquals(wrapped.get("other"), "value");
+
+    assertCastFails(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        new RecordTest(recordData("mapField", new DataList())).getMapField();
+      }
+    });
+  }
+
+  @Test
+  public void testArrayField()
+  {
+    RecordTest record = new RecordTest();
+    IntegerArray array = new IntegerArray();
+    array.add(1);
+    record.setArrayField(array);
+    assertSame(record.data().get("arrayField"), array.data());
+    assertSame(record.getArrayField(), array);
+
+    DataList dataList = new DataList();
+    dataList.add(2);
+    record.data().put("arrayField", dataList);
+    IntegerArray wrapped = record.getArrayField();
+    assertSame(wrapped.data(), dataList);
+    assertSame(record.getArrayField(), wrapped);
+    assertEquals(wrapped.get(0), Integer.valueOf(2));
+
+    assertCastFails(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        new RecordTest(recordData("arrayField", new DataMap())).getArrayField();
+      }
+    });
+    assertCastFails(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        new RecordTest(recordData("arrayField", "not an array")).getArrayField();
+      }
+    });
+  }
+
+  @Test
+  public void testUnionField()
+  {
+    RecordTest record = new RecordTest();
+    RecordTest.UnionField union = new RecordTest.UnionField();
+    union.setRecordBar(new RecordBar().setLocation("here"));
+    record.setUnionField(union);
+    assertSame(record.data().get("unionField"), union.data());
+    assertSame(record.getUnionField(), union);
+    assertTrue(record.getUnionField().isRecordBar());
+
+    DataMap unionMap = new DataMap();
+    unionMap.put("string", "value");
+    record.data().put("unionField", unionMap);
+    RecordTest.UnionField wrapped = record.getUnionField();
+    assertSame(wrapped.data(), unionMap);
+    assertSame(record.getUnionField(), wrapped);
+    assertTrue(wrapped.isString());
+    assertEquals(wrapped.getString(), "value");
+
+    record.data().put("unionField", Data.NULL);
+    assertTrue(record.getUnionField().isNull());
+
+    assertCastFails(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        new RecordTest(recordData("unionField", new DataList())).getUnionField();
+      }
+    });
+  }
+
+  private static DataMap recordData(String fieldName, Object value)
+  {
+    DataMap map = new DataMap();
+    map.put(fieldName, value);
+    return map;
+  }
+
+  private static void assertCastFails(Runnable getter)
+  {
+    try
+    {
+      getter.run();
+      fail("Expected TemplateOutputCastException");
+    }
+    catch (TemplateOutputCastException e)
+    {
+    }
+  }
+}
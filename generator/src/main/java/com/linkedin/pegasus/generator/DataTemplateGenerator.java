@@ -134,6 +134,7 @@ public abstract class DataTemplateGenerator extends CodeGenerator
   protected final JClass _collectionClass = getCodeModel().ref(Collection.class);
   private final JClass _mapClass = getCodeModel().ref(Map.class);
   private final JClass _dataTemplateUtilClass = getCodeModel().ref(DataTemplateUtil.class);
+  private final JClass _objectClass = getCodeModel().ref(Object.class);
   private final JClass _getModeClass = getCodeModel().ref(GetMode.class);
   private final JClass _setModeClass = getCodeModel().ref(SetMode.class);
   protected final JClass _directArrayClass = getCodeModel().ref(DirectArrayTemplate.class);
@@ -1297,7 +1298,6 @@ public abstract class DataTemplateGenerator extends CodeGenerator
                                             RecordDataSchema.Field field)
   {
     boolean isDirect = isDirectType(field.getType());
-    String wrappedOrDirect = isDirect ? "Direct" : "Wrapped";
     String capitalizedName = capitalize(fieldName);
 
     String fieldFieldName = "FIELD_" + capitalizedName;
@@ -1324,8 +1324,24 @@ public abstract class DataTemplateGenerator extends CodeGenerator
     addAccessorDoc(getterWithMode, field, "Getter");
     JVar modeParam = getterWithMode.param(_getModeClass, "mode");
     JBlock getterWithModeBody = getterWithMode.body();
-    res = JExpr.invoke("obtain" + wrappedOrDirect).arg(fieldField).arg(JExpr.dotclass(type)).arg(modeParam);
-    getterWithModeBody._return(res);
+    JFieldVar wrappedField = null;
+    if (isDirect)
+    {
+      res = JExpr.invoke("obtainDirect").arg(fieldField).arg(JExpr.dotclass(type)).arg(modeParam);
+      getterWithModeBody._return(res);
+    }
+    else
+    {
+      // Hold the last wrapped value in a typed field and construct wrappers directly,
+      // instead of going through the cache and reflective constructors of obtainWrapped.
+      wrappedField = templateClass.field(JMod.PRIVATE, type, "_" + fieldName + "Field");
+      JVar rawValue = getterWithModeBody.decl(_objectClass, "__rawValue",
+                                              JExpr.invoke("obtainValueOrDefault").arg(fieldField).arg(modeParam));
+      getterWithModeBody._if(rawValue.eq(JExpr._null()))._then()._return(JExpr._null());
+      getterWithModeBody._if(wrappedField.eq(JExpr._null()).cor(wrappedField.invoke("data").ne(rawValue)))._then()
+        .assign(wrappedField, JExpr._new(type).arg(wrappedConstructorArg(field.getType(), rawValue)));
+      getterWithModeBody._return(wrappedField);
+    }
 
     // Getter method without mode.
     JMethod getterWithoutMode = templateClass.method(JMod.PUBLIC, type, getterName);
@@ -1342,16 +1358,14 @@ public abstract class DataTemplateGenerator extends CodeGenerator
     addAccessorDoc(setterWithMode, field, "Setter");
     JVar param = setterWithMode.param(type, "value");
     modeParam = setterWithMode.param(_setModeClass, "mode");
-    JInvocation inv = setterWithMode.body().invoke("put" + wrappedOrDirect).arg(fieldField).arg(JExpr.dotclass(type));
-    dataClassArg(inv, dataClass).arg(param).arg(modeParam);
+    generateRecordFieldPut(setterWithMode.body(), fieldField, type, dataClass, wrappedField, param, modeParam);
     setterWithMode.body()._return(JExpr._this());
 
     // Setter method without mode
     JMethod setter =  templateClass.method(JMod.PUBLIC, templateClass, setterName);
     addAccessorDoc(setter, field, "Setter");
     param = setter.param(type, "value");
-    inv = setter.body().invoke("put" + wrappedOrDirect).arg(fieldField).arg(JExpr.dotclass(type));
-    dataClassArg(inv, dataClass).arg(param).arg(_disallowNullSetMode);
+    generateRecordFieldPut(setter.body(), fieldField, type, dataClass, wrappedField, param, _disallowNullSetMode);
     setter.body()._return(JExpr._this());
 
     // Setter method without mode for unboxified type
@@ -1360,12 +1374,51 @@ public abstract class DataTemplateGenerator extends CodeGenerator
       JMethod unboxifySetter =  templateClass.method(JMod.PUBLIC, templateClass, setterName);
       addAccessorDoc(unboxifySetter, field, "Setter");
       param = unboxifySetter.param(type.unboxify(), "value");
-      inv = unboxifySetter.body().invoke("put" + wrappedOrDirect).arg(fieldField).arg(JExpr.dotclass(type));
-      dataClassArg(inv, dataClass).arg(param).arg(_disallowNullSetMode);
+      generateRecordFieldPut(unboxifySetter.body(), fieldField, type, dataClass, wrappedField, param, _disallowNullSetMode);
       unboxifySetter.body()._return(JExpr._this());
     }
   }
 
+  private void generateRecordFieldPut(JBlock body,
+                                      JFieldVar fieldField,
+                                      JClass type,
+                                      JClass dataClass,
+                                      JFieldVar wrappedField,
+                                      JVar param,
+                                      JExpression mode)
+  {
+    if (wrappedField == null)
+    {
+      JInvocation inv = body.invoke("putDirect").arg(fieldField).arg(JExpr.dotclass(type));
+      dataClassArg(inv, dataClass).arg(param).arg(mode);
+    }
+    else
+    {
+      JInvocation inv = JExpr.invoke("putWrappedData").arg(fieldField).arg(JExpr.dotclass(type)).arg(param).arg(mode);
+      body._if(inv)._then().assign(wrappedField, param);
+    }
+  }
+
+  /*
+   * Return the argument of the constructor of a wrapped type, see DataTemplateUtil.templateConstructor.
+   */
+  private JExpression wrappedConstructorArg(DataSchema schema, JVar rawValue)
+  {
+    switch (schema.getDereferencedType())
+    {
+      case MAP:
+      case RECORD:
+        return _dataTemplateUtilClass.staticInvoke("castOrThrow").arg(rawValue).arg(_dataMapClass.dotclass());
+      case ARRAY:
+        return _dataTemplateUtilClass.staticInvoke("castOrThrow").arg(rawValue).arg(_dataListClass.dotclass());
+      case FIXED:
+      case UNION:
+        return rawValue;
+      default:
+        throw new IllegalArgumentException("No DataTemplate for " + schema);
+    }
+  }
+
   private void addAccessorDoc(JMethod method, RecordDataSchema.Field field, String prefix)
   {
     method.javadoc().append(prefix + " for " + field.getName());
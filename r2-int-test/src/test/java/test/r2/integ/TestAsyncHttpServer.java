@@ -0,0 +1,189 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package test.r2.integ;
+
+import com.linkedin.common.callback.Callback;
+import com.linkedin.r2.message.RequestContext;
+import com.linkedin.r2.message.rest.RestRequest;
+import com.linkedin.r2.message.rest.RestResponse;
+import com.linkedin.r2.message.rest.RestResponseBuilder;
+import com.linkedin.r2.message.rest.RestStatus;
+import com.linkedin.r2.transport.common.RestRequestHandler;
+import com.linkedin.r2.transport.common.bridge.server.TransportDispatcher;
+import com.linkedin.r2.transport.common.bridge.server.TransportDispatcherBuilder;
+import com.linkedin.r2.transport.http.server.AsyncRAPServlet;
+import com.linkedin.r2.transport.http.server.HttpDispatcher;
+import com.linkedin.r2.transport.http.server.HttpJettyServer;
+import com.linkedin.r2.transport.http.server.HttpServer;
+import org.testng.annotations.AfterTest;
+import org.testng.annotations.BeforeTest;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests {@link AsyncRAPServlet}, which suspends requests until their response is available.
+ */
+public class TestAsyncHttpServer
+{
+  private static final int PORT = 8089;
+  private static final long TIMEOUT = 1000;
+
+  private HttpServer _server;
+  private ScheduledExecutorService _scheduler;
+
+  @BeforeTest
+  public void setup() throws IOException
+  {
+    _scheduler = Executors.newSingleThreadScheduledExecutor();
+    final TransportDispatcher dispatcher = new TransportDispatcherBuilder()
+            .addRestHandler(URI.create("/error"), new ErrorHandler())
+            .addRestHandler(URI.create("/foobar"), new FoobarHandler(_scheduler, 0))
+            .addRestHandler(URI.create("/sync"), new SynchronousHandler())
+            .addRestHandler(URI.create("/delayed"), new FoobarHandler(_scheduler, TIMEOUT / 10))
+            .addRestHandler(URI.create("/late"), new FoobarHandler(_scheduler, TIMEOUT * 3))
+            .build();
+
+    _server = new HttpJettyServer(PORT, new AsyncRAPServlet(new HttpDispatcher(dispatcher), TIMEOUT));
+    _server.start();
+  }
+
+  @AfterTest
+  public void tearDown() throws IOException
+  {
+    if (_server != null) {
+      _server.stop();
+    }
+    _scheduler.shutdownNow();
+  }
+
+  @Test
+  public void testSuccess() throws Exception
+  {
+    HttpURLConnection c = (HttpURLConnection)new URL("http://localhost:" + PORT + "/foobar").openConnection();
+    assertEquals(c.getResponseCode(), RestStatus.OK);
+    assertEquals(readEntity(c.getInputStream()), "Hello, world!");
+  }
+
+  @Test
+  public void testSynchronousResponse() throws Exception
+  {
+    long start = System.currentTimeMillis();
+    HttpURLConnection c = (HttpURLConnection)new URL("http://localhost:" + PORT + "/sync").openConnection();
+    assertEquals(c.getResponseCode(), RestStatus.OK);
+    assertEquals(readEntity(c.getInputStream()), "Hello, world!");
+    // the response is available before the request would be suspended, it must not wait for the timeout
+    long latency = System.currentTimeMillis() - start;
+    assertTrue(latency < TIMEOUT / 2, "latency " + latency + "ms");
+  }
+
+  @Test
+  public void testDelayedResponse() throws Exception
+  {
+    HttpURLConnection c = (HttpURLConnection)new URL("http://localhost:" + PORT + "/delayed").openConnection();
+    assertEquals(c.getResponseCode(), RestStatus.OK);
+    assertEquals(readEntity(c.getInputStream()), "Hello, world!");
+  }
+
+  @Test
+  public void testTimeout() throws Exception
+  {
+    HttpURLConnection c = (HttpURLConnection)new URL("http://localhost:" + PORT + "/late").openConnection();
+    assertEquals(c.getResponseCode(), RestStatus.INTERNAL_SERVER_ERROR);
+  }
+
+  @Test
+  public void testException() throws Exception
+  {
+    long start = System.currentTimeMillis();
+    HttpURLConnection c = (HttpURLConnection)new URL("http://localhost:" + PORT + "/error").openConnection();
+    assertEquals(c.getResponseCode(), RestStatus.INTERNAL_SERVER_ERROR);
+    long latency = System.currentTimeMillis() - start;
+    assertTrue(latency < TIMEOUT / 2, "latency " + latency + "ms");
+  }
+
+  private static String readEntity(InputStream in) throws IOException
+  {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    byte[] buf = new byte[1024];
+    for (int r; (r = in.read(buf)) != -1; ) {
+      baos.write(buf, 0, r);
+    }
+    return new String(baos.toByteArray());
+  }
+
+  private static class ErrorHandler implements RestRequestHandler
+  {
+    @Override
+    public void handleRequest(RestRequest request, RequestContext requestContext, Callback<RestResponse> callback)
+    {
+      throw new RuntimeException("error for testing");
+    }
+  }
+
+  private static class SynchronousHandler implements RestRequestHandler
+  {
+    @Override
+    public void handleRequest(RestRequest request, RequestContext requestContext, Callback<RestResponse> callback)
+    {
+      RestResponseBuilder builder = new RestResponseBuilder();
+      builder.setStatus(RestStatus.OK);
+      builder.setEntity("Hello, world!".getBytes());
+      callback.onSuccess(builder.build());
+    }
+  }
+
+  private static class FoobarHandler implements RestRequestHandler
+  {
+    private final ScheduledExecutorService _scheduler;
+    private final long _delay;
+
+    FoobarHandler(ScheduledExecutorService scheduler, long delay)
+    {
+      _scheduler = scheduler;
+      _delay = delay;
+    }
+
+    @Override
+    public void handleRequest(RestRequest request, RequestContext requestContext, final Callback<RestResponse> callback)
+    {
+      _scheduler.schedule(new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          RestResponseBuilder builder = new RestResponseBuilder();
+          builder.setStatus(RestStatus.OK);
+          builder.setEntity("Hello, world!".getBytes());
+          callback.onSuccess(builder.build());
+        }
+      }, _delay, TimeUnit.MILLISECONDS);
+    }
+  }
+}
@@ -0,0 +1,239 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package test.r2.integ;
+
+import com.linkedin.common.callback.Callback;
+import com.linkedin.common.callback.FutureCallback;
+import com.linkedin.common.util.None;
+import com.linkedin.r2.message.RequestContext;
+import com.linkedin.r2.message.rest.RestRequest;
+import com.linkedin.r2.message.rest.RestRequestBuilder;
+import com.linkedin.r2.message.rest.RestResponse;
+import com.linkedin.r2.message.rest.RestResponseBuilder;
+import com.linkedin.r2.message.rest.RestStatus;
+import com.linkedin.r2.transport.common.Client;
+import com.linkedin.r2.transport.common.RestRequestHandler;
+import com.linkedin.r2.transport.common.bridge.client.TransportClientAdapter;
+import com.linkedin.r2.transport.common.bridge.server.TransportDispatcher;
+import com.linkedin.r2.transport.common.bridge.server.TransportDispatcherBuilder;
+import com.linkedin.r2.transport.http.client.HttpClientFactory;
+import com.linkedin.r2.transport.http.server.HttpDispatcher;
+import com.linkedin.r2.transport.http.server.HttpNettyServer;
+import com.linkedin.r2.transport.http.server.HttpNettyServerJmx;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.net.Socket;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests the execution models of the Netty 3 server.
+ */
+public class TestHttpNettyServer
+{
+  private static final int POOLED_PORT = 8091;
+  private static final int DIRECT_PORT = 8092;
+  private static final int REQUESTS = 20;
+  private static final String HANDLER_THREAD_PREFIX = "R2 Netty Server Handler";
+
+  private HttpNettyServer _pooledServer;
+  private HttpNettyServer _directServer;
+  private HttpClientFactory _clientFactory;
+
+  @BeforeClass
+  public void setup()
+  {
+    final TransportDispatcher dispatcher = new TransportDispatcherBuilder()
+            .addRestHandler(URI.create("/thread"), new ThreadNameHandler())
+            .addRestHandler(URI.create("/delay"), new DelayHandler())
+            .build();
+
+    _pooledServer = new HttpNettyServer(POOLED_PORT, 2, 4, 64 * 1024, 1024 * 1024, new HttpDispatcher(dispatcher));
+    _pooledServer.start();
+    _directServer = new HttpNettyServer(DIRECT_PORT, 2, 0, new HttpDispatcher(dispatcher));
+    _directServer.start();
+    _clientFactory = new HttpClientFactory();
+  }
+
+  @AfterClass
+  public void tearDown() throws Exception
+  {
+    try
+    {
+      final FutureCallback<None> callback = new FutureCallback<None>();
+      _clientFactory.shutdown(callback, 10, TimeUnit.SECONDS);
+      callback.get();
+    }
+    finally
+    {
+      _pooledServer.stop();
+      _directServer.stop();
+    }
+  }
+
+  @Test
+  public void testHandlerPool() throws Exception
+  {
+    _pooledServer.resetQueueWaitStats();
+    checkThreads(POOLED_PORT, true);
+
+    assertEquals(_pooledServer.getHandlerPoolSize(), 4);
+    assertEquals(_pooledServer.getMaxChannelMemorySize(), 64 * 1024);
+    assertEquals(_pooledServer.getMaxTotalMemorySize(), 1024 * 1024);
+    assertTrue(_pooledServer.getHandledEventCount() >= REQUESTS);
+    assertTrue(_pooledServer.getTotalQueueWaitNanos() >= _pooledServer.getMaxQueueWaitNanos());
+  }
+
+  @Test
+  public void testPipelinedResponseOrder() throws Exception
+  {
+    // later requests are handled faster, their responses must still follow the earlier ones
+    final int requests = 5;
+    StringBuilder pipeline = new StringBuilder();
+    for (int i = 0; i < requests; i++)
+    {
+      pipeline.append("GET /delay HTTP/1.1\r\n")
+          .append("Host: localhost\r\n")
+          .append("X-Id: ").append(i).append("\r\n")
+          .append("X-Delay: ").append((requests - i) * 50).append("\r\n")
+          .append("\r\n");
+    }
+
+    Socket socket = new Socket("localhost", POOLED_PORT);
+    try
+    {
+      socket.setSoTimeout(10000);
+      socket.getOutputStream().write(pipeline.toString().getBytes("US-ASCII"));
+      socket.getOutputStream().flush();
+
+      List<String> ids = new ArrayList<String>();
+      BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), "US-ASCII"));
+      for (String line; ids.size() < requests && (line = reader.readLine()) != null; )
+      {
+        if (line.toLowerCase().startsWith("x-id:"))
+        {
+          ids.add(line.substring("x-id:".length()).trim());
+        }
+      }
+      assertEquals(ids, Arrays.asList("0", "1", "2", "3", "4"));
+    }
+    finally
+    {
+      socket.close();
+    }
+  }
+
+  @Test
+  public void testDirectDispatch() throws Exception
+  {
+    checkThreads(DIRECT_PORT, false);
+
+    assertEquals(_directServer.getHandlerPoolSize(), 0);
+    assertEquals(_directServer.getHandlerQueueDepth(), 0);
+    assertEquals(_directServer.getHandledEventCount(), 0);
+  }
+
+  @Test
+  public void testJmx() throws Exception
+  {
+    MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName("com.linkedin.r2:type=HttpNettyServer,port=" + POOLED_PORT);
+    mbeanServer.registerMBean(new HttpNettyServerJmx(_pooledServer), name);
+    try
+    {
+      checkThreads(POOLED_PORT, true);
+      assertEquals(mbeanServer.getAttribute(name, "HandlerPoolSize"), 4);
+      assertEquals(mbeanServer.getAttribute(name, "HandlerQueueDepth"), 0);
+      assertTrue((Long) mbeanServer.getAttribute(name, "HandledEventCount") >= REQUESTS);
+      assertTrue((Double) mbeanServer.getAttribute(name, "MaxQueueWaitTimeMs") >=
+                     (Double) mbeanServer.getAttribute(name, "AverageQueueWaitTimeMs"));
+
+      mbeanServer.invoke(name, "resetQueueWaitStats", null, null);
+      assertEquals(mbeanServer.getAttribute(name, "HandledEventCount"), 0L);
+    }
+    finally
+    {
+      mbeanServer.unregisterMBean(name);
+    }
+  }
+
+  private void checkThreads(int port, boolean onHandlerThread) throws Exception
+  {
+    Client client = new TransportClientAdapter(_clientFactory.getClient(Collections.<String, String>emptyMap()));
+    for (int i = 0; i < REQUESTS; i++)
+    {
+      RestRequest request = new RestRequestBuilder(URI.create("http://localhost:" + port + "/thread"))
+          .setMethod("POST")
+          .setEntity(new byte[i * 100])
+          .build();
+      RestResponse response = client.restRequest(request).get(10, TimeUnit.SECONDS);
+      assertEquals(response.getStatus(), RestStatus.OK);
+      assertEquals(response.getHeader("X-Thread").startsWith(HANDLER_THREAD_PREFIX), onHandlerThread,
+                   response.getHeader("X-Thread"));
+    }
+    final FutureCallback<None> callback = new FutureCallback<None>();
+    client.shutdown(callback);
+    callback.get(10, TimeUnit.SECONDS);
+  }
+
+  private static class DelayHandler implements RestRequestHandler
+  {
+    @Override
+    public void handleRequest(RestRequest request, RequestContext requestContext, Callback<RestResponse> callback)
+    {
+      try
+      {
+        Thread.sleep(Long.parseLong(request.getHeader("X-Delay")));
+      }
+      catch (InterruptedException e)
+      {
+        Thread.currentThread().interrupt();
+      }
+      callback.onSuccess(new RestResponseBuilder()
+          .setStatus(RestStatus.OK)
+          .setHeader("X-Id", request.getHeader("X-Id"))
+          .build());
+    }
+  }
+
+  private static class ThreadNameHandler implements RestRequestHandler
+  {
+    @Override
+    public void handleRequest(RestRequest request, RequestContext requestContext, Callback<RestResponse> callback)
+    {
+      callback.onSuccess(new RestResponseBuilder()
+          .setStatus(RestStatus.OK)
+          .setHeader("X-Thread", Thread.currentThread().getName())
+          .build());
+    }
+  }
+}
@@ -38,6 +38,7 @@ import org.testng.annotations.Test;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URL;
@@ -61,6 +62,7 @@ public class TestHttpServer
     final TransportDispatcher dispatcher = new TransportDispatcherBuilder()
             .addRestHandler(URI.create("/error"), new ErrorHandler())
             .addRestHandler(URI.create("/foobar"), new FoobarHandler())
+            .addRestHandler(URI.create("/echo"), new EchoHandler())
             .build();
 
     _server = new HttpServerFactory().createServer(PORT, dispatcher);
@@ -91,6 +93,54 @@ public class TestHttpServer
     assertEquals(response, "Hello, world!");
   }
 
+  @Test
+  public void testRequestEntity() throws Exception
+  {
+    // smaller and larger than a chunk of the entity stream
+    assertEcho(entity(100), -1);
+    assertEcho(entity(100000), -1);
+  }
+
+  @Test
+  public void testChunkedRequestEntity() throws Exception
+  {
+    // without a content length, the entity is read until the end of the request
+    assertEcho(entity(100), 64);
+    assertEcho(entity(100000), 4096);
+  }
+
+  private static void assertEcho(byte[] entity, int chunkLength) throws IOException
+  {
+    HttpURLConnection c = (HttpURLConnection)new URL("http://localhost:" + PORT + "/echo").openConnection();
+    c.setRequestMethod("PUT");
+    c.setDoOutput(true);
+    if (chunkLength > 0)
+    {
+      c.setChunkedStreamingMode(chunkLength);
+    }
+    OutputStream out = c.getOutputStream();
+    out.write(entity);
+    out.close();
+    assertEquals(c.getResponseCode(), RestStatus.OK);
+    InputStream in = c.getInputStream();
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    byte[] buf = new byte[1024];
+    for (int r; (r = in.read(buf)) != -1; ) {
+      baos.write(buf, 0, r);
+    }
+    assertEquals(baos.toByteArray(), entity);
+  }
+
+  private static byte[] entity(int length)
+  {
+    byte[] entity = new byte[length];
+    for (int i = 0; i < length; i++)
+    {
+      entity[i] = (byte) i;
+    }
+    return entity;
+  }
+
   @Test
   public void testException() throws Exception
   {
@@ -109,6 +159,18 @@ public class TestHttpServer
     }
   }
 
+  private static class EchoHandler implements RestRequestHandler
+  {
+    @Override
+    public void handleRequest(RestRequest request, RequestContext requestContext, Callback<RestResponse> callback)
+    {
+      RestResponseBuilder builder = new RestResponseBuilder();
+      builder.setStatus(RestStatus.OK);
+      builder.setEntity(request.getEntity());
+      callback.onSuccess(builder.build());
+    }
+  }
+
   private static class FoobarHandler implements RestRequestHandler
   {
     @Override
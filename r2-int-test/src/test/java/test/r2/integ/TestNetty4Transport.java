@@ -0,0 +1,224 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package test.r2.integ;
+
+import com.linkedin.common.callback.Callback;
+import com.linkedin.common.callback.FutureCallback;
+import com.linkedin.common.util.None;
+import com.linkedin.data.ByteString;
+import com.linkedin.r2.message.RequestContext;
+import com.linkedin.r2.message.rest.RestRequest;
+import com.linkedin.r2.message.rest.RestRequestBuilder;
+import com.linkedin.r2.message.rest.RestResponse;
+import com.linkedin.r2.message.rest.RestResponseBuilder;
+import com.linkedin.r2.message.rest.RestStatus;
+import com.linkedin.r2.transport.common.Client;
+import com.linkedin.r2.transport.common.RestRequestHandler;
+import com.linkedin.r2.transport.common.bridge.client.TransportClientAdapter;
+import com.linkedin.r2.transport.common.bridge.server.TransportDispatcher;
+import com.linkedin.r2.transport.common.bridge.server.TransportDispatcherBuilder;
+import com.linkedin.r2.transport.http.client.HttpClientFactory;
+import com.linkedin.r2.transport.http.client.Netty4HttpClientFactory;
+import com.linkedin.r2.transport.http.server.HttpDispatcher;
+import com.linkedin.r2.transport.http.server.HttpServer;
+import com.linkedin.r2.transport.http.server.Netty4HttpServer;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests the Netty 4 transport, and that it interoperates with the Netty 3 client.
+ */
+public class TestNetty4Transport
+{
+  private static final int PORT = 8090;
+  private static final int MAX_RESPONSE_SIZE = 1024;
+
+  private HttpServer _server;
+  private Netty4HttpClientFactory _clientFactory;
+
+  @BeforeClass
+  public void setup() throws IOException
+  {
+    final TransportDispatcher dispatcher = new TransportDispatcherBuilder()
+            .addRestHandler(URI.create("/echo"), new EchoHandler())
+            .addRestHandler(URI.create("/error"), new ErrorHandler())
+            .build();
+
+    _server = new Netty4HttpServer(PORT, 0, 4, new HttpDispatcher(dispatcher));
+    _server.start();
+    _clientFactory = new Netty4HttpClientFactory();
+  }
+
+  @AfterClass
+  public void tearDown() throws Exception
+  {
+    try
+    {
+      final FutureCallback<None> callback = new FutureCallback<None>();
+      _clientFactory.shutdown(callback, 10, TimeUnit.SECONDS);
+      callback.get();
+    }
+    finally
+    {
+      _server.stop();
+    }
+  }
+
+  @Test
+  public void testNetty4Client() throws Exception
+  {
+    checkEcho(getClient(Netty4HttpClientFactory.TRANSPORT_NETTY4));
+  }
+
+  @Test
+  public void testNetty3Client() throws Exception
+  {
+    checkEcho(getClient(HttpClientFactory.TRANSPORT_NETTY3));
+    checkEcho(getClient(null));
+  }
+
+  @Test
+  public void testError() throws Exception
+  {
+    Client client = getClient(Netty4HttpClientFactory.TRANSPORT_NETTY4);
+    Future<RestResponse> f = client.restRequest(new RestRequestBuilder(uri("/error")).build());
+    try
+    {
+      f.get(10, TimeUnit.SECONDS);
+      fail("error response should fail the request");
+    }
+    catch (ExecutionException e)
+    {
+      // expected
+    }
+    shutdown(client);
+  }
+
+  @Test
+  public void testMaxResponseSize() throws Exception
+  {
+    Map<String, String> properties = new HashMap<String, String>();
+    properties.put(HttpClientFactory.HTTP_TRANSPORT, Netty4HttpClientFactory.TRANSPORT_NETTY4);
+    properties.put(HttpClientFactory.HTTP_MAX_RESPONSE_SIZE, Integer.toString(MAX_RESPONSE_SIZE));
+    Client client = new TransportClientAdapter(_clientFactory.getClient(properties));
+
+    RestRequest request = new RestRequestBuilder(uri("/echo"))
+        .setMethod("POST")
+        .setEntity(new byte[MAX_RESPONSE_SIZE + 1])
+        .build();
+    try
+    {
+      client.restRequest(request).get(10, TimeUnit.SECONDS);
+      fail("response larger than the maximum response size should fail");
+    }
+    catch (ExecutionException e)
+    {
+      // expected
+    }
+    // the failed channel must not be reused
+    RestRequest small = new RestRequestBuilder(uri("/echo")).setMethod("POST").setEntity(new byte[10]).build();
+    assertEquals(client.restRequest(small).get(10, TimeUnit.SECONDS).getEntity().length(), 10);
+    shutdown(client);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testUnknownTransport()
+  {
+    _clientFactory.getClient(Collections.singletonMap(HttpClientFactory.HTTP_TRANSPORT, "netty2"));
+  }
+
+  private Client getClient(String transport)
+  {
+    Map<String, String> properties = transport == null
+        ? Collections.<String, String>emptyMap()
+        : Collections.singletonMap(HttpClientFactory.HTTP_TRANSPORT, transport);
+    return new TransportClientAdapter(_clientFactory.getClient(properties));
+  }
+
+  private static void checkEcho(Client client) throws Exception
+  {
+    for (int i = 0; i < 10; i++)
+    {
+      byte[] entity = new byte[i * 1000];
+      for (int j = 0; j < entity.length; j++)
+      {
+        entity[j] = (byte) (i + j);
+      }
+      RestRequest request = new RestRequestBuilder(uri("/echo"))
+          .setMethod("POST")
+          .setHeader("X-Echo", Integer.toString(i))
+          .setEntity(entity)
+          .build();
+      RestResponse response = client.restRequest(request).get(10, TimeUnit.SECONDS);
+      assertEquals(response.getStatus(), RestStatus.OK);
+      assertEquals(response.getHeader("X-Echo"), Integer.toString(i));
+      assertEquals(response.getEntity(), ByteString.copy(entity));
+    }
+    shutdown(client);
+  }
+
+  private static void shutdown(Client client) throws Exception
+  {
+    final FutureCallback<None> callback = new FutureCallback<None>();
+    client.shutdown(callback);
+    callback.get(10, TimeUnit.SECONDS);
+  }
+
+  private static URI uri(String path)
+  {
+    return URI.create("http://localhost:" + PORT + path);
+  }
+
+  private static class EchoHandler implements RestRequestHandler
+  {
+    @Override
+    public void handleRequest(RestRequest request, RequestContext requestContext, Callback<RestResponse> callback)
+    {
+      RestResponseBuilder builder = new RestResponseBuilder()
+          .setStatus(RestStatus.OK)
+          .setEntity(request.getEntity());
+      if (request.getHeader("X-Echo") != null)
+      {
+        builder.setHeader("X-Echo", request.getHeader("X-Echo"));
+      }
+      callback.onSuccess(builder.build());
+    }
+  }
+
+  private static class ErrorHandler implements RestRequestHandler
+  {
+    @Override
+    public void handleRequest(RestRequest request, RequestContext requestContext, Callback<RestResponse> callback)
+    {
+      throw new RuntimeException("error for testing");
+    }
+  }
+}
@@ -0,0 +1,160 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.transport.http.server;
+
+
+import com.linkedin.r2.message.rest.RestRequest;
+import com.linkedin.r2.message.rest.RestResponse;
+import com.linkedin.r2.transport.common.bridge.common.TransportCallback;
+import com.linkedin.r2.transport.common.bridge.common.TransportResponse;
+import com.linkedin.r2.transport.common.bridge.common.TransportResponseImpl;
+import com.linkedin.r2.transport.common.bridge.server.TransportDispatcher;
+import java.io.IOException;
+import java.util.concurrent.TimeoutException;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.mortbay.util.ajax.Continuation;
+import org.mortbay.util.ajax.ContinuationSupport;
+import org.mortbay.util.ajax.WaitingContinuation;
+
+
+/**
+ * A {@link RAPServlet} equivalent that suspends requests with Jetty continuations
+ * instead of blocking a container thread until the response is available.
+ * <p>
+ *
+ * With a non-blocking Jetty connector, e.g. the SelectChannelConnector, the container
+ * thread is released when the request is suspended and the request is dispatched again
+ * when the {@link HttpDispatcher} provides the response or the timeout expires.
+ * With blocking connectors, the container thread waits for the response as with {@link RAPServlet}.
+ * <p>
+ *
+ * If the response is not provided within the timeout, an error response is written.
+ * A response provided after the timeout is discarded.
+ */
+public class AsyncRAPServlet extends AbstractR2Servlet
+{
+  private static final long serialVersionUID = 0L;
+
+  public static final long DEFAULT_TIMEOUT = 30000;
+
+  private final HttpDispatcher _dispatcher;
+  private final long _timeout;
+
+  /**
+   * Initialize the AsyncRAPServlet.
+   *
+   * @param dispatcher provides the {@link HttpDispatcher} that handles the requests.
+   * @param timeout provides the maximum time in milliseconds to suspend a request while waiting for its response.
+   */
+  public AsyncRAPServlet(HttpDispatcher dispatcher, long timeout)
+  {
+    _dispatcher = dispatcher;
+    _timeout = timeout;
+  }
+
+  /**
+   * Initialize the AsyncRAPServlet.
+   *
+   * @param dispatcher provides the {@link TransportDispatcher} that handles the requests.
+   * @param timeout provides the maximum time in milliseconds to suspend a request while waiting for its response.
+   */
+  public AsyncRAPServlet(TransportDispatcher dispatcher, long timeout)
+  {
+    this(new HttpDispatcher(dispatcher), timeout);
+  }
+
+  public AsyncRAPServlet(HttpDispatcher dispatcher)
+  {
+    this(dispatcher, DEFAULT_TIMEOUT);
+  }
+
+  @Override
+  protected HttpDispatcher getDispatcher()
+  {
+    return _dispatcher;
+  }
+
+  @Override
+  protected void service(final HttpServletRequest req, final HttpServletResponse resp)
+          throws ServletException, IOException
+  {
+    final Continuation continuation = ContinuationSupport.getContinuation(req, null);
+    if (continuation.isNew())
+    {
+      RestRequest restRequest = readRequest(req, resp);
+      if (restRequest == null)
+      {
+        return;
+      }
+
+      final Object mutex = new Object();
+      TransportCallback<RestResponse> callback = new TransportCallback<RestResponse>()
+      {
+        @Override
+        public void onResponse(TransportResponse<RestResponse> response)
+        {
+          synchronized (mutex)
+          {
+            continuation.setObject(response);
+          }
+          continuation.resume();
+        }
+      };
+      getDispatcher().handleRequest(restRequest, callback);
+
+      if (continuation instanceof WaitingContinuation)
+      {
+        // A blocking continuation remembers a resume that happens before suspend.
+        if (continuation.getObject() == null)
+        {
+          continuation.suspend(_timeout);
+        }
+      }
+      else
+      {
+        // A non-blocking continuation ignores a resume that happens before the request is suspended,
+        // the response must therefore not be set between checking for it and suspending.
+        // The first suspend releases the container thread by throwing a RetryRequest,
+        // service is invoked again once the continuation is resumed or expired.
+        synchronized (mutex)
+        {
+          if (continuation.getObject() == null)
+          {
+            continuation.suspend(_timeout);
+          }
+        }
+      }
+    }
+    else
+    {
+      // Resumed or expired, suspend returns immediately and resets the continuation.
+      continuation.suspend(_timeout);
+    }
+
+    @SuppressWarnings("unchecked")
+    TransportResponse<RestResponse> response = (TransportResponse<RestResponse>) continuation.getObject();
+    if (response == null)
+    {
+      response = TransportResponseImpl.error(
+          new TimeoutException("No response for " + req.getRequestURI() + " within " + _timeout + "ms"));
+    }
+    writeToServletResponse(response, resp);
+  }
+}
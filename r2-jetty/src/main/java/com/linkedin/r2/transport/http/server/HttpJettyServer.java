@@ -47,6 +47,19 @@ public class HttpJettyServer implements HttpServer
     this(port, new RAPServlet(dispatcher));
   }
 
+  /**
+   * Construct a server for the dispatcher.
+   *
+   * @param port provides the port to listen on.
+   * @param dispatcher provides the {@link HttpDispatcher} that handles the requests.
+   * @param useAsync whether requests are suspended with continuations, see {@link AsyncRAPServlet},
+   *                 instead of blocking a thread of the server until their response is available.
+   */
+  public HttpJettyServer(int port, HttpDispatcher dispatcher, boolean useAsync)
+  {
+    this(port, useAsync ? new AsyncRAPServlet(dispatcher) : new RAPServlet(dispatcher));
+  }
+
   public HttpJettyServer(int port, HttpServlet servlet)
   {
     _port = port;
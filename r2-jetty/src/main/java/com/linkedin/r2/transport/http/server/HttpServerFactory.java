@@ -41,9 +41,23 @@ public class HttpServerFactory
   }
 
   public HttpServer createServer(int port, TransportDispatcher transportDispatcher)
+  {
+    return createServer(port, transportDispatcher, false);
+  }
+
+  /**
+   * Create a server for the dispatcher.
+   *
+   * @param port provides the port to listen on.
+   * @param transportDispatcher provides the {@link TransportDispatcher} that handles the requests.
+   * @param useAsync whether requests are suspended while their response is not available,
+   *                 instead of blocking a thread of the server, see {@link AsyncRAPServlet}.
+   * @return a new {@link HttpServer}.
+   */
+  public HttpServer createServer(int port, TransportDispatcher transportDispatcher, boolean useAsync)
   {
     final TransportDispatcher filterDispatcher = new FilterChainDispatcher(transportDispatcher, _filters);
     final HttpDispatcher dispatcher = new HttpDispatcher(filterDispatcher);
-    return new HttpJettyServer(port, dispatcher);
+    return new HttpJettyServer(port, dispatcher, useAsync);
   }
 }
@@ -0,0 +1,65 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.transport.http.client;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.util.AttributeKey;
+
+/**
+ * Returns a channel to its pool, which is stored in the {@link #POOL} attribute of the channel,
+ * once the response has been handled, or disposes it if the channel failed or was closed.
+ * This is the last handler of the pipeline, it does not propagate events.
+ */
+@ChannelHandler.Sharable
+class Netty4ChannelPoolHandler extends ChannelInboundHandlerAdapter
+{
+  static final AttributeKey<AsyncPool<Channel>> POOL = AttributeKey.valueOf("r2.netty4.pool");
+
+  @Override
+  public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception
+  {
+    AsyncPool<Channel> pool = ctx.channel().attr(POOL).getAndRemove();
+    if (pool != null)
+    {
+      pool.put(ctx.channel());
+    }
+  }
+
+  @Override
+  public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception
+  {
+    AsyncPool<Channel> pool = ctx.channel().attr(POOL).getAndRemove();
+    if (pool != null)
+    {
+      pool.dispose(ctx.channel());
+    }
+  }
+
+  @Override
+  public void channelInactive(ChannelHandlerContext ctx) throws Exception
+  {
+    AsyncPool<Channel> pool = ctx.channel().attr(POOL).getAndRemove();
+    if (pool != null)
+    {
+      pool.dispose(ctx.channel());
+    }
+  }
+}
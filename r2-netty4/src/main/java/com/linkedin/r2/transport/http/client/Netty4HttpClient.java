@@ -0,0 +1,467 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.transport.http.client;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.mail.MessagingException;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.ChannelGroupFuture;
+import io.netty.channel.group.ChannelGroupFutureListener;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.linkedin.common.callback.Callback;
+import com.linkedin.common.callback.Callbacks;
+import com.linkedin.common.util.None;
+import com.linkedin.r2.message.RequestContext;
+import com.linkedin.r2.message.rest.QueryTunnelUtil;
+import com.linkedin.r2.message.rest.RestRequest;
+import com.linkedin.r2.message.rest.RestRequestBuilder;
+import com.linkedin.r2.message.rest.RestResponse;
+import com.linkedin.r2.message.rpc.RpcRequest;
+import com.linkedin.r2.message.rpc.RpcResponse;
+import com.linkedin.r2.transport.common.MessageType;
+import com.linkedin.r2.transport.common.WireAttributeHelper;
+import com.linkedin.r2.transport.common.bridge.client.TransportClient;
+import com.linkedin.r2.transport.common.bridge.common.TransportCallback;
+import com.linkedin.r2.transport.http.common.HttpBridge;
+import com.linkedin.r2.transport.http.common.Netty4EventLoops;
+import com.linkedin.r2.util.Cancellable;
+import com.linkedin.r2.util.TimeoutRunnable;
+
+/**
+ * The Netty 4 counterpart of {@link HttpNettyClient}.
+ * <p/>
+ *
+ * Channels are created on a shared {@link EventLoopGroup} and allocate their buffers from the
+ * {@link PooledByteBufAllocator}, so the reference-counted I/O buffers are recycled instead of
+ * being garbage collected. Requests, connection pooling, timeouts and shutdown behave like
+ * {@link HttpNettyClient}. SSL is not supported by this transport yet.
+ */
+/* package private */ class Netty4HttpClient implements TransportClient
+{
+  static final Logger LOG = LoggerFactory.getLogger(Netty4HttpClient.class);
+  private static final int HTTP_DEFAULT_PORT = 80;
+
+  private final Bootstrap _bootstrap;
+  private final ChannelGroup _allChannels = new DefaultChannelGroup("R2 Netty4 client channels",
+                                                                     GlobalEventExecutor.INSTANCE);
+  private final Netty4RAPResponseHandler _responseHandler = new Netty4RAPResponseHandler();
+  private final Netty4ChannelPoolHandler _poolHandler = new Netty4ChannelPoolHandler();
+  private final AtomicReference<State> _state = new AtomicReference<State>(State.RUNNING);
+
+  private enum State { RUNNING, SHUTTING_DOWN, REQUESTS_STOPPING, SHUTDOWN }
+
+  // All modifications of _pools must be locked on _poolMutex, reads are allowed without synchronization
+  private final Object _poolMutex = new Object();
+  private final ConcurrentMap<SocketAddress, AsyncPool<Channel>> _pools =
+      new ConcurrentHashMap<SocketAddress, AsyncPool<Channel>>(256, 0.75f, 1);
+  private boolean _poolsShutdown = false;
+
+  private final ScheduledExecutorService _scheduler;
+
+  private final int _poolSize;
+  private final int _requestTimeout;
+  private final int _idleTimeout;
+  private final int _shutdownTimeout;
+  private final int _maxResponseSize;
+
+  private final String _requestTimeoutMessage;
+  private final int _queryPostThreshold;
+
+  /**
+   * Creates a new Netty4HttpClient
+   *
+   * @param eventLoopGroup the event loop group of the channels, created by
+   *          {@link Netty4EventLoops#newEventLoopGroup(int, String)}; it is the caller's
+   *          responsibility to shut it down
+   * @param executor an executor; it is the caller's responsibility to shut it down
+   * @param poolSize Maximum size of the underlying HTTP connection pool
+   * @param requestTimeout timeout, in ms, to get a connection from the pool or create one
+   * @param idleTimeout interval after which idle connections will be automatically closed
+   * @param shutdownTimeout timeout, in ms, the client should wait after shutdown is
+   *          initiated before terminating outstanding requests
+   * @param maxResponseSize maximum size, in bytes, of a response entity
+   * @param queryPostThreshold length of query params above which requests will be tunneled as POSTS
+   */
+  public Netty4HttpClient(EventLoopGroup eventLoopGroup,
+                          ScheduledExecutorService executor,
+                          int poolSize,
+                          int requestTimeout,
+                          int idleTimeout,
+                          int shutdownTimeout,
+                          int maxResponseSize,
+                          int queryPostThreshold)
+  {
+    _scheduler = executor;
+    _poolSize = poolSize;
+    _requestTimeout = requestTimeout;
+    _idleTimeout = idleTimeout;
+    _shutdownTimeout = shutdownTimeout;
+    _maxResponseSize = maxResponseSize;
+    _requestTimeoutMessage = "Exceeded request timeout of " + _requestTimeout + "ms";
+    _queryPostThreshold = queryPostThreshold;
+    _bootstrap = new Bootstrap()
+        .group(eventLoopGroup)
+        .channel(Netty4EventLoops.socketChannelClass(eventLoopGroup))
+        .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+        .option(ChannelOption.TCP_NODELAY, true)
+        .handler(new ChannelInitializer<SocketChannel>()
+        {
+          @Override
+          protected void initChannel(SocketChannel ch) throws Exception
+          {
+            ChannelPipeline pipeline = ch.pipeline();
+            pipeline.addLast("codec", new HttpClientCodec());
+            pipeline.addLast("dechunker", new HttpObjectAggregator(_maxResponseSize));
+            pipeline.addLast("rapiCodec", new Netty4RAPClientCodec());
+            pipeline.addLast("responseHandler", _responseHandler);
+            pipeline.addLast("channelManager", _poolHandler);
+          }
+        });
+  }
+
+  @Override
+  public void restRequest(RestRequest request,
+                          RequestContext requestContext,
+                          Map<String, String> wireAttrs,
+                          TransportCallback<RestResponse> callback)
+  {
+    MessageType.setMessageType(MessageType.Type.REST, wireAttrs);
+    writeRequestWithTimeout(request, wireAttrs, HttpBridge.restToHttpCallback(callback, request));
+  }
+
+  @Override
+  public void rpcRequest(RpcRequest request,
+                         RequestContext requestContext,
+                         Map<String, String> wireAttrs,
+                         TransportCallback<RpcResponse> callback)
+  {
+    MessageType.setMessageType(MessageType.Type.RPC, wireAttrs);
+    writeRequestWithTimeout(HttpBridge.toHttpRequest(request), wireAttrs,
+                            HttpBridge.rpcToHttpCallback(callback, request));
+  }
+
+  @Override
+  public void shutdown(final Callback<None> callback)
+  {
+    LOG.info("Shutdown requested");
+    if (_state.compareAndSet(State.RUNNING, State.SHUTTING_DOWN))
+    {
+      LOG.info("Shutting down");
+      final long deadline = System.currentTimeMillis() + _shutdownTimeout;
+      TimeoutCallback<None> closeChannels =
+          new TimeoutCallback<None>(_scheduler,
+                                    _shutdownTimeout,
+                                    TimeUnit.MILLISECONDS,
+                                    new Callback<None>()
+                                    {
+        private void finishShutdown()
+        {
+          _state.set(State.REQUESTS_STOPPING);
+          // Timeout any waiters which haven't received a Channel yet
+          for (Callback<Channel> callback : cancelWaiters())
+          {
+            callback.onError(new TimeoutException("Operation did not complete before shutdown"));
+          }
+
+          // Timeout any requests still pending response
+          for (Channel c : _allChannels)
+          {
+            TransportCallback<RestResponse> callback = c.attr(Netty4RAPResponseHandler.CALLBACK).getAndRemove();
+            if (callback != null)
+            {
+              HttpNettyClient.errorResponse(callback,
+                                            new TimeoutException("Operation did not complete before shutdown"));
+            }
+          }
+
+          // Close all active and idle Channels
+          final TimeoutRunnable afterClose = new TimeoutRunnable(
+                  _scheduler, deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS, new Runnable()
+                  {
+                    @Override
+                    public void run()
+                    {
+                      _state.set(State.SHUTDOWN);
+                      LOG.info("Shutdown complete");
+                      callback.onSuccess(None.none());
+                    }
+                  }, "Timed out waiting for channels to close, continuing shutdown");
+          _allChannels.close().addListener(new ChannelGroupFutureListener()
+          {
+            @Override
+            public void operationComplete(ChannelGroupFuture channelGroupFuture) throws Exception
+            {
+              if (!channelGroupFuture.isSuccess())
+              {
+                LOG.warn("Failed to close some connections, ignoring");
+              }
+              afterClose.run();
+            }
+          });
+        }
+
+        @Override
+        public void onSuccess(None none)
+        {
+          LOG.info("All connection pools shut down, closing all channels");
+          finishShutdown();
+        }
+
+        @Override
+        public void onError(Throwable e)
+        {
+          LOG.warn("Error shutting down HTTP connection pools, ignoring and continuing shutdown", e);
+          finishShutdown();
+        }
+      }, "Connection pool shutdown timeout exceeded (" + _shutdownTimeout + "ms)");
+      shutdownPools(closeChannels);
+    }
+  }
+
+  private void writeRequestWithTimeout(RestRequest request, Map<String, String> wireAttrs,
+                                       TransportCallback<RestResponse> callback)
+  {
+    // See HttpNettyClient: wrapping the callback guarantees it is invoked exactly once
+    TimeoutTransportCallback<RestResponse> timeoutCallback =
+        new TimeoutTransportCallback<RestResponse>(_scheduler,
+                                                   _requestTimeout,
+                                                   TimeUnit.MILLISECONDS,
+                                                   callback,
+                                                   _requestTimeoutMessage);
+    writeRequest(request, wireAttrs, timeoutCallback);
+  }
+
+  private void writeRequest(RestRequest request, Map<String, String> wireAttrs,
+                            final TimeoutTransportCallback<RestResponse> callback)
+  {
+    State state = _state.get();
+    if (state != State.RUNNING)
+    {
+      HttpNettyClient.errorResponse(callback, new IllegalStateException("Client is " + state));
+      return;
+    }
+    URI uri = request.getURI();
+    String scheme = uri.getScheme();
+    if (!scheme.equalsIgnoreCase("http"))
+    {
+      HttpNettyClient.errorResponse(callback, new IllegalArgumentException("Unknown scheme: " + scheme
+          + " (only http is supported by the Netty 4 transport)"));
+      return;
+    }
+    String host = uri.getHost();
+    int port = uri.getPort();
+    if (port == -1)
+    {
+      port = HTTP_DEFAULT_PORT;
+    }
+
+    final RestRequest newRequest;
+    try
+    {
+      newRequest = QueryTunnelUtil.encode(new RestRequestBuilder(request)
+                                              .overwriteHeaders(WireAttributeHelper.toWireAttributes(wireAttrs))
+                                              .build(),
+                                          _queryPostThreshold);
+    }
+    catch (IOException e)
+    {
+      HttpNettyClient.errorResponse(callback, e);
+      return;
+    }
+    catch (URISyntaxException e)
+    {
+      HttpNettyClient.errorResponse(callback, e);
+      return;
+    }
+    catch (MessagingException e)
+    {
+      HttpNettyClient.errorResponse(callback, e);
+      return;
+    }
+
+    SocketAddress address = new InetSocketAddress(host, port);
+    final AsyncPool<Channel> pool;
+    try
+    {
+      pool = getPoolForAddress(address);
+    }
+    catch (IllegalStateException e)
+    {
+      HttpNettyClient.errorResponse(callback, e);
+      return;
+    }
+
+    final Cancellable pendingGet = pool.get(new Callback<Channel>()
+    {
+      @Override
+      public void onSuccess(final Channel channel)
+      {
+        // The pool handler returns the channel to the pool at the end of the pipeline.
+        channel.attr(Netty4ChannelPoolHandler.POOL).set(pool);
+        callback.addTimeoutTask(new Runnable()
+        {
+          @Override
+          public void run()
+          {
+            pool.dispose(channel);
+          }
+        });
+
+        // The response handler invokes the callback with the response once it arrives.
+        channel.attr(Netty4RAPResponseHandler.CALLBACK).set(callback);
+
+        final State state = _state.get();
+        if (state == State.REQUESTS_STOPPING || state == State.SHUTDOWN)
+        {
+          // See HttpNettyClient: the shutdown task may already have scanned the channels
+          HttpNettyClient.errorResponse(callback,
+                                        new TimeoutException("Operation did not complete before shutdown"));
+          return;
+        }
+
+        // write failures do not raise exceptions in Netty 4, so route them through the pipeline
+        // for the handlers to fail the callback and dispose the channel
+        channel.writeAndFlush(newRequest).addListener(ChannelFutureListener.FIRE_EXCEPTION_ON_FAILURE);
+      }
+
+      @Override
+      public void onError(Throwable e)
+      {
+        HttpNettyClient.errorResponse(callback, e);
+      }
+    });
+    if (pendingGet != null)
+    {
+      callback.addTimeoutTask(new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          pendingGet.cancel();
+        }
+      });
+    }
+  }
+
+  private AsyncPool<Channel> getPoolForAddress(SocketAddress address) throws IllegalStateException
+  {
+    // Unsynchronized get is safe because this is a ConcurrentHashMap, see ChannelPoolManager
+    AsyncPool<Channel> pool = _pools.get(address);
+    if (pool != null)
+    {
+      return pool;
+    }
+
+    synchronized (_poolMutex)
+    {
+      if (_poolsShutdown)
+      {
+        throw new IllegalStateException("Connection pools are shutting down");
+      }
+      pool = _pools.get(address);
+      if (pool == null)
+      {
+        pool = new AsyncPoolImpl<Channel>(address.toString() + " HTTP connection pool",
+                                          new Netty4ChannelPoolLifecycle(address,
+                                                                         _bootstrap,
+                                                                         _requestTimeout,
+                                                                         _scheduler,
+                                                                         _allChannels),
+                                          _poolSize,
+                                          _idleTimeout,
+                                          _scheduler);
+        pool.start();
+        _pools.put(address, pool);
+      }
+    }
+    return pool;
+  }
+
+  private void shutdownPools(Callback<None> callback)
+  {
+    final Collection<AsyncPool<Channel>> pools;
+    synchronized (_poolMutex)
+    {
+      _poolsShutdown = true;
+      pools = new ArrayList<AsyncPool<Channel>>(_pools.values());
+    }
+    LOG.info("Shutting down {} connection pools", pools.size());
+    Callback<None> poolCallback = Callbacks.countDown(callback, pools.size());
+    for (AsyncPool<Channel> pool : pools)
+    {
+      pool.shutdown(poolCallback);
+    }
+  }
+
+  private Collection<Callback<Channel>> cancelWaiters()
+  {
+    Collection<Callback<Channel>> cancelled = new ArrayList<Callback<Channel>>();
+    for (AsyncPool<Channel> pool : _pools.values())
+    {
+      cancelled.addAll(pool.cancelWaiters());
+    }
+    return cancelled;
+  }
+
+  // Test support
+
+  public int getRequestTimeout()
+  {
+    return _requestTimeout;
+  }
+
+  public int getShutdownTimeout()
+  {
+    return _shutdownTimeout;
+  }
+
+  public int getMaxResponseSize()
+  {
+    return _maxResponseSize;
+  }
+}
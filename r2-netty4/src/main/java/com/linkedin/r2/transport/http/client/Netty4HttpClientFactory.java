@@ -0,0 +1,159 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.transport.http.client;
+
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+
+import io.netty.channel.EventLoopGroup;
+import org.jboss.netty.channel.socket.ClientSocketChannelFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.linkedin.r2.filter.FilterChain;
+import com.linkedin.r2.filter.FilterChains;
+import com.linkedin.r2.transport.common.bridge.client.TransportClient;
+import com.linkedin.r2.transport.http.common.Netty4EventLoops;
+import com.linkedin.r2.util.NamedThreadFactory;
+
+/**
+ * An {@link HttpClientFactory} that can also create clients on the Netty 4 transport.
+ * <p/>
+ *
+ * Clients are created on the Netty 4 transport when their {@link #HTTP_TRANSPORT} property
+ * is {@link #TRANSPORT_NETTY4}, otherwise they are created by {@link HttpClientFactory} on the
+ * Netty 3 transport, so both transports can be used side by side while migrating.
+ * <p/>
+ *
+ * All Netty 4 clients created by the factory share one event loop group, by default with one
+ * native epoll or NIO event loop per available processor. The event loop group is shut down
+ * with the factory, if this option was selected at construction time.
+ */
+public class Netty4HttpClientFactory extends HttpClientFactory
+{
+  private static final Logger LOG = LoggerFactory.getLogger(Netty4HttpClientFactory.class);
+
+  /**
+   * The value of {@link #HTTP_TRANSPORT} selecting the Netty 4 transport.
+   */
+  public static final String TRANSPORT_NETTY4 = "netty4";
+
+  private final EventLoopGroup _eventLoopGroup;
+  private final boolean _shutdownEventLoopGroup;
+
+  /**
+   * Construct a new instance using an empty filter chain.
+   */
+  public Netty4HttpClientFactory()
+  {
+    this(FilterChains.empty());
+  }
+
+  /**
+   * Construct a new instance using the specified filter chain.
+   *
+   * @param filters the {@link FilterChain} shared by all Clients created by this factory.
+   */
+  public Netty4HttpClientFactory(FilterChain filters)
+  {
+    this(filters,
+         newChannelFactory(),
+         true,
+         Netty4EventLoops.newEventLoopGroup(0, "R2 Netty4 IO"),
+         true,
+         Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("R2 Netty Scheduler")),
+         true);
+  }
+
+  /**
+   * Creates a new Netty4HttpClientFactory.
+   *
+   * @param filters the filter chain shared by all Clients created by this factory
+   * @param channelFactory the ClientSocketChannelFactory that all Netty 3 Clients created by
+   *          this factory will share
+   * @param shutdownFactory if true, the channelFactory will be shut down when this
+   *          factory is shut down
+   * @param eventLoopGroup the event loop group that all Netty 4 Clients created by this
+   *          factory will share, see {@link Netty4EventLoops#newEventLoopGroup(int, String)}
+   * @param shutdownEventLoopGroup if true, the eventLoopGroup will be shut down when this
+   *          factory is shut down
+   * @param executor an executor shared by all Clients created by this factory to schedule
+   *          tasks
+   * @param shutdownExecutor if true, the executor will be shut down when this factory is
+   *          shut down
+   */
+  public Netty4HttpClientFactory(FilterChain filters,
+                                 ClientSocketChannelFactory channelFactory,
+                                 boolean shutdownFactory,
+                                 EventLoopGroup eventLoopGroup,
+                                 boolean shutdownEventLoopGroup,
+                                 ScheduledExecutorService executor,
+                                 boolean shutdownExecutor)
+  {
+    super(filters, channelFactory, shutdownFactory, executor, shutdownExecutor);
+    _eventLoopGroup = eventLoopGroup;
+    _shutdownEventLoopGroup = shutdownEventLoopGroup;
+  }
+
+  @Override
+  protected TransportClient getTransportClient(String transport,
+                                               Map<String, String> properties,
+                                               SSLContext sslContext,
+                                               SSLParameters sslParameters)
+  {
+    if (TRANSPORT_NETTY4.equals(transport))
+    {
+      if (sslContext != null || sslParameters != null)
+      {
+        throw new IllegalArgumentException("SSL is not supported by the " + TRANSPORT_NETTY4 + " transport");
+      }
+      return getRawNetty4Client(properties);
+    }
+    return super.getTransportClient(transport, properties, sslContext, sslParameters);
+  }
+
+  /**
+   * Testing aid.
+   */
+  Netty4HttpClient getRawNetty4Client(Map<String, String> properties)
+  {
+    ClientSettings settings = getClientSettings(properties);
+    return new Netty4HttpClient(_eventLoopGroup,
+                                getExecutor(),
+                                settings.getPoolSize(),
+                                settings.getRequestTimeout(),
+                                settings.getIdleTimeout(),
+                                settings.getShutdownTimeout(),
+                                settings.getMaxResponseSize(),
+                                settings.getQueryPostThreshold());
+  }
+
+  @Override
+  protected void releaseExternalResources()
+  {
+    if (_shutdownEventLoopGroup)
+    {
+      _eventLoopGroup.shutdownGracefully();
+      LOG.info("EventLoopGroup shutdown initiated");
+    }
+  }
+}
@@ -0,0 +1,106 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.transport.http.client;
+
+import com.linkedin.data.ByteString;
+import com.linkedin.r2.message.rest.HeaderMap;
+import com.linkedin.r2.message.rest.RestRequest;
+import com.linkedin.r2.message.rest.RestResponseBuilder;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToMessageCodec;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+import java.net.URL;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Converts {@link RestRequest}s to Netty 4 HTTP requests and aggregated Netty 4 HTTP responses
+ * to {@link com.linkedin.r2.message.rest.RestResponse}s.
+ * <p/>
+ *
+ * Request entities are copied once into a pooled I/O buffer of the channel's allocator, which
+ * is released when the request has been written. Response entities are copied once out of the
+ * pooled buffer into the {@link ByteString} of the response.
+ */
+class Netty4RAPClientCodec extends MessageToMessageCodec<FullHttpResponse, RestRequest>
+{
+  @Override
+  protected void encode(ChannelHandlerContext ctx, RestRequest request, List<Object> out) throws Exception
+  {
+    HttpMethod nettyMethod = HttpMethod.valueOf(request.getMethod());
+    URL url = new URL(request.getURI().toString());
+    String path = url.getFile();
+    // RFC 2616, section 5.1.2:
+    //   Note that the absolute path cannot be empty; if none is present in the original URI,
+    //   it MUST be given as "/" (the server root).
+    if (path.isEmpty())
+    {
+      path = "/";
+    }
+
+    final ByteString entity = request.getEntity();
+    ByteBuf content = ctx.alloc().ioBuffer(entity.length());
+    content.writeBytes(entity.asByteBuffer());
+    FullHttpRequest nettyRequest =
+        new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, nettyMethod, path, content);
+
+    HttpHeaders headers = nettyRequest.headers();
+    headers.set(HttpHeaders.Names.HOST, url.getAuthority());
+    Map<String, String> requestHeaders = request.getHeaders();
+    for (Map.Entry<String, String> e : requestHeaders.entrySet())
+    {
+      List<String> values = requestHeaders instanceof HeaderMap ? ((HeaderMap) requestHeaders).getAll(e.getKey()) : null;
+      if (values == null || values.size() == 1)
+      {
+        headers.set(e.getKey(), e.getValue());
+      }
+      else
+      {
+        headers.set(e.getKey(), values);
+      }
+    }
+    headers.set(HttpHeaders.Names.CONTENT_LENGTH, entity.length());
+
+    out.add(nettyRequest);
+  }
+
+  @Override
+  protected void decode(ChannelHandlerContext ctx, FullHttpResponse nettyResponse, List<Object> out) throws Exception
+  {
+    RestResponseBuilder builder = new RestResponseBuilder();
+
+    builder.setStatus(nettyResponse.getStatus().code());
+
+    for (Map.Entry<String, String> e : nettyResponse.headers())
+    {
+      builder.unsafeAddHeaderValue(e.getKey(), e.getValue());
+    }
+
+    ByteBuf buf = nettyResponse.content();
+    builder.setEntity(ByteString.read(new ByteBufInputStream(buf), buf.readableBytes()));
+
+    out.add(builder.build());
+  }
+}
@@ -0,0 +1,143 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.transport.http.client;
+
+import com.linkedin.r2.message.rest.HeaderMap;
+import com.linkedin.r2.message.rest.RestResponse;
+import com.linkedin.r2.message.rest.RestResponseBuilder;
+import com.linkedin.r2.transport.common.WireAttributeHelper;
+import com.linkedin.r2.transport.common.bridge.common.TransportCallback;
+import com.linkedin.r2.transport.common.bridge.common.TransportResponseImpl;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.util.AttributeKey;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.linkedin.r2.transport.http.client.Netty4HttpClient.LOG;
+
+
+/**
+ * Invokes the callback of the request outstanding on a channel, which is stored in the
+ * {@link #CALLBACK} attribute of the channel.
+ */
+@ChannelHandler.Sharable
+class Netty4RAPResponseHandler extends ChannelInboundHandlerAdapter
+{
+  static final AttributeKey<TransportCallback<RestResponse>> CALLBACK =
+      AttributeKey.valueOf("r2.netty4.callback");
+
+  // Note that an instance of this class needs to be stateless, since a single instance is used
+  // in multiple ChannelPipelines simultaneously.  The per-channel state is stored in the
+  // channel attribute.
+
+  @Override
+  public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception
+  {
+    RestResponse response = (RestResponse) msg;
+
+    // In general there should always be a callback to handle a received message,
+    // but it could have been removed due to a previous exception or closure on the
+    // channel
+    TransportCallback<RestResponse> callback = ctx.channel().attr(CALLBACK).getAndRemove();
+    if (callback != null)
+    {
+      LOG.debug("{}: handling a response", ctx.channel().remoteAddress());
+      final Map<String, String> headers = new HashMap<String, String>(response.getHeaders());
+      final Map<String, String> wireAttrs =
+            new HashMap<String, String>(WireAttributeHelper.removeWireAttributes(headers));
+
+      final RestResponse newResponse;
+      if (wireAttrs.isEmpty())
+      {
+        newResponse = response;
+      }
+      else
+      {
+        // copy the remaining headers with all of their values rather than the flattened copy
+        final RestResponseBuilder builder = new RestResponseBuilder(response).clearHeaders();
+        final Map<String, String> responseHeaders = response.getHeaders();
+        for (Map.Entry<String, String> e : headers.entrySet())
+        {
+          List<String> values = responseHeaders instanceof HeaderMap
+              ? ((HeaderMap) responseHeaders).getAll(e.getKey()) : null;
+          if (values == null)
+          {
+            builder.unsafeSetHeader(e.getKey(), e.getValue());
+          }
+          else
+          {
+            for (String value : values)
+            {
+              builder.unsafeAddHeaderValue(e.getKey(), value);
+            }
+          }
+        }
+        newResponse = builder.build();
+      }
+
+      callback.onResponse(TransportResponseImpl.success(newResponse, wireAttrs));
+    }
+    else
+    {
+      LOG.debug("{}: dropped a response", ctx.channel().remoteAddress());
+    }
+    ctx.fireChannelRead(msg);
+  }
+
+  @Override
+  public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception
+  {
+    TransportCallback<RestResponse> callback = ctx.channel().attr(CALLBACK).getAndRemove();
+    if (callback != null)
+    {
+      LOG.debug(ctx.channel().remoteAddress() + ": exception on active channel", cause);
+      callback.onResponse(TransportResponseImpl.<RestResponse>error(
+              HttpNettyClient.toException(cause), Collections.<String,String>emptyMap()));
+    }
+    else
+    {
+      LOG.debug(ctx.channel().remoteAddress() + ": exception on idle channel", cause);
+    }
+    ctx.fireExceptionCaught(cause);
+  }
+
+  @Override
+  public void channelInactive(ChannelHandlerContext ctx) throws Exception
+  {
+    // if the channel closed before a response was received, no exception is raised,
+    // so the outstanding request has to be failed here
+    TransportCallback<RestResponse> callback = ctx.channel().attr(CALLBACK).getAndRemove();
+    if (callback != null)
+    {
+      LOG.debug("{}: active channel closed", ctx.channel().remoteAddress());
+      callback.onResponse(TransportResponseImpl.<RestResponse>error(new ClosedChannelException(),
+                                                                    Collections.<String, String>emptyMap()));
+    }
+    else
+    {
+      LOG.debug("{}: idle channel closed", ctx.channel().remoteAddress());
+    }
+    ctx.fireChannelInactive();
+  }
+}
@@ -0,0 +1,105 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.transport.http.common;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.ServerSocketChannel;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates the Netty 4 event loop groups of the r2 transport, using the native epoll transport
+ * when it is available and NIO otherwise, and selects the matching channel classes.
+ */
+public class Netty4EventLoops
+{
+  private static final Logger LOG = LoggerFactory.getLogger(Netty4EventLoops.class);
+
+  private Netty4EventLoops()
+  {
+  }
+
+  /**
+   * @return true if the native epoll transport can be used on this platform.
+   */
+  public static boolean isEpollAvailable()
+  {
+    return Epoll.isAvailable();
+  }
+
+  /**
+   * Creates a new event loop group.
+   *
+   * @param threads the number of event loops, or a non-positive number for one event loop
+   *                per available processor.
+   * @param name the prefix of the names of the event loop threads.
+   * @return a new epoll event loop group if epoll is available, else a new NIO event loop group.
+   */
+  public static EventLoopGroup newEventLoopGroup(int threads, String name)
+  {
+    if (threads <= 0)
+    {
+      threads = Runtime.getRuntime().availableProcessors();
+    }
+    // DefaultThreadFactory creates threads with fast thread-local access, used by the pooled allocator
+    DefaultThreadFactory threadFactory = new DefaultThreadFactory(name, true);
+    if (isEpollAvailable())
+    {
+      try
+      {
+        EventLoopGroup group = new EpollEventLoopGroup(threads, threadFactory);
+        LOG.info("Using {} native epoll event loops for {}", threads, name);
+        return group;
+      }
+      catch (IllegalStateException e)
+      {
+        // the native library loaded but the event loops could not be created, e.g. without direct memory access
+        LOG.warn("Failed to create native epoll event loops for " + name + ", falling back to NIO", e);
+      }
+    }
+    LOG.info("Using {} NIO event loops for {}", threads, name);
+    return new NioEventLoopGroup(threads, threadFactory);
+  }
+
+  /**
+   * @param group an event loop group created by {@link #newEventLoopGroup(int, String)}.
+   * @return the client socket channel class that matches the event loop group.
+   */
+  public static Class<? extends SocketChannel> socketChannelClass(EventLoopGroup group)
+  {
+    return group instanceof EpollEventLoopGroup ? EpollSocketChannel.class : NioSocketChannel.class;
+  }
+
+  /**
+   * @param group an event loop group created by {@link #newEventLoopGroup(int, String)}.
+   * @return the server socket channel class that matches the event loop group.
+   */
+  public static Class<? extends ServerSocketChannel> serverSocketChannelClass(EventLoopGroup group)
+  {
+    return group instanceof EpollEventLoopGroup ? EpollServerSocketChannel.class : NioServerSocketChannel.class;
+  }
+}
@@ -0,0 +1,221 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.transport.http.server;
+
+import java.net.InetSocketAddress;
+import java.util.Collections;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
+import io.netty.util.concurrent.EventExecutorGroup;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.linkedin.r2.message.rest.RestRequest;
+import com.linkedin.r2.message.rest.RestResponse;
+import com.linkedin.r2.message.rest.RestResponseBuilder;
+import com.linkedin.r2.message.rest.RestStatus;
+import com.linkedin.r2.transport.common.WireAttributeHelper;
+import com.linkedin.r2.transport.common.bridge.common.TransportCallback;
+import com.linkedin.r2.transport.common.bridge.common.TransportResponse;
+import com.linkedin.r2.transport.common.bridge.common.TransportResponseImpl;
+import com.linkedin.r2.transport.http.common.Netty4EventLoops;
+
+/**
+ * An {@link HttpServer} on Netty 4.
+ * <p/>
+ *
+ * Connections are accepted and served by event loops sized to the available processors, using
+ * the native epoll transport when it is available, and allocate their buffers from the
+ * {@link PooledByteBufAllocator}. Like the Netty 3 server, requests are dispatched on a separate
+ * pool of handler threads so that handlers may block; with zero handler threads requests are
+ * dispatched on the event loops, which requires handlers that never block.
+ */
+public class Netty4HttpServer implements HttpServer
+{
+  private static final Logger LOG = LoggerFactory.getLogger(Netty4HttpServer.class);
+
+  public static final int DEFAULT_HANDLER_THREADS = 256;
+  public static final int DEFAULT_MAX_REQUEST_SIZE = 1024 * 1024;
+
+  private final int _port;
+  private final int _ioThreads;
+  private final int _handlerThreads;
+  private final HttpDispatcher _dispatcher;
+  private final ChannelGroup _allChannels = new DefaultChannelGroup("R2 Netty4 server channels",
+                                                                     GlobalEventExecutor.INSTANCE);
+
+  private EventLoopGroup _bossGroup;
+  private EventLoopGroup _workerGroup;
+  private EventExecutorGroup _handlerGroup;
+
+  public Netty4HttpServer(int port, HttpDispatcher dispatcher)
+  {
+    this(port, 0, DEFAULT_HANDLER_THREADS, dispatcher);
+  }
+
+  /**
+   * @param port the port to listen on.
+   * @param ioThreads the number of event loops, or a non-positive number for one per available processor.
+   * @param handlerThreads the number of threads dispatching requests, or zero to dispatch
+   *                       requests on the event loops.
+   * @param dispatcher the dispatcher of the requests.
+   */
+  public Netty4HttpServer(int port, int ioThreads, int handlerThreads, HttpDispatcher dispatcher)
+  {
+    _port = port;
+    _ioThreads = ioThreads;
+    _handlerThreads = handlerThreads;
+    _dispatcher = dispatcher;
+  }
+
+  @Override
+  public void start()
+  {
+    _bossGroup = Netty4EventLoops.newEventLoopGroup(1, "R2 Netty4 Server Boss");
+    _workerGroup = Netty4EventLoops.newEventLoopGroup(_ioThreads, "R2 Netty4 Server IO");
+    _handlerGroup = _handlerThreads > 0 ? new DefaultEventExecutorGroup(_handlerThreads) : null;
+    final Handler handler = new Handler();
+
+    ServerBootstrap bootstrap = new ServerBootstrap()
+        .group(_bossGroup, _workerGroup)
+        .channel(Netty4EventLoops.serverSocketChannelClass(_workerGroup))
+        .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+        .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+        .childOption(ChannelOption.TCP_NODELAY, true)
+        .childHandler(new ChannelInitializer<SocketChannel>()
+        {
+          @Override
+          protected void initChannel(SocketChannel ch) throws Exception
+          {
+            ChannelPipeline pipeline = ch.pipeline();
+            pipeline.addLast("codec", new HttpServerCodec());
+            pipeline.addLast("aggregator", new HttpObjectAggregator(DEFAULT_MAX_REQUEST_SIZE));
+            pipeline.addLast("rapi", new Netty4RAPServerCodec());
+            // a null group dispatches on the event loop of the channel
+            pipeline.addLast(_handlerGroup, "handler", handler);
+          }
+        });
+    Channel serverChannel = bootstrap.bind(new InetSocketAddress(_port)).syncUninterruptibly().channel();
+    _allChannels.add(serverChannel);
+    LOG.info("Started Netty4 HTTP server on port {}", _port);
+  }
+
+  @Override
+  public void stop()
+  {
+    LOG.info("Shutting down");
+    _allChannels.close().awaitUninterruptibly();
+    _bossGroup.shutdownGracefully();
+    _workerGroup.shutdownGracefully();
+    if (_handlerGroup != null)
+    {
+      _handlerGroup.shutdownGracefully();
+    }
+    _bossGroup.terminationFuture().awaitUninterruptibly();
+    _workerGroup.terminationFuture().awaitUninterruptibly();
+  }
+
+  @Override
+  public void waitForStop() throws InterruptedException
+  {
+    // Cheat and delegate to stop for now
+    stop();
+  }
+
+  @ChannelHandler.Sharable
+  private class Handler extends SimpleChannelInboundHandler<RestRequest>
+  {
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, RestRequest request) throws Exception
+    {
+      final Channel ch = ctx.channel();
+      final boolean close = HttpHeaders.Values.CLOSE.equalsIgnoreCase(request.getHeader(HttpHeaders.Names.CONNECTION));
+      TransportCallback<RestResponse> writeResponseCallback = new TransportCallback<RestResponse>()
+      {
+        @Override
+        public void onResponse(TransportResponse<RestResponse> response)
+        {
+          final RestResponseBuilder responseBuilder;
+          if (response.hasError())
+          {
+            // See HttpNettyServer: errors which were not turned into responses by the dispatcher
+            responseBuilder =
+                    new RestResponseBuilder(RestStatus.responseForError(RestStatus.INTERNAL_SERVER_ERROR, response.getError()));
+          }
+          else
+          {
+            responseBuilder = new RestResponseBuilder(response.getResponse());
+          }
+
+          responseBuilder
+            .unsafeOverwriteHeaders(WireAttributeHelper.toWireAttributes(response.getWireAttributes()));
+
+          // write failures do not raise exceptions in Netty 4, route them to exceptionCaught to close the channel
+          ChannelFuture future = ch.writeAndFlush(responseBuilder.build())
+              .addListener(ChannelFutureListener.FIRE_EXCEPTION_ON_FAILURE);
+          if (close)
+          {
+            future.addListener(ChannelFutureListener.CLOSE);
+          }
+        }
+      };
+      try
+      {
+        _dispatcher.handleRequest(request, writeResponseCallback);
+      }
+      catch (Exception ex)
+      {
+        writeResponseCallback.onResponse(TransportResponseImpl.<RestResponse> error(ex,
+                                                                                    Collections.<String, String> emptyMap()));
+      }
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception
+    {
+      _allChannels.add(ctx.channel());
+      super.channelActive(ctx);
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception
+    {
+      LOG.warn(ctx.channel().remoteAddress() + ": closing channel after exception", cause);
+      ctx.close();
+    }
+  }
+}
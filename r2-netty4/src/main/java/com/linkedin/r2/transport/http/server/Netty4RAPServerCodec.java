@@ -0,0 +1,90 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.transport.http.server;
+
+import com.linkedin.data.ByteString;
+import com.linkedin.r2.message.rest.HeaderMap;
+import com.linkedin.r2.message.rest.RestRequestBuilder;
+import com.linkedin.r2.message.rest.RestResponse;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToMessageCodec;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Converts aggregated Netty 4 HTTP requests to {@link com.linkedin.r2.message.rest.RestRequest}s
+ * and {@link RestResponse}s to Netty 4 HTTP responses, copying entities once between the pooled
+ * buffers of the channel and {@link ByteString}s.
+ */
+class Netty4RAPServerCodec extends MessageToMessageCodec<FullHttpRequest, RestResponse>
+{
+  @Override
+  protected void decode(ChannelHandlerContext ctx, FullHttpRequest nettyRequest, List<Object> out) throws Exception
+  {
+    URI uri = new URI(nettyRequest.getUri());
+    RestRequestBuilder builder = new RestRequestBuilder(uri);
+    builder.setMethod(nettyRequest.getMethod().name());
+    for (Map.Entry<String, String> e : nettyRequest.headers())
+    {
+      builder.unsafeAddHeaderValue(e.getKey(), e.getValue());
+    }
+    ByteBuf buf = nettyRequest.content();
+    builder.setEntity(ByteString.read(new ByteBufInputStream(buf), buf.readableBytes()));
+
+    out.add(builder.build());
+  }
+
+  @Override
+  protected void encode(ChannelHandlerContext ctx, RestResponse response, List<Object> out) throws Exception
+  {
+    final ByteString entity = response.getEntity();
+    ByteBuf content = ctx.alloc().ioBuffer(entity.length());
+    content.writeBytes(entity.asByteBuffer());
+    FullHttpResponse nettyResponse =
+        new DefaultFullHttpResponse(HttpVersion.HTTP_1_1,
+                                    HttpResponseStatus.valueOf(response.getStatus()),
+                                    content);
+
+    HttpHeaders headers = nettyResponse.headers();
+    Map<String, String> responseHeaders = response.getHeaders();
+    for (Map.Entry<String, String> e : responseHeaders.entrySet())
+    {
+      List<String> values = responseHeaders instanceof HeaderMap ? ((HeaderMap) responseHeaders).getAll(e.getKey()) : null;
+      if (values == null || values.size() == 1)
+      {
+        headers.set(e.getKey(), e.getValue());
+      }
+      else
+      {
+        headers.set(e.getKey(), values);
+      }
+    }
+    headers.set(HttpHeaders.Names.CONTENT_LENGTH, entity.length());
+
+    out.add(nettyResponse);
+  }
+}
@@ -0,0 +1,418 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package test.r2.perf;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.linkedin.common.callback.Callback;
+import com.linkedin.common.callback.FutureCallback;
+import com.linkedin.common.util.None;
+import com.linkedin.r2.caprep.db.CaptureLogReader;
+import com.linkedin.r2.caprep.db.CapturedPair;
+import com.linkedin.r2.filter.instrumentation.LatencyHistogram;
+import com.linkedin.r2.message.Request;
+import com.linkedin.r2.message.Response;
+import com.linkedin.r2.message.rest.RestException;
+import com.linkedin.r2.message.rest.RestRequest;
+import com.linkedin.r2.message.rest.RestResponse;
+import com.linkedin.r2.message.rpc.RpcRequest;
+import com.linkedin.r2.message.rpc.RpcResponse;
+import com.linkedin.r2.transport.common.Client;
+import com.linkedin.r2.transport.common.bridge.client.TransportClientAdapter;
+import com.linkedin.r2.transport.http.client.HttpClientFactory;
+
+
+/**
+ * Replays the requests of a CapRep capture log against a {@link Client}, with the inter-arrival
+ * times they were captured with, optionally sped up or slowed down.
+ * <p/>
+ *
+ * The load is open-loop: each request is sent at its scheduled time whether or not the previous
+ * responses have arrived, and its response time is measured from the scheduled time rather than
+ * from the time it was actually sent, so that a stalled client or server is not hidden by
+ * coordinated omission. The time from the actual send is reported as the service time.
+ * <p/>
+ *
+ * The requests are scheduled from the times they arrived at the capturing server. Since the pairs
+ * are logged when their responses complete, they are read ahead into a window of
+ * {@link #REORDER_WINDOW} pairs and sent in order of arrival.
+ * <p/>
+ *
+ * The responses are compared with the captured ones: rest responses by status and entity, rpc
+ * responses by entity. Headers are not compared, since they typically hold dates and host names.
+ */
+public class CaptureReplayDriver implements TestConstants
+{
+  private static final Logger _log = LoggerFactory.getLogger(CaptureReplayDriver.class);
+
+  private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+  private static final String[] PERCENTILE_NAMES = { "p50", "p90", "p99", "p99.9" };
+  private static final int MAX_LOGGED_MISMATCHES = 10;
+
+  /**
+   * The number of pairs read ahead to restore the arrival order, which must exceed the number of
+   * requests that were in flight at once when the log was captured.
+   */
+  public static final int REORDER_WINDOW = 4096;
+
+  private static final Comparator<CapturedPair> ARRIVAL_ORDER = new Comparator<CapturedPair>()
+  {
+    @Override
+    public int compare(CapturedPair p1, CapturedPair p2)
+    {
+      final long t1 = p1.getTimestamp();
+      final long t2 = p2.getTimestamp();
+      return t1 < t2 ? -1 : (t1 == t2 ? 0 : 1);
+    }
+  };
+
+  private final Client _client;
+  private final URI _target;
+  private final double _speed;
+  private final boolean _diff;
+
+  private final LatencyHistogram _responseTimes = new LatencyHistogram();
+  private final LatencyHistogram _serviceTimes = new LatencyHistogram();
+  private final LatencyHistogram _sendLags = new LatencyHistogram();
+  private final AtomicInteger _outstanding = new AtomicInteger();
+  private final AtomicLong _completed = new AtomicLong();
+  private final AtomicLong _errors = new AtomicLong();
+  private final AtomicLong _mismatches = new AtomicLong();
+  private long _sent;
+  private long _elapsedNanos;
+
+  /**
+   * @param client the client to send the requests with.
+   * @param target the scheme, host and port to send the requests to; the path and query of the
+   *               captured requests are kept.
+   * @param speed the speed multiple of the replay, e.g. 2 to send the requests twice as fast as
+   *              they were captured.
+   * @param diff true to compare the responses with the captured ones.
+   */
+  public CaptureReplayDriver(Client client, URI target, double speed, boolean diff)
+  {
+    if (speed <= 0)
+    {
+      throw new IllegalArgumentException("Speed must be positive: " + speed);
+    }
+    _client = client;
+    _target = target;
+    _speed = speed;
+    _diff = diff;
+  }
+
+  /**
+   * Replay the requests of a capture log, then wait for their responses.
+   *
+   * @param reader the reader of the capture log.
+   * @param timeout the maximum time to wait for the responses after the last request was sent.
+   * @param unit the unit of the timeout.
+   * @return true if all the responses arrived before the timeout.
+   */
+  public boolean replay(CaptureLogReader reader, long timeout, TimeUnit unit)
+      throws IOException, InterruptedException
+  {
+    final PriorityQueue<CapturedPair> window = new PriorityQueue<CapturedPair>(REORDER_WINDOW, ARRIVAL_ORDER);
+    boolean more = true;
+    long firstTimestamp = 0;
+    long startNanos = 0;
+    while (true)
+    {
+      while (more && window.size() < REORDER_WINDOW)
+      {
+        final CapturedPair next = reader.next();
+        if (next == null)
+        {
+          more = false;
+        }
+        else
+        {
+          window.add(next);
+        }
+      }
+      final CapturedPair pair = window.poll();
+      if (pair == null)
+      {
+        break;
+      }
+      if (_sent == 0)
+      {
+        firstTimestamp = pair.getTimestamp();
+        startNanos = System.nanoTime();
+      }
+      // a pair which arrived before the pairs already sent, beyond the window, is sent at once
+      final long offsetNanos = Math.max(0, pair.getTimestamp() - firstTimestamp);
+      final long scheduledNanos = startNanos + (long) (offsetNanos / _speed);
+      long remaining;
+      while ((remaining = scheduledNanos - System.nanoTime()) > 0)
+      {
+        LockSupport.parkNanos(remaining);
+      }
+      send(pair, scheduledNanos);
+      _sent++;
+    }
+
+    final long deadline = System.nanoTime() + unit.toNanos(timeout);
+    while (_outstanding.get() > 0 && System.nanoTime() < deadline)
+    {
+      Thread.sleep(10);
+    }
+    _elapsedNanos = System.nanoTime() - startNanos;
+    return _outstanding.get() == 0;
+  }
+
+  /**
+   * Print the throughput, latencies and mismatches of the replay.
+   */
+  public void printReport(PrintStream out)
+  {
+    out.println(String.format("sent: %d, completed: %d, errors: %d, mismatches: %d, outstanding: %d",
+                              _sent, _completed.get(), _errors.get(), _mismatches.get(), _outstanding.get()));
+    if (_elapsedNanos > 0)
+    {
+      out.println(String.format("elapsed: %.1fs, requests/s: %.1f", _elapsedNanos / 1e9,
+                                _completed.get() * 1e9 / _elapsedNanos));
+    }
+    printLatencies(out, "response time", _responseTimes);
+    printLatencies(out, "service time", _serviceTimes);
+    printLatencies(out, "send lag", _sendLags);
+  }
+
+  public long getSentCount()
+  {
+    return _sent;
+  }
+
+  public long getCompletedCount()
+  {
+    return _completed.get();
+  }
+
+  public long getErrorCount()
+  {
+    return _errors.get();
+  }
+
+  public long getMismatchCount()
+  {
+    return _mismatches.get();
+  }
+
+  public LatencyHistogram getResponseTimes()
+  {
+    return _responseTimes;
+  }
+
+  public LatencyHistogram getServiceTimes()
+  {
+    return _serviceTimes;
+  }
+
+  private void send(CapturedPair pair, final long scheduledNanos)
+  {
+    final Request captured = pair.getRequest();
+    final Response expected = pair.getResponse();
+    final URI uri = retarget(captured.getURI());
+    final long sendNanos = System.nanoTime();
+    _sendLags.record(sendNanos - scheduledNanos);
+    _outstanding.incrementAndGet();
+
+    if (captured instanceof RestRequest)
+    {
+      final RestRequest request = ((RestRequest) captured).builder().setURI(uri).build();
+      _client.restRequest(request, new Callback<RestResponse>()
+      {
+        @Override
+        public void onSuccess(RestResponse result)
+        {
+          completed(request, expected, result, scheduledNanos, sendNanos);
+        }
+
+        @Override
+        public void onError(Throwable e)
+        {
+          if (e instanceof RestException)
+          {
+            completed(request, expected, ((RestException) e).getResponse(), scheduledNanos, sendNanos);
+          }
+          else
+          {
+            failed(request, e, scheduledNanos, sendNanos);
+          }
+        }
+      });
+    }
+    else
+    {
+      final RpcRequest request = ((RpcRequest) captured).builder().setURI(uri).build();
+      _client.rpcRequest(request, new Callback<RpcResponse>()
+      {
+        @Override
+        public void onSuccess(RpcResponse result)
+        {
+          completed(request, expected, result, scheduledNanos, sendNanos);
+        }
+
+        @Override
+        public void onError(Throwable e)
+        {
+          failed(request, e, scheduledNanos, sendNanos);
+        }
+      });
+    }
+  }
+
+  private void completed(Request request, Response expected, Response actual, long scheduledNanos, long sendNanos)
+  {
+    recordLatencies(scheduledNanos, sendNanos);
+    if (_diff)
+    {
+      final String mismatch = diff(expected, actual);
+      if (mismatch != null && _mismatches.incrementAndGet() <= MAX_LOGGED_MISMATCHES)
+      {
+        _log.info("Response mismatch for " + request.getURI() + ": " + mismatch);
+      }
+    }
+    _completed.incrementAndGet();
+    _outstanding.decrementAndGet();
+  }
+
+  private void failed(Request request, Throwable e, long scheduledNanos, long sendNanos)
+  {
+    recordLatencies(scheduledNanos, sendNanos);
+    _log.debug("Request failed: " + request.getURI(), e);
+    _errors.incrementAndGet();
+    _outstanding.decrementAndGet();
+  }
+
+  private void recordLatencies(long scheduledNanos, long sendNanos)
+  {
+    final long now = System.nanoTime();
+    _responseTimes.record(now - scheduledNanos);
+    _serviceTimes.record(now - sendNanos);
+  }
+
+  private URI retarget(URI uri)
+  {
+    final StringBuilder sb = new StringBuilder();
+    sb.append(_target.getScheme()).append("://").append(_target.getRawAuthority());
+    if (uri.getRawPath() != null)
+    {
+      if (uri.getRawPath().startsWith("/") == false)
+      {
+        sb.append('/');
+      }
+      sb.append(uri.getRawPath());
+    }
+    if (uri.getRawQuery() != null)
+    {
+      sb.append('?').append(uri.getRawQuery());
+    }
+    return URI.create(sb.toString());
+  }
+
+  /**
+   * @return a description of the difference between the responses, or null if they match.
+   */
+  private static String diff(Response expected, Response actual)
+  {
+    if (expected instanceof RestResponse)
+    {
+      final int expectedStatus = ((RestResponse) expected).getStatus();
+      final int actualStatus = ((RestResponse) actual).getStatus();
+      if (expectedStatus != actualStatus)
+      {
+        return "status " + actualStatus + ", expected " + expectedStatus;
+      }
+    }
+    if (expected.getEntity().equals(actual.getEntity()) == false)
+    {
+      return "entity of " + actual.getEntity().length() + " bytes, expected " +
+          expected.getEntity().length() + " bytes";
+    }
+    return null;
+  }
+
+  private static void printLatencies(PrintStream out, String name, LatencyHistogram histogram)
+  {
+    final StringBuilder sb = new StringBuilder(name).append(" ms:");
+    for (int i = 0; i < PERCENTILES.length; i++)
+    {
+      sb.append(String.format(" %s: %.3f,", PERCENTILE_NAMES[i], histogram.getPercentile(PERCENTILES[i]) / 1e6));
+    }
+    sb.append(String.format(" max: %.3f, mean: %.3f", histogram.getMax() / 1e6, histogram.getMean() / 1e6));
+    out.println(sb);
+  }
+
+  public static void main(String[] args) throws Exception
+  {
+    final String dir = System.getProperty(CAPTURE_DIR_PROP_NAME);
+    if (dir == null)
+    {
+      System.err.println("Missing property: " + CAPTURE_DIR_PROP_NAME);
+      System.exit(1);
+    }
+    final String host = MiscUtil.getString(SERVER_HOST_PROP_NAME, DEFAULT_HOST);
+    final int port = Integer.parseInt(MiscUtil.getString(SERVER_PORT_PROP_NAME, DEFAULT_PORT));
+    final double speed = Double.parseDouble(MiscUtil.getString(REPLAY_SPEED_PROP_NAME, DEFAULT_REPLAY_SPEED));
+    final boolean diff = Boolean.parseBoolean(MiscUtil.getString(REPLAY_DIFF_PROP_NAME, DEFAULT_REPLAY_DIFF));
+    final long timeout = Long.parseLong(MiscUtil.getString(REPLAY_TIMEOUT_PROP_NAME, DEFAULT_REPLAY_TIMEOUT));
+    System.out.println(CAPTURE_DIR_PROP_NAME + ":" + dir);
+    System.out.println(SERVER_HOST_PROP_NAME + ":" + host);
+    System.out.println(SERVER_PORT_PROP_NAME + ":" + port);
+    System.out.println(REPLAY_SPEED_PROP_NAME + ":" + speed);
+    System.out.println(REPLAY_DIFF_PROP_NAME + ":" + diff);
+
+    final HttpClientFactory factory = new HttpClientFactory();
+    final Client client = new TransportClientAdapter(factory.getClient(Collections.<String, String>emptyMap()));
+    final CaptureLogReader reader = new CaptureLogReader(dir);
+    try
+    {
+      final CaptureReplayDriver driver = new CaptureReplayDriver(client, URI.create("http://" + host + ":" + port),
+                                                                 speed, diff);
+      if (driver.replay(reader, timeout, TimeUnit.SECONDS) == false)
+      {
+        System.out.println("Timed out waiting for responses");
+      }
+      driver.printReport(System.out);
+    }
+    finally
+    {
+      reader.close();
+      final FutureCallback<None> callback = new FutureCallback<None>();
+      client.shutdown(callback);
+      callback.get(30, TimeUnit.SECONDS);
+      final FutureCallback<None> factoryCallback = new FutureCallback<None>();
+      factory.shutdown(factoryCallback, 30, TimeUnit.SECONDS);
+      factoryCallback.get(30, TimeUnit.SECONDS);
+    }
+    System.exit(0);
+  }
+}
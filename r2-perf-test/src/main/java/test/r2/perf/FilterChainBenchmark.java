@@ -0,0 +1,193 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package test.r2.perf;
+
+import com.linkedin.r2.filter.FilterChain;
+import com.linkedin.r2.filter.FilterChains;
+import com.linkedin.r2.filter.NextFilter;
+import com.linkedin.r2.filter.instrumentation.FilterChainInstrumentation;
+import com.linkedin.r2.filter.message.MessageFilter;
+import com.linkedin.r2.filter.message.rest.RestFilter;
+import com.linkedin.r2.filter.message.rest.RestRequestFilter;
+import com.linkedin.r2.message.Request;
+import com.linkedin.r2.message.RequestContext;
+import com.linkedin.r2.message.Response;
+import com.linkedin.r2.message.rest.RestRequest;
+import com.linkedin.r2.message.rest.RestRequestBuilder;
+import com.linkedin.r2.message.rest.RestResponse;
+import com.linkedin.r2.message.rest.RestResponseBuilder;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * Measures the overhead of dispatching a rest request and its response through a
+ * {@link FilterChain} of pass-through filters, without any transport.
+ * <p/>
+ *
+ * For each chain length the time of a request/response round trip is measured after a warm-up,
+ * and the overhead per filter is reported relative to a chain without pass-through filters.
+ * The chains alternate between rest filters and message filters, and end with a filter which
+ * responds to the request, like the transport filter of a client.
+ * <p/>
+ *
+ * The longest chain is also measured with {@link FilterChainInstrumentation}, sampling every
+ * message and sampling one of {@link #SAMPLE_RATE} messages.
+ */
+public class FilterChainBenchmark
+{
+  private static final String ITERATIONS_PROP_NAME = "perf.iterations";
+  private static final String DEFAULT_ITERATIONS = "5000000";
+  private static final int[] CHAIN_LENGTHS = { 0, 4, 8, 12 };
+  private static final int SAMPLE_RATE = 100;
+
+  public static void main(String[] args)
+  {
+    final int iterations = Integer.parseInt(System.getProperty(ITERATIONS_PROP_NAME, DEFAULT_ITERATIONS));
+    final RestRequest request = new RestRequestBuilder(URI.create("/echo")).build();
+    final RestResponse response = new RestResponseBuilder().build();
+
+    double baseline = 0;
+    double longest = 0;
+    for (int length : CHAIN_LENGTHS)
+    {
+      final FilterChain chain = createChain(length, response);
+      // warm up, then measure
+      run(chain, request, iterations);
+      final double nanosPerRequest = run(chain, request, iterations);
+      if (length == 0)
+      {
+        baseline = nanosPerRequest;
+        System.out.println(String.format("filters: %2d, ns/request: %8.1f", length, nanosPerRequest));
+      }
+      else
+      {
+        System.out.println(String.format("filters: %2d, ns/request: %8.1f, ns/filter: %6.1f",
+                                         length, nanosPerRequest, (nanosPerRequest - baseline) / length));
+      }
+      longest = nanosPerRequest;
+    }
+
+    final int length = CHAIN_LENGTHS[CHAIN_LENGTHS.length - 1];
+    for (int sampleRate : new int[] { 1, SAMPLE_RATE })
+    {
+      final FilterChain chain = FilterChains.instrument(createChain(length, response),
+                                                        new FilterChainInstrumentation(sampleRate, null));
+      run(chain, request, iterations);
+      final double nanosPerRequest = run(chain, request, iterations);
+      System.out.println(String.format("filters: %2d, sample rate: %3d, ns/request: %8.1f, ns/request overhead: %6.1f",
+                                       length, sampleRate, nanosPerRequest, nanosPerRequest - longest));
+    }
+  }
+
+  private static double run(FilterChain chain, RestRequest request, int iterations)
+  {
+    final RequestContext requestContext = new RequestContext();
+    final Map<String, String> wireAttrs = new HashMap<String, String>();
+    final long start = System.nanoTime();
+    for (int i = 0; i < iterations; i++)
+    {
+      chain.onRestRequest(request, requestContext, wireAttrs);
+    }
+    return (double) (System.nanoTime() - start) / iterations;
+  }
+
+  private static FilterChain createChain(int length, RestResponse response)
+  {
+    FilterChain chain = FilterChains.empty();
+    for (int i = 0; i < length; i++)
+    {
+      chain = chain.addLast(i % 2 == 0 ? new PassThroughRestFilter() : new PassThroughMessageFilter());
+    }
+    return chain.addLast(new RespondingFilter(response));
+  }
+
+  private static class PassThroughRestFilter implements RestFilter
+  {
+    @Override
+    public void onRestRequest(RestRequest req, RequestContext requestContext,
+                              Map<String, String> wireAttrs,
+                              NextFilter<RestRequest, RestResponse> nextFilter)
+    {
+      nextFilter.onRequest(req, requestContext, wireAttrs);
+    }
+
+    @Override
+    public void onRestResponse(RestResponse res, RequestContext requestContext,
+                               Map<String, String> wireAttrs,
+                               NextFilter<RestRequest, RestResponse> nextFilter)
+    {
+      nextFilter.onResponse(res, requestContext, wireAttrs);
+    }
+
+    @Override
+    public void onRestError(Throwable ex, RequestContext requestContext,
+                            Map<String, String> wireAttrs,
+                            NextFilter<RestRequest, RestResponse> nextFilter)
+    {
+      nextFilter.onError(ex, requestContext, wireAttrs);
+    }
+  }
+
+  private static class PassThroughMessageFilter implements MessageFilter
+  {
+    @Override
+    public void onRequest(Request req, RequestContext requestContext,
+                          Map<String, String> wireAttrs,
+                          NextFilter<Request, Response> nextFilter)
+    {
+      nextFilter.onRequest(req, requestContext, wireAttrs);
+    }
+
+    @Override
+    public void onResponse(Response res, RequestContext requestContext,
+                           Map<String, String> wireAttrs,
+                           NextFilter<Request, Response> nextFilter)
+    {
+      nextFilter.onResponse(res, requestContext, wireAttrs);
+    }
+
+    @Override
+    public void onError(Throwable ex, RequestContext requestContext,
+                        Map<String, String> wireAttrs,
+                        NextFilter<Request, Response> nextFilter)
+    {
+      nextFilter.onError(ex, requestContext, wireAttrs);
+    }
+  }
+
+  private static class RespondingFilter implements RestRequestFilter
+  {
+    private final RestResponse _response;
+
+    private RespondingFilter(RestResponse response)
+    {
+      _response = response;
+    }
+
+    @Override
+    public void onRestRequest(RestRequest req, RequestContext requestContext,
+                              Map<String, String> wireAttrs,
+                              NextFilter<RestRequest, RestResponse> nextFilter)
+    {
+      nextFilter.onResponse(_response, requestContext, wireAttrs);
+    }
+  }
+}
@@ -0,0 +1,371 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package test.r2.perf;
+
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import com.linkedin.common.callback.Callback;
+import com.linkedin.common.callback.FutureCallback;
+import com.linkedin.common.util.None;
+import com.linkedin.data.DataList;
+import com.linkedin.data.DataMap;
+import com.linkedin.data.codec.JacksonDataCodec;
+import com.linkedin.r2.message.rest.RestRequest;
+import com.linkedin.r2.message.rest.RestResponse;
+import com.linkedin.r2.transport.common.Client;
+import com.linkedin.r2.transport.common.bridge.client.TransportClientAdapter;
+import com.linkedin.r2.transport.http.client.HttpClientFactory;
+
+
+/**
+ * An open-loop load generator: requests of a {@link RequestScenario} are sent on a fixed schedule,
+ * at the rates of a sequence of {@link LoadPhase}s, whether or not the previous responses have
+ * arrived. A server which stalls thus accumulates outstanding requests, as it would in production,
+ * instead of throttling the load like a closed-loop driver such as {@link R2PerfDriver} does.
+ * <p/>
+ *
+ * The response time of a request is measured from the time it was scheduled to be sent, so that
+ * the latencies are corrected for coordinated omission, e.g. when the client itself falls behind.
+ * Requests are not sent while the maximum number of requests is outstanding; such requests are
+ * deferred until the backlog clears, and still measured from the time they were scheduled.
+ * Requests which are still deferred when the run times out are counted as dropped, and requests
+ * still waiting for their response are recorded as timed out with the time elapsed since they were
+ * scheduled. Either invalidates the results of their phase, see {@link LoadResult#isValid()}.
+ * <p/>
+ *
+ * By default, {@link #main} runs the greetings resource of restli-int-test-server, see its
+ * startServer task, with a warm-up, then steps through the rates of the perf.rates property with
+ * linear ramps in between, and writes the results as JSON to the file of the perf.reportfile
+ * property for regression tracking.
+ */
+public class LoadGenerator implements TestConstants
+{
+  private static final long MIN_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final Client _client;
+  private final RequestScenario _scenario;
+  private final List<LoadPhase> _phases;
+  private final int _maxOutstanding;
+  private final AtomicInteger _outstanding = new AtomicInteger();
+  private final Set<InFlight> _inFlight = Collections.newSetFromMap(new ConcurrentHashMap<InFlight, Boolean>());
+  // only accessed by the thread of run()
+  private final Queue<Deferred> _backlog = new ArrayDeque<Deferred>();
+
+  /**
+   * @param client the client to send the requests with.
+   * @param scenario the scenario of the requests.
+   * @param phases the phases of the schedule, in order.
+   * @param maxOutstanding the maximum number of requests waiting for a response.
+   */
+  public LoadGenerator(Client client, RequestScenario scenario, List<LoadPhase> phases, int maxOutstanding)
+  {
+    _client = client;
+    _scenario = scenario;
+    _phases = new ArrayList<LoadPhase>(phases);
+    _maxOutstanding = maxOutstanding;
+  }
+
+  /**
+   * Run the phases, then send the deferred requests and wait for the outstanding responses.
+   *
+   * @param timeout the maximum time to wait for the deferred requests and the outstanding responses.
+   * @param unit the unit of the timeout.
+   * @return the results of the measured phases.
+   */
+  public List<LoadResult> run(long timeout, TimeUnit unit) throws InterruptedException
+  {
+    final List<LoadResult> results = new ArrayList<LoadResult>();
+    long phaseStart = System.nanoTime();
+    for (LoadPhase phase : _phases)
+    {
+      final LoadResult result = new LoadResult(phase);
+      if (phase.isMeasured())
+      {
+        results.add(result);
+      }
+      final long phaseEnd = phaseStart + phase.getDurationNanos();
+      long scheduled = phaseStart;
+      while (scheduled < phaseEnd)
+      {
+        final double rate = phase.rateAt(scheduled - phaseStart);
+        if (rate <= 0)
+        {
+          scheduled += MIN_INTERVAL_NANOS;
+          continue;
+        }
+        long remaining;
+        while ((remaining = scheduled - System.nanoTime()) > 0)
+        {
+          if (_backlog.isEmpty())
+          {
+            LockSupport.parkNanos(remaining);
+          }
+          else
+          {
+            LockSupport.parkNanos(Math.min(remaining, MIN_INTERVAL_NANOS));
+            sendBacklog();
+          }
+        }
+        schedule(result, scheduled);
+        scheduled += (long) (1e9 / rate);
+      }
+      // the next phase starts on schedule even if this one fell behind
+      phaseStart = phaseEnd;
+    }
+
+    final long deadline = System.nanoTime() + unit.toNanos(timeout);
+    while (!_backlog.isEmpty() && System.nanoTime() < deadline)
+    {
+      LockSupport.parkNanos(MIN_INTERVAL_NANOS);
+      sendBacklog();
+    }
+    while (_outstanding.get() > 0 && System.nanoTime() < deadline)
+    {
+      Thread.sleep(10);
+    }
+    Deferred deferred;
+    while ((deferred = _backlog.poll()) != null)
+    {
+      deferred._result.dropped();
+    }
+    for (InFlight inFlight : _inFlight)
+    {
+      inFlight.timedOut();
+    }
+    return results;
+  }
+
+  private void schedule(LoadResult result, long scheduledNanos)
+  {
+    sendBacklog();
+    if (_backlog.isEmpty() && _outstanding.get() < _maxOutstanding)
+    {
+      send(result, scheduledNanos);
+    }
+    else
+    {
+      result.deferred();
+      _backlog.add(new Deferred(result, scheduledNanos));
+    }
+  }
+
+  private void sendBacklog()
+  {
+    while (!_backlog.isEmpty() && _outstanding.get() < _maxOutstanding)
+    {
+      final Deferred deferred = _backlog.remove();
+      send(deferred._result, deferred._scheduledNanos);
+    }
+  }
+
+  private void send(LoadResult result, long scheduledNanos)
+  {
+    final RestRequest request = _scenario.nextRequest();
+    final InFlight inFlight = new InFlight(result, scheduledNanos, System.nanoTime());
+    _outstanding.incrementAndGet();
+    _inFlight.add(inFlight);
+    result.sent();
+    _client.restRequest(request, inFlight);
+  }
+
+  /**
+   * A request waiting for its response, which is recorded once: either when the response arrives
+   * or as timed out when the run ends without it.
+   */
+  private class InFlight implements Callback<RestResponse>
+  {
+    private final LoadResult _result;
+    private final long _scheduledNanos;
+    private final long _sendNanos;
+    private final AtomicBoolean _recorded = new AtomicBoolean();
+
+    InFlight(LoadResult result, long scheduledNanos, long sendNanos)
+    {
+      _result = result;
+      _scheduledNanos = scheduledNanos;
+      _sendNanos = sendNanos;
+    }
+
+    @Override
+    public void onSuccess(RestResponse response)
+    {
+      if (claim())
+      {
+        _result.completed(_scheduledNanos, _sendNanos, false);
+      }
+    }
+
+    @Override
+    public void onError(Throwable e)
+    {
+      if (claim())
+      {
+        _result.completed(_scheduledNanos, _sendNanos, true);
+      }
+    }
+
+    void timedOut()
+    {
+      if (claim())
+      {
+        _result.timedOut(_scheduledNanos, _sendNanos);
+      }
+    }
+
+    private boolean claim()
+    {
+      if (_recorded.compareAndSet(false, true))
+      {
+        _inFlight.remove(this);
+        _outstanding.decrementAndGet();
+        return true;
+      }
+      return false;
+    }
+  }
+
+  private static class Deferred
+  {
+    private final LoadResult _result;
+    private final long _scheduledNanos;
+
+    Deferred(LoadResult result, long scheduledNanos)
+    {
+      _result = result;
+      _scheduledNanos = scheduledNanos;
+    }
+  }
+
+  /**
+   * @return a schedule of a warm-up at the first rate, then of each rate in turn, preceded by a
+   *         linear ramp from the previous rate if the ramp duration is positive.
+   */
+  public static List<LoadPhase> schedule(double[] rates, long warmupSeconds, long rampSeconds, long durationSeconds)
+  {
+    final List<LoadPhase> phases = new ArrayList<LoadPhase>();
+    if (warmupSeconds > 0)
+    {
+      phases.add(LoadPhase.warmup(rates[0], warmupSeconds));
+    }
+    double previous = rates[0];
+    for (double rate : rates)
+    {
+      if (rampSeconds > 0 && rate != previous)
+      {
+        phases.add(LoadPhase.ramp(previous, rate, rampSeconds));
+      }
+      phases.add(LoadPhase.steady(rate, durationSeconds));
+      previous = rate;
+    }
+    return phases;
+  }
+
+  /**
+   * @return the results of a run as a {@link DataMap}.
+   */
+  public static DataMap toDataMap(RequestScenario scenario, List<LoadResult> results)
+  {
+    final DataMap map = new DataMap();
+    map.put("scenario", scenario.getName());
+    map.put("timestamp", System.currentTimeMillis());
+    final DataList phases = new DataList();
+    for (LoadResult result : results)
+    {
+      phases.add(result.toDataMap());
+    }
+    map.put("phases", phases);
+    return map;
+  }
+
+  public static void main(String[] args) throws Exception
+  {
+    final String host = MiscUtil.getString(SERVER_HOST_PROP_NAME, DEFAULT_HOST);
+    final int port = Integer.parseInt(MiscUtil.getString(SERVER_PORT_PROP_NAME, DEFAULT_RESTLI_PORT));
+    final String resource = MiscUtil.getString(RESOURCE_PROP_NAME, DEFAULT_RESOURCE);
+    final String scenarioName = MiscUtil.getString(SCENARIO_PROP_NAME, DEFAULT_SCENARIO);
+    final long maxId = Long.parseLong(MiscUtil.getString(MAX_ID_PROP_NAME, DEFAULT_MAX_ID));
+    final int batchSize = Integer.parseInt(MiscUtil.getString(BATCH_SIZE_PROP_NAME, DEFAULT_BATCH_SIZE));
+    final String finderQuery = MiscUtil.getString(FINDER_QUERY_PROP_NAME, DEFAULT_FINDER_QUERY);
+    final String[] rateStrings = MiscUtil.getString(RATES_PROP_NAME, DEFAULT_RATES).split(",");
+    final long warmup = Long.parseLong(MiscUtil.getString(WARMUP_PROP_NAME, DEFAULT_WARMUP));
+    final long ramp = Long.parseLong(MiscUtil.getString(RAMPUP_PROP_NAME, DEFAULT_RAMPUP));
+    final long duration = Long.parseLong(MiscUtil.getString(DURATION_PROP_NAME, DEFAULT_DURATION));
+    final int maxOutstanding = Integer.parseInt(MiscUtil.getString(MAX_OUTSTANDING_PROP_NAME, DEFAULT_MAX_OUTSTANDING));
+    final String reportFile = System.getProperty(REPORT_FILE_PROP_NAME);
+
+    final double[] rates = new double[rateStrings.length];
+    for (int i = 0; i < rates.length; i++)
+    {
+      rates[i] = Double.parseDouble(rateStrings[i].trim());
+    }
+    final URI resourceUri = URI.create("http://" + host + ":" + port + "/" + resource);
+    final RequestScenario scenario = RestLiScenarios.forName(scenarioName, resourceUri, maxId, batchSize, finderQuery);
+    System.out.println("scenario: " + scenarioName + ", uri: " + resourceUri + ", rates: " + Arrays.toString(rates) +
+                           ", warmup: " + warmup + "s, ramp: " + ramp + "s, duration: " + duration + "s");
+
+    final HttpClientFactory factory = new HttpClientFactory();
+    final Client client = new TransportClientAdapter(factory.getClient(Collections.<String, String>emptyMap()));
+    try
+    {
+      final LoadGenerator generator = new LoadGenerator(client, scenario,
+                                                        schedule(rates, warmup, ramp, duration), maxOutstanding);
+      final List<LoadResult> results = generator.run(30, TimeUnit.SECONDS);
+      for (LoadResult result : results)
+      {
+        System.out.println(result);
+      }
+      if (reportFile != null)
+      {
+        final OutputStream out = new FileOutputStream(reportFile);
+        try
+        {
+          new JacksonDataCodec().writeMap(toDataMap(scenario, results), out);
+        }
+        finally
+        {
+          out.close();
+        }
+        System.out.println("Results written to " + reportFile);
+      }
+    }
+    finally
+    {
+      final FutureCallback<None> callback = new FutureCallback<None>();
+      client.shutdown(callback);
+      callback.get(30, TimeUnit.SECONDS);
+      final FutureCallback<None> factoryCallback = new FutureCallback<None>();
+      factory.shutdown(factoryCallback, 30, TimeUnit.SECONDS);
+      factoryCallback.get(30, TimeUnit.SECONDS);
+    }
+    System.exit(0);
+  }
+}
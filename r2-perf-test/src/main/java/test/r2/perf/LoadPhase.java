@@ -0,0 +1,118 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package test.r2.perf;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * A phase of a {@link LoadGenerator} schedule, during which requests are sent at a rate which
+ * changes linearly from a start rate to an end rate. Only the latencies of measured phases are
+ * reported; warm-up and ramp phases are not measured.
+ */
+public class LoadPhase
+{
+  private final String _name;
+  private final double _startRate;
+  private final double _endRate;
+  private final long _durationNanos;
+  private final boolean _measured;
+
+  /**
+   * @param name the name of the phase, used in the results.
+   * @param startRate the rate in requests per second at the start of the phase.
+   * @param endRate the rate in requests per second at the end of the phase.
+   * @param duration the duration of the phase.
+   * @param unit the unit of the duration.
+   * @param measured true to report the latencies of the phase.
+   */
+  public LoadPhase(String name, double startRate, double endRate, long duration, TimeUnit unit, boolean measured)
+  {
+    if (startRate < 0 || endRate < 0)
+    {
+      throw new IllegalArgumentException("Rates must not be negative: " + startRate + ", " + endRate);
+    }
+    _name = name;
+    _startRate = startRate;
+    _endRate = endRate;
+    _durationNanos = unit.toNanos(duration);
+    _measured = measured;
+  }
+
+  /**
+   * @return an unmeasured phase at a constant rate.
+   */
+  public static LoadPhase warmup(double rate, long seconds)
+  {
+    return new LoadPhase("warmup", rate, rate, seconds, TimeUnit.SECONDS, false);
+  }
+
+  /**
+   * @return an unmeasured phase from one rate to another.
+   */
+  public static LoadPhase ramp(double fromRate, double toRate, long seconds)
+  {
+    return new LoadPhase("ramp-" + (long) toRate, fromRate, toRate, seconds, TimeUnit.SECONDS, false);
+  }
+
+  /**
+   * @return a measured phase at a constant rate.
+   */
+  public static LoadPhase steady(double rate, long seconds)
+  {
+    return new LoadPhase("steady-" + (long) rate, rate, rate, seconds, TimeUnit.SECONDS, true);
+  }
+
+  public String getName()
+  {
+    return _name;
+  }
+
+  public double getStartRate()
+  {
+    return _startRate;
+  }
+
+  public double getEndRate()
+  {
+    return _endRate;
+  }
+
+  public long getDurationNanos()
+  {
+    return _durationNanos;
+  }
+
+  public boolean isMeasured()
+  {
+    return _measured;
+  }
+
+  /**
+   * @param elapsedNanos the time elapsed since the start of the phase.
+   * @return the rate in requests per second at that time.
+   */
+  public double rateAt(long elapsedNanos)
+  {
+    if (_durationNanos == 0)
+    {
+      return _endRate;
+    }
+    return _startRate + (_endRate - _startRate) * elapsedNanos / _durationNanos;
+  }
+}
@@ -0,0 +1,232 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package test.r2.perf;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.linkedin.data.DataMap;
+import com.linkedin.r2.filter.instrumentation.LatencyHistogram;
+
+
+/**
+ * The results of a measured {@link LoadPhase}: the number of requests and the distribution of
+ * their latencies. Response times are measured from the time each request was scheduled to be
+ * sent and are thus corrected for coordinated omission; service times are measured from the time
+ * each request was actually sent.
+ * <p/>
+ *
+ * Requests deferred because too many requests were outstanding are measured from their scheduled
+ * time like the others. Requests without a response when the run ends are recorded as timed out,
+ * with the time elapsed until then. The results are only valid if every request of the phase was
+ * sent and completed, successfully or not, since the latencies are otherwise incomplete.
+ */
+public class LoadResult
+{
+  static final int PRECISION_BITS = 7;
+
+  private static final double[] PERCENTILES = { 50, 90, 99, 99.9, 99.99 };
+  private static final String[] PERCENTILE_NAMES = { "p50", "p90", "p99", "p99_9", "p99_99" };
+
+  private final LoadPhase _phase;
+  private final LatencyHistogram _responseTimes = new LatencyHistogram(PRECISION_BITS);
+  private final LatencyHistogram _serviceTimes = new LatencyHistogram(PRECISION_BITS);
+  private final AtomicLong _completed = new AtomicLong();
+  private final AtomicLong _errors = new AtomicLong();
+  private final AtomicLong _timedOut = new AtomicLong();
+  private long _sent;
+  private long _deferred;
+  private long _dropped;
+
+  LoadResult(LoadPhase phase)
+  {
+    _phase = phase;
+  }
+
+  public LoadPhase getPhase()
+  {
+    return _phase;
+  }
+
+  /**
+   * @return the number of requests sent.
+   */
+  public long getSentCount()
+  {
+    return _sent;
+  }
+
+  /**
+   * @return the number of requests which were sent later than scheduled because too many requests
+   *         were outstanding.
+   */
+  public long getDeferredCount()
+  {
+    return _deferred;
+  }
+
+  /**
+   * @return the number of deferred requests which were never sent because the run timed out.
+   */
+  public long getDroppedCount()
+  {
+    return _dropped;
+  }
+
+  /**
+   * @return the number of requests without a response when the run ended.
+   */
+  public long getTimedOutCount()
+  {
+    return _timedOut.get();
+  }
+
+  /**
+   * @return true if every request of the phase was sent and completed, so that the latencies are complete.
+   */
+  public boolean isValid()
+  {
+    return _dropped == 0 && _completed.get() + _errors.get() == _sent;
+  }
+
+  /**
+   * @return the number of requests which completed successfully.
+   */
+  public long getCompletedCount()
+  {
+    return _completed.get();
+  }
+
+  /**
+   * @return the number of requests which failed.
+   */
+  public long getErrorCount()
+  {
+    return _errors.get();
+  }
+
+  public LatencyHistogram getResponseTimes()
+  {
+    return _responseTimes;
+  }
+
+  public LatencyHistogram getServiceTimes()
+  {
+    return _serviceTimes;
+  }
+
+  /**
+   * @return the rate in requests per second at which requests completed, successfully or not.
+   */
+  public double getThroughput()
+  {
+    return (_completed.get() + _errors.get()) * 1e9 / _phase.getDurationNanos();
+  }
+
+  /**
+   * @return the results as a {@link DataMap}, with latencies in microseconds.
+   */
+  public DataMap toDataMap()
+  {
+    final DataMap map = new DataMap();
+    map.put("phase", _phase.getName());
+    map.put("targetRate", _phase.getEndRate());
+    map.put("durationMs", _phase.getDurationNanos() / 1000000);
+    map.put("sent", _sent);
+    map.put("deferred", _deferred);
+    map.put("dropped", _dropped);
+    map.put("timedOut", _timedOut.get());
+    map.put("valid", isValid());
+    map.put("completed", _completed.get());
+    map.put("errors", _errors.get());
+    map.put("throughput", getThroughput());
+    map.put("responseTimeUs", latencies(_responseTimes));
+    map.put("serviceTimeUs", latencies(_serviceTimes));
+    return map;
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format("%s%s: target %.1f/s, throughput %.1f/s, sent %d, deferred %d, dropped %d, " +
+                             "timed out %d, errors %d%n  response time ms: %s%n  service time ms: %s",
+                         isValid() ? "" : "INVALID ", _phase.getName(), _phase.getEndRate(), getThroughput(),
+                         _sent, _deferred, _dropped, _timedOut.get(), _errors.get(),
+                         format(_responseTimes), format(_serviceTimes));
+  }
+
+  void sent()
+  {
+    _sent++;
+  }
+
+  void deferred()
+  {
+    _deferred++;
+  }
+
+  void dropped()
+  {
+    _dropped++;
+  }
+
+  void completed(long scheduledNanos, long sendNanos, boolean error)
+  {
+    final long now = System.nanoTime();
+    _responseTimes.record(now - scheduledNanos);
+    _serviceTimes.record(now - sendNanos);
+    if (error)
+    {
+      _errors.incrementAndGet();
+    }
+    else
+    {
+      _completed.incrementAndGet();
+    }
+  }
+
+  void timedOut(long scheduledNanos, long sendNanos)
+  {
+    final long now = System.nanoTime();
+    _responseTimes.record(now - scheduledNanos);
+    _serviceTimes.record(now - sendNanos);
+    _timedOut.incrementAndGet();
+  }
+
+  private static DataMap latencies(LatencyHistogram histogram)
+  {
+    final DataMap map = new DataMap();
+    for (int i = 0; i < PERCENTILES.length; i++)
+    {
+      map.put(PERCENTILE_NAMES[i], histogram.getPercentile(PERCENTILES[i]) / 1000);
+    }
+    map.put("max", histogram.getMax() / 1000);
+    map.put("mean", histogram.getMean() / 1000);
+    return map;
+  }
+
+  private static String format(LatencyHistogram histogram)
+  {
+    final StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < PERCENTILES.length; i++)
+    {
+      sb.append(String.format("%s %.3f, ", PERCENTILE_NAMES[i], histogram.getPercentile(PERCENTILES[i]) / 1e6));
+    }
+    sb.append(String.format("max %.3f, mean %.3f", histogram.getMax() / 1e6, histogram.getMean() / 1e6));
+    return sb.toString();
+  }
+}
@@ -0,0 +1,38 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package test.r2.perf;
+
+import com.linkedin.r2.message.rest.RestRequest;
+
+
+/**
+ * Generates the requests sent by a {@link LoadGenerator}. Requests are generated by a single
+ * thread, so implementations need not be thread-safe.
+ */
+public interface RequestScenario
+{
+  /**
+   * @return the name of the scenario, used in the results.
+   */
+  String getName();
+
+  /**
+   * @return the next request to send.
+   */
+  RestRequest nextRequest();
+}
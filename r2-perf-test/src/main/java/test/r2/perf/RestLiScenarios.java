@@ -0,0 +1,156 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package test.r2.perf;
+
+import java.net.URI;
+import java.util.Random;
+
+import com.linkedin.r2.message.rest.RestMethod;
+import com.linkedin.r2.message.rest.RestRequest;
+import com.linkedin.r2.message.rest.RestRequestBuilder;
+
+
+/**
+ * {@link RequestScenario}s of rest.li requests against a collection resource with long keys,
+ * such as the greetings resource of restli-int-test-server. Keys are picked uniformly at
+ * random from a range, so that the scenarios are reproducible for a given seed.
+ */
+public class RestLiScenarios
+{
+  public static final String GET = "get";
+  public static final String BATCH_GET = "batch_get";
+  public static final String FINDER = "finder";
+
+  private static final long SEED = 42;
+
+  private RestLiScenarios()
+  {
+  }
+
+  /**
+   * @param name the name of the scenario, one of {@link #GET}, {@link #BATCH_GET} or {@link #FINDER}.
+   * @param resourceUri the URI of the collection resource, e.g. http://localhost:1338/greetings.
+   * @param maxId the largest key to request, keys start at 1.
+   * @param batchSize the number of keys of a batch get.
+   * @param finderQuery the query of a finder, e.g. q=search&amp;tone=FRIENDLY.
+   * @return the scenario.
+   */
+  public static RequestScenario forName(String name, URI resourceUri, long maxId, int batchSize, String finderQuery)
+  {
+    if (GET.equals(name))
+    {
+      return get(resourceUri, maxId);
+    }
+    if (BATCH_GET.equals(name))
+    {
+      return batchGet(resourceUri, maxId, batchSize);
+    }
+    if (FINDER.equals(name))
+    {
+      return finder(resourceUri, finderQuery);
+    }
+    throw new IllegalArgumentException("Unknown scenario: " + name);
+  }
+
+  /**
+   * @return a scenario of gets of single entities.
+   */
+  public static RequestScenario get(final URI resourceUri, final long maxId)
+  {
+    final Random random = new Random(SEED);
+    return new RequestScenario()
+    {
+      @Override
+      public String getName()
+      {
+        return GET;
+      }
+
+      @Override
+      public RestRequest nextRequest()
+      {
+        return request(resourceUri + "/" + randomId(random, maxId));
+      }
+    };
+  }
+
+  /**
+   * @return a scenario of batch gets of distinct entities.
+   */
+  public static RequestScenario batchGet(final URI resourceUri, final long maxId, final int batchSize)
+  {
+    if (batchSize > maxId)
+    {
+      throw new IllegalArgumentException("Batch size " + batchSize + " is larger than the number of keys " + maxId);
+    }
+    final Random random = new Random(SEED);
+    return new RequestScenario()
+    {
+      @Override
+      public String getName()
+      {
+        return BATCH_GET;
+      }
+
+      @Override
+      public RestRequest nextRequest()
+      {
+        final StringBuilder sb = new StringBuilder().append(resourceUri);
+        final long first = randomId(random, maxId);
+        // consecutive keys, wrapping around, so that keys are distinct
+        for (int i = 0; i < batchSize; i++)
+        {
+          sb.append(i == 0 ? '?' : '&').append("ids=").append((first - 1 + i) % maxId + 1);
+        }
+        return request(sb.toString());
+      }
+    };
+  }
+
+  /**
+   * @return a scenario of the same finder query.
+   */
+  public static RequestScenario finder(final URI resourceUri, final String query)
+  {
+    final String uri = resourceUri + "?" + query;
+    return new RequestScenario()
+    {
+      @Override
+      public String getName()
+      {
+        return FINDER;
+      }
+
+      @Override
+      public RestRequest nextRequest()
+      {
+        return request(uri);
+      }
+    };
+  }
+
+  private static long randomId(Random random, long maxId)
+  {
+    return (long) (random.nextDouble() * maxId) + 1;
+  }
+
+  private static RestRequest request(String uri)
+  {
+    return new RestRequestBuilder(URI.create(uri)).setMethod(RestMethod.GET).build();
+  }
+}
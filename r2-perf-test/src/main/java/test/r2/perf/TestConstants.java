@@ -33,6 +33,20 @@ public interface TestConstants
   static final String THREADS_NUMBER_PROP_NAME = "perf.threads";
   static final String RUNS_NUMBER_PROP_NAME = "perf.runs";
   static final String RAMPUP_PROP_NAME = "perf.rampup";
+  static final String CAPTURE_DIR_PROP_NAME = "perf.capture.dir";
+  static final String REPLAY_SPEED_PROP_NAME = "perf.replay.speed";
+  static final String REPLAY_DIFF_PROP_NAME = "perf.replay.diff";
+  static final String REPLAY_TIMEOUT_PROP_NAME = "perf.replay.timeout";
+  static final String REPORT_FILE_PROP_NAME = "perf.reportfile";
+  static final String RESOURCE_PROP_NAME = "perf.resource";
+  static final String SCENARIO_PROP_NAME = "perf.scenario";
+  static final String MAX_ID_PROP_NAME = "perf.maxid";
+  static final String BATCH_SIZE_PROP_NAME = "perf.batchsize";
+  static final String FINDER_QUERY_PROP_NAME = "perf.finder.query";
+  static final String RATES_PROP_NAME = "perf.rates";
+  static final String WARMUP_PROP_NAME = "perf.warmup";
+  static final String DURATION_PROP_NAME = "perf.duration";
+  static final String MAX_OUTSTANDING_PROP_NAME = "perf.maxoutstanding";
 
   // Default values
   static final String DEFAULT_HOST = "localhost";
@@ -50,5 +64,18 @@ public interface TestConstants
   static final String DEFAULT_THREADS = "1";
   static final String DEFAULT_RUNS = "1";
   static final String DEFAULT_RAMPUP = "0";
+  static final String DEFAULT_REPLAY_SPEED = "1.0";
+  static final String DEFAULT_REPLAY_DIFF = "true";
+  static final String DEFAULT_REPLAY_TIMEOUT = "60";
+  static final String DEFAULT_RESTLI_PORT = "1338";
+  static final String DEFAULT_RESOURCE = "greetings";
+  static final String DEFAULT_SCENARIO = "get";
+  static final String DEFAULT_MAX_ID = "20";
+  static final String DEFAULT_BATCH_SIZE = "10";
+  static final String DEFAULT_FINDER_QUERY = "q=search&tone=FRIENDLY";
+  static final String DEFAULT_RATES = "100";
+  static final String DEFAULT_WARMUP = "10";
+  static final String DEFAULT_DURATION = "30";
+  static final String DEFAULT_MAX_OUTSTANDING = "10000";
 
 }
@@ -17,14 +17,17 @@
 /* $Id$ */
 package com.linkedin.r2.caprep;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.linkedin.r2.caprep.db.CaptureLogSink;
+import com.linkedin.r2.caprep.db.CaptureLogSource;
+import com.linkedin.r2.caprep.db.DbSource;
 import com.linkedin.r2.caprep.db.DefaultMessageSerializer;
-import com.linkedin.r2.caprep.db.DirectoryDbSink;
 import com.linkedin.r2.caprep.db.DirectoryDbSource;
 import com.linkedin.r2.filter.Filter;
 import com.linkedin.r2.filter.NextFilter;
@@ -37,6 +40,10 @@ import com.linkedin.r2.message.rpc.RpcRequest;
 import com.linkedin.r2.message.rpc.RpcResponse;
 
 /**
+ * Captures to a {@link CaptureLogSink} and replays from a {@link CaptureLogSource}. Directories
+ * written by the former {@link com.linkedin.r2.caprep.db.DirectoryDbSink} are still replayed with
+ * a {@link DirectoryDbSource}.
+ *
  * @author Chris Pettitt
  * @version $Revision$
  */
@@ -47,16 +54,18 @@ public class CapRepFilter implements RpcFilter, RestFilter, CapRepAdmin
   private static final Filter PASS_THROUGH_FILTER = new PassThroughFilter();
 
   private final ReplaceableFilter _filter = new ReplaceableFilter(PASS_THROUGH_FILTER);
+  private CaptureLogSink _sink;
 
   @Override
-  public void capture(String directory) throws IOException
+  public synchronized void capture(String directory) throws IOException
   {
     _log.debug("Switching to capture mode. Directory: " + directory);
-    _filter.setFilter(PASS_THROUGH_FILTER);
+    setFilter(PASS_THROUGH_FILTER);
     try
     {
-      _filter.setFilter(new CaptureFilter(new DirectoryDbSink(directory,
-                                                              new DefaultMessageSerializer())));
+      final CaptureLogSink sink = new CaptureLogSink(directory);
+      _filter.setFilter(new CaptureFilter(sink));
+      _sink = sink;
     }
     catch (IOException e)
     {
@@ -71,14 +80,16 @@ public class CapRepFilter implements RpcFilter, RestFilter, CapRepAdmin
   }
 
   @Override
-  public void replay(String directory) throws IOException
+  public synchronized void replay(String directory) throws IOException
   {
     _log.debug("Switching to replay mode. Directory: " + directory);
-    _filter.setFilter(PASS_THROUGH_FILTER);
+    setFilter(PASS_THROUGH_FILTER);
     try
     {
-      _filter.setFilter(new ReplayFilter(new DirectoryDbSource(directory,
-                                                               new DefaultMessageSerializer())));
+      final DbSource source = CaptureLogSource.isCaptureLog(new File(directory))
+          ? new CaptureLogSource(directory)
+          : new DirectoryDbSource(directory, new DefaultMessageSerializer());
+      _filter.setFilter(new ReplayFilter(source));
     }
     catch (IOException e)
     {
@@ -93,10 +104,10 @@ public class CapRepFilter implements RpcFilter, RestFilter, CapRepAdmin
   }
 
   @Override
-  public void passThrough()
+  public synchronized void passThrough()
   {
     _log.debug("Switching to pass-through mode.");
-    _filter.setFilter(PASS_THROUGH_FILTER);
+    setFilter(PASS_THROUGH_FILTER);
   }
 
   @Override
@@ -151,4 +162,21 @@ public class CapRepFilter implements RpcFilter, RestFilter, CapRepAdmin
   {
     _filter.onRpcError(ex, requestContext, wireAttrs, nextFilter);
   }
+
+  private void setFilter(Filter filter)
+  {
+    _filter.setFilter(filter);
+    if (_sink != null)
+    {
+      try
+      {
+        _sink.close();
+      }
+      catch (IOException e)
+      {
+        _log.warn("Error closing capture log", e);
+      }
+      _sink = null;
+    }
+  }
 }
@@ -17,6 +17,7 @@
 /* $Id$ */
 package com.linkedin.r2.caprep;
 
+import com.linkedin.r2.caprep.db.CaptureLogSink;
 import com.linkedin.r2.caprep.db.DbSink;
 import com.linkedin.r2.filter.NextFilter;
 import com.linkedin.r2.filter.message.RequestFilter;
@@ -45,6 +46,7 @@ public class CaptureFilter implements RequestFilter, RpcResponseFilter, RestResp
   private static final Logger _log = LoggerFactory.getLogger(CaptureFilter.class);
 
   private static final String REQ_ATTR = CaptureFilter.class.getName() + ".req";
+  private static final String REQ_TIME_ATTR = CaptureFilter.class.getName() + ".reqTime";
 
   private final DbSink _db;
 
@@ -64,6 +66,8 @@ public class CaptureFilter implements RequestFilter, RpcResponseFilter, RestResp
   {
     // Save request so that it can be associated with the response
     requestContext.putLocalAttr(REQ_ATTR, req);
+    // Save the arrival time so that replays are scheduled from it rather than from the response time
+    requestContext.putLocalAttr(REQ_TIME_ATTR, CaptureLogSink.currentTimeNanos());
 
     nextFilter.onRequest(req, requestContext, wireAttrs);
   }
@@ -109,12 +113,20 @@ public class CaptureFilter implements RequestFilter, RpcResponseFilter, RestResp
   private void saveResponse(Response res, RequestContext requestContext)
   {
     final Request req = (Request) requestContext.removeLocalAttr(REQ_ATTR);
+    final Long arrivalNanos = (Long) requestContext.removeLocalAttr(REQ_TIME_ATTR);
     if (req != null)
     {
       _log.debug("Saving response for request: " + req.getURI());
       try
       {
-        _db.record(req, res);
+        if (_db instanceof CaptureLogSink && arrivalNanos != null)
+        {
+          ((CaptureLogSink) _db).record(req, res, arrivalNanos);
+        }
+        else
+        {
+          _db.record(req, res);
+        }
       }
       catch (IOException e)
       {
@@ -0,0 +1,374 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.caprep.db;
+
+import com.linkedin.data.ByteString;
+import com.linkedin.r2.message.Request;
+import com.linkedin.r2.message.Response;
+import com.linkedin.r2.message.rest.RestMessage;
+import com.linkedin.r2.message.rest.RestRequest;
+import com.linkedin.r2.message.rest.RestRequestBuilder;
+import com.linkedin.r2.message.rest.RestResponse;
+import com.linkedin.r2.message.rest.RestResponseBuilder;
+import com.linkedin.r2.message.rpc.RpcRequest;
+import com.linkedin.r2.message.rpc.RpcRequestBuilder;
+import com.linkedin.r2.message.rpc.RpcResponseBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The format of the binary capture log written by {@link CaptureLogSink}.
+ * <p/>
+ *
+ * A capture log is a directory of segment files named {@code capture-<number>.log}, written in
+ * order of their numbers. A segment starts with a header of a magic number and a version, followed
+ * by records. Each record holds a captured request/response pair:
+ * <pre>
+ *   int    length of the payload
+ *   int    CRC32 of the payload
+ *   byte   flags, {@link #FLAG_COMPRESSED} if the payload is deflated
+ *   byte[] payload
+ * </pre>
+ * A record length of 0 marks the end of a segment, so a segment which was not closed properly
+ * can be read up to its last complete record. The uncompressed payload starts with the kind of
+ * the pair, rest or rpc, and the time the request arrived in nanoseconds since the epoch, see
+ * {@link CaptureLogSink#currentTimeNanos()}, followed by the request and the response; strings are written as modified UTF-8 and entities
+ * as their length followed by their bytes.
+ */
+/* package private */ final class CaptureLogFormat
+{
+  static final int MAGIC = 0x52324350; // "R2CP"
+  static final int VERSION = 3;
+  static final int SEGMENT_HEADER_SIZE = 8;
+  static final int RECORD_HEADER_SIZE = 9;
+  static final byte FLAG_COMPRESSED = 1;
+
+  private static final String SEGMENT_PREFIX = "capture-";
+  private static final String SEGMENT_SUFFIX = ".log";
+
+  private static final byte KIND_REST = 0;
+  private static final byte KIND_RPC = 1;
+
+  private CaptureLogFormat() {}
+
+  static File segmentFile(File dir, int number)
+  {
+    return new File(dir, String.format("%s%08d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+  }
+
+  /**
+   * @return the numbers of the segments in the directory, in ascending order.
+   */
+  static int[] listSegments(File dir)
+  {
+    final String[] names = dir.list(new FilenameFilter()
+    {
+      @Override
+      public boolean accept(File d, String name)
+      {
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+      }
+    });
+    if (names == null)
+    {
+      return new int[0];
+    }
+    final int[] numbers = new int[names.length];
+    int count = 0;
+    for (String name : names)
+    {
+      try
+      {
+        numbers[count] = Integer.parseInt(name.substring(SEGMENT_PREFIX.length(),
+                                                         name.length() - SEGMENT_SUFFIX.length()));
+        count++;
+      }
+      catch (NumberFormatException e)
+      {
+        // not a segment
+      }
+    }
+    final int[] result = Arrays.copyOf(numbers, count);
+    Arrays.sort(result);
+    return result;
+  }
+
+  static void writeSegmentHeader(ByteBuffer buffer)
+  {
+    buffer.putInt(MAGIC);
+    buffer.putInt(VERSION);
+  }
+
+  static void readSegmentHeader(ByteBuffer buffer, File file) throws IOException
+  {
+    if (buffer.remaining() < SEGMENT_HEADER_SIZE || buffer.getInt() != MAGIC)
+    {
+      throw new IOException("Not a capture log segment: " + file);
+    }
+    final int version = buffer.getInt();
+    if (version != VERSION)
+    {
+      throw new IOException("Unsupported capture log version " + version + ": " + file);
+    }
+  }
+
+  /**
+   * Map a segment read-only and position the buffer at its first record.
+   */
+  static ByteBuffer mapSegment(File file) throws IOException
+  {
+    final RandomAccessFile raf = new RandomAccessFile(file, "r");
+    try
+    {
+      final ByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+      readSegmentHeader(buffer, file);
+      return buffer;
+    }
+    finally
+    {
+      raf.close();
+    }
+  }
+
+  /**
+   * Read the record at the position of the buffer and advance the buffer past it.
+   *
+   * @return the uncompressed payload of the record, or null at the end of the segment.
+   * @throws IOException if the record is truncated or corrupt.
+   */
+  static byte[] readRecord(ByteBuffer buffer, File file, Inflater inflater) throws IOException
+  {
+    final int offset = buffer.position();
+    if (buffer.remaining() < RECORD_HEADER_SIZE)
+    {
+      return null;
+    }
+    final int length = buffer.getInt();
+    if (length == 0)
+    {
+      return null;
+    }
+    if (length < 0 || length > buffer.remaining() - (RECORD_HEADER_SIZE - 4))
+    {
+      throw new IOException("Truncated record at offset " + offset + ": " + file);
+    }
+    final int crc = buffer.getInt();
+    final byte flags = buffer.get();
+    final byte[] stored = new byte[length];
+    buffer.get(stored);
+    if (checksum(stored) != crc)
+    {
+      throw new IOException("Corrupt record at offset " + offset + ": " + file);
+    }
+    return (flags & FLAG_COMPRESSED) != 0 ? decompress(stored, inflater) : stored;
+  }
+
+  /**
+   * Encode a request/response pair into the payload of a record.
+   */
+  static byte[] encode(Request req, Response res, long timestamp) throws IOException
+  {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream(
+        256 + req.getEntity().length() + res.getEntity().length());
+    final DataOutputStream out = new DataOutputStream(bytes);
+    if (req instanceof RestRequest)
+    {
+      final RestRequest restReq = (RestRequest) req;
+      final RestResponse restRes = (RestResponse) res;
+      out.writeByte(KIND_REST);
+      out.writeLong(timestamp);
+      out.writeUTF(restReq.getURI().toString());
+      out.writeUTF(restReq.getMethod());
+      writeHeaders(out, restReq);
+      writeEntity(out, restReq.getEntity());
+      out.writeInt(restRes.getStatus());
+      writeHeaders(out, restRes);
+      writeEntity(out, restRes.getEntity());
+    }
+    else
+    {
+      out.writeByte(KIND_RPC);
+      out.writeLong(timestamp);
+      out.writeUTF(req.getURI().toString());
+      writeEntity(out, req.getEntity());
+      writeEntity(out, res.getEntity());
+    }
+    out.flush();
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Decode the request of a record payload.
+   */
+  static Request decodeRequest(byte[] payload) throws IOException
+  {
+    return decode(payload, false).getRequest();
+  }
+
+  /**
+   * Decode the request and the response of a record payload.
+   */
+  static CapturedPair decode(byte[] payload) throws IOException
+  {
+    return decode(payload, true);
+  }
+
+  private static CapturedPair decode(byte[] payload, boolean withResponse) throws IOException
+  {
+    final DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+    final byte kind = in.readByte();
+    final long timestamp = in.readLong();
+    if (kind == KIND_REST)
+    {
+      final RestRequestBuilder reqBuilder = new RestRequestBuilder(URI.create(in.readUTF()));
+      reqBuilder.setMethod(in.readUTF());
+      readHeaders(in, reqBuilder);
+      reqBuilder.setEntity(readEntity(in));
+      if (withResponse == false)
+      {
+        return new CapturedPair(reqBuilder.build(), null, timestamp);
+      }
+      final RestResponseBuilder resBuilder = new RestResponseBuilder();
+      resBuilder.setStatus(in.readInt());
+      readHeaders(in, resBuilder);
+      resBuilder.setEntity(readEntity(in));
+      return new CapturedPair(reqBuilder.build(), resBuilder.build(), timestamp);
+    }
+    else if (kind == KIND_RPC)
+    {
+      final RpcRequest req = new RpcRequestBuilder(URI.create(in.readUTF()))
+          .setEntity(readEntity(in))
+          .build();
+      if (withResponse == false)
+      {
+        return new CapturedPair(req, null, timestamp);
+      }
+      return new CapturedPair(req, new RpcResponseBuilder().setEntity(readEntity(in)).build(), timestamp);
+    }
+    throw new IOException("Unknown record kind: " + kind);
+  }
+
+  static byte[] compress(byte[] payload, Deflater deflater)
+  {
+    deflater.reset();
+    deflater.setInput(payload);
+    deflater.finish();
+    final ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length / 2 + 16);
+    final byte[] chunk = new byte[8192];
+    while (deflater.finished() == false)
+    {
+      out.write(chunk, 0, deflater.deflate(chunk));
+    }
+    return out.toByteArray();
+  }
+
+  static byte[] decompress(byte[] stored, Inflater inflater) throws IOException
+  {
+    inflater.reset();
+    inflater.setInput(stored);
+    final ByteArrayOutputStream out = new ByteArrayOutputStream(stored.length * 2);
+    final byte[] chunk = new byte[8192];
+    try
+    {
+      while (inflater.finished() == false)
+      {
+        final int count = inflater.inflate(chunk);
+        if (count == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+        {
+          throw new IOException("Truncated compressed record");
+        }
+        out.write(chunk, 0, count);
+      }
+    }
+    catch (DataFormatException e)
+    {
+      throw new IOException("Corrupt compressed record", e);
+    }
+    return out.toByteArray();
+  }
+
+  static int checksum(byte[] stored)
+  {
+    final CRC32 crc = new CRC32();
+    crc.update(stored);
+    return (int) crc.getValue();
+  }
+
+  private static void writeHeaders(DataOutputStream out, RestMessage message) throws IOException
+  {
+    final Map<String, String> headers = message.getHeaders();
+    out.writeInt(headers.size());
+    for (Map.Entry<String, String> header : headers.entrySet())
+    {
+      out.writeUTF(header.getKey());
+      out.writeUTF(header.getValue());
+    }
+  }
+
+  private static void readHeaders(DataInputStream in, RestRequestBuilder builder) throws IOException
+  {
+    final int count = in.readInt();
+    for (int i = 0; i < count; i++)
+    {
+      builder.unsafeSetHeader(in.readUTF(), in.readUTF());
+    }
+  }
+
+  private static void readHeaders(DataInputStream in, RestResponseBuilder builder) throws IOException
+  {
+    final int count = in.readInt();
+    for (int i = 0; i < count; i++)
+    {
+      builder.unsafeSetHeader(in.readUTF(), in.readUTF());
+    }
+  }
+
+  private static void writeEntity(DataOutputStream out, ByteString entity) throws IOException
+  {
+    out.writeInt(entity.length());
+    entity.write(out);
+  }
+
+  private static ByteString readEntity(DataInputStream in) throws IOException
+  {
+    final int length = in.readInt();
+    if (length < 0)
+    {
+      throw new IOException("Invalid entity length: " + length);
+    }
+    final byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return ByteString.copy(bytes);
+  }
+}
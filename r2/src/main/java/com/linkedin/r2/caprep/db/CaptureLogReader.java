@@ -0,0 +1,128 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.caprep.db;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.Inflater;
+
+/**
+ * Streams the request/response pairs of a capture log written by {@link CaptureLogSink}, in the
+ * order they were written. Only one segment is mapped at a time, so captures larger than the
+ * heap can be read.
+ * <p/>
+ *
+ * A segment which ends with a truncated or corrupt record, e.g. because the sink was not closed,
+ * is read up to its last valid record. This class is not thread-safe.
+ */
+public class CaptureLogReader implements Closeable
+{
+  private static final Logger _log = LoggerFactory.getLogger(CaptureLogReader.class);
+
+  private final File _dir;
+  private final int[] _segments;
+  private final Inflater _inflater = new Inflater();
+  private int _nextSegment;
+  private File _segmentFile;
+  private ByteBuffer _segment;
+
+  /**
+   * Construct a reader of the capture log in the specified directory.
+   *
+   * @param dir the directory path of the capture log.
+   * @throws IOException if the directory does not exist.
+   */
+  public CaptureLogReader(String dir) throws IOException
+  {
+    this(new File(dir));
+  }
+
+  /**
+   * Construct a reader of the capture log in the specified directory.
+   *
+   * @param dir the directory of the capture log.
+   * @throws IOException if the directory does not exist.
+   */
+  public CaptureLogReader(File dir) throws IOException
+  {
+    if (dir.isDirectory() == false)
+    {
+      throw new IOException("Not a directory: " + dir);
+    }
+    _dir = dir;
+    _segments = CaptureLogFormat.listSegments(dir);
+  }
+
+  /**
+   * Read the next request/response pair.
+   *
+   * @return the next pair, or null if the end of the capture log was reached.
+   * @throws IOException if a segment could not be read or a record could not be decoded.
+   */
+  public CapturedPair next() throws IOException
+  {
+    while (true)
+    {
+      if (_segment == null && nextSegment() == false)
+      {
+        return null;
+      }
+      final byte[] payload;
+      try
+      {
+        payload = CaptureLogFormat.readRecord(_segment, _segmentFile, _inflater);
+      }
+      catch (IOException e)
+      {
+        _log.warn("Skipping the rest of capture log segment", e);
+        _segment = null;
+        continue;
+      }
+      if (payload == null)
+      {
+        _segment = null;
+        continue;
+      }
+      return CaptureLogFormat.decode(payload);
+    }
+  }
+
+  @Override
+  public void close()
+  {
+    _segment = null;
+    _nextSegment = _segments.length;
+    _inflater.end();
+  }
+
+  private boolean nextSegment() throws IOException
+  {
+    if (_nextSegment >= _segments.length)
+    {
+      return false;
+    }
+    _segmentFile = CaptureLogFormat.segmentFile(_dir, _segments[_nextSegment++]);
+    _segment = CaptureLogFormat.mapSegment(_segmentFile);
+    return true;
+  }
+}
@@ -0,0 +1,395 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.caprep.db;
+
+import com.linkedin.r2.message.Request;
+import com.linkedin.r2.message.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+
+/**
+ * A {@link DbSink} which appends request/response pairs to a segmented binary capture log,
+ * see {@link CaptureLogFormat}, to be read by {@link CaptureLogReader} and {@link CaptureLogSource}.
+ * <p/>
+ *
+ * Recording a pair only offers it to a bounded queue, so that capturing never blocks the request
+ * path: when the queue is full, the pair is dropped and counted. A background thread encodes the
+ * pairs, optionally compresses them, and appends them to memory-mapped segments of a fixed size.
+ * The segments are forced to disk periodically, when they are full, and on {@link #flush()} and
+ * {@link #close()}. A new sink never appends to the segments of a previous sink, it starts a new
+ * segment after them.
+ */
+public class CaptureLogSink implements DbSink, Closeable
+{
+  public static final long DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+  public static final int DEFAULT_QUEUE_CAPACITY = 4096;
+  public static final long DEFAULT_FLUSH_INTERVAL_MS = 1000;
+
+  private static final Logger _log = LoggerFactory.getLogger(CaptureLogSink.class);
+
+  // the epoch time of the clock is anchored once, then it advances with System.nanoTime()
+  private static final long EPOCH_NANOS = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+  private static final long ORIGIN_NANOS = System.nanoTime();
+
+  private final File _dir;
+  private final long _segmentSize;
+  private final Deflater _deflater;
+  private final long _flushIntervalNanos;
+  private final BlockingQueue<CapturedPair> _queue;
+  private final Thread _writer;
+  private final AtomicLong _recordedCount = new AtomicLong();
+  private final AtomicLong _droppedCount = new AtomicLong();
+  private volatile boolean _closed;
+
+  // only accessed by the writer thread
+  private int _segmentNumber;
+  private RandomAccessFile _segmentFile;
+  private MappedByteBuffer _segment;
+  private boolean _dirty;
+  private long _lastForceNanos;
+
+  /**
+   * Construct a sink with the default settings and without compression.
+   *
+   * @param dir the directory path of the capture log, created if needed.
+   * @throws IOException if the directory could not be created.
+   */
+  public CaptureLogSink(String dir) throws IOException
+  {
+    this(new File(dir), DEFAULT_SEGMENT_SIZE, false, DEFAULT_QUEUE_CAPACITY, DEFAULT_FLUSH_INTERVAL_MS);
+  }
+
+  /**
+   * Construct a sink.
+   *
+   * @param dir the directory of the capture log, created if needed.
+   * @param segmentSize the size in bytes of a segment. Pairs larger than a segment get a segment of their own.
+   * @param compress true to deflate the pairs.
+   * @param queueCapacity the maximum number of pairs waiting to be written.
+   * @param flushIntervalMs the maximum time in milliseconds before written pairs are forced to disk.
+   * @throws IOException if the directory could not be created.
+   */
+  public CaptureLogSink(File dir, long segmentSize, boolean compress, int queueCapacity, long flushIntervalMs)
+      throws IOException
+  {
+    if (segmentSize <= CaptureLogFormat.SEGMENT_HEADER_SIZE + CaptureLogFormat.RECORD_HEADER_SIZE
+        || segmentSize > Integer.MAX_VALUE)
+    {
+      throw new IllegalArgumentException("Invalid segment size: " + segmentSize);
+    }
+    _dir = dir;
+    if (_dir.exists() == false && _dir.mkdirs() == false)
+    {
+      throw new IOException("Could not create directory: " + _dir);
+    }
+    _segmentSize = segmentSize;
+    _deflater = compress ? new Deflater(Deflater.BEST_SPEED) : null;
+    _flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+    _queue = new ArrayBlockingQueue<CapturedPair>(queueCapacity);
+
+    final int[] segments = CaptureLogFormat.listSegments(_dir);
+    _segmentNumber = segments.length == 0 ? 0 : segments[segments.length - 1] + 1;
+
+    _writer = new Thread(new Writer(), "R2 CapRep Writer " + _dir.getName());
+    _writer.setDaemon(true);
+    _writer.start();
+  }
+
+  /**
+   * Return the current time of the clock the pairs are timestamped with: nanoseconds since the
+   * epoch, which never go backwards within a JVM since they advance with {@link System#nanoTime()}.
+   */
+  public static long currentTimeNanos()
+  {
+    return EPOCH_NANOS + (System.nanoTime() - ORIGIN_NANOS);
+  }
+
+  /**
+   * Queue a request/response pair to be written with the current time, or drop it if the
+   * queue is full or the sink is closed.
+   */
+  @Override
+  public void record(Request req, Response res)
+  {
+    record(req, res, currentTimeNanos());
+  }
+
+  /**
+   * Queue a request/response pair to be written with the time its request arrived, or drop it
+   * if the queue is full or the sink is closed.
+   *
+   * @param arrivalNanos the time the request arrived, see {@link #currentTimeNanos()}.
+   */
+  public void record(Request req, Response res, long arrivalNanos)
+  {
+    if (_closed || _queue.offer(new CapturedPair(req, res, arrivalNanos)) == false)
+    {
+      _droppedCount.incrementAndGet();
+    }
+  }
+
+  /**
+   * @return the number of pairs written to the capture log.
+   */
+  public long getRecordedCount()
+  {
+    return _recordedCount.get();
+  }
+
+  /**
+   * @return the number of pairs which were dropped, because the queue was full, the sink was
+   *         closed or the pair could not be written.
+   */
+  public long getDroppedCount()
+  {
+    return _droppedCount.get();
+  }
+
+  /**
+   * Wait until the pairs recorded so far are written and forced to disk.
+   *
+   * @throws InterruptedException if interrupted while waiting.
+   */
+  public void flush() throws InterruptedException
+  {
+    final Marker marker = new Marker(false);
+    if (_closed == false && _writer.isAlive())
+    {
+      _queue.put(marker);
+      marker.await();
+    }
+  }
+
+  /**
+   * Write the pairs recorded so far, close the capture log and stop the background thread.
+   */
+  @Override
+  public void close() throws IOException
+  {
+    if (_closed)
+    {
+      return;
+    }
+    _closed = true;
+    try
+    {
+      final Marker marker = new Marker(true);
+      _queue.put(marker);
+      _writer.join();
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while closing capture log: " + _dir);
+    }
+  }
+
+  private void write(CapturedPair pair) throws IOException
+  {
+    byte[] payload = CaptureLogFormat.encode(pair.getRequest(), pair.getResponse(), pair.getTimestamp());
+    byte flags = 0;
+    if (_deflater != null)
+    {
+      final byte[] compressed = CaptureLogFormat.compress(payload, _deflater);
+      if (compressed.length < payload.length)
+      {
+        payload = compressed;
+        flags = CaptureLogFormat.FLAG_COMPRESSED;
+      }
+    }
+
+    final int recordSize = CaptureLogFormat.RECORD_HEADER_SIZE + payload.length;
+    if (_segment == null || _segment.remaining() < recordSize)
+    {
+      closeSegment();
+      openSegment(recordSize);
+    }
+    _segment.putInt(payload.length);
+    _segment.putInt(CaptureLogFormat.checksum(payload));
+    _segment.put(flags);
+    _segment.put(payload);
+    _dirty = true;
+  }
+
+  private void openSegment(int minRecordSize) throws IOException
+  {
+    final long size = Math.max(_segmentSize, CaptureLogFormat.SEGMENT_HEADER_SIZE + (long) minRecordSize);
+    final File file = CaptureLogFormat.segmentFile(_dir, _segmentNumber++);
+    _segmentFile = new RandomAccessFile(file, "rw");
+    try
+    {
+      _segment = _segmentFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+    catch (IOException e)
+    {
+      _segmentFile.close();
+      _segmentFile = null;
+      throw e;
+    }
+    CaptureLogFormat.writeSegmentHeader(_segment);
+    _dirty = true;
+  }
+
+  private void force()
+  {
+    if (_dirty)
+    {
+      _segment.force();
+      _dirty = false;
+    }
+    _lastForceNanos = System.nanoTime();
+  }
+
+  private void closeSegment() throws IOException
+  {
+    if (_segment != null)
+    {
+      force();
+      // trim the unused part of the segment
+      final int length = _segment.position();
+      _segment = null;
+      try
+      {
+        _segmentFile.setLength(length);
+      }
+      finally
+      {
+        _segmentFile.close();
+        _segmentFile = null;
+      }
+    }
+  }
+
+  private class Writer implements Runnable
+  {
+    @Override
+    public void run()
+    {
+      _lastForceNanos = System.nanoTime();
+      try
+      {
+        while (true)
+        {
+          final CapturedPair pair = _queue.poll(_flushIntervalNanos, TimeUnit.NANOSECONDS);
+          if (pair instanceof Marker)
+          {
+            final Marker marker = (Marker) pair;
+            if (marker._stop)
+            {
+              drainAndStop();
+              marker.done();
+              return;
+            }
+            force();
+            marker.done();
+          }
+          else if (pair != null)
+          {
+            writeOrDrop(pair);
+          }
+          if (System.nanoTime() - _lastForceNanos >= _flushIntervalNanos)
+          {
+            force();
+          }
+        }
+      }
+      catch (InterruptedException e)
+      {
+        _log.warn("Capture log writer interrupted: " + _dir);
+        drainAndStop();
+      }
+    }
+
+    private void writeOrDrop(CapturedPair pair)
+    {
+      try
+      {
+        write(pair);
+        _recordedCount.incrementAndGet();
+      }
+      catch (Exception e)
+      {
+        _droppedCount.incrementAndGet();
+        _log.warn("Failed to write to capture log: " + _dir, e);
+      }
+    }
+
+    private void drainAndStop()
+    {
+      CapturedPair pair;
+      while ((pair = _queue.poll()) != null)
+      {
+        if (pair instanceof Marker)
+        {
+          ((Marker) pair).done();
+        }
+        else
+        {
+          writeOrDrop(pair);
+        }
+      }
+      try
+      {
+        closeSegment();
+      }
+      catch (IOException e)
+      {
+        _log.warn("Failed to close capture log segment: " + _dir, e);
+      }
+      if (_deflater != null)
+      {
+        _deflater.end();
+      }
+    }
+  }
+
+  private static class Marker extends CapturedPair
+  {
+    private final boolean _stop;
+    private final CountDownLatch _done = new CountDownLatch(1);
+
+    private Marker(boolean stop)
+    {
+      super(null, null, 0);
+      _stop = stop;
+    }
+
+    private void done()
+    {
+      _done.countDown();
+    }
+
+    private void await() throws InterruptedException
+    {
+      _done.await();
+    }
+  }
+}
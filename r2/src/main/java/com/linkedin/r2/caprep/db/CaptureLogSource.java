@@ -0,0 +1,218 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.caprep.db;
+
+import com.linkedin.r2.message.Request;
+import com.linkedin.r2.message.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.Inflater;
+
+/**
+ * A {@link DbSource} which replays the responses of a capture log written by {@link CaptureLogSink}.
+ * <p/>
+ *
+ * Rather than holding every captured pair in memory, this source keeps the segments of the capture
+ * log mapped and an index from the hash code of each canonical request to the positions of its
+ * records. A lookup only decodes the records whose requests have the same hash code. If a request
+ * was captured more than once, the last captured response is replayed.
+ * <p/>
+ *
+ * This class is thread-safe once constructed.
+ */
+public class CaptureLogSource implements DbSource
+{
+  private static final Logger _log = LoggerFactory.getLogger(CaptureLogSource.class);
+
+  private final File _dir;
+  private final File[] _segmentFiles;
+  private final ByteBuffer[] _segments;
+  private final Map<Integer, long[]> _index = new HashMap<Integer, long[]>();
+  private final int _size;
+
+  /**
+   * Construct a source from the capture log in the specified directory.
+   *
+   * @param dir the directory path of the capture log.
+   * @throws IOException if the capture log could not be read.
+   */
+  public CaptureLogSource(String dir) throws IOException
+  {
+    this(new File(dir));
+  }
+
+  /**
+   * Construct a source from the capture log in the specified directory.
+   *
+   * @param dir the directory of the capture log.
+   * @throws IOException if the capture log could not be read.
+   */
+  public CaptureLogSource(File dir) throws IOException
+  {
+    if (dir.isDirectory() == false)
+    {
+      throw new IOException("Not a directory: " + dir);
+    }
+    _dir = dir;
+    final int[] numbers = CaptureLogFormat.listSegments(dir);
+    _segmentFiles = new File[numbers.length];
+    _segments = new ByteBuffer[numbers.length];
+    final Inflater inflater = new Inflater();
+    try
+    {
+      int size = 0;
+      for (int i = 0; i < numbers.length; i++)
+      {
+        _segmentFiles[i] = CaptureLogFormat.segmentFile(dir, numbers[i]);
+        _segments[i] = CaptureLogFormat.mapSegment(_segmentFiles[i]);
+        size += indexSegment(i, inflater);
+      }
+      _size = size;
+    }
+    finally
+    {
+      inflater.end();
+    }
+  }
+
+  /**
+   * @param dir a directory.
+   * @return true if the directory holds a capture log.
+   */
+  public static boolean isCaptureLog(File dir)
+  {
+    return CaptureLogFormat.listSegments(dir).length > 0;
+  }
+
+  /**
+   * @return the number of records in the capture log.
+   */
+  public int size()
+  {
+    return _size;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T extends Response> T replay(Request req)
+  {
+    final Request canonical;
+    try
+    {
+      canonical = canonicalize(req);
+    }
+    catch (Exception e)
+    {
+      _log.debug("Failed to canonicalize request: " + req, e);
+      return null;
+    }
+
+    final long[] positions = _index.get(canonical.hashCode());
+    if (positions == null)
+    {
+      return null;
+    }
+
+    final Inflater inflater = new Inflater();
+    try
+    {
+      for (int i = positions.length - 1; i >= 0; i--)
+      {
+        final CapturedPair pair = read(positions[i], inflater);
+        if (pair != null && canonical.equals(canonicalize(pair.getRequest())))
+        {
+          return (T) pair.getResponse();
+        }
+      }
+      return null;
+    }
+    finally
+    {
+      inflater.end();
+    }
+  }
+
+  private int indexSegment(int segment, Inflater inflater)
+  {
+    final ByteBuffer buffer = _segments[segment].duplicate();
+    int count = 0;
+    while (true)
+    {
+      final int offset = buffer.position();
+      try
+      {
+        final byte[] payload = CaptureLogFormat.readRecord(buffer, _segmentFiles[segment], inflater);
+        if (payload == null)
+        {
+          return count;
+        }
+        final int hash = canonicalize(CaptureLogFormat.decodeRequest(payload)).hashCode();
+        addPosition(hash, ((long) segment << 32) | offset);
+        count++;
+      }
+      catch (Exception e)
+      {
+        _log.warn("Skipping the rest of capture log segment: " + _segmentFiles[segment], e);
+        return count;
+      }
+    }
+  }
+
+  private void addPosition(int hash, long position)
+  {
+    final long[] positions = _index.get(hash);
+    if (positions == null)
+    {
+      _index.put(hash, new long[] {position});
+    }
+    else
+    {
+      final long[] grown = new long[positions.length + 1];
+      System.arraycopy(positions, 0, grown, 0, positions.length);
+      grown[positions.length] = position;
+      _index.put(hash, grown);
+    }
+  }
+
+  private CapturedPair read(long position, Inflater inflater)
+  {
+    final int segment = (int) (position >>> 32);
+    final ByteBuffer buffer = _segments[segment].duplicate();
+    buffer.position((int) position);
+    try
+    {
+      return CaptureLogFormat.decode(CaptureLogFormat.readRecord(buffer, _segmentFiles[segment], inflater));
+    }
+    catch (IOException e)
+    {
+      _log.warn("Failed to read capture log record in: " + _dir, e);
+      return null;
+    }
+  }
+
+  private Request canonicalize(Request req)
+  {
+    return req.requestBuilder().buildCanonical();
+  }
+}
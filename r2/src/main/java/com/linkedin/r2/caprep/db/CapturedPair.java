@@ -0,0 +1,62 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.caprep.db;
+
+import com.linkedin.r2.message.Request;
+import com.linkedin.r2.message.Response;
+
+/**
+ * A request and its response, as read from a capture log.
+ */
+public class CapturedPair
+{
+  private final Request _request;
+  private final Response _response;
+  private final long _timestamp;
+
+  public CapturedPair(Request request, Response response)
+  {
+    this(request, response, 0);
+  }
+
+  public CapturedPair(Request request, Response response, long timestamp)
+  {
+    _request = request;
+    _response = response;
+    _timestamp = timestamp;
+  }
+
+  public Request getRequest()
+  {
+    return _request;
+  }
+
+  public Response getResponse()
+  {
+    return _response;
+  }
+
+  /**
+   * @return the time the request arrived in nanoseconds since the epoch, or 0 if unknown,
+   *         see {@link CaptureLogSink#currentTimeNanos()}.
+   */
+  public long getTimestamp()
+  {
+    return _timestamp;
+  }
+}
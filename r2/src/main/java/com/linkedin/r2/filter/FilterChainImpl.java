@@ -21,7 +21,8 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
-import com.linkedin.r2.filter.message.MessageFilter;
+import com.linkedin.r2.filter.instrumentation.FilterChainInstrumentation;
+import com.linkedin.r2.filter.instrumentation.FilterStats;
 import com.linkedin.r2.filter.message.RequestFilter;
 import com.linkedin.r2.filter.message.ResponseFilter;
 import com.linkedin.r2.filter.message.rest.RestRequestFilter;
@@ -37,42 +38,97 @@ import com.linkedin.r2.message.rpc.RpcRequest;
 import com.linkedin.r2.message.rpc.RpcResponse;
 
 /**
+ * An immutable {@link FilterChain}. The filters are compiled once, when the chain is built,
+ * into arrays of request and response filters per message type which are already adapted to
+ * that message type, so that dispatching a message only walks an array. Filters which do not
+ * handle a direction of a message type are left out as {@code null} and are skipped.
+ * <p/>
+ *
+ * If the chain is instrumented, the {@link FilterStats} of its filters are also resolved when
+ * the chain is built, and are only handed to the messages which are sampled.
+ *
  * @author Chris Pettitt
  */
 /* package private */ class FilterChainImpl implements FilterChain
 {
-  private final List<MessageFilter> _rpcFilters;
-  private final List<MessageFilter> _restFilters;
+  private final List<Filter> _filters;
+  private final FilterChainInstrumentation _instrumentation;
+  private final FilterStats[] _filterStats;
+
+  private final RequestFilter[] _rpcRequestFilters;
+  private final ResponseFilter[] _rpcResponseFilters;
+  private final RequestFilter[] _restRequestFilters;
+  private final ResponseFilter[] _restResponseFilters;
 
   public FilterChainImpl()
   {
-    _rpcFilters = Collections.emptyList();
-    _restFilters = Collections.emptyList();
+    this(Collections.<Filter>emptyList(), null);
   }
 
-  private FilterChainImpl(List<MessageFilter> rpcFilters, List<MessageFilter> restFilters)
+  private FilterChainImpl(List<Filter> filters, FilterChainInstrumentation instrumentation)
   {
-    _rpcFilters = Collections.unmodifiableList(new ArrayList<MessageFilter>(rpcFilters));
-    _restFilters = Collections.unmodifiableList(new ArrayList<MessageFilter>(restFilters));
+    _filters = Collections.unmodifiableList(new ArrayList<Filter>(filters));
+    _instrumentation = instrumentation;
+
+    final int size = _filters.size();
+    _rpcRequestFilters = new RequestFilter[size];
+    _rpcResponseFilters = new ResponseFilter[size];
+    _restRequestFilters = new RequestFilter[size];
+    _restResponseFilters = new ResponseFilter[size];
+    for (int i = 0; i < size; i++)
+    {
+      final Filter filter = _filters.get(i);
+      _rpcRequestFilters[i] = adaptRpcRequestFilter(filter);
+      _rpcResponseFilters[i] = adaptRpcResponseFilter(filter);
+      _restRequestFilters[i] = adaptRestRequestFilter(filter);
+      _restResponseFilters[i] = adaptRestResponseFilter(filter);
+    }
+
+    if (instrumentation != null)
+    {
+      _filterStats = new FilterStats[size];
+      for (int i = 0; i < size; i++)
+      {
+        _filterStats[i] = instrumentation.getFilterStats(_filters.get(i));
+      }
+    }
+    else
+    {
+      _filterStats = null;
+    }
+  }
+
+  /**
+   * Returns a chain with the same filters as this chain, which records the statistics of its
+   * filters with the specified instrumentation. The instrumentation is kept by chains derived
+   * from the returned chain.
+   *
+   * @param instrumentation the instrumentation, or null to remove the instrumentation.
+   * @return the instrumented chain.
+   */
+  public FilterChainImpl instrument(FilterChainInstrumentation instrumentation)
+  {
+    return new FilterChainImpl(_filters, instrumentation);
   }
 
   @Override
   public FilterChain addFirst(Filter filter)
   {
-    return new FilterChainImpl(addFirstRpc(filter), addFirstRest(filter));
+    return new FilterChainImpl(doAddFirst(_filters, filter), _instrumentation);
   }
 
   @Override
   public FilterChain addLast(Filter filter)
   {
-    return new FilterChainImpl(addLastRpc(filter), addLastRest(filter));
+    return new FilterChainImpl(doAddLast(_filters, filter), _instrumentation);
   }
 
   @Override
   public void onRpcRequest(RpcRequest req, RequestContext requestContext,
                            Map<String, String> wireAttrs)
   {
-    new FilterChainIterator<RpcRequest, RpcResponse>(_rpcFilters, 0)
+    new FilterChainIterator<RpcRequest, RpcResponse>(_rpcRequestFilters, _rpcResponseFilters,
+                                                     0, sampleFilterStats())
             .onRequest(req, requestContext, wireAttrs);
   }
 
@@ -80,7 +136,8 @@ import com.linkedin.r2.message.rpc.RpcResponse;
   public void onRpcResponse(RpcResponse res, RequestContext requestContext,
                             Map<String, String> wireAttrs)
   {
-    new FilterChainIterator<RpcRequest, RpcResponse>(_rpcFilters, _rpcFilters.size())
+    new FilterChainIterator<RpcRequest, RpcResponse>(_rpcRequestFilters, _rpcResponseFilters,
+                                                     _rpcResponseFilters.length, sampleFilterStats())
             .onResponse(res, requestContext, wireAttrs);
   }
 
@@ -89,7 +146,8 @@ import com.linkedin.r2.message.rpc.RpcResponse;
                          RequestContext requestContext,
                          Map<String, String> wireAttrs)
   {
-    new FilterChainIterator<RpcRequest, RpcResponse>(_rpcFilters, _rpcFilters.size())
+    new FilterChainIterator<RpcRequest, RpcResponse>(_rpcRequestFilters, _rpcResponseFilters,
+                                                     _rpcResponseFilters.length, sampleFilterStats())
             .onError(ex, requestContext, wireAttrs);
   }
 
@@ -97,7 +155,8 @@ import com.linkedin.r2.message.rpc.RpcResponse;
   public void onRestRequest(RestRequest req, RequestContext requestContext,
                             Map<String, String> wireAttrs)
   {
-    new FilterChainIterator<RestRequest, RestResponse>(_restFilters, 0)
+    new FilterChainIterator<RestRequest, RestResponse>(_restRequestFilters, _restResponseFilters,
+                                                       0, sampleFilterStats())
             .onRequest(req, requestContext, wireAttrs);
   }
 
@@ -105,7 +164,8 @@ import com.linkedin.r2.message.rpc.RpcResponse;
   public void onRestResponse(RestResponse res, RequestContext requestContext,
                              Map<String, String> wireAttrs)
   {
-    new FilterChainIterator<RestRequest, RestResponse>(_restFilters, _restFilters.size())
+    new FilterChainIterator<RestRequest, RestResponse>(_restRequestFilters, _restResponseFilters,
+                                                       _restResponseFilters.length, sampleFilterStats())
             .onResponse(res, requestContext, wireAttrs);
   }
 
@@ -113,28 +173,14 @@ import com.linkedin.r2.message.rpc.RpcResponse;
   public void onRestError(Exception ex, RequestContext requestContext,
                           Map<String, String> wireAttrs)
   {
-    new FilterChainIterator<RestRequest, RestResponse>(_restFilters, _restFilters.size())
+    new FilterChainIterator<RestRequest, RestResponse>(_restRequestFilters, _restResponseFilters,
+                                                       _restResponseFilters.length, sampleFilterStats())
             .onError(ex, requestContext, wireAttrs);
   }
 
-  private List<MessageFilter> addFirstRpc(Filter filter)
-  {
-    return doAddFirst(_rpcFilters, adaptRpcFilter(filter));
-  }
-
-  private List<MessageFilter> addFirstRest(Filter filter)
+  private FilterStats[] sampleFilterStats()
   {
-    return doAddFirst(_restFilters, adaptRestFilter(filter));
-  }
-
-  private List<MessageFilter> addLastRpc(Filter filter)
-  {
-    return doAddLast(_rpcFilters, adaptRpcFilter(filter));
-  }
-
-  private List<MessageFilter> addLastRest(Filter filter)
-  {
-    return doAddLast(_restFilters, adaptRestFilter(filter));
+    return _instrumentation != null && _instrumentation.sample() ? _filterStats : null;
   }
 
   private <T> List<T> doAddFirst(List<T> list, T obj)
@@ -153,47 +199,30 @@ import com.linkedin.r2.message.rpc.RpcResponse;
     return newFilters;
   }
 
-  private MessageFilter adaptRpcFilter(Filter filter)
+  private static RequestFilter adaptRpcRequestFilter(Filter filter)
   {
-    final RequestFilter reqFilter;
     if (filter instanceof RpcRequestFilter)
     {
-      reqFilter = adaptRpcRequestFilter((RpcRequestFilter) filter);
+      return new RpcRequestFilterAdapter((RpcRequestFilter) filter);
     }
     else if (filter instanceof RequestFilter)
     {
-      reqFilter = (RequestFilter) filter;
-    }
-    else
-    {
-      reqFilter = null;
+      return (RequestFilter) filter;
     }
+    return null;
+  }
 
-    final ResponseFilter resFilter;
+  private static ResponseFilter adaptRpcResponseFilter(Filter filter)
+  {
     if (filter instanceof RpcResponseFilter)
     {
-      resFilter = adaptRpcResponseFilter((RpcResponseFilter) filter);
+      return new RpcResponseFilterAdapter((RpcResponseFilter) filter);
     }
     else if (filter instanceof ResponseFilter)
     {
-      resFilter = (ResponseFilter) filter;
+      return (ResponseFilter) filter;
     }
-    else
-    {
-      resFilter = null;
-    }
-
-    return new ComposedFilter(reqFilter, resFilter);
-  }
-
-  private static RequestFilter adaptRpcRequestFilter(final RpcRequestFilter rpcFilter)
-  {
-    return new RpcRequestFilterAdapter(rpcFilter);
-  }
-
-  private static ResponseFilter adaptRpcResponseFilter(final RpcResponseFilter rpcFilter)
-  {
-    return new RpcResponseFilterAdapter(rpcFilter);
+    return null;
   }
 
   @SuppressWarnings("unchecked")
@@ -202,47 +231,30 @@ import com.linkedin.r2.message.rpc.RpcResponse;
     return nextFilter;
   }
 
-  private static MessageFilter adaptRestFilter(Filter filter)
+  private static RequestFilter adaptRestRequestFilter(Filter filter)
   {
-    final RequestFilter reqFilter;
     if (filter instanceof RestRequestFilter)
     {
-      reqFilter = adaptRestRequestFilter((RestRequestFilter) filter);
+      return new RestRequestFilterAdapter((RestRequestFilter) filter);
     }
     else if (filter instanceof RequestFilter)
     {
-      reqFilter = (RequestFilter) filter;
-    }
-    else
-    {
-      reqFilter = null;
+      return (RequestFilter) filter;
     }
+    return null;
+  }
 
-    final ResponseFilter resFilter;
+  private static ResponseFilter adaptRestResponseFilter(Filter filter)
+  {
     if (filter instanceof RestResponseFilter)
     {
-      resFilter = adaptRestResponseFilter((RestResponseFilter) filter);
+      return new RestResponseFilterAdapter((RestResponseFilter) filter);
     }
     else if (filter instanceof ResponseFilter)
     {
-      resFilter = (ResponseFilter) filter;
-    }
-    else
-    {
-      resFilter = null;
+      return (ResponseFilter) filter;
     }
-
-    return new ComposedFilter(reqFilter, resFilter);
-  }
-
-  private static RequestFilter adaptRestRequestFilter(final RestRequestFilter restFilter)
-  {
-    return new RestRequestFilterAdapter(restFilter);
-  }
-
-  private static ResponseFilter adaptRestResponseFilter(final RestResponseFilter restFilter)
-  {
-    return new RestResponseFilterAdapter(restFilter);
+    return null;
   }
 
   @SuppressWarnings("unchecked")
@@ -17,76 +17,167 @@
 /* $Id$ */
 package com.linkedin.r2.filter;
 
-import com.linkedin.r2.filter.message.MessageFilter;
+import com.linkedin.r2.filter.instrumentation.FilterStats;
+import com.linkedin.r2.filter.message.RequestFilter;
+import com.linkedin.r2.filter.message.ResponseFilter;
 import com.linkedin.r2.message.Request;
 import com.linkedin.r2.message.RequestContext;
 import com.linkedin.r2.message.Response;
 
-import java.util.List;
 import java.util.Map;
 
 /**
-* @author Chris Pettitt
-* @version $Revision$
-*/
+ * The state of a message travelling through a {@link FilterChainImpl}: the position in the
+ * chain. Requests move forward through the request filters and responses and errors move
+ * back through the response filters from the current position, skipping filters which do
+ * not handle the direction.
+ * <p/>
+ *
+ * If the message is sampled for instrumentation, the iterator also times each hop: the time
+ * from handing the message to a filter until the filter passes it on.
+ *
+ * @author Chris Pettitt
+ * @version $Revision$
+ */
 /* package private */ final class FilterChainIterator<REQ extends Request, RES extends Response>
         implements NextFilter<REQ, RES>
 {
-  private final List<MessageFilter> _filters;
+  private final RequestFilter[] _requestFilters;
+  private final ResponseFilter[] _responseFilters;
+  private final FilterStats[] _filterStats;
   private int _cursor;
 
-  public FilterChainIterator(List<MessageFilter> filters, int cursor)
+  // the filter currently holding the message, only tracked for sampled messages
+  private int _hop = -1;
+  private boolean _hopIsRequest;
+  private boolean _hopIsError;
+  private long _hopStartNanos;
+
+  public FilterChainIterator(RequestFilter[] requestFilters,
+                             ResponseFilter[] responseFilters,
+                             int cursor,
+                             FilterStats[] filterStats)
   {
-    _filters = filters;
+    _requestFilters = requestFilters;
+    _responseFilters = responseFilters;
     _cursor = cursor;
+    _filterStats = filterStats;
   }
 
   public void onRequest(REQ req, RequestContext requestContext, Map<String, String> wireAttrs)
   {
-    if (_cursor < _filters.size())
+    endHop();
+    while (_cursor < _requestFilters.length)
     {
-      try
+      final int index = _cursor++;
+      final RequestFilter filter = _requestFilters[index];
+      if (filter != null)
       {
-        _filters.get(_cursor++).onRequest(req, requestContext, wireAttrs, adaptNextFilter(this));
+        startHop(index, true, false);
+        try
+        {
+          filter.onRequest(req, requestContext, wireAttrs, adaptNextFilter(this));
+        }
+        catch (RuntimeException e)
+        {
+          filterThrew(index);
+          onError(e, requestContext, wireAttrs);
+        }
+        return;
       }
-      catch (RuntimeException e)
+    }
+  }
+
+  public void onResponse(RES res, RequestContext requestContext, Map<String, String> wireAttrs)
+  {
+    endHop();
+    while (_cursor > 0)
+    {
+      final int index = --_cursor;
+      final ResponseFilter filter = _responseFilters[index];
+      if (filter != null)
       {
-        onError(e, requestContext, wireAttrs);
+        startHop(index, false, false);
+        try
+        {
+          filter.onResponse(res, requestContext, wireAttrs, adaptNextFilter(this));
+        }
+        catch (RuntimeException e)
+        {
+          filterThrew(index);
+          onError(e, requestContext, wireAttrs);
+        }
+        return;
       }
     }
   }
 
-  public void onResponse(RES res, RequestContext requestContext, Map<String, String> wireAttrs)
+  @Override
+  public void onError(Throwable ex, RequestContext requestContext, Map<String, String> wireAttrs)
   {
-    if (_cursor > 0)
+    endHop();
+    while (_cursor > 0)
     {
-      try
+      final int index = --_cursor;
+      final ResponseFilter filter = _responseFilters[index];
+      if (filter != null)
       {
-        _filters.get(--_cursor).onResponse(res, requestContext, wireAttrs, adaptNextFilter(this));
+        startHop(index, false, true);
+        try
+        {
+          filter.onError(ex, requestContext, wireAttrs, adaptNextFilter(this));
+        }
+        catch (RuntimeException e)
+        {
+          filterThrew(index);
+          onError(e, requestContext, wireAttrs);
+        }
+        return;
       }
-      catch (RuntimeException e)
+    }
+  }
+
+  private void startHop(int index, boolean request, boolean error)
+  {
+    if (_filterStats != null)
+    {
+      _hop = index;
+      _hopIsRequest = request;
+      _hopIsError = error;
+      if (request)
       {
-        onError(e, requestContext, wireAttrs);
+        _filterStats[index].requestStarted();
       }
+      _hopStartNanos = System.nanoTime();
     }
   }
 
-  @Override
-  public void onError(Throwable ex, RequestContext requestContext, Map<String, String> wireAttrs)
+  private void endHop()
   {
-    if (_cursor > 0)
+    if (_hop >= 0)
     {
-      try
+      final long nanos = System.nanoTime() - _hopStartNanos;
+      final FilterStats stats = _filterStats[_hop];
+      _hop = -1;
+      if (_hopIsRequest)
       {
-        _filters.get(--_cursor).onError(ex, requestContext, wireAttrs, adaptNextFilter(this));
+        stats.requestDone(nanos);
       }
-      catch (RuntimeException e)
+      else
       {
-        onError(e, requestContext, wireAttrs);
+        stats.responseDone(nanos, _hopIsError);
       }
     }
   }
 
+  private void filterThrew(int index)
+  {
+    if (_filterStats != null)
+    {
+      _filterStats[index].errorThrown();
+    }
+  }
+
   @SuppressWarnings("unchecked")
   private NextFilter<Request, Response> adaptNextFilter(FilterChainIterator nextFilter)
   {
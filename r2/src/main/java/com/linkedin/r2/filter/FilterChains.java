@@ -17,6 +17,8 @@
 /* $Id$ */
 package com.linkedin.r2.filter;
 
+import com.linkedin.r2.filter.instrumentation.FilterChainInstrumentation;
+
 /**
  * Factory methods for creating new {@link FilterChain}s.
  *
@@ -52,4 +54,23 @@ public class FilterChains
     }
     return fc;
   }
+
+  /**
+   * Returns a {@link FilterChain} with the filters of the supplied chain, which records the
+   * statistics of its filters with the supplied instrumentation. Chains derived from the
+   * returned chain with {@link FilterChain#addFirst} or {@link FilterChain#addLast} are
+   * instrumented too, so the transport filters which clients and servers add are included.
+   *
+   * @param filterChain the filter chain to instrument, which must have been created by this class
+   * @param instrumentation the instrumentation, or null to remove the instrumentation
+   * @return the instrumented filter chain
+   */
+  public static FilterChain instrument(FilterChain filterChain, FilterChainInstrumentation instrumentation)
+  {
+    if ((filterChain instanceof FilterChainImpl) == false)
+    {
+      throw new IllegalArgumentException("Unsupported filter chain: " + filterChain);
+    }
+    return ((FilterChainImpl) filterChain).instrument(instrumentation);
+  }
 }
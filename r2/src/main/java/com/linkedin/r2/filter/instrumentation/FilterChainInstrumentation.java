@@ -0,0 +1,130 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.filter.instrumentation;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.linkedin.r2.filter.Filter;
+
+/**
+ * Collects {@link FilterStats} for the filters of the filter chains it is attached to with
+ * {@link com.linkedin.r2.filter.FilterChains#instrument}.
+ * <p/>
+ *
+ * To keep the overhead low, only one of every {@code sampleRate} messages dispatched through
+ * a chain is measured; the others only pay for deciding whether to sample. Filters are named
+ * by their class, so filters of the same class share their statistics.
+ * <p/>
+ *
+ * This class is thread-safe.
+ */
+public class FilterChainInstrumentation
+{
+  private final int _sampleRate;
+  private final FilterMetricsSink _sink;
+  private final AtomicInteger _messageCount = new AtomicInteger();
+  private final ConcurrentMap<String, FilterStats> _filterStats = new ConcurrentHashMap<String, FilterStats>();
+
+  /**
+   * Construct an instrumentation which measures every message.
+   */
+  public FilterChainInstrumentation()
+  {
+    this(1, null);
+  }
+
+  /**
+   * Construct an instrumentation.
+   *
+   * @param sampleRate measure one of every {@code sampleRate} messages.
+   * @param sink receives the measurements in addition to the {@link FilterStats}, may be null.
+   */
+  public FilterChainInstrumentation(int sampleRate, FilterMetricsSink sink)
+  {
+    if (sampleRate < 1)
+    {
+      throw new IllegalArgumentException("Sample rate must be at least 1: " + sampleRate);
+    }
+    _sampleRate = sampleRate;
+    _sink = sink;
+  }
+
+  /**
+   * @return the rate at which messages are sampled.
+   */
+  public int getSampleRate()
+  {
+    return _sampleRate;
+  }
+
+  /**
+   * @return the statistics of all filters seen so far, by filter name.
+   */
+  public Map<String, FilterStats> getFilterStats()
+  {
+    return Collections.unmodifiableMap(new TreeMap<String, FilterStats>(_filterStats));
+  }
+
+  /**
+   * Return the statistics of a filter, creating them if needed.
+   *
+   * @param filter the filter.
+   * @return the statistics of the filter.
+   */
+  public FilterStats getFilterStats(Filter filter)
+  {
+    final String name = filter.getClass().getName();
+    FilterStats stats = _filterStats.get(name);
+    if (stats == null)
+    {
+      final FilterStats newStats = new FilterStats(name, _sink);
+      stats = _filterStats.putIfAbsent(name, newStats);
+      if (stats == null)
+      {
+        stats = newStats;
+      }
+    }
+    return stats;
+  }
+
+  /**
+   * Decide whether to measure the next message.
+   *
+   * @return true if the message should be measured.
+   */
+  public boolean sample()
+  {
+    return _sampleRate == 1 || _messageCount.incrementAndGet() % _sampleRate == 0;
+  }
+
+  /**
+   * Reset the statistics of all filters.
+   */
+  public void reset()
+  {
+    for (FilterStats stats : _filterStats.values())
+    {
+      stats.reset();
+    }
+  }
+}
@@ -0,0 +1,48 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.filter.instrumentation;
+
+/**
+ * Receives the measurements of an instrumented filter chain, e.g. to forward them to a
+ * metrics system. Implementations are called on the threads which dispatch messages
+ * through the chain, so they must be thread-safe and must not block.
+ *
+ * @see FilterChainInstrumentation
+ */
+public interface FilterMetricsSink
+{
+  /**
+   * Called when a filter passed on a sampled request, either to the next filter or by
+   * responding to it.
+   *
+   * @param filterName the name of the filter.
+   * @param nanos the time in nanoseconds from handing the request to the filter until it
+   *          passed the request on.
+   */
+  void onRequest(String filterName, long nanos);
+
+  /**
+   * Called when a filter passed on a sampled response or error.
+   *
+   * @param filterName the name of the filter.
+   * @param nanos the time in nanoseconds from handing the response or error to the filter
+   *          until it passed it on.
+   * @param error true if the filter was handed an error.
+   */
+  void onResponse(String filterName, long nanos, boolean error);
+}
@@ -0,0 +1,150 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.filter.instrumentation;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The measurements of a filter of an instrumented filter chain, for the sampled messages.
+ * <p/>
+ *
+ * The request time of a filter is the time from handing a request to the filter until the
+ * filter passes it on, either to the next filter or by responding to it. For the filter which
+ * sends requests to the transport, this includes the transport latency. Likewise, the response
+ * time is the time from handing a response or error to the filter until the filter passes it on.
+ * The in-flight count is the number of sampled requests which the filter has not passed on yet.
+ * <p/>
+ *
+ * This class is thread-safe.
+ */
+public class FilterStats
+{
+  private final String _name;
+  private final FilterMetricsSink _sink;
+  private final LatencyHistogram _requestTime = new LatencyHistogram();
+  private final LatencyHistogram _responseTime = new LatencyHistogram();
+  private final AtomicLong _errorCount = new AtomicLong();
+  private final AtomicInteger _inFlightCount = new AtomicInteger();
+
+  FilterStats(String name, FilterMetricsSink sink)
+  {
+    _name = name;
+    _sink = sink;
+  }
+
+  /**
+   * @return the name of the filter.
+   */
+  public String getName()
+  {
+    return _name;
+  }
+
+  /**
+   * @return the request times of the filter, in nanoseconds.
+   */
+  public LatencyHistogram getRequestTime()
+  {
+    return _requestTime;
+  }
+
+  /**
+   * @return the response and error times of the filter, in nanoseconds.
+   */
+  public LatencyHistogram getResponseTime()
+  {
+    return _responseTime;
+  }
+
+  /**
+   * @return the number of errors handed to the filter or thrown by the filter.
+   */
+  public long getErrorCount()
+  {
+    return _errorCount.get();
+  }
+
+  /**
+   * @return the number of sampled requests handed to the filter which it has not passed on yet.
+   */
+  public int getInFlightCount()
+  {
+    return _inFlightCount.get();
+  }
+
+  /**
+   * Reset the request and response times and the error count. The in-flight count is not reset.
+   */
+  public void reset()
+  {
+    _requestTime.reset();
+    _responseTime.reset();
+    _errorCount.set(0);
+  }
+
+  /**
+   * Called by the filter chain when it hands a request to the filter.
+   */
+  public void requestStarted()
+  {
+    _inFlightCount.incrementAndGet();
+  }
+
+  /**
+   * Called by the filter chain when the filter passed on a request.
+   *
+   * @param nanos the time the filter held the request.
+   */
+  public void requestDone(long nanos)
+  {
+    _inFlightCount.decrementAndGet();
+    _requestTime.record(nanos);
+    if (_sink != null)
+    {
+      _sink.onRequest(_name, nanos);
+    }
+  }
+
+  /**
+   * Called by the filter chain when the filter passed on a response or error.
+   *
+   * @param nanos the time the filter held the response or error.
+   * @param error true if the filter was handed an error.
+   */
+  public void responseDone(long nanos, boolean error)
+  {
+    if (error)
+    {
+      _errorCount.incrementAndGet();
+    }
+    _responseTime.record(nanos);
+    if (_sink != null)
+    {
+      _sink.onResponse(_name, nanos, error);
+    }
+  }
+
+  /**
+   * Called by the filter chain when the filter threw an exception.
+   */
+  public void errorThrown()
+  {
+    _errorCount.incrementAndGet();
+  }
+}
@@ -0,0 +1,102 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.filter.instrumentation;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Implementation of {@link FilterStatsJmxMBean}.
+ */
+public class FilterStatsJmx implements FilterStatsJmxMBean
+{
+  private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final FilterStats _stats;
+
+  public FilterStatsJmx(FilterStats stats)
+  {
+    _stats = stats;
+  }
+
+  @Override
+  public long getRequestCount()
+  {
+    return _stats.getRequestTime().getCount();
+  }
+
+  @Override
+  public double getRequestTimeAvgMs()
+  {
+    return _stats.getRequestTime().getMean() / NANOS_PER_MILLI;
+  }
+
+  @Override
+  public double getRequestTime50PctMs()
+  {
+    return _stats.getRequestTime().getPercentile(50) / NANOS_PER_MILLI;
+  }
+
+  @Override
+  public double getRequestTime99PctMs()
+  {
+    return _stats.getRequestTime().getPercentile(99) / NANOS_PER_MILLI;
+  }
+
+  @Override
+  public double getRequestTimeMaxMs()
+  {
+    return _stats.getRequestTime().getMax() / NANOS_PER_MILLI;
+  }
+
+  @Override
+  public long getResponseCount()
+  {
+    return _stats.getResponseTime().getCount();
+  }
+
+  @Override
+  public double getResponseTimeAvgMs()
+  {
+    return _stats.getResponseTime().getMean() / NANOS_PER_MILLI;
+  }
+
+  @Override
+  public double getResponseTime99PctMs()
+  {
+    return _stats.getResponseTime().getPercentile(99) / NANOS_PER_MILLI;
+  }
+
+  @Override
+  public long getErrorCount()
+  {
+    return _stats.getErrorCount();
+  }
+
+  @Override
+  public int getInFlightCount()
+  {
+    return _stats.getInFlightCount();
+  }
+
+  @Override
+  public void reset()
+  {
+    _stats.reset();
+  }
+}
@@ -0,0 +1,47 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.filter.instrumentation;
+
+
+/**
+ * JMX view of the {@link FilterStats} of a filter. Times are in milliseconds.
+ */
+public interface FilterStatsJmxMBean
+{
+  long getRequestCount();
+
+  double getRequestTimeAvgMs();
+
+  double getRequestTime50PctMs();
+
+  double getRequestTime99PctMs();
+
+  double getRequestTimeMaxMs();
+
+  long getResponseCount();
+
+  double getResponseTimeAvgMs();
+
+  double getResponseTime99PctMs();
+
+  long getErrorCount();
+
+  int getInFlightCount();
+
+  void reset();
+}
@@ -0,0 +1,193 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.filter.instrumentation;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of non-negative values, typically latencies in nanoseconds.
+ * <p/>
+ *
+ * Values are counted in buckets which grow exponentially, by default with eight buckets
+ * per power of two, so that percentiles are reported with an error of at most 12.5%; more
+ * precise histograms can be constructed at the cost of more buckets. Recording a value
+ * does not allocate or lock, and percentiles are computed on demand.
+ * <p/>
+ *
+ * This class is thread-safe. Values recorded concurrently with {@link #reset()} or with
+ * the computation of percentiles may or may not be included.
+ */
+public class LatencyHistogram
+{
+  public static final int DEFAULT_PRECISION_BITS = 3;
+
+  private final int _subBucketBits;
+  private final int _subBuckets;
+  private final int _bucketCount;
+  private final AtomicLongArray _buckets;
+  private final AtomicLong _count = new AtomicLong();
+  private final AtomicLong _sum = new AtomicLong();
+  private final AtomicLong _max = new AtomicLong();
+
+  /**
+   * Construct a histogram with an error of at most 12.5%.
+   */
+  public LatencyHistogram()
+  {
+    this(DEFAULT_PRECISION_BITS);
+  }
+
+  /**
+   * Construct a histogram with 2^precisionBits buckets per power of two, i.e. with an error
+   * of at most 1/2^precisionBits, e.g. 7 bits for an error below 1%.
+   *
+   * @param precisionBits the number of bits of precision, between 1 and 10.
+   */
+  public LatencyHistogram(int precisionBits)
+  {
+    if (precisionBits < 1 || precisionBits > 10)
+    {
+      throw new IllegalArgumentException("Precision bits must be between 1 and 10: " + precisionBits);
+    }
+    _subBucketBits = precisionBits;
+    _subBuckets = 1 << precisionBits;
+    _bucketCount = (Long.SIZE - precisionBits) * _subBuckets;
+    _buckets = new AtomicLongArray(_bucketCount);
+  }
+
+  /**
+   * Record a value. Negative values are recorded as 0.
+   *
+   * @param value the value to record.
+   */
+  public void record(long value)
+  {
+    if (value < 0)
+    {
+      value = 0;
+    }
+    _buckets.incrementAndGet(bucketIndex(value));
+    _count.incrementAndGet();
+    _sum.addAndGet(value);
+    long max = _max.get();
+    while (value > max && _max.compareAndSet(max, value) == false)
+    {
+      max = _max.get();
+    }
+  }
+
+  /**
+   * @return the number of recorded values.
+   */
+  public long getCount()
+  {
+    return _count.get();
+  }
+
+  /**
+   * @return the mean of the recorded values, 0 if there are none.
+   */
+  public double getMean()
+  {
+    final long count = _count.get();
+    return count == 0 ? 0 : (double) _sum.get() / count;
+  }
+
+  /**
+   * @return the largest recorded value, 0 if there are none.
+   */
+  public long getMax()
+  {
+    return _max.get();
+  }
+
+  /**
+   * Return an upper bound of the specified percentile of the recorded values.
+   *
+   * @param percentile the percentile, between 0 and 100.
+   * @return the upper bound of the bucket of the percentile, capped to the largest
+   *         recorded value, or 0 if there are no values.
+   */
+  public long getPercentile(double percentile)
+  {
+    if (percentile < 0 || percentile > 100)
+    {
+      throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+    }
+    long total = 0;
+    final long[] counts = new long[_bucketCount];
+    for (int i = 0; i < _bucketCount; i++)
+    {
+      counts[i] = _buckets.get(i);
+      total += counts[i];
+    }
+    if (total == 0)
+    {
+      return 0;
+    }
+    final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+    long seen = 0;
+    for (int i = 0; i < _bucketCount; i++)
+    {
+      seen += counts[i];
+      if (seen >= rank)
+      {
+        return Math.min(bucketUpperBound(i), _max.get());
+      }
+    }
+    return _max.get();
+  }
+
+  /**
+   * Discard all recorded values.
+   */
+  public void reset()
+  {
+    for (int i = 0; i < _bucketCount; i++)
+    {
+      _buckets.set(i, 0);
+    }
+    _count.set(0);
+    _sum.set(0);
+    _max.set(0);
+  }
+
+  private int bucketIndex(long value)
+  {
+    if (value < _subBuckets)
+    {
+      return (int) value;
+    }
+    final int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+    final int subBucket = (int) (value >>> (exponent - _subBucketBits)) & (_subBuckets - 1);
+    return (exponent - _subBucketBits + 1) * _subBuckets + subBucket;
+  }
+
+  private long bucketUpperBound(int index)
+  {
+    if (index < _subBuckets)
+    {
+      return index;
+    }
+    final int exponent = index / _subBuckets + _subBucketBits - 1;
+    final long subBucket = index % _subBuckets;
+    final long lowerBound = (_subBuckets + subBucket) << (exponent - _subBucketBits);
+    return lowerBound + (1L << (exponent - _subBucketBits)) - 1;
+  }
+}
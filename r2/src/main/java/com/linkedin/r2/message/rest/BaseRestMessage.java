@@ -36,7 +36,7 @@ import com.linkedin.r2.message.BaseMessage;
     super(entity);
 
     assert headers != null;
-    _headers = headers;
+    _headers = headers instanceof HeaderMap ? headers : new HeaderMap(headers);
   }
 
   @Override
@@ -18,8 +18,6 @@
 package com.linkedin.r2.message.rest;
 
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -36,14 +34,16 @@ public abstract class BaseRestMessageBuilder<B extends BaseRestMessageBuilder<B>
         extends BaseMessageBuilder<B>
         implements RestMessageBuilder<B>
 {
-  private Map<String, String> _headers;
+  private HeaderMap _headers;
+  // true if _headers may be referenced by a message or another builder, which must not see changes
+  private boolean _headersShared;
 
   /**
    * Constructs a new builder with no initial values.
    */
   public BaseRestMessageBuilder()
   {
-    unsafeSetHeaders(Collections.<String, String>emptyMap());
+    _headers = new HeaderMap();
   }
 
   /**
@@ -91,14 +91,29 @@ public abstract class BaseRestMessageBuilder<B extends BaseRestMessageBuilder<B>
   @Override
   public B clearHeaders()
   {
-    _headers.clear();
+    if (_headersShared)
+    {
+      _headers = new HeaderMap();
+      _headersShared = false;
+    }
+    else
+    {
+      _headers.clearHeaders();
+    }
     return thisBuilder();
   }
 
+  /**
+   * Returns the headers in this builder. The headers are not copied, but later changes to this
+   * builder are not reflected in the returned map.
+   *
+   * @return the headers in this builder
+   */
   @Override
   public Map<String, String> getHeaders()
   {
-    return Collections.unmodifiableMap(_headers);
+    _headersShared = true;
+    return _headers;
   }
 
   @Override
@@ -128,7 +143,7 @@ public abstract class BaseRestMessageBuilder<B extends BaseRestMessageBuilder<B>
    */
   public B unsafeSetHeader(String name, String value)
   {
-    _headers.put(name, value);
+    writableHeaders().set(name, value);
     return thisBuilder();
   }
 
@@ -144,9 +159,7 @@ public abstract class BaseRestMessageBuilder<B extends BaseRestMessageBuilder<B>
   {
     // This is "safe" because we explicitly state in MessageBuilder that the builder is not thread
     // safe and proper external synchronization must be used to use instances across threads.
-    final String currVal = _headers.get(name);
-    final String newVal = currVal != null ? currVal + ',' + value : value;
-    _headers.put(name, newVal);
+    writableHeaders().add(name, value);
     return thisBuilder();
   }
 
@@ -159,7 +172,17 @@ public abstract class BaseRestMessageBuilder<B extends BaseRestMessageBuilder<B>
    */
   public B unsafeSetHeaders(Map<String, String> headers)
   {
-    _headers = new HashMap<String, String>(headers);
+    if (headers instanceof HeaderMap)
+    {
+      // shared until either side changes
+      _headers = (HeaderMap) headers;
+      _headersShared = true;
+    }
+    else
+    {
+      _headers = new HeaderMap(headers);
+      _headersShared = false;
+    }
     return thisBuilder();
   }
 
@@ -172,7 +195,14 @@ public abstract class BaseRestMessageBuilder<B extends BaseRestMessageBuilder<B>
    */
   public B unsafeOverwriteHeaders(Map<String, String> headers)
   {
-    _headers.putAll(headers);
+    if (headers.isEmpty() == false)
+    {
+      final HeaderMap writable = writableHeaders();
+      for (Map.Entry<String, String> header : headers.entrySet())
+      {
+        writable.set(header.getKey(), header.getValue());
+      }
+    }
     return thisBuilder();
   }
 
@@ -223,23 +253,23 @@ public abstract class BaseRestMessageBuilder<B extends BaseRestMessageBuilder<B>
 
   protected Map<String, String> getCanonicalHeaders()
   {
-    final Map<String, String> orig = getHeaders();
-    if (orig.isEmpty())
+    if (_headers.isEmpty())
     {
-      return orig;
+      return getHeaders();
     }
 
-    final Map<String, String> headers = new HashMap<String, String>(orig.size());
-    for (Map.Entry<String, String> entry : orig.entrySet())
-    {
-      final String key = entry.getKey().toLowerCase();
+    // Note: we don't handle null list elements because we don't know if the header is a list
+    // or not.
+    return _headers.canonicalize();
+  }
 
-      // Note: we don't handle null list elements because we don't know if the header is a list
-      // or not.
-      final String value = entry.getValue().trim().replaceAll("[ \t\n\r]+", " ");
-      headers.put(key, value);
+  private HeaderMap writableHeaders()
+  {
+    if (_headersShared)
+    {
+      _headers = _headers.copy();
+      _headersShared = false;
     }
-
-    return headers;
+    return _headers;
   }
 }
@@ -0,0 +1,398 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.message.rest;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The headers of a {@link RestMessage}: an unmodifiable map from header names to header values,
+ * in which names are compared case-insensitively, as required by RFC 2616, section 4.2.
+ * <p/>
+ *
+ * Headers are stored in arrays in insertion order, with the hash code of each name folded to
+ * lower case, so that a lookup neither allocates nor lowercases. A header may have multiple values,
+ * see {@link #getAll(String)}; the map view joins them with commas.
+ * <p/>
+ *
+ * Only r2 message builders modify headers. A builder and the messages and builders derived from it
+ * share the same instance until one of the builders modifies its headers, which then copies them.
+ * <p/>
+ *
+ * The hash code is that of any map with the same entries, as the {@link Map} contract requires.
+ * Like a {@link java.util.TreeMap} with a case-insensitive comparator, this map may also be equal to
+ * a map whose names differ in case only, e.g. another HeaderMap, though their hash codes differ.
+ */
+public final class HeaderMap extends AbstractMap<String, String>
+{
+  private static final int INITIAL_CAPACITY = 8;
+
+  private String[] _names;
+  private int[] _hashes;
+  // each value is either a String or, for a header with multiple values, a String[]
+  private Object[] _values;
+  private int _size;
+
+  /* package private */ HeaderMap()
+  {
+    this(INITIAL_CAPACITY);
+  }
+
+  /* package private */ HeaderMap(Map<String, String> headers)
+  {
+    this(Math.max(INITIAL_CAPACITY, headers.size()));
+    for (Map.Entry<String, String> header : headers.entrySet())
+    {
+      set(header.getKey(), header.getValue());
+    }
+  }
+
+  private HeaderMap(int capacity)
+  {
+    _names = new String[capacity];
+    _hashes = new int[capacity];
+    _values = new Object[capacity];
+  }
+
+  /**
+   * Returns the values of the header with the given name, in the order they were added. Unlike
+   * {@link RestMessage#getHeaderValues(String)}, the values are not split at commas.
+   *
+   * @param name the name of the header
+   * @return an unmodifiable list of the values of the header, or {@code null} if there is no
+   *         header with the given name
+   */
+  public List<String> getAll(String name)
+  {
+    final int index = indexOf(name);
+    if (index < 0)
+    {
+      return null;
+    }
+    final Object value = _values[index];
+    return value instanceof String
+        ? Collections.singletonList((String) value)
+        : Collections.unmodifiableList(Arrays.asList((String[]) value));
+  }
+
+  @Override
+  public String get(Object name)
+  {
+    if (name instanceof String)
+    {
+      final int index = indexOf((String) name);
+      if (index >= 0)
+      {
+        return valueAt(index);
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public boolean containsKey(Object name)
+  {
+    return name instanceof String && indexOf((String) name) >= 0;
+  }
+
+  @Override
+  public int size()
+  {
+    return _size;
+  }
+
+  @Override
+  public boolean isEmpty()
+  {
+    return _size == 0;
+  }
+
+  @Override
+  public Set<Map.Entry<String, String>> entrySet()
+  {
+    return new AbstractSet<Map.Entry<String, String>>()
+    {
+      @Override
+      public Iterator<Map.Entry<String, String>> iterator()
+      {
+        return new Iterator<Map.Entry<String, String>>()
+        {
+          private int _index;
+
+          @Override
+          public boolean hasNext()
+          {
+            return _index < _size;
+          }
+
+          @Override
+          public Map.Entry<String, String> next()
+          {
+            if (_index >= _size)
+            {
+              throw new NoSuchElementException();
+            }
+            final int index = _index++;
+            return new AbstractMap.SimpleImmutableEntry<String, String>(_names[index], valueAt(index));
+          }
+
+          @Override
+          public void remove()
+          {
+            throw new UnsupportedOperationException();
+          }
+        };
+      }
+
+      @Override
+      public int size()
+      {
+        return _size;
+      }
+    };
+  }
+
+  @Override
+  public int hashCode()
+  {
+    int hashCode = 0;
+    for (int i = 0; i < _size; i++)
+    {
+      hashCode += _names[i].hashCode() ^ valueAt(i).hashCode();
+    }
+    return hashCode;
+  }
+
+  /**
+   * Sets the value of a header, replacing its previous values and name.
+   */
+  /* package private */ void set(String name, String value)
+  {
+    final int hash = hash(name);
+    final int index = indexOf(name, hash);
+    if (index >= 0)
+    {
+      _names[index] = name;
+      _values[index] = value;
+    }
+    else
+    {
+      append(name, hash, value);
+    }
+  }
+
+  /**
+   * Adds a value to a header.
+   */
+  /* package private */ void add(String name, String value)
+  {
+    final int hash = hash(name);
+    final int index = indexOf(name, hash);
+    if (index < 0)
+    {
+      append(name, hash, value);
+      return;
+    }
+    final Object current = _values[index];
+    final String[] values;
+    if (current instanceof String)
+    {
+      values = new String[] {(String) current, value};
+    }
+    else
+    {
+      // never modify the array in place, it may be shared with a copy of this map
+      final String[] currentValues = (String[]) current;
+      values = Arrays.copyOf(currentValues, currentValues.length + 1);
+      values[currentValues.length] = value;
+    }
+    _values[index] = values;
+  }
+
+  /* package private */ void clearHeaders()
+  {
+    Arrays.fill(_names, 0, _size, null);
+    Arrays.fill(_values, 0, _size, null);
+    _size = 0;
+  }
+
+  /* package private */ HeaderMap copy()
+  {
+    final HeaderMap copy = new HeaderMap(Math.max(INITIAL_CAPACITY, _size + 1));
+    System.arraycopy(_names, 0, copy._names, 0, _size);
+    System.arraycopy(_hashes, 0, copy._hashes, 0, _size);
+    System.arraycopy(_values, 0, copy._values, 0, _size);
+    copy._size = _size;
+    return copy;
+  }
+
+  /**
+   * @return the canonical form of these headers: names in lower case, each value joined, trimmed
+   *         and with runs of whitespace replaced by a single space.
+   */
+  /* package private */ HeaderMap canonicalize()
+  {
+    final HeaderMap canonical = new HeaderMap(Math.max(INITIAL_CAPACITY, _size));
+    for (int i = 0; i < _size; i++)
+    {
+      canonical.set(toLowerCase(_names[i]), canonicalizeValue(valueAt(i)));
+    }
+    return canonical;
+  }
+
+  private String valueAt(int index)
+  {
+    final Object value = _values[index];
+    if (value instanceof String)
+    {
+      return (String) value;
+    }
+    final String[] values = (String[]) value;
+    final StringBuilder sb = new StringBuilder(values[0]);
+    for (int i = 1; i < values.length; i++)
+    {
+      sb.append(',').append(values[i]);
+    }
+    return sb.toString();
+  }
+
+  private void append(String name, int hash, String value)
+  {
+    if (_size == _names.length)
+    {
+      final int capacity = _size * 2;
+      _names = Arrays.copyOf(_names, capacity);
+      _hashes = Arrays.copyOf(_hashes, capacity);
+      _values = Arrays.copyOf(_values, capacity);
+    }
+    _names[_size] = name;
+    _hashes[_size] = hash;
+    _values[_size] = value;
+    _size++;
+  }
+
+  private int indexOf(String name)
+  {
+    return indexOf(name, hash(name));
+  }
+
+  private int indexOf(String name, int hash)
+  {
+    for (int i = 0; i < _size; i++)
+    {
+      if (_hashes[i] == hash && _names[i].equalsIgnoreCase(name))
+      {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @return the hash code of the name folded to lower case, which is the hash code of the name in
+   *         lower case for ASCII names.
+   */
+  private static int hash(String name)
+  {
+    int hash = 0;
+    for (int i = 0; i < name.length(); i++)
+    {
+      char ch = name.charAt(i);
+      if (ch >= 'A' && ch <= 'Z')
+      {
+        ch += 'a' - 'A';
+      }
+      hash = 31 * hash + ch;
+    }
+    return hash;
+  }
+
+  private static String toLowerCase(String name)
+  {
+    for (int i = 0; i < name.length(); i++)
+    {
+      final char ch = name.charAt(i);
+      if (ch >= 'A' && ch <= 'Z' || ch >= 128)
+      {
+        return name.toLowerCase(Locale.ROOT);
+      }
+    }
+    return name;
+  }
+
+  private static String canonicalizeValue(String value)
+  {
+    final int length = value.length();
+    int start = 0;
+    while (start < length && value.charAt(start) <= ' ')
+    {
+      start++;
+    }
+    int end = length;
+    while (end > start && value.charAt(end - 1) <= ' ')
+    {
+      end--;
+    }
+
+    // return the trimmed value unless it has whitespace other than single spaces
+    boolean normalized = true;
+    for (int i = start; i < end && normalized; i++)
+    {
+      final char ch = value.charAt(i);
+      normalized = isWhitespace(ch) == false || (ch == ' ' && isWhitespace(value.charAt(i + 1)) == false);
+    }
+    if (normalized)
+    {
+      return value.substring(start, end);
+    }
+
+    final StringBuilder sb = new StringBuilder(end - start);
+    boolean whitespace = false;
+    for (int i = start; i < end; i++)
+    {
+      final char ch = value.charAt(i);
+      if (isWhitespace(ch))
+      {
+        whitespace = true;
+      }
+      else
+      {
+        if (whitespace)
+        {
+          sb.append(' ');
+          whitespace = false;
+        }
+        sb.append(ch);
+      }
+    }
+    return sb.toString();
+  }
+
+  private static boolean isWhitespace(char ch)
+  {
+    return ch == ' ' || ch == '\t' || ch == '\n' || ch == '\r';
+  }
+}
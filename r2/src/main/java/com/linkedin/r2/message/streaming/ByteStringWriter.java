@@ -0,0 +1,79 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.message.streaming;
+
+import com.linkedin.data.ByteString;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link Writer} that writes a {@link ByteString} in chunks of a maximum size.
+ */
+public class ByteStringWriter implements Writer
+{
+  public ByteStringWriter(ByteString entity, int chunkSize)
+  {
+    if (chunkSize <= 0)
+    {
+      throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+    }
+    _entity = entity;
+    _chunkSize = chunkSize;
+  }
+
+  @Override
+  public void onInit(WriteHandle wh)
+  {
+    _wh = wh;
+  }
+
+  @Override
+  public void onWritePossible()
+  {
+    int length = _entity.length();
+    while (_offset < length && _wh.remaining() > 0)
+    {
+      if (_offset == 0 && length <= _chunkSize)
+      {
+        _wh.write(_entity);
+        _offset = length;
+      }
+      else
+      {
+        ByteBuffer chunk = _entity.asByteBuffer();
+        chunk.position(_offset);
+        _offset = Math.min(length, _offset + _chunkSize);
+        chunk.limit(_offset);
+        _wh.write(ByteString.copy(chunk));
+      }
+    }
+    if (_offset == length)
+    {
+      _wh.done();
+    }
+  }
+
+  @Override
+  public void onAbort(Throwable e)
+  {
+  }
+
+  private final ByteString _entity;
+  private final int _chunkSize;
+  private WriteHandle _wh;
+  private int _offset = 0;
+}
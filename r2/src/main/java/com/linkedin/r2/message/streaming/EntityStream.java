@@ -0,0 +1,44 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.message.streaming;
+
+/**
+ * An entity that is produced incrementally by a {@link Writer} and consumed
+ * incrementally by a {@link Reader}.
+ * <p/>
+ *
+ * The {@link Reader} controls the flow of data: the {@link Writer} may only write
+ * as many chunks as the {@link Reader} has requested, so that the amount of
+ * data in flight is bounded regardless of the size of the entity.
+ * <p/>
+ *
+ * An entity stream can be read only once.
+ *
+ * @see EntityStreams
+ */
+public interface EntityStream
+{
+  /**
+   * Sets the {@link Reader} of this entity stream. The {@link Writer} is initialized
+   * once the reader is set, no data is produced before.
+   *
+   * @param reader the reader of this entity stream.
+   * @throws IllegalStateException if a reader has already been set.
+   */
+  void setReader(Reader reader);
+}
@@ -0,0 +1,201 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.message.streaming;
+
+import com.linkedin.data.ByteString;
+import java.util.concurrent.CancellationException;
+
+/**
+ * The {@link EntityStream} implementation that connects a {@link Writer} to a {@link Reader}.
+ * <p/>
+ *
+ * Chunks are handed to the reader directly on the thread of the writer, nothing is buffered.
+ * Requests made by the reader while the writer is being notified are accumulated
+ * and the writer is notified again once it returns, so that a reader that requests
+ * the next chunk from {@link Reader#onDataAvailable} does not cause unbounded recursion.
+ */
+/* package private */ class EntityStreamImpl implements EntityStream
+{
+  private enum State
+  {
+    OPEN,
+    DONE,
+    CANCELLED
+  }
+
+  /* package private */ EntityStreamImpl(Writer writer)
+  {
+    _writer = writer;
+  }
+
+  @Override
+  public void setReader(Reader reader)
+  {
+    synchronized (_lock)
+    {
+      if (_reader != null)
+      {
+        throw new IllegalStateException("Reader has already been set");
+      }
+      _reader = reader;
+    }
+    _writer.onInit(new WriteHandleImpl());
+    reader.onInit(new ReadHandleImpl());
+  }
+
+  private void notifyWritePossible()
+  {
+    synchronized (_lock)
+    {
+      if (_notifying || _notifyWritePossible == false || _remaining == 0 || _state != State.OPEN)
+      {
+        return;
+      }
+      _notifying = true;
+      _notifyWritePossible = false;
+    }
+    while (true)
+    {
+      try
+      {
+        _writer.onWritePossible();
+      }
+      catch (RuntimeException e)
+      {
+        synchronized (_lock)
+        {
+          _notifying = false;
+        }
+        throw e;
+      }
+      synchronized (_lock)
+      {
+        if (_notifyWritePossible && _remaining > 0 && _state == State.OPEN)
+        {
+          _notifyWritePossible = false;
+        }
+        else
+        {
+          _notifying = false;
+          return;
+        }
+      }
+    }
+  }
+
+  private class WriteHandleImpl implements WriteHandle
+  {
+    @Override
+    public void write(ByteString data)
+    {
+      synchronized (_lock)
+      {
+        if (_state != State.OPEN)
+        {
+          return;
+        }
+        if (_remaining == 0)
+        {
+          throw new IllegalStateException("Attempt to write when the reader has not requested more chunks");
+        }
+        _remaining--;
+        if (_remaining == 0)
+        {
+          _notifyWritePossible = true;
+        }
+      }
+      _reader.onDataAvailable(data);
+    }
+
+    @Override
+    public void done()
+    {
+      if (close(State.DONE))
+      {
+        _reader.onDone();
+      }
+    }
+
+    @Override
+    public void error(Throwable e)
+    {
+      if (close(State.DONE))
+      {
+        _reader.onError(e);
+      }
+    }
+
+    @Override
+    public int remaining()
+    {
+      synchronized (_lock)
+      {
+        return _state == State.OPEN ? _remaining : 0;
+      }
+    }
+  }
+
+  private class ReadHandleImpl implements ReadHandle
+  {
+    @Override
+    public void request(int chunkNum)
+    {
+      if (chunkNum <= 0)
+      {
+        throw new IllegalArgumentException("Number of requested chunks must be positive: " + chunkNum);
+      }
+      synchronized (_lock)
+      {
+        // saturate instead of overflowing when the reader requests everything
+        _remaining = (int) Math.min((long) _remaining + chunkNum, Integer.MAX_VALUE);
+      }
+      notifyWritePossible();
+    }
+
+    @Override
+    public void cancel()
+    {
+      if (close(State.CANCELLED))
+      {
+        _writer.onAbort(new CancellationException("Entity stream cancelled by the reader"));
+      }
+    }
+  }
+
+  private boolean close(State state)
+  {
+    synchronized (_lock)
+    {
+      if (_state != State.OPEN)
+      {
+        return false;
+      }
+      _state = state;
+      _remaining = 0;
+      return true;
+    }
+  }
+
+  private final Object _lock = new Object();
+  private final Writer _writer;
+  private Reader _reader;
+  private State _state = State.OPEN;
+  private int _remaining = 0;
+  private boolean _notifyWritePossible = true;
+  private boolean _notifying = false;
+}
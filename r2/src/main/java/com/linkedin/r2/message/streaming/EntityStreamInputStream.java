@@ -0,0 +1,206 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.message.streaming;
+
+import com.linkedin.data.ByteString;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * A blocking {@link InputStream} of the content of an {@link EntityStream}.
+ * <p/>
+ *
+ * At most the configured number of chunks are requested ahead of the reads, one more chunk
+ * is requested each time a chunk has been read completely. Closing the input stream before
+ * the end of the entity cancels the entity stream.
+ */
+/* package private */ class EntityStreamInputStream extends InputStream
+{
+  /* package private */ EntityStreamInputStream(int bufferedChunks)
+  {
+    if (bufferedChunks <= 0)
+    {
+      throw new IllegalArgumentException("Number of buffered chunks must be positive: " + bufferedChunks);
+    }
+    _bufferedChunks = bufferedChunks;
+  }
+
+  /* package private */ Reader reader()
+  {
+    return new Reader()
+    {
+      @Override
+      public void onInit(ReadHandle rh)
+      {
+        synchronized (_lock)
+        {
+          _rh = rh;
+        }
+        rh.request(_bufferedChunks);
+      }
+
+      @Override
+      public void onDataAvailable(ByteString data)
+      {
+        if (data.length() == 0)
+        {
+          _rh.request(1);
+          return;
+        }
+        synchronized (_lock)
+        {
+          _chunks.add(data.asByteBuffer());
+          _lock.notifyAll();
+        }
+      }
+
+      @Override
+      public void onDone()
+      {
+        synchronized (_lock)
+        {
+          _done = true;
+          _lock.notifyAll();
+        }
+      }
+
+      @Override
+      public void onError(Throwable e)
+      {
+        synchronized (_lock)
+        {
+          _error = e;
+          _done = true;
+          _lock.notifyAll();
+        }
+      }
+    };
+  }
+
+  @Override
+  public int read() throws IOException
+  {
+    byte[] b = new byte[1];
+    return read(b, 0, 1) == -1 ? -1 : (b[0] & 0xff);
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException
+  {
+    if (len == 0)
+    {
+      return 0;
+    }
+    ByteBuffer chunk = currentChunk();
+    if (chunk == null)
+    {
+      return -1;
+    }
+    int read = Math.min(len, chunk.remaining());
+    chunk.get(b, off, read);
+    if (chunk.hasRemaining() == false)
+    {
+      ReadHandle rh;
+      synchronized (_lock)
+      {
+        _chunks.poll();
+        rh = _done ? null : _rh;
+      }
+      if (rh != null)
+      {
+        rh.request(1);
+      }
+    }
+    return read;
+  }
+
+  @Override
+  public int available()
+  {
+    synchronized (_lock)
+    {
+      ByteBuffer chunk = _chunks.peek();
+      return chunk == null ? 0 : chunk.remaining();
+    }
+  }
+
+  @Override
+  public void close()
+  {
+    ReadHandle rh;
+    synchronized (_lock)
+    {
+      _closed = true;
+      _chunks.clear();
+      rh = _done ? null : _rh;
+      _done = true;
+    }
+    if (rh != null)
+    {
+      rh.cancel();
+    }
+  }
+
+  private ByteBuffer currentChunk() throws IOException
+  {
+    synchronized (_lock)
+    {
+      while (true)
+      {
+        if (_closed)
+        {
+          throw new IOException("Input stream is closed");
+        }
+        ByteBuffer chunk = _chunks.peek();
+        if (chunk != null)
+        {
+          return chunk;
+        }
+        if (_error != null)
+        {
+          throw new IOException("Entity stream failed", _error);
+        }
+        if (_done)
+        {
+          return null;
+        }
+        try
+        {
+          _lock.wait();
+        }
+        catch (InterruptedException e)
+        {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException("Interrupted while waiting for entity stream data");
+        }
+      }
+    }
+  }
+
+  private final Object _lock = new Object();
+  private final int _bufferedChunks;
+  private final Queue<ByteBuffer> _chunks = new ArrayDeque<ByteBuffer>();
+  private ReadHandle _rh;
+  private boolean _done = false;
+  private boolean _closed = false;
+  private Throwable _error;
+}
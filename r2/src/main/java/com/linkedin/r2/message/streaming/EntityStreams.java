@@ -0,0 +1,129 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.message.streaming;
+
+import com.linkedin.common.callback.Callback;
+import com.linkedin.data.ByteString;
+import java.io.InputStream;
+
+/**
+ * Factory methods for {@link EntityStream}s.
+ */
+public class EntityStreams
+{
+  /**
+   * The default size of the chunks written from a {@link ByteString} or an {@link InputStream}.
+   */
+  public static final int DEFAULT_CHUNK_SIZE = 8192;
+
+  private EntityStreams()
+  {
+  }
+
+  /**
+   * Creates an entity stream produced by the provided {@link Writer}.
+   *
+   * @param writer the writer of the entity.
+   * @return a new {@link EntityStream}.
+   */
+  public static EntityStream newEntityStream(Writer writer)
+  {
+    return new EntityStreamImpl(writer);
+  }
+
+  /**
+   * @return a new {@link EntityStream} without data.
+   */
+  public static EntityStream emptyStream()
+  {
+    return newEntityStream(new ByteStringWriter(ByteString.empty(), DEFAULT_CHUNK_SIZE));
+  }
+
+  /**
+   * Creates an entity stream of the content of a {@link ByteString}.
+   *
+   * @param entity the entity.
+   * @return a new {@link EntityStream}.
+   */
+  public static EntityStream fromByteString(ByteString entity)
+  {
+    return newEntityStream(new ByteStringWriter(entity, DEFAULT_CHUNK_SIZE));
+  }
+
+  /**
+   * Creates an entity stream of the content of an {@link InputStream}.
+   * The input stream is read when chunks are requested, on the thread requesting them,
+   * and is closed when it is exhausted or the stream is cancelled.
+   *
+   * @param in the input stream.
+   * @param chunkSize the maximum size of the chunks.
+   * @return a new {@link EntityStream}.
+   */
+  public static EntityStream fromInputStream(InputStream in, int chunkSize)
+  {
+    return newEntityStream(new InputStreamWriter(in, chunkSize));
+  }
+
+  /**
+   * Creates an entity stream of the content of an {@link InputStream} of a known length.
+   * Exactly {@code length} bytes are read, the stream fails if the input stream ends before.
+   *
+   * @param in the input stream.
+   * @param chunkSize the maximum size of the chunks.
+   * @param length the length of the content.
+   * @return a new {@link EntityStream}.
+   */
+  public static EntityStream fromInputStream(InputStream in, int chunkSize, long length)
+  {
+    if (length < 0)
+    {
+      throw new IllegalArgumentException("Length must not be negative: " + length);
+    }
+    return newEntityStream(new InputStreamWriter(in, chunkSize, length));
+  }
+
+  /**
+   * Reads the entity stream completely and provides the entity as a {@link ByteString}.
+   *
+   * @param entityStream the entity stream to read.
+   * @param callback the callback that receives the entity or the error of the stream.
+   */
+  public static void toByteString(EntityStream entityStream, Callback<ByteString> callback)
+  {
+    entityStream.setReader(new FullEntityReader(callback));
+  }
+
+  /**
+   * Returns a blocking {@link InputStream} of the content of the entity stream,
+   * e.g. to decode the entity with a streaming codec while it is being received.
+   * <p/>
+   *
+   * At most the specified number of chunks are buffered, more chunks are requested
+   * as the input stream is read.
+   *
+   * @param entityStream the entity stream to read.
+   * @param bufferedChunks the maximum number of chunks to buffer.
+   * @return a new {@link InputStream}.
+   */
+  public static InputStream toInputStream(EntityStream entityStream, int bufferedChunks)
+  {
+    EntityStreamInputStream in = new EntityStreamInputStream(bufferedChunks);
+    entityStream.setReader(in.reader());
+    return in;
+  }
+}
@@ -0,0 +1,92 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.message.streaming;
+
+import com.linkedin.common.callback.Callback;
+import com.linkedin.data.ByteString;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link Reader} that reads an {@link EntityStream} completely and provides
+ * the entity as a {@link ByteString}.
+ * <p/>
+ *
+ * Chunks are requested one at a time, so the writer produces them only as fast as they are read.
+ * The chunks are held until the stream is done and then joined, an entity of a single chunk is provided without copying it.
+ */
+public class FullEntityReader implements Reader
+{
+  public FullEntityReader(Callback<ByteString> callback)
+  {
+    _callback = callback;
+  }
+
+  @Override
+  public void onInit(ReadHandle rh)
+  {
+    _rh = rh;
+    _rh.request(1);
+  }
+
+  @Override
+  public void onDataAvailable(ByteString data)
+  {
+    _chunks.add(data);
+    _length += data.length();
+    _rh.request(1);
+  }
+
+  @Override
+  public void onDone()
+  {
+    ByteString entity;
+    if (_chunks.isEmpty())
+    {
+      entity = ByteString.empty();
+    }
+    else if (_chunks.size() == 1)
+    {
+      entity = _chunks.get(0);
+    }
+    else
+    {
+      byte[] bytes = new byte[_length];
+      int offset = 0;
+      for (ByteString chunk : _chunks)
+      {
+        chunk.copyBytes(bytes, offset);
+        offset += chunk.length();
+      }
+      entity = ByteString.unsafeWrap(bytes);
+    }
+    _chunks.clear();
+    _callback.onSuccess(entity);
+  }
+
+  @Override
+  public void onError(Throwable e)
+  {
+    _callback.onError(e);
+  }
+
+  private final Callback<ByteString> _callback;
+  private final List<ByteString> _chunks = new ArrayList<ByteString>();
+  private int _length;
+  private ReadHandle _rh;
+}
@@ -0,0 +1,137 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.message.streaming;
+
+import com.linkedin.data.ByteString;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link Writer} that writes the content of an {@link InputStream} in chunks of a maximum size.
+ * <p/>
+ *
+ * The input stream is read when chunks are requested, on the thread requesting them,
+ * so at most the requested chunks are held in memory. It is closed when it is exhausted,
+ * fails or when the stream is cancelled.
+ * <p/>
+ *
+ * If the length of the content is known, exactly that many bytes are read, and the stream is
+ * done as soon as they have been read.
+ */
+public class InputStreamWriter implements Writer
+{
+  private static final Logger _log = LoggerFactory.getLogger(InputStreamWriter.class);
+
+  public InputStreamWriter(InputStream in, int chunkSize)
+  {
+    this(in, chunkSize, -1);
+  }
+
+  /**
+   * @param length the length of the content, or -1 to read the input stream until its end.
+   */
+  public InputStreamWriter(InputStream in, int chunkSize, long length)
+  {
+    if (chunkSize <= 0)
+    {
+      throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+    }
+    _in = in;
+    _chunkSize = chunkSize;
+    _remaining = length;
+  }
+
+  @Override
+  public void onInit(WriteHandle wh)
+  {
+    _wh = wh;
+  }
+
+  @Override
+  public void onWritePossible()
+  {
+    try
+    {
+      if (_remaining == 0)
+      {
+        close();
+        _wh.done();
+        return;
+      }
+      while (_wh.remaining() > 0)
+      {
+        int size = _remaining < 0 ? _chunkSize : (int) Math.min(_chunkSize, _remaining);
+        byte[] buf = new byte[size];
+        int length = 0;
+        for (int r; length < size && (r = _in.read(buf, length, size - length)) != -1; length += r)
+        {
+        }
+        if (length > 0)
+        {
+          // the buffer was allocated for the chunk, only a short last chunk needs to be trimmed
+          _wh.write(ByteString.unsafeWrap(length == size ? buf : Arrays.copyOf(buf, length)));
+        }
+        if (_remaining > 0)
+        {
+          _remaining -= length;
+          if (length < size)
+          {
+            throw new IOException("Unexpected end of input stream, " + _remaining + " bytes missing");
+          }
+        }
+        if (_remaining == 0 || length < size)
+        {
+          close();
+          _wh.done();
+          return;
+        }
+      }
+    }
+    catch (IOException e)
+    {
+      close();
+      _wh.error(e);
+    }
+  }
+
+  @Override
+  public void onAbort(Throwable e)
+  {
+    close();
+  }
+
+  private void close()
+  {
+    try
+    {
+      _in.close();
+    }
+    catch (IOException e)
+    {
+      _log.warn("Failed to close input stream", e);
+    }
+  }
+
+  private final InputStream _in;
+  private final int _chunkSize;
+  private long _remaining;
+  private WriteHandle _wh;
+}
@@ -0,0 +1,36 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.message.streaming;
+
+/**
+ * Provided to a {@link Reader} to request chunks from an {@link EntityStream}.
+ */
+public interface ReadHandle
+{
+  /**
+   * Requests more chunks. The chunks are delivered to {@link Reader#onDataAvailable}.
+   *
+   * @param chunkNum the number of additional chunks requested, must be positive.
+   */
+  void request(int chunkNum);
+
+  /**
+   * Cancels the stream. The {@link Writer} is aborted and no more chunks are delivered.
+   */
+  void cancel();
+}
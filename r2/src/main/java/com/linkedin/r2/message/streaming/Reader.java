@@ -0,0 +1,55 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.message.streaming;
+
+import com.linkedin.data.ByteString;
+
+/**
+ * Consumes the chunks of an {@link EntityStream}.
+ * <p/>
+ *
+ * The methods of a reader are invoked serially, they are never invoked concurrently.
+ */
+public interface Reader
+{
+  /**
+   * Invoked when the reader is set on the {@link EntityStream}.
+   *
+   * @param rh the handle used to request chunks or to cancel the stream.
+   */
+  void onInit(ReadHandle rh);
+
+  /**
+   * Invoked when a requested chunk is available.
+   *
+   * @param data the chunk.
+   */
+  void onDataAvailable(ByteString data);
+
+  /**
+   * Invoked once all chunks have been read.
+   */
+  void onDone();
+
+  /**
+   * Invoked if the {@link Writer} fails to produce the entity.
+   *
+   * @param e the error.
+   */
+  void onError(Throwable e);
+}
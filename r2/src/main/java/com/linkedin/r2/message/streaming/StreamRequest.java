@@ -0,0 +1,133 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.message.streaming;
+
+import com.linkedin.common.callback.Callback;
+import com.linkedin.data.ByteString;
+import com.linkedin.r2.message.rest.HeaderMap;
+import com.linkedin.r2.message.rest.RestRequest;
+import com.linkedin.r2.message.rest.RestRequestBuilder;
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A request whose entity is an {@link EntityStream} rather than a fully buffered {@link ByteString}.
+ * <p/>
+ *
+ * The head of the request (URI, method and headers) is available immediately, the entity is
+ * produced as the reader requests it. Use {@link #toRestRequest(Callback)} to aggregate it into
+ * a {@link RestRequest} for code that requires the complete entity.
+ */
+public final class StreamRequest
+{
+  /**
+   * @param uri the URI of the request.
+   * @param method the method of the request.
+   * @param headers the headers of the request, assumed to be validated already.
+   * @param entityStream the entity of the request.
+   */
+  public StreamRequest(URI uri, String method, Map<String, String> headers, EntityStream entityStream)
+  {
+    _uri = uri;
+    _method = method;
+    // the headers of rest messages are unmodifiable and preserve multiple values of a header
+    _headers = headers instanceof HeaderMap ? headers : Collections.unmodifiableMap(new HashMap<String, String>(headers));
+    _entityStream = entityStream;
+  }
+
+  /**
+   * Creates a stream request with the head of a {@link RestRequest} that streams its entity.
+   *
+   * @param request the request.
+   * @param chunkSize the maximum size of the chunks of the entity.
+   * @return a new {@link StreamRequest}.
+   */
+  public static StreamRequest fromRestRequest(RestRequest request, int chunkSize)
+  {
+    EntityStream entityStream = EntityStreams.newEntityStream(new ByteStringWriter(request.getEntity(), chunkSize));
+    return new StreamRequest(request.getURI(), request.getMethod(), request.getHeaders(), entityStream);
+  }
+
+  public URI getURI()
+  {
+    return _uri;
+  }
+
+  public String getMethod()
+  {
+    return _method;
+  }
+
+  public Map<String, String> getHeaders()
+  {
+    return _headers;
+  }
+
+  public String getHeader(String name)
+  {
+    return _headers.get(name);
+  }
+
+  /**
+   * @return the entity of this request, which may only be read once.
+   */
+  public EntityStream getEntityStream()
+  {
+    return _entityStream;
+  }
+
+  /**
+   * Reads the entity of this request completely and provides the equivalent {@link RestRequest}.
+   *
+   * @param callback the callback that receives the request or the error of the entity stream.
+   */
+  public void toRestRequest(final Callback<RestRequest> callback)
+  {
+    EntityStreams.toByteString(_entityStream, new Callback<ByteString>()
+    {
+      @Override
+      public void onSuccess(ByteString entity)
+      {
+        callback.onSuccess(new RestRequestBuilder(_uri)
+                               .setMethod(_method)
+                               .unsafeSetHeaders(_headers)
+                               .setEntity(entity)
+                               .build());
+      }
+
+      @Override
+      public void onError(Throwable e)
+      {
+        callback.onError(e);
+      }
+    });
+  }
+
+  @Override
+  public String toString()
+  {
+    return "StreamRequest[method=" + _method + ",uri=" + _uri + ",headers=" + _headers + "]";
+  }
+
+  private final URI _uri;
+  private final String _method;
+  private final Map<String, String> _headers;
+  private final EntityStream _entityStream;
+}
@@ -0,0 +1,122 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.message.streaming;
+
+import com.linkedin.common.callback.Callback;
+import com.linkedin.data.ByteString;
+import com.linkedin.r2.message.rest.RestResponse;
+import com.linkedin.r2.message.rest.RestResponseBuilder;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A response whose entity is an {@link EntityStream} rather than a fully buffered {@link ByteString}.
+ * <p/>
+ *
+ * The head of the response (status and headers) is available immediately, the entity is
+ * produced as the reader requests it. Use {@link #toRestResponse(Callback)} to aggregate it into
+ * a {@link RestResponse} for code that requires the complete entity.
+ */
+public final class StreamResponse
+{
+  /**
+   * @param status the status of the response.
+   * @param headers the headers of the response, assumed to be validated already.
+   * @param entityStream the entity of the response.
+   */
+  public StreamResponse(int status, Map<String, String> headers, EntityStream entityStream)
+  {
+    _status = status;
+    _headers = Collections.unmodifiableMap(new HashMap<String, String>(headers));
+    _entityStream = entityStream;
+  }
+
+  /**
+   * Creates a stream response with the head of a {@link RestResponse} that streams its entity.
+   *
+   * @param response the response.
+   * @param chunkSize the maximum size of the chunks of the entity.
+   * @return a new {@link StreamResponse}.
+   */
+  public static StreamResponse fromRestResponse(RestResponse response, int chunkSize)
+  {
+    EntityStream entityStream = EntityStreams.newEntityStream(new ByteStringWriter(response.getEntity(), chunkSize));
+    return new StreamResponse(response.getStatus(), response.getHeaders(), entityStream);
+  }
+
+  public int getStatus()
+  {
+    return _status;
+  }
+
+  public Map<String, String> getHeaders()
+  {
+    return _headers;
+  }
+
+  public String getHeader(String name)
+  {
+    return _headers.get(name);
+  }
+
+  /**
+   * @return the entity of this response, which may only be read once.
+   */
+  public EntityStream getEntityStream()
+  {
+    return _entityStream;
+  }
+
+  /**
+   * Reads the entity of this response completely and provides the equivalent {@link RestResponse}.
+   *
+   * @param callback the callback that receives the response or the error of the entity stream.
+   */
+  public void toRestResponse(final Callback<RestResponse> callback)
+  {
+    EntityStreams.toByteString(_entityStream, new Callback<ByteString>()
+    {
+      @Override
+      public void onSuccess(ByteString entity)
+      {
+        callback.onSuccess(new RestResponseBuilder()
+                               .setStatus(_status)
+                               .unsafeSetHeaders(_headers)
+                               .setEntity(entity)
+                               .build());
+      }
+
+      @Override
+      public void onError(Throwable e)
+      {
+        callback.onError(e);
+      }
+    });
+  }
+
+  @Override
+  public String toString()
+  {
+    return "StreamResponse[status=" + _status + ",headers=" + _headers + "]";
+  }
+
+  private final int _status;
+  private final Map<String, String> _headers;
+  private final EntityStream _entityStream;
+}
@@ -0,0 +1,51 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.message.streaming;
+
+import com.linkedin.data.ByteString;
+
+/**
+ * Provided to a {@link Writer} to write chunks to an {@link EntityStream}.
+ */
+public interface WriteHandle
+{
+  /**
+   * Writes a chunk. It is delivered to the {@link Reader} before this method returns.
+   *
+   * @param data the chunk.
+   * @throws IllegalStateException if the reader has not requested more chunks, see {@link #remaining()}.
+   */
+  void write(ByteString data);
+
+  /**
+   * Signals that the entity has been written completely.
+   */
+  void done();
+
+  /**
+   * Signals that the entity cannot be written completely.
+   *
+   * @param e the error.
+   */
+  void error(Throwable e);
+
+  /**
+   * @return the number of chunks that may still be written, 0 if the stream is done, failed or cancelled.
+   */
+  int remaining();
+}
@@ -0,0 +1,47 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.message.streaming;
+
+/**
+ * Produces the chunks of an {@link EntityStream}.
+ */
+public interface Writer
+{
+  /**
+   * Invoked when the {@link Reader} of the entity stream is set.
+   *
+   * @param wh the handle used to write chunks.
+   */
+  void onInit(WriteHandle wh);
+
+  /**
+   * Invoked when the {@link Reader} requested chunks. The writer should write
+   * while {@link WriteHandle#remaining()} is positive. If it runs out of data,
+   * it may write later on its own while {@link WriteHandle#remaining()} is positive,
+   * this method is invoked again only after the remaining count has dropped to zero
+   * and the reader requested more chunks.
+   */
+  void onWritePossible();
+
+  /**
+   * Invoked if the {@link Reader} cancels the stream.
+   *
+   * @param e the reason of the cancellation.
+   */
+  void onAbort(Throwable e);
+}
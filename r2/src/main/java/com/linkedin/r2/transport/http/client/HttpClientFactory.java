@@ -81,6 +81,12 @@ public class HttpClientFactory implements TransportClientFactory
   public static final String HTTP_SHUTDOWN_TIMEOUT = "http.shutdownTimeout";
   public static final String HTTP_SSL_CONTEXT = "http.sslContext";
   public static final String HTTP_SSL_PARAMS = "http.sslParams";
+  public static final String HTTP_TRANSPORT = "http.transport";
+
+  /**
+   * The value of {@link #HTTP_TRANSPORT} selecting the Netty 3 transport, which is the default.
+   */
+  public static final String TRANSPORT_NETTY3 = "netty3";
 
   public static final int DEFAULT_POOL_SIZE = 200;
   public static final int DEFAULT_REQUEST_TIMEOUT = 10000;
@@ -129,14 +135,19 @@ public class HttpClientFactory implements TransportClientFactory
     // TODO Disable Netty's thread renaming so that the names below are the ones that actually
     // show up in log messages; need to coordinate with Espresso team (who also have netty threads)
     this(filters,
-         new NioClientSocketChannelFactory(
-            Executors.newCachedThreadPool(new NamedThreadFactory("R2 Netty IO Boss")),
-            Executors.newCachedThreadPool(new NamedThreadFactory("R2 Netty IO Worker"))),
+         newChannelFactory(),
          true,
          Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("R2 Netty Scheduler")),
          true);
   }
 
+  /* package private */ static ClientSocketChannelFactory newChannelFactory()
+  {
+    return new NioClientSocketChannelFactory(
+        Executors.newCachedThreadPool(new NamedThreadFactory("R2 Netty IO Boss")),
+        Executors.newCachedThreadPool(new NamedThreadFactory("R2 Netty IO Worker")));
+  }
+
   /**
    * Creates a new HttpClientFactory.
    *
@@ -250,7 +261,11 @@ public class HttpClientFactory implements TransportClientFactory
     LOG.info("Getting a client with configuration {} and SSLContext {}",
              properties,
              sslContext);
-    TransportClient client = getRawClient(properties, sslContext, sslParameters);
+    String transport = properties.remove(HTTP_TRANSPORT);
+    TransportClient client = getTransportClient(transport == null ? TRANSPORT_NETTY3 : transport,
+                                                properties,
+                                                sslContext,
+                                                sslParameters);
 
     client = new FilterChainClient(client, _filters);
     client = new FactoryClient(client);
@@ -265,6 +280,31 @@ public class HttpClientFactory implements TransportClientFactory
     }
   }
 
+  /**
+   * Create the unfiltered {@link TransportClient} of the specified transport. Subclasses that
+   * provide additional transports override this method and delegate the transports they
+   * do not handle to it.
+   *
+   * @param transport the value of the {@link #HTTP_TRANSPORT} property, {@link #TRANSPORT_NETTY3}
+   *                  if it was not specified.
+   * @param properties map of properties for the {@link TransportClient}
+   * @param sslContext {@link SSLContext} to be used for requests over SSL/TLS.
+   * @param sslParameters {@link SSLParameters} to configure secure connections.
+   * @return a new {@link TransportClient}
+   * @throws IllegalArgumentException if the transport is unknown.
+   */
+  protected TransportClient getTransportClient(String transport,
+                                               Map<String, String> properties,
+                                               SSLContext sslContext,
+                                               SSLParameters sslParameters)
+  {
+    if (TRANSPORT_NETTY3.equals(transport))
+    {
+      return getRawClient(properties, sslContext, sslParameters);
+    }
+    throw new IllegalArgumentException("Unknown " + HTTP_TRANSPORT + ": " + transport);
+  }
+
   /**
    * helper method to get value from properties as well as to print log warning if the key is old
    * @param properties
@@ -299,6 +339,25 @@ public class HttpClientFactory implements TransportClientFactory
   HttpNettyClient getRawClient(Map<String, String> properties,
                                SSLContext sslContext,
                                SSLParameters sslParameters)
+  {
+    ClientSettings settings = getClientSettings(properties);
+    return new HttpNettyClient(_channelFactory,
+                               _executor,
+                               settings.getPoolSize(),
+                               settings.getRequestTimeout(),
+                               settings.getIdleTimeout(),
+                               settings.getShutdownTimeout(),
+                               settings.getMaxResponseSize(),
+                               sslContext,
+                               sslParameters,
+                               settings.getQueryPostThreshold());
+  }
+
+  /**
+   * Resolve the settings of a client from its properties, applying the defaults and the
+   * deprecated keys.
+   */
+  /* package private */ ClientSettings getClientSettings(Map<String, String> properties)
   {
     Integer queryPostThreshold = getIntValue(properties, HTTP_QUERY_POST_THRESHOLD, null);
     Integer poolSize = getIntValue(properties, HTTP_POOL_SIZE, null);
@@ -356,16 +415,12 @@ public class HttpClientFactory implements TransportClientFactory
       }
     }
 
-    return new HttpNettyClient(_channelFactory,
-                               _executor,
-                               poolSize,
-                               requestTimeout,
-                               idleTimeout,
-                               shutdownTimeout,
-                               maxResponseSize,
-                               sslContext,
-                               sslParameters,
-                               queryPostThreshold);
+    return new ClientSettings(poolSize,
+                              requestTimeout,
+                              idleTimeout,
+                              shutdownTimeout,
+                              maxResponseSize,
+                              queryPostThreshold);
   }
 
   /**
@@ -469,6 +524,7 @@ public class HttpClientFactory implements TransportClientFactory
       _channelFactory.releaseExternalResources();
       LOG.info("ChannelFactory shutdown complete");
     }
+    releaseExternalResources();
     if (_shutdownExecutor)
     {
       // Due to a bug in ScheduledThreadPoolExecutor, shutdownNow() returns cancelled
@@ -489,6 +545,22 @@ public class HttpClientFactory implements TransportClientFactory
     callback.onSuccess(None.none());
   }
 
+  /**
+   * Release the resources of additional transports when the factory shuts down, before the
+   * shared {@link ScheduledExecutorService} is shut down. This method may be invoked more than once.
+   */
+  protected void releaseExternalResources()
+  {
+  }
+
+  /**
+   * @return the {@link ScheduledExecutorService} shared by all clients created by this factory.
+   */
+  protected ScheduledExecutorService getExecutor()
+  {
+    return _executor;
+  }
+
   private void clientShutdown()
   {
     final boolean done;
@@ -503,6 +575,64 @@ public class HttpClientFactory implements TransportClientFactory
     }
   }
 
+  /**
+   * The resolved settings of a client, shared by all transports.
+   */
+  /* package private */ static class ClientSettings
+  {
+    private final int _poolSize;
+    private final int _requestTimeout;
+    private final int _idleTimeout;
+    private final int _shutdownTimeout;
+    private final int _maxResponseSize;
+    private final int _queryPostThreshold;
+
+    private ClientSettings(int poolSize,
+                           int requestTimeout,
+                           int idleTimeout,
+                           int shutdownTimeout,
+                           int maxResponseSize,
+                           int queryPostThreshold)
+    {
+      _poolSize = poolSize;
+      _requestTimeout = requestTimeout;
+      _idleTimeout = idleTimeout;
+      _shutdownTimeout = shutdownTimeout;
+      _maxResponseSize = maxResponseSize;
+      _queryPostThreshold = queryPostThreshold;
+    }
+
+    public int getPoolSize()
+    {
+      return _poolSize;
+    }
+
+    public int getRequestTimeout()
+    {
+      return _requestTimeout;
+    }
+
+    public int getIdleTimeout()
+    {
+      return _idleTimeout;
+    }
+
+    public int getShutdownTimeout()
+    {
+      return _shutdownTimeout;
+    }
+
+    public int getMaxResponseSize()
+    {
+      return _maxResponseSize;
+    }
+
+    public int getQueryPostThreshold()
+    {
+      return _queryPostThreshold;
+    }
+  }
+
   /**
    * The FactoryClient is a wrapper that simply does reference counting for all clients
    * issued by this factory, so that we can know when all outstanding clients have been
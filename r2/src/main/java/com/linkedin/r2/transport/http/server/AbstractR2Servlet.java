@@ -19,12 +19,13 @@ package com.linkedin.r2.transport.http.server;
 
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Enumeration;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicReference;
 
 import javax.mail.MessagingException;
@@ -36,13 +37,18 @@ import javax.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.linkedin.common.callback.FutureCallback;
 import com.linkedin.data.ByteString;
+import com.linkedin.r2.message.rest.HeaderMap;
 import com.linkedin.r2.message.rest.RestException;
 import com.linkedin.r2.message.rest.RestRequest;
 import com.linkedin.r2.message.rest.RestRequestBuilder;
 import com.linkedin.r2.message.rest.RestResponse;
 import com.linkedin.r2.message.rest.RestStatus;
 import com.linkedin.r2.message.rest.QueryTunnelUtil;
+import com.linkedin.r2.message.streaming.EntityStream;
+import com.linkedin.r2.message.streaming.EntityStreams;
+import com.linkedin.r2.message.streaming.StreamRequest;
 import com.linkedin.r2.transport.common.WireAttributeHelper;
 import com.linkedin.r2.transport.common.bridge.common.TransportCallback;
 import com.linkedin.r2.transport.common.bridge.common.TransportResponse;
@@ -62,7 +68,9 @@ public abstract class AbstractR2Servlet extends HttpServlet
   /**
    * Initialize the servlet using Jetty continuations for async support.
    *
-   * Not supported until we upgrade to Servlet 3 async / Jetty 8
+   * Not supported by this servlet, which only depends on the Servlet 2.5 API.
+   * Use {@code AsyncRAPServlet} from r2-jetty to release container threads
+   * while requests are processed.
    *
    * @param useContinuations whether to use Continuations
    * @param timeOut timeout to suspend the thread while waiting for response (ignored if
@@ -99,21 +107,9 @@ public abstract class AbstractR2Servlet extends HttpServlet
   private void serviceNoContinuation(final HttpServletRequest req, final HttpServletResponse resp)
       throws ServletException, IOException
   {
-    RestRequest restRequest;
-    try
-    {
-      restRequest = readFromServletRequest(req);
-    }
-    catch (URISyntaxException e)
+    RestRequest restRequest = readRequest(req, resp);
+    if (restRequest == null)
     {
-      RestResponse restResponse = RestStatus.responseForError(RestStatus.BAD_REQUEST, e);
-      writeToServletResponse(TransportResponseImpl.success(restResponse), resp);
-      return;
-    }
-    catch (MessagingException e)
-    {
-      RestResponse restResponse = RestStatus.responseForError(RestStatus.BAD_REQUEST, e);
-      writeToServletResponse(TransportResponseImpl.success(restResponse), resp);
       return;
     }
 
@@ -141,9 +137,75 @@ public abstract class AbstractR2Servlet extends HttpServlet
     writeToServletResponse(result.get(), resp);
   }
 
+  /**
+   * Read the {@link RestRequest} from the servlet request.
+   *
+   * If the servlet request is malformed, a {@link RestStatus#BAD_REQUEST} response is written
+   * to the servlet response and null is returned.
+   *
+   * @param req provides the servlet request.
+   * @param resp provides the servlet response to write the error to.
+   * @return the {@link RestRequest}, or null if the servlet request is malformed.
+   */
+  protected RestRequest readRequest(HttpServletRequest req, HttpServletResponse resp)
+      throws ServletException, IOException
+  {
+    try
+    {
+      return readFromServletRequest(req);
+    }
+    catch (URISyntaxException e)
+    {
+      RestResponse restResponse = RestStatus.responseForError(RestStatus.BAD_REQUEST, e);
+      writeToServletResponse(TransportResponseImpl.success(restResponse), resp);
+      return null;
+    }
+    catch (MessagingException e)
+    {
+      RestResponse restResponse = RestStatus.responseForError(RestStatus.BAD_REQUEST, e);
+      writeToServletResponse(TransportResponseImpl.success(restResponse), resp);
+      return null;
+    }
+  }
+
   private RestRequest readFromServletRequest(HttpServletRequest req) throws IOException,
       ServletException,
       URISyntaxException, MessagingException
+  {
+    FutureCallback<RestRequest> callback = new FutureCallback<RestRequest>();
+    // the entity is read from the servlet input stream on this thread
+    readStreamRequest(req).toRestRequest(callback);
+    RestRequest restRequest;
+    try
+    {
+      restRequest = callback.get();
+    }
+    catch (InterruptedException e)
+    {
+      throw new ServletException("Interrupted!", e);
+    }
+    catch (ExecutionException e)
+    {
+      if (e.getCause() instanceof IOException)
+      {
+        throw (IOException) e.getCause();
+      }
+      throw new ServletException("Failed to read request entity", e.getCause());
+    }
+    return QueryTunnelUtil.decode(restRequest);
+  }
+
+  /**
+   * Read the {@link StreamRequest} from the servlet request.
+   *
+   * The entity is streamed from the servlet input stream as it is read.
+   *
+   * @param req provides the servlet request.
+   * @return the {@link StreamRequest} with the head of the servlet request.
+   */
+  protected StreamRequest readStreamRequest(HttpServletRequest req) throws IOException,
+      ServletException,
+      URISyntaxException
   {
     StringBuilder sb = new StringBuilder();
     sb.append(extractPathInfo(req));
@@ -161,23 +223,21 @@ public abstract class AbstractR2Servlet extends HttpServlet
 
     for (Enumeration<?> headerNames = req.getHeaderNames(); headerNames.hasMoreElements();)
     {
-      // TODO multi-valued headers
       String headerName = (String) headerNames.nextElement();
-      rb.setHeader(headerName, req.getHeader(headerName));
-    }
-    int length = req.getContentLength();
-    if (length >= 0)
-    {
-      InputStream in = req.getInputStream();
-      byte[] buf = new byte[length];
-      int offset = 0;
-      for (int r; offset < length && (r = in.read(buf, offset, length - offset)) != -1; offset += r)
+      for (Enumeration<?> headerValues = req.getHeaders(headerName); headerValues.hasMoreElements();)
       {
-
+        rb.addHeaderValue(headerName, (String) headerValues.nextElement());
       }
-      rb.setEntity(buf);
     }
-    return QueryTunnelUtil.decode(rb.build());
+    RestRequest head = rb.build();
+
+    // An entity of a known length is read in a single chunk of that length,
+    // the entity of requests without a content length is read until the end of the input stream.
+    int length = req.getContentLength();
+    EntityStream entityStream = length >= 0
+        ? EntityStreams.fromInputStream(req.getInputStream(), Math.max(length, 1), length)
+        : EntityStreams.fromInputStream(req.getInputStream(), EntityStreams.DEFAULT_CHUNK_SIZE);
+    return new StreamRequest(head.getURI(), head.getMethod(), head.getHeaders(), entityStream);
   }
 
   /**
@@ -239,7 +299,7 @@ public abstract class AbstractR2Servlet extends HttpServlet
     return pathInfo;
   }
 
-  private void writeToServletResponse(TransportResponse<RestResponse> response,
+  protected void writeToServletResponse(TransportResponse<RestResponse> response,
                                       HttpServletResponse resp)
           throws IOException
   {
@@ -272,8 +332,18 @@ public abstract class AbstractR2Servlet extends HttpServlet
     Map<String, String> headers = restResponse.getHeaders();
     for (Map.Entry<String, String> e : headers.entrySet())
     {
-      // TODO multi-valued headers
-      resp.setHeader(e.getKey(), e.getValue());
+      List<String> values = headers instanceof HeaderMap ? ((HeaderMap) headers).getAll(e.getKey()) : null;
+      if (values == null || values.size() == 1)
+      {
+        resp.setHeader(e.getKey(), e.getValue());
+      }
+      else
+      {
+        for (String value : values)
+        {
+          resp.addHeader(e.getKey(), value);
+        }
+      }
     }
     final ByteString entity = restResponse.getEntity();
     entity.write(resp.getOutputStream());
@@ -22,10 +22,14 @@ package com.linkedin.r2.transport.http.server;
 
 import java.net.InetSocketAddress;
 import java.util.Collections;
+import java.util.Map;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.jboss.netty.bootstrap.ServerBootstrap;
 import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelEvent;
 import org.jboss.netty.channel.ChannelFactory;
 import org.jboss.netty.channel.ChannelHandlerContext;
 import org.jboss.netty.channel.ChannelPipeline;
@@ -42,9 +46,15 @@ import org.jboss.netty.channel.socket.nio.NioServerSocketChannelFactory;
 import org.jboss.netty.handler.codec.http.HttpChunkAggregator;
 import org.jboss.netty.handler.codec.http.HttpRequestDecoder;
 import org.jboss.netty.handler.codec.http.HttpResponseEncoder;
+import org.jboss.netty.handler.execution.ChannelEventRunnable;
 import org.jboss.netty.handler.execution.ExecutionHandler;
+import org.jboss.netty.handler.execution.MemoryAwareThreadPoolExecutor;
 import org.jboss.netty.handler.execution.OrderedMemoryAwareThreadPoolExecutor;
+import org.jboss.netty.util.DefaultObjectSizeEstimator;
+import org.jboss.netty.util.EstimatableObjectWrapper;
+import org.jboss.netty.util.ObjectSizeEstimator;
 
+import com.linkedin.r2.message.rest.RestMessage;
 import com.linkedin.r2.message.rest.RestRequest;
 import com.linkedin.r2.message.rest.RestResponse;
 import com.linkedin.r2.message.rest.RestResponseBuilder;
@@ -53,9 +63,27 @@ import com.linkedin.r2.transport.common.WireAttributeHelper;
 import com.linkedin.r2.transport.common.bridge.common.TransportCallback;
 import com.linkedin.r2.transport.common.bridge.common.TransportResponse;
 import com.linkedin.r2.transport.common.bridge.common.TransportResponseImpl;
+import com.linkedin.r2.util.NamedThreadFactory;
 
 /**
- * TODO: Do we still need this?
+ * An {@link HttpServer} on Netty 3.
+ * <p/>
+ *
+ * Connections are served by a fixed number of IO threads, by default one per available
+ * processor. Requests are dispatched on a separate, bounded pool of handler threads so that
+ * handlers may block. The handler pool limits the memory held by queued requests, both per
+ * channel and in total: a channel which exceeds its limit stops being read until its requests
+ * have been handled, and the IO threads block while the total limit is exceeded. The events of
+ * a channel are handled in order, one at a time, so that the responses of pipelined requests are
+ * written in the order of the requests when handlers respond before returning.
+ * <p/>
+ *
+ * With zero handler threads requests are dispatched directly on the IO threads, which avoids
+ * the hand-off but requires handlers that never block.
+ * <p/>
+ *
+ * The depth of the handler queue and the time requests wait in it are available from this
+ * class and can be exposed through {@link HttpNettyServerJmx}.
  *
  * TODO: for now we use com.linkedin.r2.api.message for requests and responses. We may want
  * constructs specific to this transport.
@@ -64,20 +92,95 @@ import com.linkedin.r2.transport.common.bridge.common.TransportResponseImpl;
  * @version $Revision: $
  */
 
-/* package private */ class HttpNettyServer implements HttpServer
+public class HttpNettyServer implements HttpServer
 {
+  public static final int DEFAULT_HANDLER_THREADS = 256;
+  public static final long DEFAULT_MAX_CHANNEL_MEMORY_SIZE = 1024 * 1024;
+  public static final long DEFAULT_MAX_TOTAL_MEMORY_SIZE = 64 * 1024 * 1024;
+
+  private static final int MAX_REQUEST_SIZE = 1048576;
+  private static final long HANDLER_KEEP_ALIVE_SECONDS = 30;
+
   private ServerBootstrap _bootstrap;
   private final ChannelGroup _allChannels = new DefaultChannelGroup("RAP server channels");
 
-  private final ExecutionHandler _executionHandler = new ExecutionHandler(new OrderedMemoryAwareThreadPoolExecutor(256, 0, 0));
-
   private final int _port;
+  private final int _ioThreads;
   private final HttpDispatcher _dispatcher;
+  private final MemoryAwareThreadPoolExecutor _handlerExecutor;
+  private final ExecutionHandler _executionHandler;
 
+  private final AtomicLong _handledEventCount = new AtomicLong();
+  private final AtomicLong _totalQueueWaitNanos = new AtomicLong();
+  private final AtomicLong _maxQueueWaitNanos = new AtomicLong();
+
+  /**
+   * Construct a server with IO threads sized to the available processors and
+   * {@link #DEFAULT_HANDLER_THREADS} handler threads.
+   *
+   * @param port the port to listen on.
+   * @param dispatcher the {@link HttpDispatcher} requests are dispatched to.
+   */
   public HttpNettyServer(int port, HttpDispatcher dispatcher)
   {
+    this(port, 0, DEFAULT_HANDLER_THREADS, dispatcher);
+  }
+
+  /**
+   * Construct a server with the default memory limits.
+   *
+   * @param port the port to listen on.
+   * @param ioThreads the number of IO threads, or 0 for one per available processor.
+   * @param handlerThreads the number of handler threads, or 0 to dispatch on the IO threads.
+   * @param dispatcher the {@link HttpDispatcher} requests are dispatched to.
+   */
+  public HttpNettyServer(int port, int ioThreads, int handlerThreads, HttpDispatcher dispatcher)
+  {
+    this(port, ioThreads, handlerThreads, DEFAULT_MAX_CHANNEL_MEMORY_SIZE, DEFAULT_MAX_TOTAL_MEMORY_SIZE, dispatcher);
+  }
+
+  /**
+   * Construct a server.
+   *
+   * @param port the port to listen on.
+   * @param ioThreads the number of IO threads, or 0 for one per available processor.
+   * @param handlerThreads the number of handler threads, or 0 to dispatch on the IO threads.
+   * @param maxChannelMemorySize the maximum size in bytes of the requests of a channel queued
+   *          for the handler threads, or 0 for no limit.
+   * @param maxTotalMemorySize the maximum size in bytes of all requests queued for the handler
+   *          threads, or 0 for no limit.
+   * @param dispatcher the {@link HttpDispatcher} requests are dispatched to.
+   */
+  public HttpNettyServer(int port,
+                         int ioThreads,
+                         int handlerThreads,
+                         long maxChannelMemorySize,
+                         long maxTotalMemorySize,
+                         HttpDispatcher dispatcher)
+  {
+    if (ioThreads < 0 || handlerThreads < 0)
+    {
+      throw new IllegalArgumentException("Thread counts must not be negative");
+    }
     _port = port;
+    _ioThreads = ioThreads > 0 ? ioThreads : Runtime.getRuntime().availableProcessors();
     _dispatcher = dispatcher;
+    if (handlerThreads > 0)
+    {
+      _handlerExecutor = new OrderedMemoryAwareThreadPoolExecutor(handlerThreads,
+                                                                  maxChannelMemorySize,
+                                                                  maxTotalMemorySize,
+                                                                  HANDLER_KEEP_ALIVE_SECONDS,
+                                                                  TimeUnit.SECONDS,
+                                                                  new RestMessageSizeEstimator(),
+                                                                  new NamedThreadFactory("R2 Netty Server Handler"));
+      _executionHandler = new MeteredExecutionHandler(_handlerExecutor);
+    }
+    else
+    {
+      _handlerExecutor = null;
+      _executionHandler = null;
+    }
   }
 
   @Override
@@ -86,9 +189,8 @@ import com.linkedin.r2.transport.common.bridge.common.TransportResponseImpl;
     ChannelFactory factory =
           new NioServerSocketChannelFactory(
                   Executors.newCachedThreadPool(),
-                  Executors.newFixedThreadPool(256)
-//                  Executors.newCachedThreadPool()
-          );
+                  Executors.newCachedThreadPool(),
+                  _ioThreads);
 
     _bootstrap = new ServerBootstrap(factory);
     _bootstrap.setPipelineFactory(new ChannelPipelineFactory() {
@@ -97,15 +199,19 @@ import com.linkedin.r2.transport.common.bridge.common.TransportResponseImpl;
       {
         ChannelPipeline pipeline = Channels.pipeline();
         pipeline.addLast("decoder", new HttpRequestDecoder());
-        pipeline.addLast("aggregator", new HttpChunkAggregator(1048576));
+        pipeline.addLast("aggregator", new HttpChunkAggregator(MAX_REQUEST_SIZE));
         pipeline.addLast("encoder", new HttpResponseEncoder());
         pipeline.addLast("rapi", new RAPServerCodec());
-        pipeline.addLast("execution", _executionHandler);
+        if (_executionHandler != null)
+        {
+          pipeline.addLast("execution", _executionHandler);
+        }
         pipeline.addLast("handler", new Handler());
         return pipeline;
       }
     });
-    _bootstrap.bind(new InetSocketAddress(_port));
+    // the bound channel must be closed on stop for the IO threads to be released
+    _allChannels.add(_bootstrap.bind(new InetSocketAddress(_port)));
   }
 
   // TODO: can we make shutdown asynchronous?
@@ -113,10 +219,13 @@ import com.linkedin.r2.transport.common.bridge.common.TransportResponseImpl;
   public void stop()
   {
     System.out.println("Shutting down");
-    ChannelGroupFuture shutdown = _allChannels.disconnect();
+    ChannelGroupFuture shutdown = _allChannels.close();
     shutdown.awaitUninterruptibly();
     _bootstrap.releaseExternalResources();
-    _executionHandler.releaseExternalResources();
+    if (_executionHandler != null)
+    {
+      _executionHandler.releaseExternalResources();
+    }
   }
 
   @Override
@@ -126,10 +235,171 @@ import com.linkedin.r2.transport.common.bridge.common.TransportResponseImpl;
     stop();
   }
 
+  /**
+   * @return the number of handler threads, 0 if requests are dispatched on the IO threads.
+   */
+  public int getHandlerPoolSize()
+  {
+    return _handlerExecutor == null ? 0 : _handlerExecutor.getCorePoolSize();
+  }
+
+  /**
+   * @return the number of handler threads which are currently handling an event.
+   */
+  public int getHandlerActiveCount()
+  {
+    return _handlerExecutor == null ? 0 : _handlerExecutor.getActiveCount();
+  }
+
+  /**
+   * @return the number of channels with events waiting for a handler thread, the events of
+   *         a channel are queued behind each other and wait for a thread together.
+   */
+  public int getHandlerQueueDepth()
+  {
+    return _handlerExecutor == null ? 0 : _handlerExecutor.getQueue().size();
+  }
+
+  /**
+   * @return the maximum size in bytes of the requests of a channel waiting for a handler thread,
+   *         0 if there is no limit.
+   */
+  public long getMaxChannelMemorySize()
+  {
+    return _handlerExecutor == null ? 0 : _handlerExecutor.getMaxChannelMemorySize();
+  }
+
+  /**
+   * @return the maximum size in bytes of all requests waiting for a handler thread,
+   *         0 if there is no limit.
+   */
+  public long getMaxTotalMemorySize()
+  {
+    return _handlerExecutor == null ? 0 : _handlerExecutor.getMaxTotalMemorySize();
+  }
+
+  /**
+   * @return the number of events handled by the handler threads since the statistics were reset.
+   */
+  public long getHandledEventCount()
+  {
+    return _handledEventCount.get();
+  }
+
+  /**
+   * @return the total time in nanoseconds that handled events waited for a handler thread
+   *         since the statistics were reset.
+   */
+  public long getTotalQueueWaitNanos()
+  {
+    return _totalQueueWaitNanos.get();
+  }
+
+  /**
+   * @return the longest time in nanoseconds that an event waited for a handler thread
+   *         since the statistics were reset.
+   */
+  public long getMaxQueueWaitNanos()
+  {
+    return _maxQueueWaitNanos.get();
+  }
+
+  /**
+   * Reset the handled event count and queue wait time statistics.
+   */
+  public void resetQueueWaitStats()
+  {
+    _handledEventCount.set(0);
+    _totalQueueWaitNanos.set(0);
+    _maxQueueWaitNanos.set(0);
+  }
+
+  private void recordQueueWait(long waitNanos)
+  {
+    _handledEventCount.incrementAndGet();
+    _totalQueueWaitNanos.addAndGet(waitNanos);
+    long max = _maxQueueWaitNanos.get();
+    while (waitNanos > max && _maxQueueWaitNanos.compareAndSet(max, waitNanos) == false)
+    {
+      max = _maxQueueWaitNanos.get();
+    }
+  }
+
+  /**
+   * Hands events off to the handler threads, recording how long they wait for a thread.
+   */
+  private class MeteredExecutionHandler extends ExecutionHandler
+  {
+    MeteredExecutionHandler(MemoryAwareThreadPoolExecutor executor)
+    {
+      super(executor);
+    }
+
+    @Override
+    public void handleUpstream(ChannelHandlerContext ctx, ChannelEvent e) throws Exception
+    {
+      getExecutor().execute(new MeteredChannelEventRunnable(ctx, e));
+    }
+  }
+
+  // Extends rather than wraps ChannelEventRunnable, which the executor relies on to account
+  // the memory of the event to its channel.
+  private class MeteredChannelEventRunnable extends ChannelEventRunnable
+  {
+    private final long _queuedNanos = System.nanoTime();
+
+    MeteredChannelEventRunnable(ChannelHandlerContext ctx, ChannelEvent e)
+    {
+      super(ctx, e);
+    }
+
+    @Override
+    public void run()
+    {
+      recordQueueWait(System.nanoTime() - _queuedNanos);
+      super.run();
+    }
+  }
+
+  /**
+   * Estimates the memory held by a queued event. The default estimator only accounts for
+   * the fields of the message object, not for the entity and headers of r2 messages.
+   */
+  private static class RestMessageSizeEstimator implements ObjectSizeEstimator
+  {
+    private static final int MESSAGE_OVERHEAD = 256;
+
+    private final ObjectSizeEstimator _defaultEstimator = new DefaultObjectSizeEstimator();
+
+    @Override
+    public int estimateSize(Object o)
+    {
+      if (o instanceof EstimatableObjectWrapper)
+      {
+        o = ((EstimatableObjectWrapper) o).unwrap();
+      }
+      if (o instanceof MessageEvent)
+      {
+        o = ((MessageEvent) o).getMessage();
+      }
+      if (o instanceof RestMessage)
+      {
+        RestMessage message = (RestMessage) o;
+        int size = MESSAGE_OVERHEAD + message.getEntity().length();
+        for (Map.Entry<String, String> header : message.getHeaders().entrySet())
+        {
+          size += 2 * (header.getKey().length() + header.getValue().length());
+        }
+        return size;
+      }
+      return _defaultEstimator.estimateSize(o);
+    }
+  }
+
   private class Handler extends SimpleChannelUpstreamHandler
   {
-    // By virtue of being upstream  from the ExecutionHandler, all events in this handler will
-    // be handled on a separate thread so it is safe to block, etc.
+    // Unless there are no handler threads, this handler is upstream from the ExecutionHandler
+    // and all events in it are handled on a separate thread, so it is safe to block, etc.
     @Override
     public void messageReceived(final ChannelHandlerContext ctx, final MessageEvent e) throws Exception
     {
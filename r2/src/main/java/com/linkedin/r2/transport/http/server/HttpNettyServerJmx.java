@@ -0,0 +1,91 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.transport.http.server;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Implementation of {@link HttpNettyServerJmxMBean}.
+ */
+public class HttpNettyServerJmx implements HttpNettyServerJmxMBean
+{
+  private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final HttpNettyServer _server;
+
+  public HttpNettyServerJmx(HttpNettyServer server)
+  {
+    _server = server;
+  }
+
+  @Override
+  public int getHandlerPoolSize()
+  {
+    return _server.getHandlerPoolSize();
+  }
+
+  @Override
+  public int getHandlerActiveCount()
+  {
+    return _server.getHandlerActiveCount();
+  }
+
+  @Override
+  public int getHandlerQueueDepth()
+  {
+    return _server.getHandlerQueueDepth();
+  }
+
+  @Override
+  public long getMaxChannelMemorySize()
+  {
+    return _server.getMaxChannelMemorySize();
+  }
+
+  @Override
+  public long getMaxTotalMemorySize()
+  {
+    return _server.getMaxTotalMemorySize();
+  }
+
+  @Override
+  public long getHandledEventCount()
+  {
+    return _server.getHandledEventCount();
+  }
+
+  @Override
+  public double getAverageQueueWaitTimeMs()
+  {
+    long count = _server.getHandledEventCount();
+    return count == 0 ? 0 : _server.getTotalQueueWaitNanos() / NANOS_PER_MILLI / count;
+  }
+
+  @Override
+  public double getMaxQueueWaitTimeMs()
+  {
+    return _server.getMaxQueueWaitNanos() / NANOS_PER_MILLI;
+  }
+
+  @Override
+  public void resetQueueWaitStats()
+  {
+    _server.resetQueueWaitStats();
+  }
+}
@@ -0,0 +1,397 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.message.streaming;
+
+
+import com.linkedin.common.callback.FutureCallback;
+import com.linkedin.data.ByteString;
+import com.linkedin.r2.message.rest.RestRequest;
+import com.linkedin.r2.message.rest.RestRequestBuilder;
+import com.linkedin.r2.message.rest.RestResponse;
+import com.linkedin.r2.message.rest.RestResponseBuilder;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+
+public class TestEntityStreams
+{
+  @Test
+  public void testChunkedRoundTrip() throws Exception
+  {
+    ByteString entity = entity(10000);
+    CollectingReader reader = new CollectingReader(Integer.MAX_VALUE);
+    EntityStreams.newEntityStream(new ByteStringWriter(entity, 1024)).setReader(reader);
+    assertTrue(reader._done);
+    assertEquals(reader._chunks.size(), 10);
+    assertEquals(reader.entity(), entity);
+
+    FutureCallback<ByteString> callback = new FutureCallback<ByteString>();
+    EntityStreams.toByteString(EntityStreams.fromByteString(ByteString.empty()), callback);
+    assertEquals(callback.get(), ByteString.empty());
+  }
+
+  @Test
+  public void testBackpressure()
+  {
+    CollectingReader reader = new CollectingReader(0);
+    EntityStreams.newEntityStream(new ByteStringWriter(entity(100), 10)).setReader(reader);
+    assertEquals(reader._chunks.size(), 0);
+    reader._rh.request(3);
+    assertEquals(reader._chunks.size(), 3);
+    reader._rh.request(2);
+    assertEquals(reader._chunks.size(), 5);
+    assertTrue(reader._done == false);
+    reader._rh.request(100);
+    assertEquals(reader._chunks.size(), 10);
+    assertTrue(reader._done);
+  }
+
+  @Test
+  public void testNoRecursionWithManyChunks()
+  {
+    // the reader requests one chunk at a time from onDataAvailable
+    final ByteString entity = entity(1000000);
+    CollectingReader reader = new CollectingReader(1)
+    {
+      @Override
+      public void onDataAvailable(ByteString data)
+      {
+        super.onDataAvailable(data);
+        _rh.request(1);
+      }
+    };
+    EntityStreams.newEntityStream(new ByteStringWriter(entity, 1)).setReader(reader);
+    assertTrue(reader._done);
+    assertEquals(reader._chunks.size(), entity.length());
+  }
+
+  @Test
+  public void testWriteWithoutCredit()
+  {
+    CollectingReader reader = new CollectingReader(0);
+    final WriteHandle[] wh = new WriteHandle[1];
+    EntityStreams.newEntityStream(new Writer()
+    {
+      @Override
+      public void onInit(WriteHandle handle)
+      {
+        wh[0] = handle;
+      }
+
+      @Override
+      public void onWritePossible()
+      {
+      }
+
+      @Override
+      public void onAbort(Throwable e)
+      {
+      }
+    }).setReader(reader);
+    try
+    {
+      wh[0].write(entity(1));
+      fail("write without requested chunks should fail");
+    }
+    catch (IllegalStateException e)
+    {
+    }
+  }
+
+  @Test
+  public void testCancel() throws IOException
+  {
+    final boolean[] closed = new boolean[1];
+    InputStream in = new ByteArrayInputStream(entity(100).copyBytes())
+    {
+      @Override
+      public void close() throws IOException
+      {
+        closed[0] = true;
+      }
+    };
+    CollectingReader reader = new CollectingReader(1);
+    EntityStreams.fromInputStream(in, 10).setReader(reader);
+    assertEquals(reader._chunks.size(), 1);
+    reader._rh.cancel();
+    assertTrue(closed[0]);
+    reader._rh.request(10);
+    assertEquals(reader._chunks.size(), 1);
+    assertTrue(reader._done == false);
+  }
+
+  @Test
+  public void testError() throws InterruptedException
+  {
+    InputStream in = new InputStream()
+    {
+      @Override
+      public int read() throws IOException
+      {
+        throw new IOException("expected");
+      }
+    };
+    FutureCallback<ByteString> callback = new FutureCallback<ByteString>();
+    EntityStreams.toByteString(EntityStreams.fromInputStream(in, 10), callback);
+    try
+    {
+      callback.get();
+      fail("error of the writer should be propagated");
+    }
+    catch (ExecutionException e)
+    {
+      assertTrue(e.getCause() instanceof IOException);
+    }
+  }
+
+  @Test
+  public void testKnownLengthInputStream() throws Exception
+  {
+    // the content is read as a single chunk, without reading past its length
+    ByteString entity = entity(10000);
+    byte[] bytes = new byte[entity.length() + 10];
+    entity.copyBytes(bytes, 0);
+    CollectingReader reader = new CollectingReader(Integer.MAX_VALUE);
+    EntityStreams.fromInputStream(new ByteArrayInputStream(bytes), entity.length(), entity.length()).setReader(reader);
+    assertTrue(reader._done);
+    assertEquals(reader._chunks.size(), 1);
+    assertEquals(reader.entity(), entity);
+
+    FutureCallback<ByteString> callback = new FutureCallback<ByteString>();
+    EntityStreams.toByteString(EntityStreams.fromInputStream(new ByteArrayInputStream(bytes), 1, 0), callback);
+    assertEquals(callback.get(), ByteString.empty());
+
+    callback = new FutureCallback<ByteString>();
+    EntityStreams.toByteString(EntityStreams.fromInputStream(new ByteArrayInputStream(bytes), 1024, bytes.length + 1),
+                               callback);
+    try
+    {
+      callback.get();
+      fail("a truncated input stream should fail");
+    }
+    catch (ExecutionException e)
+    {
+      assertTrue(e.getCause() instanceof IOException);
+    }
+  }
+
+  @Test
+  public void testFullEntityReaderBackpressure() throws Exception
+  {
+    final ByteString entity = entity(10000);
+    final int[] maxOutstanding = new int[1];
+    EntityStream stream = EntityStreams.newEntityStream(new Writer()
+    {
+      @Override
+      public void onInit(WriteHandle handle)
+      {
+        _wh = handle;
+        _delegate.onInit(handle);
+      }
+
+      @Override
+      public void onWritePossible()
+      {
+        maxOutstanding[0] = Math.max(maxOutstanding[0], _wh.remaining());
+        _delegate.onWritePossible();
+      }
+
+      @Override
+      public void onAbort(Throwable e)
+      {
+        _delegate.onAbort(e);
+      }
+
+      private final Writer _delegate = new ByteStringWriter(entity, 100);
+      private WriteHandle _wh;
+    });
+    FutureCallback<ByteString> callback = new FutureCallback<ByteString>();
+    EntityStreams.toByteString(stream, callback);
+    assertEquals(callback.get(), entity);
+    assertEquals(maxOutstanding[0], 1);
+  }
+
+  @Test
+  public void testInputStreamAdapter() throws Exception
+  {
+    final ByteString entity = entity(100000);
+    final int bufferedChunks = 2;
+    final int[] maxOutstanding = new int[1];
+    final WriteHandle[] wh = new WriteHandle[1];
+    EntityStream stream = EntityStreams.newEntityStream(new Writer()
+    {
+      @Override
+      public void onInit(WriteHandle handle)
+      {
+        wh[0] = handle;
+        _delegate.onInit(handle);
+      }
+
+      @Override
+      public void onWritePossible()
+      {
+        maxOutstanding[0] = Math.max(maxOutstanding[0], wh[0].remaining());
+        _delegate.onWritePossible();
+      }
+
+      @Override
+      public void onAbort(Throwable e)
+      {
+        _delegate.onAbort(e);
+      }
+
+      private final Writer _delegate = new ByteStringWriter(entity, 100);
+    });
+
+    InputStream in = EntityStreams.toInputStream(stream, bufferedChunks);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buf = new byte[37];
+    for (int read; (read = in.read(buf)) != -1; )
+    {
+      out.write(buf, 0, read);
+    }
+    in.close();
+    assertEquals(ByteString.copy(out.toByteArray()), entity);
+    assertTrue(maxOutstanding[0] <= bufferedChunks);
+  }
+
+  @Test
+  public void testInputStreamAdapterClose() throws IOException
+  {
+    final boolean[] aborted = new boolean[1];
+    EntityStream stream = EntityStreams.newEntityStream(new ByteStringWriter(entity(100), 10)
+    {
+      @Override
+      public void onAbort(Throwable e)
+      {
+        aborted[0] = e instanceof CancellationException;
+      }
+    });
+    InputStream in = EntityStreams.toInputStream(stream, 1);
+    assertEquals(in.read(), 0);
+    in.close();
+    assertTrue(aborted[0]);
+    try
+    {
+      in.read();
+      fail("read after close should fail");
+    }
+    catch (IOException e)
+    {
+    }
+  }
+
+  @Test
+  public void testStreamRequestAndResponse() throws Exception
+  {
+    RestRequest request = new RestRequestBuilder(URI.create("http://localhost/foo"))
+        .setMethod("PUT")
+        .setHeader("Content-Type", "application/json")
+        .setEntity(entity(5000))
+        .build();
+    StreamRequest streamRequest = StreamRequest.fromRestRequest(request, 1000);
+    assertEquals(streamRequest.getURI(), request.getURI());
+    assertEquals(streamRequest.getHeader("Content-Type"), "application/json");
+    FutureCallback<RestRequest> requestCallback = new FutureCallback<RestRequest>();
+    streamRequest.toRestRequest(requestCallback);
+    assertEquals(requestCallback.get(), request);
+
+    RestResponse response = new RestResponseBuilder()
+        .setStatus(201)
+        .setHeader("Location", "/foo/1")
+        .setEntity(entity(10))
+        .build();
+    FutureCallback<RestResponse> responseCallback = new FutureCallback<RestResponse>();
+    StreamResponse.fromRestResponse(response, 3).toRestResponse(responseCallback);
+    assertEquals(responseCallback.get(), response);
+  }
+
+  private static ByteString entity(int length)
+  {
+    byte[] bytes = new byte[length];
+    for (int i = 0; i < length; i++)
+    {
+      bytes[i] = (byte) i;
+    }
+    return ByteString.copy(bytes);
+  }
+
+  private static class CollectingReader implements Reader
+  {
+    CollectingReader(int initialRequest)
+    {
+      _initialRequest = initialRequest;
+    }
+
+    @Override
+    public void onInit(ReadHandle rh)
+    {
+      _rh = rh;
+      if (_initialRequest > 0)
+      {
+        _rh.request(_initialRequest);
+      }
+    }
+
+    @Override
+    public void onDataAvailable(ByteString data)
+    {
+      _chunks.add(data);
+    }
+
+    @Override
+    public void onDone()
+    {
+      _done = true;
+    }
+
+    @Override
+    public void onError(Throwable e)
+    {
+      _error = e;
+    }
+
+    ByteString entity() throws IOException
+    {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      for (ByteString chunk : _chunks)
+      {
+        chunk.write(out);
+      }
+      return ByteString.copy(out.toByteArray());
+    }
+
+    private final int _initialRequest;
+    ReadHandle _rh;
+    final List<ByteString> _chunks = new ArrayList<ByteString>();
+    boolean _done;
+    Throwable _error;
+  }
+}
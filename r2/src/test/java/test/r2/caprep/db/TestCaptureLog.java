@@ -0,0 +1,234 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package test.r2.caprep.db;
+
+import com.linkedin.data.ByteString;
+import com.linkedin.r2.caprep.CaptureFilter;
+import com.linkedin.r2.caprep.db.CaptureLogReader;
+import com.linkedin.r2.caprep.db.CaptureLogSink;
+import com.linkedin.r2.caprep.db.CaptureLogSource;
+import com.linkedin.r2.caprep.db.CapturedPair;
+import com.linkedin.r2.filter.FilterChain;
+import com.linkedin.r2.filter.FilterChains;
+import com.linkedin.r2.message.RequestContext;
+import com.linkedin.r2.message.rest.RestMethod;
+import com.linkedin.r2.message.rest.RestRequest;
+import com.linkedin.r2.message.rest.RestRequestBuilder;
+import com.linkedin.r2.message.rest.RestResponse;
+import com.linkedin.r2.message.rest.RestResponseBuilder;
+import com.linkedin.r2.message.rest.RestStatus;
+import com.linkedin.r2.message.rpc.RpcRequest;
+import com.linkedin.r2.message.rpc.RpcRequestBuilder;
+import com.linkedin.r2.message.rpc.RpcResponse;
+import com.linkedin.r2.message.rpc.RpcResponseBuilder;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import test.r2.filter.FilterUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+
+public class TestCaptureLog
+{
+  private File _dir;
+
+  @BeforeMethod
+  public void setUp() throws IOException
+  {
+    _dir = File.createTempFile("caprep", null);
+    Assert.assertTrue(_dir.delete());
+    Assert.assertTrue(_dir.mkdir());
+  }
+
+  @AfterMethod
+  public void tearDown()
+  {
+    final File[] files = _dir.listFiles();
+    if (files != null)
+    {
+      for (File file : files)
+      {
+        file.delete();
+      }
+    }
+    _dir.delete();
+  }
+
+  @Test
+  public void testRoundTrip() throws Exception
+  {
+    roundTrip(false);
+  }
+
+  @Test
+  public void testRoundTripCompressed() throws Exception
+  {
+    roundTrip(true);
+  }
+
+  @Test
+  public void testSegmentRoll() throws Exception
+  {
+    final CaptureLogSink sink = new CaptureLogSink(_dir, 1024, false, 1024, 1000);
+    for (int i = 0; i < 50; i++)
+    {
+      sink.record(restRequest(i), restResponse(i, 200));
+    }
+    // larger than a segment
+    sink.record(restRequest(1000), restResponse(1000, 4096));
+    sink.close();
+    Assert.assertEquals(sink.getRecordedCount(), 51);
+    Assert.assertEquals(sink.getDroppedCount(), 0);
+    Assert.assertTrue(_dir.list().length > 1);
+
+    final CaptureLogReader reader = new CaptureLogReader(_dir);
+    for (int i = 0; i < 50; i++)
+    {
+      Assert.assertEquals(reader.next().getRequest(), restRequest(i));
+    }
+    Assert.assertEquals(reader.next().getResponse(), restResponse(1000, 4096));
+    Assert.assertNull(reader.next());
+    reader.close();
+  }
+
+  @Test
+  public void testAppendAfterReopen() throws Exception
+  {
+    CaptureLogSink sink = new CaptureLogSink(_dir.getPath());
+    sink.record(restRequest(1), restResponse(1, 10));
+    sink.close();
+    sink = new CaptureLogSink(_dir.getPath());
+    sink.record(restRequest(1), restResponse(2, 10));
+    sink.record(restRequest(2), restResponse(3, 10));
+    sink.flush();
+    sink.close();
+    sink.record(restRequest(3), restResponse(4, 10));
+    Assert.assertEquals(sink.getDroppedCount(), 1);
+
+    final CaptureLogSource source = new CaptureLogSource(_dir);
+    Assert.assertEquals(source.size(), 3);
+    Assert.assertEquals(source.replay(restRequest(1)), restResponse(2, 10));
+    Assert.assertEquals(source.replay(restRequest(2)), restResponse(3, 10));
+    Assert.assertNull(source.replay(restRequest(3)));
+  }
+
+  @Test
+  public void testReplayCanonicalRequest() throws Exception
+  {
+    final CaptureLogSink sink = new CaptureLogSink(_dir.getPath());
+    final RestRequest req = new RestRequestBuilder(URI.create("http://localhost:1234/foo"))
+        .setMethod(RestMethod.GET)
+        .setHeader("X-Id", "1")
+        .build();
+    sink.record(req, restResponse(1, 10));
+    sink.close();
+
+    final RestRequest equivalent = new RestRequestBuilder(URI.create("http://localhost:1234/bar/../foo"))
+        .setMethod(RestMethod.GET)
+        .setHeader("x-id", "1")
+        .build();
+    Assert.assertEquals(new CaptureLogSource(_dir).replay(equivalent), restResponse(1, 10));
+  }
+
+  @Test
+  public void testArrivalTime() throws Exception
+  {
+    final CaptureLogSink sink = new CaptureLogSink(_dir.getPath());
+    final FilterChain fc = FilterChains.create(new CaptureFilter(sink));
+    final RequestContext context = new RequestContext();
+    final long start = CaptureLogSink.currentTimeNanos();
+    fc.onRestRequest(restRequest(1), context, FilterUtil.emptyWireAttrs());
+    final long arrived = CaptureLogSink.currentTimeNanos();
+    Thread.sleep(50);
+    fc.onRestResponse(restResponse(1, 10), context, FilterUtil.emptyWireAttrs());
+    sink.close();
+
+    // the pair is timestamped when its request arrived, not when its response was captured
+    final CaptureLogReader reader = new CaptureLogReader(_dir);
+    final CapturedPair pair = reader.next();
+    reader.close();
+    Assert.assertEquals(pair.getRequest(), restRequest(1));
+    Assert.assertTrue(pair.getTimestamp() >= start && pair.getTimestamp() <= arrived,
+                      (pair.getTimestamp() - start) + "ns after the request");
+  }
+
+  private void roundTrip(boolean compress) throws Exception
+  {
+    final CaptureLogSink sink = new CaptureLogSink(_dir, CaptureLogSink.DEFAULT_SEGMENT_SIZE, compress, 1024, 1000);
+    final RpcRequest rpcReq = new RpcRequestBuilder(URI.create("http://localhost:1234/rpc"))
+        .setEntity(new byte[] {1, 2, 3})
+        .build();
+    final RpcResponse rpcRes = new RpcResponseBuilder().setEntity(new byte[] {4, 5}).build();
+    final long start = CaptureLogSink.currentTimeNanos();
+    for (int i = 0; i < 100; i++)
+    {
+      sink.record(restRequest(i), restResponse(i, 1000));
+    }
+    sink.record(rpcReq, rpcRes);
+    sink.close();
+    Assert.assertEquals(sink.getRecordedCount(), 101);
+
+    final long end = CaptureLogSink.currentTimeNanos();
+
+    final CaptureLogReader reader = new CaptureLogReader(_dir);
+    long timestamp = start;
+    for (int i = 0; i < 100; i++)
+    {
+      final CapturedPair pair = reader.next();
+      Assert.assertTrue(pair.getTimestamp() >= timestamp && pair.getTimestamp() <= end);
+      timestamp = pair.getTimestamp();
+      Assert.assertEquals(pair.getRequest(), restRequest(i));
+      Assert.assertEquals(pair.getResponse(), restResponse(i, 1000));
+    }
+    final CapturedPair rpcPair = reader.next();
+    Assert.assertEquals(rpcPair.getRequest(), rpcReq);
+    Assert.assertEquals(rpcPair.getResponse(), rpcRes);
+    Assert.assertNull(reader.next());
+    reader.close();
+
+    final CaptureLogSource source = new CaptureLogSource(_dir);
+    Assert.assertEquals(source.replay(restRequest(42)), restResponse(42, 1000));
+    Assert.assertEquals(source.replay(rpcReq), rpcRes);
+  }
+
+  private static RestRequest restRequest(int i)
+  {
+    return new RestRequestBuilder(URI.create("http://localhost:1234/foo/" + i))
+        .setMethod(RestMethod.PUT)
+        .setHeader("X-Id", String.valueOf(i))
+        .setEntity(("request " + i).getBytes())
+        .build();
+  }
+
+  private static RestResponse restResponse(int i, int size)
+  {
+    final byte[] entity = new byte[size];
+    for (int j = 0; j < size; j++)
+    {
+      entity[j] = (byte) ('a' + (i + j) % 4);
+    }
+    return new RestResponseBuilder()
+        .setStatus(RestStatus.OK)
+        .setHeader("X-Id", String.valueOf(i))
+        .setEntity(ByteString.copy(entity))
+        .build();
+  }
+}
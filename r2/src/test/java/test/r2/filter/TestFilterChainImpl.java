@@ -19,8 +19,12 @@ package test.r2.filter;
 
 import com.linkedin.r2.filter.FilterChain;
 import com.linkedin.r2.filter.FilterChains;
+import com.linkedin.r2.filter.NextFilter;
+import com.linkedin.r2.filter.message.rest.RestRequestFilter;
 import com.linkedin.r2.message.RequestContext;
+import com.linkedin.r2.message.rest.RestRequest;
 import com.linkedin.r2.message.rest.RestRequestBuilder;
+import com.linkedin.r2.message.rest.RestResponse;
 import com.linkedin.r2.message.rest.RestResponseBuilder;
 import com.linkedin.r2.message.rpc.RpcRequestBuilder;
 import com.linkedin.r2.message.rpc.RpcResponseBuilder;
@@ -232,6 +236,58 @@ public class TestFilterChainImpl
     assertMessageCounts(0, 0, 1, filter3);
   }
 
+  @Test
+  public void testChainShortCircuitRequest()
+  {
+    final MessageCountFilter filter1 = new MessageCountFilter();
+    final RpcRestCountFilter filter2 = new RpcRestCountFilter();
+    final MessageCountFilter filter3 = new MessageCountFilter();
+    final RestRequestFilter respondingFilter = new RestRequestFilter()
+    {
+      @Override
+      public void onRestRequest(RestRequest req, RequestContext requestContext,
+                                Map<String, String> wireAttrs,
+                                NextFilter<RestRequest, RestResponse> nextFilter)
+      {
+        nextFilter.onResponse(new RestResponseBuilder().build(), requestContext, wireAttrs);
+      }
+    };
+    final FilterChain fc = FilterChains.create(filter1, filter2, respondingFilter, filter3);
+
+    fireRestRequest(fc);
+    assertMessageCounts(1, 1, 0, filter1);
+    assertRestCounts   (1, 1, 0, filter2);
+    assertMessageCounts(0, 0, 0, filter3);
+
+    // the responding filter does not handle rpc requests, so they pass through it
+    fireRpcRequest(fc);
+    assertMessageCounts(2, 1, 0, filter1);
+    assertRpcCounts    (1, 0, 0, filter2);
+    assertMessageCounts(1, 0, 0, filter3);
+  }
+
+  @Test
+  public void testChainFilterException()
+  {
+    final MessageCountFilter filter1 = new MessageCountFilter();
+    final MessageCountFilter filter3 = new MessageCountFilter();
+    final RestRequestFilter throwingFilter = new RestRequestFilter()
+    {
+      @Override
+      public void onRestRequest(RestRequest req, RequestContext requestContext,
+                                Map<String, String> wireAttrs,
+                                NextFilter<RestRequest, RestResponse> nextFilter)
+      {
+        throw new RuntimeException("error for testing");
+      }
+    };
+    final FilterChain fc = FilterChains.create(filter1, throwingFilter, filter3);
+
+    fireRestRequest(fc);
+    assertMessageCounts(1, 0, 1, filter1);
+    assertMessageCounts(0, 0, 0, filter3);
+  }
+
   private void fireRpcRequest(FilterChain fc)
   {
     fc.onRpcRequest(new RpcRequestBuilder(URI.create("test")).build(),
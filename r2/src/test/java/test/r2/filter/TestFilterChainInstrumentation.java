@@ -0,0 +1,218 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package test.r2.filter;
+
+import com.linkedin.r2.filter.FilterChain;
+import com.linkedin.r2.filter.FilterChains;
+import com.linkedin.r2.filter.NextFilter;
+import com.linkedin.r2.filter.instrumentation.FilterChainInstrumentation;
+import com.linkedin.r2.filter.instrumentation.FilterMetricsSink;
+import com.linkedin.r2.filter.instrumentation.FilterStats;
+import com.linkedin.r2.filter.instrumentation.LatencyHistogram;
+import com.linkedin.r2.filter.message.rest.RestRequestFilter;
+import com.linkedin.r2.message.RequestContext;
+import com.linkedin.r2.message.rest.RestRequest;
+import com.linkedin.r2.message.rest.RestRequestBuilder;
+import com.linkedin.r2.message.rest.RestResponse;
+import com.linkedin.r2.message.rest.RestResponseBuilder;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestFilterChainInstrumentation
+{
+  @Test
+  public void testRequestAndResponseTimes() throws Exception
+  {
+    final CountingSink sink = new CountingSink();
+    final FilterChainInstrumentation instrumentation = new FilterChainInstrumentation(1, sink);
+    final HoldingFilter transport = new HoldingFilter();
+    final FilterChain fc = FilterChains.instrument(FilterChains.create(new MessageCountFilter()), instrumentation)
+        .addLast(transport);
+
+    fc.onRestRequest(new RestRequestBuilder(URI.create("test")).build(), new RequestContext(),
+                     new HashMap<String, String>());
+    final FilterStats countStats = instrumentation.getFilterStats().get(MessageCountFilter.class.getName());
+    final FilterStats transportStats = instrumentation.getFilterStats().get(HoldingFilter.class.getName());
+    Assert.assertEquals(countStats.getRequestTime().getCount(), 1);
+    Assert.assertEquals(countStats.getInFlightCount(), 0);
+    Assert.assertEquals(transportStats.getInFlightCount(), 1);
+    Assert.assertEquals(transportStats.getRequestTime().getCount(), 0);
+
+    Thread.sleep(10);
+    transport.respond();
+    Assert.assertEquals(transportStats.getInFlightCount(), 0);
+    Assert.assertEquals(transportStats.getRequestTime().getCount(), 1);
+    Assert.assertTrue(transportStats.getRequestTime().getMax() >= TimeUnit.MILLISECONDS.toNanos(10));
+    Assert.assertTrue(countStats.getRequestTime().getMax() < transportStats.getRequestTime().getMax());
+    // the transport filter responds without handling responses itself
+    Assert.assertEquals(transportStats.getResponseTime().getCount(), 0);
+    Assert.assertEquals(countStats.getResponseTime().getCount(), 1);
+    Assert.assertEquals(countStats.getErrorCount(), 0);
+
+    Assert.assertEquals(sink._requests.get(), 2);
+    Assert.assertEquals(sink._responses.get(), 1);
+    Assert.assertEquals(sink._errors.get(), 0);
+  }
+
+  @Test
+  public void testErrors()
+  {
+    final FilterChainInstrumentation instrumentation = new FilterChainInstrumentation();
+    final RestRequestFilter throwingFilter = new RestRequestFilter()
+    {
+      @Override
+      public void onRestRequest(RestRequest req, RequestContext requestContext,
+                                Map<String, String> wireAttrs,
+                                NextFilter<RestRequest, RestResponse> nextFilter)
+      {
+        throw new RuntimeException("error for testing");
+      }
+    };
+    final FilterChain fc = FilterChains.instrument(FilterChains.create(new MessageCountFilter(), throwingFilter),
+                                                   instrumentation);
+
+    fc.onRestRequest(new RestRequestBuilder(URI.create("test")).build(), new RequestContext(),
+                     new HashMap<String, String>());
+    final FilterStats countStats = instrumentation.getFilterStats().get(MessageCountFilter.class.getName());
+    final FilterStats throwingStats = instrumentation.getFilterStats().get(throwingFilter.getClass().getName());
+    Assert.assertEquals(throwingStats.getErrorCount(), 1);
+    Assert.assertEquals(throwingStats.getInFlightCount(), 0);
+    Assert.assertEquals(countStats.getErrorCount(), 1);
+    Assert.assertEquals(countStats.getResponseTime().getCount(), 1);
+
+    instrumentation.reset();
+    Assert.assertEquals(countStats.getErrorCount(), 0);
+    Assert.assertEquals(countStats.getResponseTime().getCount(), 0);
+  }
+
+  @Test
+  public void testSampling()
+  {
+    final FilterChainInstrumentation instrumentation = new FilterChainInstrumentation(4, null);
+    final MessageCountFilter filter = new MessageCountFilter();
+    final FilterChain fc = FilterChains.instrument(FilterChains.create(filter), instrumentation);
+
+    for (int i = 0; i < 100; i++)
+    {
+      fc.onRestResponse(new RestResponseBuilder().build(), new RequestContext(), new HashMap<String, String>());
+    }
+    Assert.assertEquals(filter.getResCount(), 100);
+    Assert.assertEquals(instrumentation.getFilterStats().get(MessageCountFilter.class.getName())
+                            .getResponseTime().getCount(), 25);
+
+    final FilterChain uninstrumented = FilterChains.instrument(fc, null);
+    uninstrumented.onRestResponse(new RestResponseBuilder().build(), new RequestContext(),
+                                  new HashMap<String, String>());
+    Assert.assertEquals(filter.getResCount(), 101);
+  }
+
+  @Test
+  public void testHistogram()
+  {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    Assert.assertEquals(histogram.getPercentile(99), 0);
+    for (int i = 1; i <= 1000; i++)
+    {
+      histogram.record(i * 1000L);
+    }
+    Assert.assertEquals(histogram.getCount(), 1000);
+    Assert.assertEquals(histogram.getMax(), 1000000L);
+    Assert.assertEquals(histogram.getMean(), 500500.0, 0.001);
+    assertWithin(histogram.getPercentile(50), 500000L, 0.125);
+    assertWithin(histogram.getPercentile(99), 990000L, 0.125);
+    Assert.assertEquals(histogram.getPercentile(100), 1000000L);
+
+    histogram.record(-1);
+    Assert.assertEquals(histogram.getPercentile(0), 0);
+    histogram.record(Long.MAX_VALUE);
+    Assert.assertEquals(histogram.getPercentile(100), Long.MAX_VALUE);
+
+    histogram.reset();
+    Assert.assertEquals(histogram.getCount(), 0);
+    Assert.assertEquals(histogram.getPercentile(50), 0);
+  }
+
+  @Test
+  public void testPreciseHistogram()
+  {
+    final LatencyHistogram histogram = new LatencyHistogram(7);
+    for (int i = 1; i <= 100000; i++)
+    {
+      histogram.record(i * 1000L + 7);
+    }
+    assertWithin(histogram.getPercentile(50), 50000007L, 1.0 / 128);
+    assertWithin(histogram.getPercentile(99.9), 99900007L, 1.0 / 128);
+    Assert.assertEquals(histogram.getPercentile(100), 100000007L);
+  }
+
+  private static void assertWithin(long actual, long expected, double error)
+  {
+    Assert.assertTrue(actual >= expected && actual <= expected * (1 + error), actual + " vs " + expected);
+  }
+
+  private static class HoldingFilter implements RestRequestFilter
+  {
+    private NextFilter<RestRequest, RestResponse> _nextFilter;
+    private RequestContext _requestContext;
+    private Map<String, String> _wireAttrs;
+
+    @Override
+    public void onRestRequest(RestRequest req, RequestContext requestContext,
+                              Map<String, String> wireAttrs,
+                              NextFilter<RestRequest, RestResponse> nextFilter)
+    {
+      _nextFilter = nextFilter;
+      _requestContext = requestContext;
+      _wireAttrs = wireAttrs;
+    }
+
+    public void respond()
+    {
+      _nextFilter.onResponse(new RestResponseBuilder().build(), _requestContext, _wireAttrs);
+    }
+  }
+
+  private static class CountingSink implements FilterMetricsSink
+  {
+    private final AtomicInteger _requests = new AtomicInteger();
+    private final AtomicInteger _responses = new AtomicInteger();
+    private final AtomicInteger _errors = new AtomicInteger();
+
+    @Override
+    public void onRequest(String filterName, long nanos)
+    {
+      _requests.incrementAndGet();
+    }
+
+    @Override
+    public void onResponse(String filterName, long nanos, boolean error)
+    {
+      _responses.incrementAndGet();
+      if (error)
+      {
+        _errors.incrementAndGet();
+      }
+    }
+  }
+}
@@ -17,13 +17,20 @@
 /* $Id$ */
 package test.r2.message;
 
+import com.linkedin.r2.message.rest.HeaderMap;
 import com.linkedin.r2.message.rest.RestMessage;
+import com.linkedin.r2.message.rest.RestRequest;
+import com.linkedin.r2.message.rest.RestRequestBuilder;
 import com.linkedin.r2.message.rest.RestResponse;
 import com.linkedin.r2.message.rest.RestResponseBuilder;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.net.URI;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * @author Chris Pettitt
@@ -175,4 +182,109 @@ public class TestRestBuilders
     Assert.assertEquals(headerValue, msg.getHeader(headerName));
     Assert.assertEquals(Arrays.asList(headerVal1, headerVal2), msg.getHeaderValues(headerName));
   }
+
+  @Test
+  public void testCaseInsensitiveHeaders()
+  {
+    final RestMessage msg = new RestResponseBuilder()
+            .setHeader("Content-Type", "text/plain")
+            .setHeader("X-Foo", "1")
+            .setHeader("x-foo", "2")
+            .build();
+
+    Assert.assertEquals(msg.getHeader("content-type"), "text/plain");
+    Assert.assertEquals(msg.getHeader("CONTENT-TYPE"), "text/plain");
+    Assert.assertEquals(msg.getHeader("X-FOO"), "2");
+    Assert.assertEquals(msg.getHeaders().size(), 2);
+    Assert.assertTrue(msg.getHeaders().containsKey("x-foo"));
+    Assert.assertNull(msg.getHeader("X-Bar"));
+  }
+
+  @Test
+  public void testHeadersEqualMapWithSameEntries()
+  {
+    final RestMessage msg = new RestResponseBuilder()
+            .setHeader("Content-Type", "text/plain")
+            .setHeader("X-Foo", "1")
+            .build();
+
+    final Map<String, String> expected = new HashMap<String, String>();
+    expected.put("Content-Type", "text/plain");
+    expected.put("X-Foo", "1");
+    Assert.assertEquals(msg.getHeaders(), expected);
+    Assert.assertEquals(expected, msg.getHeaders());
+    Assert.assertEquals(msg.getHeaders().hashCode(), expected.hashCode());
+  }
+
+  @Test
+  public void testMultipleValuesAreKeptSeparately()
+  {
+    final RestMessage msg = new RestResponseBuilder()
+            .addHeaderValue("Set-Cookie", "a=1; Expires=Wed, 09 Jun 2021 10:18:14 GMT")
+            .addHeaderValue("set-cookie", "b=2")
+            .build();
+
+    final HeaderMap headers = (HeaderMap) msg.getHeaders();
+    Assert.assertEquals(headers.getAll("SET-COOKIE"),
+                        Arrays.asList("a=1; Expires=Wed, 09 Jun 2021 10:18:14 GMT", "b=2"));
+    Assert.assertEquals(msg.getHeader("Set-Cookie"), "a=1; Expires=Wed, 09 Jun 2021 10:18:14 GMT,b=2");
+    Assert.assertNull(headers.getAll("Cookie"));
+  }
+
+  @Test
+  public void testHeadersAreCopiedOnWrite()
+  {
+    final RestRequest req1 = new RestRequestBuilder(URI.create("/foo"))
+            .setHeader("k1", "v1")
+            .build();
+    final RestRequestBuilder builder = req1.builder();
+    final RestRequest req2 = builder.build();
+    Assert.assertSame(req2.getHeaders(), req1.getHeaders());
+
+    builder.addHeaderValue("k1", "v2").setHeader("k2", "v2");
+    final RestRequest req3 = builder.build();
+    builder.clearHeaders().setHeader("k3", "v3");
+    final RestRequest req4 = builder.build();
+
+    Assert.assertEquals(req1.getHeaders(), Collections.singletonMap("k1", "v1"));
+    Assert.assertEquals(req2.getHeaders(), Collections.singletonMap("k1", "v1"));
+    final Map<String, String> expected = new HashMap<String, String>();
+    expected.put("k1", "v1,v2");
+    expected.put("k2", "v2");
+    Assert.assertEquals(req3.getHeaders(), expected);
+    Assert.assertEquals(req4.getHeaders(), Collections.singletonMap("k3", "v3"));
+
+    try
+    {
+      req1.getHeaders().put("k2", "v2");
+      Assert.fail("headers of a message should not be modifiable");
+    }
+    catch (UnsupportedOperationException e)
+    {
+      // expected
+    }
+  }
+
+  @Test
+  public void testCanonicalHeaders()
+  {
+    final RestRequest req = new RestRequestBuilder(URI.create("/foo"))
+            .setHeader("Content-Type", " text/plain ;\tcharset=utf-8  ")
+            .setHeader("accept", "text/plain")
+            .buildCanonical();
+
+    final Map<String, String> expected = new HashMap<String, String>();
+    expected.put("content-type", "text/plain ; charset=utf-8");
+    expected.put("accept", "text/plain");
+    Assert.assertEquals(req.getHeaders(), expected);
+    Assert.assertEquals(req.getHeaders().hashCode(), expected.hashCode());
+    Assert.assertSame(req.getHeader("accept"), "text/plain");
+
+    final RestRequest equivalent = new RestRequestBuilder(URI.create("/foo"))
+            .setHeader("ACCEPT", "text/plain")
+            .setHeader("content-type", "text/plain ;   charset=utf-8")
+            .buildCanonical();
+    Assert.assertEquals(equivalent, req);
+    Assert.assertEquals(equivalent.hashCode(), req.hashCode());
+  }
 }
@@ -0,0 +1,120 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.restli.client;
+
+
+import java.util.concurrent.Executor;
+
+
+/**
+ * Options that control how the elements of batch and collection responses are decoded.
+ *
+ * <p>
+ * If <i>validate elements</i> is set, the elements of batch and collection responses are
+ * validated against their schema and their values are coerced to the types of the schema.
+ * Required fields are not checked because responses may be projected.
+ *
+ * <p>
+ * If an {@link Executor} is provided, the elements of responses with at least
+ * <i>parallel threshold</i> elements are validated, if enabled, and wrapped concurrently
+ * in chunks of <i>chunk size</i> elements. Smaller responses are decoded on the thread
+ * that receives them.
+ */
+public final class ResponseDecodingOptions
+{
+  /**
+   * Options that neither validate elements nor decode them concurrently.
+   */
+  public static final ResponseDecodingOptions DEFAULT = new ResponseDecodingOptions(false, null, 0, 0);
+
+  /**
+   * Constructor.
+   *
+   * @param validateElements specifies whether the elements of batch and collection responses are validated.
+   * @param executor provides the {@link Executor} to decode chunks of elements with, may be null.
+   * @param parallelThreshold provides the minimum number of elements to decode concurrently.
+   * @param chunkSize provides the number of elements of each chunk, must be positive if an executor is provided.
+   */
+  public ResponseDecodingOptions(boolean validateElements, Executor executor, int parallelThreshold, int chunkSize)
+  {
+    if (executor != null && chunkSize <= 0)
+    {
+      throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+    }
+    _validateElements = validateElements;
+    _executor = executor;
+    _parallelThreshold = parallelThreshold;
+    _chunkSize = chunkSize;
+  }
+
+  /**
+   * @return whether the elements of batch and collection responses are validated.
+   */
+  public boolean isValidateElements()
+  {
+    return _validateElements;
+  }
+
+  /**
+   * @return the {@link Executor} to decode chunks of elements with, may be null.
+   */
+  public Executor getExecutor()
+  {
+    return _executor;
+  }
+
+  /**
+   * @return the minimum number of elements to decode concurrently.
+   */
+  public int getParallelThreshold()
+  {
+    return _parallelThreshold;
+  }
+
+  /**
+   * @return the number of elements of each chunk decoded concurrently.
+   */
+  public int getChunkSize()
+  {
+    return _chunkSize;
+  }
+
+  /**
+   * Return whether a response with the provided number of elements is decoded concurrently.
+   *
+   * @param size provides the number of elements.
+   * @return true if an {@link Executor} is provided and {@code size} is at least the parallel threshold.
+   */
+  public boolean isParallel(int size)
+  {
+    return _executor != null && size >= _parallelThreshold;
+  }
+
+  @Override
+  public String toString()
+  {
+    return "validateElements=" + _validateElements +
+           ", executor=" + _executor +
+           ", parallelThreshold=" + _parallelThreshold +
+           ", chunkSize=" + _chunkSize;
+  }
+
+  private final boolean _validateElements;
+  private final Executor _executor;
+  private final int _parallelThreshold;
+  private final int _chunkSize;
+}
@@ -102,6 +102,7 @@ public class RestClient
   private final String _uriPrefix;
   private final List<AcceptType> _acceptTypes;
   private final ContentType _contentType;
+  private final ResponseDecodingOptions _decodingOptions;
 
   public RestClient(Client client, String uriPrefix)
   {
@@ -114,11 +115,28 @@ public class RestClient
   }
 
   public RestClient(Client client, String uriPrefix, ContentType contentType, List<AcceptType> acceptTypes)
+  {
+    this(client, uriPrefix, contentType, acceptTypes, ResponseDecodingOptions.DEFAULT);
+  }
+
+  /**
+   * Construct a RestClient that decodes the elements of batch and collection responses as
+   * specified by the provided {@link ResponseDecodingOptions}, see
+   * {@link RestResponseDecoder#decodeResponse(RestResponse, ResponseDecodingOptions)}.
+   *
+   * @param decodingOptions provides the {@link ResponseDecodingOptions}.
+   */
+  public RestClient(Client client,
+                    String uriPrefix,
+                    ContentType contentType,
+                    List<AcceptType> acceptTypes,
+                    ResponseDecodingOptions decodingOptions)
   {
     _client = client;
     _uriPrefix = uriPrefix;
     _acceptTypes = acceptTypes;
     _contentType = contentType;
+    _decodingOptions = decodingOptions;
   }
 
   /**
@@ -175,7 +193,9 @@ public class RestClient
                               Callback<Response<T>> callback)
   {
     RecordTemplate input = request.getInput();
-    RestLiCallbackAdapter<T> adapter = new RestLiCallbackAdapter<T>(request.getResponseDecoder(), callback);
+    RestLiCallbackAdapter<T> adapter = new RestLiCallbackAdapter<T>(request.getResponseDecoder(),
+                                                                    _decodingOptions,
+                                                                    callback);
     sendRequestImpl(requestContext, request.getUri(), request.getMethod(),
                     input != null ? input.data() : null, request.getHeaders(), adapter);
   }
@@ -434,17 +454,21 @@ public class RestClient
   private static class RestLiCallbackAdapter<T> extends CallbackAdapter<Response<T>,RestResponse>
   {
     private final RestResponseDecoder<T> _decoder;
+    private final ResponseDecodingOptions _decodingOptions;
 
-    private RestLiCallbackAdapter(RestResponseDecoder<T> decoder, Callback<Response<T>> callback)
+    private RestLiCallbackAdapter(RestResponseDecoder<T> decoder,
+                                  ResponseDecodingOptions decodingOptions,
+                                  Callback<Response<T>> callback)
     {
       super(callback);
       _decoder = decoder;
+      _decodingOptions = decodingOptions;
     }
 
     @Override
     protected Response<T> convertResponse(RestResponse response) throws Exception
     {
-      return _decoder.decodeResponse(response);
+      return _decoder.decodeResponse(response, _decodingOptions);
     }
 
     @Override
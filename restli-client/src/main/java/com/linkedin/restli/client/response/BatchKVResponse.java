@@ -16,10 +16,12 @@
 
 package com.linkedin.restli.client.response;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import com.linkedin.data.DataList;
 import com.linkedin.data.DataMap;
@@ -34,6 +36,7 @@ import com.linkedin.restli.common.CompoundKey;
 import com.linkedin.restli.common.ErrorResponse;
 import com.linkedin.restli.internal.common.PathSegment.PathSegmentSyntaxException;
 import com.linkedin.restli.internal.common.ValueConverter;
+import com.linkedin.util.ParallelUtil;
 
 
 /**
@@ -73,6 +76,27 @@ public class BatchKVResponse<K, V extends RecordTemplate> extends RecordTemplate
                          Map<String, Class<?>> keyParts,
                          Class<? extends RecordTemplate> keyKeyClass,
                          Class<? extends RecordTemplate> keyParamsClass)
+  {
+    this(data, keyClass, valueClass, keyParts, keyKeyClass, keyParamsClass, null, 0, 0);
+  }
+
+  /**
+   * Construct a {@link BatchKVResponse}, converting the keys and wrapping the values of
+   * results and errors concurrently if there are at least {@code parallelThreshold} of them.
+   *
+   * @param executor provides the {@link Executor} to convert chunks of entries with, may be null.
+   * @param parallelThreshold provides the minimum number of entries to convert concurrently.
+   * @param chunkSize provides the number of entries of each chunk.
+   */
+  public BatchKVResponse(DataMap data,
+                         Class<K> keyClass,
+                         Class<V> valueClass,
+                         Map<String, Class<?>> keyParts,
+                         Class<? extends RecordTemplate> keyKeyClass,
+                         Class<? extends RecordTemplate> keyParamsClass,
+                         Executor executor,
+                         int parallelThreshold,
+                         int chunkSize)
   {
     super(data, null);
     _keyParts = keyParts;
@@ -95,22 +119,55 @@ public class BatchKVResponse<K, V extends RecordTemplate> extends RecordTemplate
     _schema.setFields(Arrays.asList(resultsField, errorsField), errorMessageBuilder);
 
     DataMap resultsRaw = (DataMap) data().get(RESULTS);
-    _results = new HashMap<K, V>((int)Math.ceil(resultsRaw.size() / 0.75f));
-    for (Map.Entry<String, Object> entry : resultsRaw.entrySet())
+    _results = convertEntries(resultsRaw, keyClass, valueClass, executor, parallelThreshold, chunkSize);
+
+    DataMap errorsRaw = (DataMap) data().get(ERRORS);
+    _errors = convertEntries(errorsRaw, keyClass, ErrorResponse.class, executor, parallelThreshold, chunkSize);
+  }
+
+  private <T extends RecordTemplate> Map<K, T> convertEntries(DataMap raw,
+                                                              final Class<K> keyClass,
+                                                              final Class<T> valueClass,
+                                                              Executor executor,
+                                                              int parallelThreshold,
+                                                              int chunkSize)
+  {
+    if (executor == null || raw.size() < parallelThreshold || raw.isEmpty())
     {
-      K key = convertKey(entry.getKey(), keyClass);
-      V value = DataTemplateUtil.wrap(entry.getValue(), valueClass);
-      _results.put(key, value);
+      return convertEntries(raw.entrySet(), raw.size(), keyClass, valueClass);
     }
 
-    DataMap errorsRaw = (DataMap) data().get(ERRORS);
-    _errors = new HashMap<K, ErrorResponse>((int)Math.ceil(errorsRaw.size()/0.75f));
-    for (Map.Entry<String, Object> entry : errorsRaw.entrySet())
+    List<Map.Entry<String, Object>> entries = new ArrayList<Map.Entry<String, Object>>(raw.entrySet());
+    List<Map<K, T>> chunks = ParallelUtil.processChunks(entries, chunkSize, executor,
+      new ParallelUtil.ChunkProcessor<Map.Entry<String, Object>, Map<K, T>>()
+      {
+        @Override
+        public Map<K, T> process(List<Map.Entry<String, Object>> chunk)
+        {
+          return convertEntries(chunk, chunk.size(), keyClass, valueClass);
+        }
+      });
+    Map<K, T> converted = new HashMap<K, T>((int)Math.ceil(raw.size() / 0.75f));
+    for (Map<K, T> chunk : chunks)
+    {
+      converted.putAll(chunk);
+    }
+    return converted;
+  }
+
+  private <T extends RecordTemplate> Map<K, T> convertEntries(Iterable<Map.Entry<String, Object>> entries,
+                                                              int size,
+                                                              Class<K> keyClass,
+                                                              Class<T> valueClass)
+  {
+    Map<K, T> converted = new HashMap<K, T>((int)Math.ceil(size / 0.75f));
+    for (Map.Entry<String, Object> entry : entries)
     {
       K key = convertKey(entry.getKey(), keyClass);
-      ErrorResponse value = DataTemplateUtil.wrap(entry.getValue(), ErrorResponse.class);
-      _errors.put(key, value);
+      T value = DataTemplateUtil.wrap(entry.getValue(), valueClass);
+      converted.put(key, value);
     }
+    return converted;
   }
 
   private <T> T convertKey(String rawKey, Class<? extends T> keyClass)
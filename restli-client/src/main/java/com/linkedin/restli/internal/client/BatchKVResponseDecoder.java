@@ -24,6 +24,8 @@ import java.util.Map;
 
 import com.linkedin.data.DataMap;
 import com.linkedin.data.template.RecordTemplate;
+import com.linkedin.restli.client.ResponseDecodingOptions;
+import com.linkedin.restli.client.RestLiDecodingException;
 import com.linkedin.restli.client.response.BatchKVResponse;
 
 /**
@@ -70,4 +72,20 @@ public class BatchKVResponseDecoder<K, V extends RecordTemplate> extends RestRes
                                      _keyKeyClass,
                                      _keyParamsClass);
   }
+
+  @Override
+  protected BatchKVResponse<K, V> wrapResponse(DataMap dataMap, ResponseDecodingOptions options)
+      throws RestLiDecodingException
+  {
+    validateElements(dataMap.get(BatchKVResponse.RESULTS), mapSchema(_elementClass), options);
+    return new BatchKVResponse<K, V>(dataMap,
+                                     _keyClass,
+                                     _elementClass,
+                                     _keyParts,
+                                     _keyKeyClass,
+                                     _keyParamsClass,
+                                     options.getExecutor(),
+                                     options.getParallelThreshold(),
+                                     options.getChunkSize());
+  }
 }
@@ -22,6 +22,8 @@ package com.linkedin.restli.internal.client;
 
 import com.linkedin.data.DataMap;
 import com.linkedin.data.template.RecordTemplate;
+import com.linkedin.restli.client.ResponseDecodingOptions;
+import com.linkedin.restli.client.RestLiDecodingException;
 import com.linkedin.restli.common.BatchResponse;
 
 /**
@@ -51,4 +53,16 @@ public class BatchResponseDecoder<T extends RecordTemplate> extends RestResponse
   {
      return new BatchResponse<T>(dataMap, _elementClass);
   }
+
+  @Override
+  protected BatchResponse<T> wrapResponse(DataMap dataMap, ResponseDecodingOptions options)
+      throws RestLiDecodingException
+  {
+    validateElements(dataMap.get(BatchResponse.RESULTS), mapSchema(_elementClass), options);
+    return new BatchResponse<T>(dataMap,
+                                _elementClass,
+                                options.getExecutor(),
+                                options.getParallelThreshold(),
+                                options.getChunkSize());
+  }
 }
@@ -22,6 +22,8 @@ package com.linkedin.restli.internal.client;
 
 import com.linkedin.data.DataMap;
 import com.linkedin.data.template.RecordTemplate;
+import com.linkedin.restli.client.ResponseDecodingOptions;
+import com.linkedin.restli.client.RestLiDecodingException;
 import com.linkedin.restli.common.CollectionResponse;
 
 /**
@@ -50,4 +52,16 @@ public class CollectionResponseDecoder<T extends RecordTemplate> extends RestRes
   {
     return new CollectionResponse<T>(dataMap, _elementClass);
   }
+
+  @Override
+  protected CollectionResponse<T> wrapResponse(DataMap dataMap, ResponseDecodingOptions options)
+      throws RestLiDecodingException
+  {
+    validateElements(dataMap.get(CollectionResponse.ELEMENTS), arraySchema(_elementClass), options);
+    return new CollectionResponse<T>(dataMap,
+                                     _elementClass,
+                                     options.getExecutor(),
+                                     options.getParallelThreshold(),
+                                     options.getChunkSize());
+  }
 }
@@ -23,13 +23,27 @@ package com.linkedin.restli.internal.client;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.InvocationTargetException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 import com.linkedin.data.ByteString;
 import com.linkedin.data.DataMap;
 import com.linkedin.data.codec.JacksonDataCodec;
 import com.linkedin.data.codec.PsonDataCodec;
+import com.linkedin.data.schema.ArrayDataSchema;
+import com.linkedin.data.schema.DataSchema;
+import com.linkedin.data.schema.MapDataSchema;
+import com.linkedin.data.schema.validation.CoercionMode;
+import com.linkedin.data.schema.validation.RequiredMode;
+import com.linkedin.data.schema.validation.ValidateDataAgainstSchema;
+import com.linkedin.data.schema.validation.ValidationOptions;
+import com.linkedin.data.schema.validation.ValidationResult;
+import com.linkedin.data.template.DataTemplateUtil;
+import com.linkedin.data.template.RecordTemplate;
 import com.linkedin.r2.message.rest.RestResponse;
 import com.linkedin.restli.client.Response;
+import com.linkedin.restli.client.ResponseDecodingOptions;
 import com.linkedin.restli.client.RestLiDecodingException;
 import com.linkedin.restli.common.RestConstants;
 
@@ -44,8 +58,30 @@ public abstract class RestResponseDecoder<T>
 {
   private static final JacksonDataCodec JACKSON_DATA_CODEC = new JacksonDataCodec();
   private static final PsonDataCodec    PSON_DATA_CODEC    = new PsonDataCodec();
+  private static final ValidationOptions VALIDATION_OPTIONS =
+      new ValidationOptions(RequiredMode.IGNORE, CoercionMode.NORMAL);
+  // weak keys so that cached schemas do not keep the classes of unloaded applications reachable
+  private static final Map<Class<?>, MapDataSchema> MAP_SCHEMAS =
+      Collections.synchronizedMap(new WeakHashMap<Class<?>, MapDataSchema>());
+  private static final Map<Class<?>, ArrayDataSchema> ARRAY_SCHEMAS =
+      Collections.synchronizedMap(new WeakHashMap<Class<?>, ArrayDataSchema>());
 
   public Response<T> decodeResponse(RestResponse restResponse) throws RestLiDecodingException
+  {
+    return decodeResponse(restResponse, ResponseDecodingOptions.DEFAULT);
+  }
+
+  /**
+   * Decode a response, validating and wrapping the elements of batch and collection
+   * responses as specified by the provided {@link ResponseDecodingOptions}.
+   *
+   * @param restResponse provides the {@link RestResponse} to decode.
+   * @param options provides the {@link ResponseDecodingOptions}.
+   * @return the decoded {@link Response}.
+   * @throws RestLiDecodingException if the response cannot be decoded or its elements are not valid.
+   */
+  public Response<T> decodeResponse(RestResponse restResponse, ResponseDecodingOptions options)
+      throws RestLiDecodingException
   {
     ResponseImpl<T> response = new ResponseImpl<T>(restResponse.getStatus(), restResponse.getHeaders());
 
@@ -69,7 +105,7 @@ public abstract class RestResponseDecoder<T>
       {
         dataMap = JACKSON_DATA_CODEC.readMap(inputStream);
       }
-      response.setEntity(wrapResponse(dataMap));
+      response.setEntity(wrapResponse(dataMap, options));
       return response;
     }
     catch (IOException e)
@@ -98,4 +134,74 @@ public abstract class RestResponseDecoder<T>
 
   protected abstract T wrapResponse(DataMap dataMap)
                   throws InstantiationException, IllegalAccessException, InvocationTargetException, NoSuchMethodException;
+
+  /**
+   * Wrap the decoded {@link DataMap}, validating and wrapping its elements as specified
+   * by the provided {@link ResponseDecodingOptions}, see {@link #decodeResponse(RestResponse, ResponseDecodingOptions)}.
+   * By default, the options are ignored.
+   */
+  protected T wrapResponse(DataMap dataMap, ResponseDecodingOptions options)
+                  throws InstantiationException, IllegalAccessException, InvocationTargetException, NoSuchMethodException,
+                         RestLiDecodingException
+  {
+    return wrapResponse(dataMap);
+  }
+
+  /**
+   * Validate the elements of a batch or collection response against their schema if
+   * {@link ResponseDecodingOptions#isValidateElements()} is set, concurrently if
+   * {@link ResponseDecodingOptions#isParallel(int)} for the number of elements.
+   *
+   * @param elements provides the {@link com.linkedin.data.DataList} or {@link DataMap} of elements, may be null.
+   * @param schema provides the schema of the elements container.
+   * @param options provides the {@link ResponseDecodingOptions}.
+   * @throws RestLiDecodingException if the elements are not valid.
+   */
+  protected static void validateElements(Object elements, DataSchema schema, ResponseDecodingOptions options)
+      throws RestLiDecodingException
+  {
+    if (elements == null || !options.isValidateElements())
+    {
+      return;
+    }
+    ValidationResult result = ValidateDataAgainstSchema.validate(elements,
+                                                                 schema,
+                                                                 VALIDATION_OPTIONS,
+                                                                 null,
+                                                                 options.getExecutor(),
+                                                                 options.getParallelThreshold(),
+                                                                 options.getChunkSize());
+    if (!result.isValid())
+    {
+      throw new RestLiDecodingException("Response elements are not valid: " + result.getMessages(), null);
+    }
+  }
+
+  /**
+   * @return the schema of a map of the provided record class, shared by all decoders.
+   */
+  protected static MapDataSchema mapSchema(Class<? extends RecordTemplate> valueClass)
+  {
+    MapDataSchema schema = MAP_SCHEMAS.get(valueClass);
+    if (schema == null)
+    {
+      schema = new MapDataSchema(DataTemplateUtil.getSchema(valueClass));
+      MAP_SCHEMAS.put(valueClass, schema);
+    }
+    return schema;
+  }
+
+  /**
+   * @return the schema of an array of the provided record class, shared by all decoders.
+   */
+  protected static ArrayDataSchema arraySchema(Class<? extends RecordTemplate> elementClass)
+  {
+    ArrayDataSchema schema = ARRAY_SCHEMAS.get(elementClass);
+    if (schema == null)
+    {
+      schema = new ArrayDataSchema(DataTemplateUtil.getSchema(elementClass));
+      ARRAY_SCHEMAS.put(elementClass, schema);
+    }
+    return schema;
+  }
 }
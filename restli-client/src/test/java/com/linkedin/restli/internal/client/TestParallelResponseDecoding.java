@@ -0,0 +1,191 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.restli.internal.client;
+
+
+import com.linkedin.data.DataList;
+import com.linkedin.data.DataMap;
+import com.linkedin.data.codec.JacksonDataCodec;
+import com.linkedin.r2.message.rest.RestResponse;
+import com.linkedin.r2.message.rest.RestResponseBuilder;
+import com.linkedin.restli.client.ResponseDecodingOptions;
+import com.linkedin.restli.client.RestLiDecodingException;
+import com.linkedin.restli.client.response.BatchKVResponse;
+import com.linkedin.restli.common.BatchResponse;
+import com.linkedin.restli.common.CollectionResponse;
+import com.linkedin.restli.common.ErrorResponse;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+public class TestParallelResponseDecoding
+{
+  private static final JacksonDataCodec CODEC = new JacksonDataCodec();
+
+  private ExecutorService _executor;
+
+  @BeforeClass
+  public void setUp()
+  {
+    _executor = Executors.newFixedThreadPool(3);
+  }
+
+  @AfterClass
+  public void tearDown()
+  {
+    _executor.shutdown();
+  }
+
+  @Test
+  public void testCollectionResponse() throws IOException, RestLiDecodingException
+  {
+    DataList elements = new DataList();
+    for (int i = 0; i < 100; i++)
+    {
+      elements.add(errorResponse(i));
+    }
+    DataMap dataMap = new DataMap();
+    dataMap.put(CollectionResponse.ELEMENTS, elements);
+    RestResponse restResponse = restResponse(dataMap);
+
+    CollectionResponseDecoder<ErrorResponse> decoder = new CollectionResponseDecoder<ErrorResponse>(ErrorResponse.class);
+    for (ResponseDecodingOptions options : options())
+    {
+      CollectionResponse<ErrorResponse> expected = decoder.decodeResponse(restResponse, sequential(options)).getEntity();
+      CollectionResponse<ErrorResponse> actual = decoder.decodeResponse(restResponse, options).getEntity();
+      Assert.assertEquals(actual.getElements(), expected.getElements());
+      assertCoerced(actual.getElements().get(99), options);
+      // elements wrapped concurrently are wrapped once
+      Assert.assertEquals(actual.getElements() == actual.getElements(), options.isParallel(100), options.toString());
+      List<ErrorResponse> actualElements = actual.getElements();
+      Assert.assertSame(actualElements.get(42), actualElements.get(42));
+    }
+  }
+
+  @Test
+  public void testBatchResponse() throws IOException, RestLiDecodingException
+  {
+    DataMap results = new DataMap();
+    for (int i = 0; i < 100; i++)
+    {
+      results.put(String.valueOf(i), errorResponse(i));
+    }
+    DataMap dataMap = new DataMap();
+    dataMap.put(BatchResponse.RESULTS, results);
+    dataMap.put(BatchResponse.ERRORS, new DataMap());
+    RestResponse restResponse = restResponse(dataMap);
+
+    BatchResponseDecoder<ErrorResponse> batchDecoder = new BatchResponseDecoder<ErrorResponse>(ErrorResponse.class);
+    BatchKVResponseDecoder<Long, ErrorResponse> batchKVDecoder =
+      new BatchKVResponseDecoder<Long, ErrorResponse>(ErrorResponse.class, Long.class, null, null, null);
+    for (ResponseDecodingOptions options : options())
+    {
+      BatchResponse<ErrorResponse> expected = batchDecoder.decodeResponse(restResponse, sequential(options)).getEntity();
+      BatchKVResponse<Long, ErrorResponse> expectedKV =
+        batchKVDecoder.decodeResponse(restResponse, sequential(options)).getEntity();
+      BatchResponse<ErrorResponse> actual = batchDecoder.decodeResponse(restResponse, options).getEntity();
+      Assert.assertEquals(actual.getResults(), expected.getResults());
+      assertCoerced(actual.getResults().get("99"), options);
+      Assert.assertEquals(actual.getResults() == actual.getResults(), options.isParallel(100), options.toString());
+      Map<String, ErrorResponse> actualResults = actual.getResults();
+      Assert.assertSame(actualResults.get("42"), actualResults.get("42"));
+      Assert.assertEquals(actual.getErrors(), Collections.emptyMap());
+
+      BatchKVResponse<Long, ErrorResponse> actualKV = batchKVDecoder.decodeResponse(restResponse, options).getEntity();
+      Assert.assertEquals(actualKV.getResults(), expectedKV.getResults());
+      Assert.assertEquals(actualKV.getResults().size(), 100);
+      Assert.assertEquals(actualKV.getResults().get(42L).getStatus(), 42);
+      assertCoerced(actualKV.getResults().get(99L), options);
+      Assert.assertEquals(actualKV.getErrors(), Collections.emptyMap());
+    }
+  }
+
+  @Test
+  public void testInvalidElements() throws IOException
+  {
+    DataList elements = new DataList();
+    for (int i = 0; i < 100; i++)
+    {
+      elements.add(errorResponse(i));
+    }
+    ((DataMap) elements.get(50)).put("status", "bad");
+    DataMap dataMap = new DataMap();
+    dataMap.put(CollectionResponse.ELEMENTS, elements);
+    RestResponse restResponse = restResponse(dataMap);
+
+    CollectionResponseDecoder<ErrorResponse> decoder = new CollectionResponseDecoder<ErrorResponse>(ErrorResponse.class);
+    for (ResponseDecodingOptions options : options())
+    {
+      try
+      {
+        decoder.decodeResponse(restResponse, options);
+        Assert.assertFalse(options.isValidateElements(), "invalid elements should not be decoded");
+      }
+      catch (RestLiDecodingException e)
+      {
+        Assert.assertTrue(options.isValidateElements());
+        Assert.assertTrue(e.getMessage().contains("/50/status"), e.getMessage());
+      }
+    }
+  }
+
+  private ResponseDecodingOptions[] options()
+  {
+    return new ResponseDecodingOptions[] {
+      new ResponseDecodingOptions(true, null, 0, 0),
+      new ResponseDecodingOptions(false, _executor, 1, 7),
+      new ResponseDecodingOptions(true, _executor, 1, 1),
+      new ResponseDecodingOptions(true, _executor, 1, 7),
+      new ResponseDecodingOptions(true, _executor, 100, 30),
+      new ResponseDecodingOptions(true, _executor, 1000, 7)
+    };
+  }
+
+  private static ResponseDecodingOptions sequential(ResponseDecodingOptions options)
+  {
+    return new ResponseDecodingOptions(options.isValidateElements(), null, 0, 0);
+  }
+
+  private static void assertCoerced(ErrorResponse errorResponse, ResponseDecodingOptions options)
+  {
+    // validation coerces the doubles written by the codec to the ints of the schema
+    Class<?> expected = options.isValidateElements() ? Integer.class : Double.class;
+    Assert.assertSame(errorResponse.data().get("status").getClass(), expected, options.toString());
+  }
+
+  private static DataMap errorResponse(int i)
+  {
+    DataMap errorResponse = new DataMap();
+    errorResponse.put("status", (double) i);
+    errorResponse.put("message", "message " + i);
+    return errorResponse;
+  }
+
+  private static RestResponse restResponse(DataMap dataMap) throws IOException
+  {
+    return new RestResponseBuilder().setStatus(200).setEntity(CODEC.mapToBytes(dataMap)).build();
+  }
+}
@@ -16,8 +16,11 @@
 
 package com.linkedin.restli.common;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import com.linkedin.data.DataMap;
 import com.linkedin.data.schema.MapDataSchema;
@@ -25,6 +28,7 @@ import com.linkedin.data.schema.Name;
 import com.linkedin.data.schema.RecordDataSchema;
 import com.linkedin.data.template.RecordTemplate;
 import com.linkedin.data.template.WrappingMapTemplate;
+import com.linkedin.restli.internal.common.ParallelWrapping;
 
 
 /**
@@ -44,6 +48,8 @@ public class BatchResponse<T extends RecordTemplate> extends RecordTemplate
   private final RecordDataSchema.Field _errorsField;
 
   private final RecordDataSchema _schema;
+  private DynamicRecordMap<T> _results;
+  private DynamicRecordMap<ErrorResponse> _errors;
   private static final Name _BATCH_RESPONSE_NAME = new Name(BatchResponse.class.getSimpleName());
 
   private static class DynamicRecordMap<R extends RecordTemplate> extends WrappingMapTemplate<R>
@@ -52,6 +58,19 @@ public class BatchResponse<T extends RecordTemplate> extends RecordTemplate
     {
       super(map, mapSchema, valueClass);
     }
+
+    private void wrapAll(Executor executor, int chunkSize)
+    {
+      List<Object> values = new ArrayList<Object>(data().values());
+      List<R> wrapped = ParallelWrapping.wrap(values, _constructor, executor, chunkSize);
+      for (int i = 0; i < values.size(); i++)
+      {
+        if (wrapped.get(i) != null)
+        {
+          _cache.put(values.get(i), wrapped.get(i));
+        }
+      }
+    }
   }
 
   /**
@@ -66,6 +85,41 @@ public class BatchResponse<T extends RecordTemplate> extends RecordTemplate
     this(data, valueClass, 0, 0);
   }
 
+  /**
+   * Initialize a BatchResponse with the given data and valueClass, wrapping the results
+   * and errors concurrently if there are at least {@code parallelThreshold} of them.
+   *
+   * @param data the data of the BatchResponse
+   * @param valueClass the class that the BatchResponse contains
+   *                   (a RecordTemplate, a CreateStatus, etc.)
+   * @param executor the Executor to wrap chunks of results and errors with, may be null
+   * @param parallelThreshold the minimum number of results or errors to wrap concurrently
+   * @param chunkSize the number of results or errors of each chunk
+   */
+  public BatchResponse(DataMap data,
+                       Class<T> valueClass,
+                       Executor executor,
+                       int parallelThreshold,
+                       int chunkSize)
+  {
+    this(data, valueClass, 0, 0);
+    if (executor != null)
+    {
+      DataMap results = (DataMap) data().get(RESULTS);
+      if (results.size() >= parallelThreshold && results.size() > 0)
+      {
+        _results = new DynamicRecordMap<T>(results, _resultsSchema, _valueClass);
+        _results.wrapAll(executor, chunkSize);
+      }
+      DataMap errors = (DataMap) data().get(ERRORS);
+      if (errors.size() >= parallelThreshold && errors.size() > 0)
+      {
+        _errors = new DynamicRecordMap<ErrorResponse>(errors, _errorsSchema, ErrorResponse.class);
+        _errors.wrapAll(executor, chunkSize);
+      }
+    }
+  }
+
   /**
    * Initialize a BatchResponse with the given valueClass and capacities.
    *
@@ -122,6 +176,10 @@ public class BatchResponse<T extends RecordTemplate> extends RecordTemplate
   public Map<String, T> getResults()
   {
     DataMap value = (DataMap) data().get(RESULTS);
+    if (_results != null && _results.data() == value)
+    {
+      return _results;
+    }
 
     return new DynamicRecordMap<T>(value, _resultsSchema, _valueClass);
   }
@@ -132,6 +190,10 @@ public class BatchResponse<T extends RecordTemplate> extends RecordTemplate
   public Map<String, ErrorResponse> getErrors()
   {
     DataMap value = (DataMap) data().get(ERRORS);
+    if (_errors != null && _errors.data() == value)
+    {
+      return _errors;
+    }
 
     return new DynamicRecordMap<ErrorResponse>(value, _errorsSchema, ErrorResponse.class);
   }
@@ -16,8 +16,10 @@
 
 package com.linkedin.restli.common;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import com.linkedin.data.DataList;
 import com.linkedin.data.DataMap;
@@ -27,6 +29,7 @@ import com.linkedin.data.schema.RecordDataSchema;
 import com.linkedin.data.template.GetMode;
 import com.linkedin.data.template.RecordTemplate;
 import com.linkedin.data.template.WrappingArrayTemplate;
+import com.linkedin.restli.internal.common.ParallelWrapping;
 
 
 /**
@@ -46,6 +49,7 @@ public class CollectionResponse<T extends RecordTemplate> extends RecordTemplate
   private final ArrayDataSchema _arraySchema;
   private final RecordDataSchema.Field _arrayField;
   private final RecordDataSchema _schema;
+  private DynamicRecordArray<T> _elements;
   private static final Name _COLLECTION_RESPONSE_NAME = new Name(CollectionResponse.class.getSimpleName());
 
 
@@ -56,6 +60,19 @@ public class CollectionResponse<T extends RecordTemplate> extends RecordTemplate
     {
       super(list, arraySchema, elementClass);
     }
+
+    private void wrapAll(Executor executor, int chunkSize)
+    {
+      List<Object> values = new ArrayList<Object>(data());
+      List<R> wrapped = ParallelWrapping.wrap(values, _constructor, executor, chunkSize);
+      for (int i = 0; i < values.size(); i++)
+      {
+        if (wrapped.get(i) != null)
+        {
+          _cache.put(values.get(i), wrapped.get(i));
+        }
+      }
+    }
   }
 
 
@@ -77,6 +94,26 @@ public class CollectionResponse<T extends RecordTemplate> extends RecordTemplate
    * @param elementClass the class of the elements returned
    */
   public CollectionResponse(DataMap data, Class<T> elementClass)
+  {
+    this(data, elementClass, null, 0, 0);
+  }
+
+  /**
+   * Initialize a CollectionResponse based on the given dataMap and the
+   * elements it returns, wrapping the elements concurrently if there are
+   * at least {@code parallelThreshold} of them.
+   *
+   * @param data a DataMap
+   * @param elementClass the class of the elements returned
+   * @param executor the Executor to wrap chunks of elements with, may be null
+   * @param parallelThreshold the minimum number of elements to wrap concurrently
+   * @param chunkSize the number of elements of each chunk
+   */
+  public CollectionResponse(DataMap data,
+                            Class<T> elementClass,
+                            Executor executor,
+                            int parallelThreshold,
+                            int chunkSize)
   {
     super(data, null);
     _elementClass = elementClass;
@@ -94,6 +131,12 @@ public class CollectionResponse<T extends RecordTemplate> extends RecordTemplate
     _schema = new RecordDataSchema(_COLLECTION_RESPONSE_NAME, RecordDataSchema.RecordType.RECORD);
     _schema.setFields(Arrays.asList(_arrayField, PAGING_FIELD), errorMessageBuilder);
 
+    DataList elements = (DataList) data().get(ELEMENTS);
+    if (executor != null && elements.size() >= parallelThreshold && elements.size() > 0)
+    {
+      _elements = new DynamicRecordArray<T>(elements, _arraySchema, _elementClass);
+      _elements.wrapAll(executor, chunkSize);
+    }
   }
 
   @Override
@@ -105,6 +148,10 @@ public class CollectionResponse<T extends RecordTemplate> extends RecordTemplate
   public List<T> getElements()
   {
     DataList value = (DataList) data().get(ELEMENTS);
+    if (_elements != null && _elements.data() == value)
+    {
+      return _elements;
+    }
 
     return new DynamicRecordArray<T>(value, _arraySchema, _elementClass);
   }
@@ -0,0 +1,76 @@
+/*
+   Copyright (c) 2012 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.restli.internal.common;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import com.linkedin.data.DataMap;
+import com.linkedin.data.template.DataTemplate;
+import com.linkedin.data.template.DataTemplateUtil;
+import com.linkedin.util.ParallelUtil;
+
+/**
+ * Wraps the records of large batch and collection responses concurrently.
+ */
+public class ParallelWrapping
+{
+  private ParallelWrapping()
+  {
+  }
+
+  /**
+   * Wrap records in chunks of {@code chunkSize} records concurrently, see {@link ParallelUtil#processChunks}.
+   *
+   * Values that are not {@link DataMap}s are not wrapped, they fail when they are accessed
+   * as they would if they had not been wrapped up front.
+   *
+   * @param values provides the records to wrap.
+   * @param constructor provides the constructor of the wrapper class.
+   * @param executor provides the {@link Executor} to wrap chunks of records with.
+   * @param chunkSize provides the number of records of each chunk.
+   * @return the wrapped records in the order of {@code values}, with null for values that are not wrapped.
+   */
+  public static <R extends DataTemplate<?>> List<R> wrap(List<Object> values,
+                                                        final Constructor<R> constructor,
+                                                        Executor executor,
+                                                        int chunkSize)
+  {
+    List<List<R>> chunks = ParallelUtil.processChunks(values, chunkSize, executor,
+      new ParallelUtil.ChunkProcessor<Object, List<R>>()
+      {
+        @Override
+        public List<R> process(List<Object> chunk)
+        {
+          List<R> wrapped = new ArrayList<R>(chunk.size());
+          for (Object value : chunk)
+          {
+            wrapped.add(value instanceof DataMap ? DataTemplateUtil.wrap(value, constructor) : null);
+          }
+          return wrapped;
+        }
+      });
+    List<R> wrapped = new ArrayList<R>(values.size());
+    for (List<R> chunk : chunks)
+    {
+      wrapped.addAll(chunk);
+    }
+    return wrapped;
+  }
+}
@@ -83,6 +83,7 @@ public class Parameter<T> extends FieldDef<T>
 
   private final boolean _isArray; // true if the parameter is an array
   private final Class<?> _itemType; // array item type or null
+  private volatile ArrayDataSchema _itemArraySchema; // schema of an array of DataTemplate items, created on first use
 
   private final AnnotationSet _annotations;
   private final DataMap _customAnnotations;
@@ -139,8 +140,7 @@ public class Parameter<T> extends FieldDef<T>
           final AbstractArrayTemplate<?> arrayTemplate;
           if (DataTemplate.class.isAssignableFrom(_itemType))
           {
-            final ArrayDataSchema arraySchema = new ArrayDataSchema(DataTemplateUtil.getSchema(_itemType));
-            arrayTemplate = new DynamicWrappedArray(valueAsDataList, arraySchema, _itemType);
+            arrayTemplate = new DynamicWrappedArray(valueAsDataList, getItemArraySchema(), _itemType);
           }
           else
           {
@@ -251,6 +251,18 @@ public class Parameter<T> extends FieldDef<T>
     return sb.toString();
   }
 
+  private ArrayDataSchema getItemArraySchema()
+  {
+    // the same schema is validated against every time, so that its compiled form is reused
+    ArrayDataSchema arraySchema = _itemArraySchema;
+    if (arraySchema == null)
+    {
+      arraySchema = new ArrayDataSchema(DataTemplateUtil.getSchema(_itemType));
+      _itemArraySchema = arraySchema;
+    }
+    return arraySchema;
+  }
+
   private static void validate(DataTemplate data, Class<?> clazz)
   {
     final ValidationResult valResult = ValidateDataAgainstSchema.validate(data.data(),